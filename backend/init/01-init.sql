@@ -1,20 +1,3 @@
+-- The schema is created by the Flyway migrations in src/main/resources/db/migration.
+-- Creating the extension needs elevated privileges, so it is done here as well.
 CREATE EXTENSION IF NOT EXISTS vector;
-
--- Vector store table for PgVectorStore
-CREATE TABLE IF NOT EXISTS vector_store (
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
-    content TEXT,
-    metadata JSONB,
-    embedding vector(768)
-);
-
--- Create index for vector search
-CREATE INDEX IF NOT EXISTS vector_store_embedding_idx ON vector_store 
-USING hnsw (embedding vector_cosine_ops);
-
--- Conversation model table for storing model per conversation
-CREATE TABLE IF NOT EXISTS conversation_model (
-    conversation_id VARCHAR(255) PRIMARY KEY,
-    model_name VARCHAR(50) NOT NULL,
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
-);
\ No newline at end of file
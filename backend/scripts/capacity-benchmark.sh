@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Connections per GB of heap in the servlet and the reactive mode: starts the backend with
+# stub models and a Testcontainers pgvector database in each mode with the same heap,
+# holds increasing numbers of connections open, and stops it again.
+# Requires Docker. Extra arguments are passed to Maven, e.g.
+#   scripts/capacity-benchmark.sh -Dcapacity.endpoint=events -Dcapacity.connections=1000,5000
+# Results are written to target/capacity-<mode>.json.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-8080}"
+HEAP="${HEAP:-512m}"
+MODES="${MODES:-servlet reactive}"
+mkdir -p target
+
+mvn -q -DskipTests test-compile
+
+for MODE in $MODES; do
+  LOG="target/capacity-${MODE}-backend.log"
+  PROFILE_ARGUMENT=""
+  if [ "$MODE" = "reactive" ]; then
+    PROFILE_ARGUMENT="--spring.profiles.active=reactive"
+  fi
+  # The event streams are limited per replica; lift the limit for the benchmark
+  mvn -q spring-boot:test-run \
+    -Dspring-boot.run.main-class=de.haeger.springaidemo.loadtest.LoadTestApplication \
+    -Dspring-boot.run.jvmArguments="-Xms${HEAP} -Xmx${HEAP}" \
+    -Dspring-boot.run.arguments="--server.port=${PORT} --app.memory.events.max-subscribers=100000 ${PROFILE_ARGUMENT}" \
+    "$@" > "$LOG" 2>&1 &
+  BACKEND_PID=$!
+  trap 'kill $BACKEND_PID 2>/dev/null || true' EXIT
+
+  echo "Waiting for the ${MODE} backend on port ${PORT} (log: ${LOG})"
+  for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; then
+      break
+    fi
+    sleep 1
+  done
+  curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null || { echo "Backend did not start"; tail -50 "$LOG"; exit 1; }
+
+  mvn -q -Pcapacity exec:exec -Dcapacity.baseUrl="http://localhost:${PORT}" \
+    -Dcapacity.output="target/capacity-${MODE}.json" "$@"
+
+  kill $BACKEND_PID 2>/dev/null || true
+  wait $BACKEND_PID 2>/dev/null || true
+done
@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Offline end-to-end load test: starts the backend with stub models and a
+# Testcontainers pgvector database, drives it, and stops it again.
+# Requires Docker. Extra arguments are passed to Maven, e.g.
+#   scripts/loadtest.sh -Dloadtest.concurrency=64 -Dloadtest.duration=120s
+# Stub latency is configured through the environment, e.g.
+#   APP_STUB_CHAT_LATENCY=fixed:200ms scripts/loadtest.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-8080}"
+LOG="target/loadtest-backend.log"
+mkdir -p target
+
+mvn -q -DskipTests test-compile
+mvn -q spring-boot:test-run \
+  -Dspring-boot.run.main-class=de.haeger.springaidemo.loadtest.LoadTestApplication \
+  -Dspring-boot.run.arguments="--server.port=${PORT}" \
+  "$@" > "$LOG" 2>&1 &
+BACKEND_PID=$!
+trap 'kill $BACKEND_PID 2>/dev/null || true' EXIT
+
+echo "Waiting for backend on port ${PORT} (log: ${LOG})"
+for _ in $(seq 1 120); do
+  if curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; then
+    break
+  fi
+  sleep 1
+done
+curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null || { echo "Backend did not start"; tail -50 "$LOG"; exit 1; }
+
+mvn -q -Ploadtest exec:exec -Dloadtest.baseUrl="http://localhost:${PORT}" "$@"
@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+# Startup benchmark: builds the fast-startup jar and starts it repeatedly as a plain jar,
+# with Spring AOT, and with Spring AOT plus a CDS archive. Records the time until the
+# health endpoint is up and the latency of the first chat request.
+# Uses the stub models, so no credentials or GPU are needed, but a database, e.g.
+#   docker compose up -d db
+#   scripts/startup-benchmark.sh
+# Settings through the environment: RUNS (default 5), PORT (8080), MODES, and the
+# SPRING_DATASOURCE_* variables of the backend.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${RUNS:-5}"
+PORT="${PORT:-8080}"
+MODES="${MODES:-jar aot aot-cds}"
+OUT="target/startup-benchmark"
+RESULT="target/startup-benchmark.csv"
+# Fast stub answers, so the first request measures the backend rather than the stub latency
+export APP_STUB_CHAT_LATENCY="${APP_STUB_CHAT_LATENCY:-fixed:1ms}"
+
+# AOT fixes the profile at build time; the stub Maven profile packages the stub models
+mvn -q -DskipTests -Pfast-startup,stub package -Dspring-boot.aot.jvmArguments=-Dspring.profiles.active=stub
+rm -rf "$OUT"
+java -Djarmode=tools -jar target/spring-ai-rag-tools-demo-*.jar extract --destination "$OUT" > /dev/null
+mv "$OUT"/*.jar "$OUT/app.jar"
+
+if [[ " $MODES " == *" aot-cds "* ]]; then
+  echo "Training run for the CDS archive"
+  java -XX:ArchiveClassesAtExit="$OUT/app.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -jar "$OUT/app.jar" --spring.profiles.active=stub > "$OUT/training.log" 2>&1
+fi
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+echo "mode,run,startup_ms,reported_startup_ms,first_request_ms" > "$RESULT"
+for mode in $MODES; do
+  case "$mode" in
+    jar) JVM_ARGS=() ;;
+    aot) JVM_ARGS=(-Dspring.aot.enabled=true) ;;
+    aot-cds) JVM_ARGS=(-Dspring.aot.enabled=true -XX:SharedArchiveFile="$OUT/app.jsa") ;;
+    *) echo "Unknown mode: $mode"; exit 1 ;;
+  esac
+
+  for run in $(seq 1 "$RUNS"); do
+    LOG="$OUT/$mode-$run.log"
+    start=$(now_ms)
+    java "${JVM_ARGS[@]}" -jar "$OUT/app.jar" --spring.profiles.active=stub --server.port="$PORT" > "$LOG" 2>&1 &
+    PID=$!
+    trap 'kill $PID 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; do
+      if ! kill -0 "$PID" 2>/dev/null; then
+        echo "Backend did not start ($mode), see $LOG"
+        exit 1
+      fi
+      sleep 0.05
+    done
+    startup=$(( $(now_ms) - start ))
+
+    # "Started ... in 3.456 seconds (process running for 3.9)"
+    reported=$(grep -o 'process running for [0-9.]*' "$LOG" | awk '{ printf "%d", $4 * 1000 }')
+    first_request=$(curl -sf -o /dev/null -w '%{time_total}' \
+      "http://localhost:${PORT}/chat?msg=Hello&conversationId=startup-benchmark-$mode-$run" \
+      | awk '{ printf "%d", $1 * 1000 }')
+
+    kill "$PID"
+    wait "$PID" 2>/dev/null || true
+    echo "$mode,$run,$startup,$reported,$first_request" | tee -a "$RESULT"
+  done
+done
+
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+echo
+echo "Median per mode (ms):"
+for mode in $MODES; do
+  startup=$(grep "^$mode," "$RESULT" | cut -d, -f3 | median)
+  first_request=$(grep "^$mode," "$RESULT" | cut -d, -f5 | median)
+  printf "  %-8s startup %6d  first request %6d\n" "$mode" "$startup" "$first_request"
+done
+echo "Results: $RESULT"
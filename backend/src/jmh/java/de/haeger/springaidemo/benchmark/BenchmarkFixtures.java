@@ -0,0 +1,169 @@
+package de.haeger.springaidemo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.coalescing.CoalescingAdvisor;
+import de.haeger.springaidemo.coalescing.RequestCoalescer;
+import de.haeger.springaidemo.config.ChatClientConfig;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.entity.AppSetting;
+import de.haeger.springaidemo.entity.ConversationModel;
+import de.haeger.springaidemo.memory.ConversationEventService;
+import de.haeger.springaidemo.observability.InstrumentedChatMemory;
+import de.haeger.springaidemo.observability.InstrumentedEmbeddingModel;
+import de.haeger.springaidemo.observability.InstrumentedVectorStore;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.observability.PipelineMetricsAdvisor;
+import de.haeger.springaidemo.ollama.OllamaModelManager;
+import de.haeger.springaidemo.prompt.PromptCatalog;
+import de.haeger.springaidemo.rag.ContextAssembler;
+import de.haeger.springaidemo.rag.RetrievalGate;
+import de.haeger.springaidemo.repository.AppSettingRepository;
+import de.haeger.springaidemo.repository.ConversationModelRepository;
+import de.haeger.springaidemo.service.ModelSwitchService;
+import de.haeger.springaidemo.stub.StubChatModel;
+import de.haeger.springaidemo.stub.StubEmbeddingModel;
+import de.haeger.springaidemo.tools.ToolExecutionService;
+import de.haeger.springaidemo.tools.WeatherTool;
+import de.haeger.springaidemo.vectorstore.VectorStoreMaintenanceService;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
+import de.haeger.springaidemo.vectorstore.VectorStoreStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wires the backend components the same way Spring does, but with stub models and
+ * in-memory stores, so benchmarks measure our code rather than the network or the database.
+ */
+public class BenchmarkFixtures {
+
+    public final PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+    public final PipelineMetricsAdvisor pipelineMetricsAdvisor = new PipelineMetricsAdvisor(pipelineMetrics);
+    public final ChatModel geminiModel = new StubChatModel("gemini");
+    public final ChatModel ollamaModel = new StubChatModel("ollama");
+    public final EmbeddingModel embeddingModel = new InstrumentedEmbeddingModel(new StubEmbeddingModel(), pipelineMetrics);
+    public final ConversationModelRepository conversationModelRepository = new InMemoryConversationModelRepository();
+    public final AppSettingRepository appSettingRepository = new InMemoryAppSettingRepository();
+    public final ChatMemory chatMemory = new InstrumentedChatMemory(
+            MessageWindowChatMemory.builder()
+                    .chatMemoryRepository(new InMemoryChatMemoryRepository())
+                    .build(),
+            pipelineMetrics);
+    public final ModelSwitchService modelSwitchService = PropertyDefaults.apply(new ModelSwitchService(
+            geminiModel, ollamaModel, conversationModelRepository, appSettingRepository,
+            PropertyDefaults.apply(new OllamaModelManager(pipelineMetrics, RestClient.builder())), pipelineMetrics));
+
+    public final ToolExecutionService toolExecutionService =
+            PropertyDefaults.apply(new ToolExecutionService(pipelineMetrics, new ObjectMapper()));
+    public final PromptCatalog promptCatalog = new PromptCatalog("v1");
+    public final ContextAssembler contextAssembler = PropertyDefaults.apply(new ContextAssembler());
+    // Stub answers repeat the question, so the gate would skip repeated questions as answered
+    public final RetrievalGate retrievalGate = PropertyDefaults.apply(new RetrievalGate() {
+        @Override
+        public Decision decide(String question, List<Message> history, int defaultTopK) {
+            return super.decide(question, List.of(), defaultTopK);
+        }
+    });
+    public final RequestCoalescer requestCoalescer = PropertyDefaults.apply(new RequestCoalescer(pipelineMetrics));
+    public final CoalescingAdvisor coalescingAdvisor = new CoalescingAdvisor(requestCoalescer);
+
+    // Database-backed collaborators of the controllers; not started, and any query fails as there is no DataSource
+    public final JdbcTemplate analyticsJdbcTemplate = new JdbcTemplate();
+    public final VectorStoreStatsService vectorStoreStatsService = PropertyDefaults.apply(new VectorStoreStatsService(
+            analyticsJdbcTemplate,
+            PropertyDefaults.apply(new VectorStoreMaintenanceService(analyticsJdbcTemplate, analyticsJdbcTemplate)),
+            pipelineMetrics));
+    public final ConversationEventService conversationEventService =
+            PropertyDefaults.apply(new ConversationEventService(analyticsJdbcTemplate));
+
+    public ChatClientConfig chatClientConfig() {
+        return new ChatClientConfig(chatMemory, new WeatherTool(), modelSwitchService, pipelineMetrics,
+                pipelineMetricsAdvisor, coalescingAdvisor, toolExecutionService, promptCatalog);
+    }
+
+    public VectorStore newVectorStore() {
+        return new InstrumentedVectorStore(SimpleVectorStore.builder(embeddingModel).build(), pipelineMetrics);
+    }
+
+    /**
+     * Router serving the default namespace from an in-memory store; other namespaces need a database.
+     */
+    public VectorStoreRouter newVectorStoreRouter() {
+        return new VectorStoreRouter(new JdbcTemplate(), partition -> newVectorStore());
+    }
+
+    /**
+     * Deterministic text of roughly the given number of words.
+     */
+    public static String text(int words) {
+        String[] vocabulary = {
+                "weather", "bonn", "rain", "temperature", "forecast", "wind", "sunny", "cloud",
+                "document", "vector", "search", "memory", "model", "answer", "question", "context"
+        };
+        StringBuilder builder = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            builder.append(vocabulary[(i * 7 + i / 13) % vocabulary.length]);
+            builder.append(i % 17 == 16 ? ".\n" : " ");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Conversation models in memory, with the derived and native queries of the repository.
+     */
+    public static class InMemoryConversationModelRepository
+            extends InMemoryJpaRepository<ConversationModel, String> implements ConversationModelRepository {
+
+        public InMemoryConversationModelRepository() {
+            super(new ConcurrentHashMap<>(), ConversationModel::getConversationId);
+        }
+
+        @Override
+        public Optional<ConversationModel> findByConversationId(String conversationId) {
+            return findById(conversationId);
+        }
+
+        @Override
+        public Optional<String> findModelNameByConversationId(String conversationId) {
+            return findById(conversationId).map(ConversationModel::getModelName);
+        }
+
+        @Override
+        public void upsertModelName(String conversationId, String modelName) {
+            save(new ConversationModel(conversationId, modelName));
+        }
+    }
+
+    /**
+     * Application settings in memory, with the queries of the repository.
+     */
+    public static class InMemoryAppSettingRepository
+            extends InMemoryJpaRepository<AppSetting, String> implements AppSettingRepository {
+
+        public InMemoryAppSettingRepository() {
+            super(new ConcurrentHashMap<>(), AppSetting::getName);
+        }
+
+        @Override
+        public Optional<String> findValueByName(String name) {
+            return findById(name).map(AppSetting::getValue);
+        }
+
+        @Override
+        public void upsertValue(String name, String value) {
+            save(new AppSetting(name, value));
+        }
+    }
+}
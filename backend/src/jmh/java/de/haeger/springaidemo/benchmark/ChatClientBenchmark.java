@@ -0,0 +1,102 @@
+package de.haeger.springaidemo.benchmark;
+
+import de.haeger.springaidemo.config.ChatClientConfig;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.rag.ContextAssemblingAdvisor;
+import de.haeger.springaidemo.rag.RagService;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks ChatClient construction and the overhead of the advisor chain.
+ * Compare callThroughAdvisorChain and ragQuery against callModelDirectly to see
+ * what memory, metrics and retrieval add on top of the model call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatClientBenchmark {
+
+    private static final String QUESTION = "What is the weather forecast for Bonn tomorrow?";
+
+    private ChatClientConfig chatClientConfig;
+    private ChatModel chatModel;
+    private ChatClient chatClient;
+    private RagService ragService;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures();
+        chatClientConfig = fixtures.chatClientConfig();
+        chatModel = fixtures.geminiModel;
+        chatClient = chatClientConfig.createChatClient(chatModel);
+
+        VectorStoreRouter vectorStoreRouter = fixtures.newVectorStoreRouter();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            documents.add(new Document(BenchmarkFixtures.text(120 + i), Map.of("source", "benchmark")));
+        }
+        vectorStoreRouter.getDefault().add(documents);
+        ContextAssemblingAdvisor contextAssemblingAdvisor = PropertyDefaults.apply(new ContextAssemblingAdvisor(
+                vectorStoreRouter, fixtures.contextAssembler, fixtures.retrievalGate, fixtures.pipelineMetrics,
+                fixtures.requestCoalescer, fixtures.promptCatalog));
+        ragService = new RagService(contextAssemblingAdvisor, fixtures.chatMemory, fixtures.pipelineMetricsAdvisor,
+                fixtures.coalescingAdvisor, fixtures.promptCatalog);
+    }
+
+    @Benchmark
+    public ChatClient createChatClient() {
+        return chatClientConfig.createChatClient(chatModel);
+    }
+
+    @Benchmark
+    public String callModelDirectly() {
+        return chatModel.call(new Prompt(QUESTION)).getResult().getOutput().getText();
+    }
+
+    @Benchmark
+    public String callThroughAdvisorChain() {
+        return chatClient.prompt()
+                .user(QUESTION)
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, "benchmark-chat"))
+                .call()
+                .content();
+    }
+
+    @Benchmark
+    public String createClientAndCall() {
+        // What ChatController does per request
+        return chatClientConfig.createChatClient(chatModel).prompt()
+                .user(QUESTION)
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, "benchmark-chat"))
+                .call()
+                .content();
+    }
+
+    @Benchmark
+    public String ragQuery() {
+        return ragService.query(QUESTION, "benchmark-rag", chatModel);
+    }
+}
@@ -0,0 +1,67 @@
+package de.haeger.springaidemo.benchmark;
+
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.rag.DocumentIndexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks document splitting and indexing with a stub embedding model
+ * and an in-memory vector store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentIndexingBenchmark {
+
+    @Param({"1000", "20000"})
+    public int words;
+
+    private BenchmarkFixtures fixtures;
+    private String text;
+    private TokenTextSplitter splitter;
+    private DocumentIndexer documentIndexer;
+
+    @Setup
+    public void setup() {
+        fixtures = new BenchmarkFixtures();
+        text = BenchmarkFixtures.text(words);
+        splitter = new TokenTextSplitter();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetVectorStore() {
+        // Start every iteration with an empty store so the store size does not skew results
+        documentIndexer = PropertyDefaults.apply(
+                new DocumentIndexer(fixtures.embeddingModel, fixtures.newVectorStoreRouter()));
+    }
+
+    @Benchmark
+    public List<Document> split() {
+        return splitter.apply(List.of(new Document(text, Map.of("source", "benchmark"))));
+    }
+
+    @Benchmark
+    public void indexText() {
+        documentIndexer.indexText(text);
+    }
+}
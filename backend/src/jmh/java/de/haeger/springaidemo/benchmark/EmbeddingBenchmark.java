@@ -0,0 +1,83 @@
+package de.haeger.springaidemo.benchmark;
+
+import de.haeger.springaidemo.config.EmbeddingConfig;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.stub.LatencyDistribution;
+import de.haeger.springaidemo.stub.StubEmbeddingModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares query latency and ingest throughput of the remote embedding model, simulated by
+ * a stub with the round trip as latency, against the in-process ONNX model.
+ * The ONNX model is downloaded on the first run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmbeddingBenchmark {
+
+    private static final String QUERY = "What is the weather forecast for Bonn tomorrow?";
+
+    @Param({"remote", "onnx"})
+    public String model;
+
+    /** Round trip of the remote model, e.g. Vertex text-embedding-004 from a nearby region. */
+    @Param({"lognormal:150ms:0.3"})
+    public String remoteLatency;
+
+    private EmbeddingModel embeddingModel;
+    private List<String> chunks;
+
+    @Setup
+    public void setup() throws Exception {
+        embeddingModel = switch (model) {
+            case "remote" -> new StubEmbeddingModel(
+                    StubEmbeddingModel.DEFAULT_DIMENSIONS, LatencyDistribution.parse(remoteLatency), 42);
+            case "onnx" -> PropertyDefaults.apply(new EmbeddingConfig()).onnxEmbeddingModel();
+            default -> throw new IllegalArgumentException(model);
+        };
+        // One ingest batch of chunks of about 1000 characters
+        chunks = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            chunks.add(BenchmarkFixtures.text(150 + i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (embeddingModel instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Benchmark
+    public float[] embedQuery() {
+        return embeddingModel.embed(QUERY);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<float[]> embedIngestBatch() {
+        return embeddingModel.embed(chunks);
+    }
+}
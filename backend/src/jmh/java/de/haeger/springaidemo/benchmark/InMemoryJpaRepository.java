@@ -0,0 +1,245 @@
+package de.haeger.springaidemo.benchmark;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * JpaRepository keeping its entities in a map, for benchmarks without a database.
+ * Query by example matches the non-null properties of the probe exactly, like the
+ * default {@link org.springframework.data.domain.ExampleMatcher}; the fluent
+ * {@link #findBy(Example, Function)} variant is not supported.
+ *
+ * @param <T> the entity type
+ * @param <ID> the ID type
+ */
+public abstract class InMemoryJpaRepository<T, ID> implements JpaRepository<T, ID> {
+
+    protected final Map<ID, T> store;
+    private final Function<T, ID> idOf;
+
+    protected InMemoryJpaRepository(Map<ID, T> store, Function<T, ID> idOf) {
+        this.store = store;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        store.put(idOf.apply(entity), entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        return stream(entities).map(this::save).toList();
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    @Override
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public boolean existsById(ID id) {
+        return store.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<ID> ids) {
+        return stream(ids).map(store::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sorted(store.values().stream(), sort);
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(store.values().stream(), pageable);
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(ID id) {
+        store.remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        store.remove(idOf.apply(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends ID> ids) {
+        ids.forEach(store::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        store.clear();
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<ID> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(ID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(ID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(ID id) {
+        return findById(id).orElseThrow(() -> new IllegalArgumentException("No entity with ID " + id));
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return matching(example).findFirst();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return matching(example).toList();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return sorted(matching(example), sort);
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(matching(example), pageable);
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return matching(example).count();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return matching(example).findAny().isPresent();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new UnsupportedOperationException("Fluent queries are not supported by the in-memory repository");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends T> Stream<S> matching(Example<S> example) {
+        BeanWrapperImpl probe = new BeanWrapperImpl(example.getProbe());
+        return store.values().stream()
+                .filter(entity -> example.getProbeType().isInstance(entity))
+                .map(entity -> (S) entity)
+                .filter(entity -> {
+                    BeanWrapperImpl candidate = new BeanWrapperImpl(entity);
+                    for (var property : probe.getPropertyDescriptors()) {
+                        Object expected = property.getReadMethod() != null && !property.getName().equals("class")
+                                ? probe.getPropertyValue(property.getName())
+                                : null;
+                        if (expected != null && !expected.equals(candidate.getPropertyValue(property.getName()))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+    }
+
+    private static <S> List<S> sorted(Stream<S> entities, Sort sort) {
+        Comparator<S> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<S> byProperty = Comparator.comparing(
+                    entity -> propertyValue(entity, order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            byProperty = order.isAscending() ? byProperty : byProperty.reversed();
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        return comparator == null ? entities.toList() : entities.sorted(comparator).toList();
+    }
+
+    // Sort properties of entities are Comparable, as they are for a JPA query
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> propertyValue(Object entity, String property) {
+        return (Comparable<Object>) new BeanWrapperImpl(entity).getPropertyValue(property);
+    }
+
+    private static <S> Page<S> page(Stream<S> entities, Pageable pageable) {
+        List<S> all = sorted(entities, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    private static <E> Stream<E> stream(Iterable<E> iterable) {
+        return StreamSupport.stream(iterable.spliterator(), false);
+    }
+}
@@ -0,0 +1,69 @@
+package de.haeger.springaidemo.benchmark;
+
+import de.haeger.springaidemo.controller.InfoController;
+import de.haeger.springaidemo.dto.ChatMemoryDto;
+import de.haeger.springaidemo.dto.ModelSettingsDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the DTO mapping done by the InfoController debug endpoints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InfoControllerBenchmark {
+
+    private static final String CONVERSATION_ID = "benchmark-info";
+
+    @Param({"10", "20"})
+    public int messageCount;
+
+    private InfoController infoController;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures();
+        ChatMemory chatMemory = fixtures.chatMemory;
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            String text = BenchmarkFixtures.text(60);
+            messages.add(i % 2 == 0 ? new UserMessage(text) : new AssistantMessage(text));
+        }
+        chatMemory.add(CONVERSATION_ID, messages);
+        // The mapping endpoints do not touch the database
+        infoController = new InfoController(chatMemory, fixtures.analyticsJdbcTemplate,
+                fixtures.vectorStoreStatsService, fixtures.conversationEventService);
+    }
+
+    @Benchmark
+    public ResponseEntity<ModelSettingsDto> modelSettings() {
+        return infoController.getModelSettings();
+    }
+
+    @Benchmark
+    public ResponseEntity<ChatMemoryDto> memory() {
+        return infoController.getMemory(CONVERSATION_ID);
+    }
+}
@@ -0,0 +1,58 @@
+package de.haeger.springaidemo.benchmark;
+
+import de.haeger.springaidemo.service.ModelSwitchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the model lookups done by ModelSwitchService on every request.
+ * The repository is in memory, so this measures the service overhead only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelSwitchBenchmark {
+
+    private ModelSwitchService modelSwitchService;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures();
+        modelSwitchService = fixtures.modelSwitchService;
+        modelSwitchService.switchModelForConversation("stored-conversation", "ollama");
+    }
+
+    @Benchmark
+    public ChatModel currentModel() {
+        return modelSwitchService.getCurrentModel();
+    }
+
+    @Benchmark
+    public ChatModel storedConversationModel() {
+        return modelSwitchService.getModelForConversation("stored-conversation");
+    }
+
+    @Benchmark
+    public ChatModel unknownConversationModel() {
+        return modelSwitchService.getModelForConversation("unknown-conversation");
+    }
+
+    @Benchmark
+    public String storedConversationModelName() {
+        return modelSwitchService.getModelNameForConversation("stored-conversation");
+    }
+}
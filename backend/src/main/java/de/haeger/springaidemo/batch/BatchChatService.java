@@ -0,0 +1,785 @@
+package de.haeger.springaidemo.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.haeger.springaidemo.config.ChatClientConfig;
+import de.haeger.springaidemo.dto.BatchJobDto;
+import de.haeger.springaidemo.dto.BatchPromptDto;
+import de.haeger.springaidemo.observability.PipelineContext;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.rag.RagService;
+import de.haeger.springaidemo.service.ModelSwitchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Offline batch processing of prompts, for classification or summarization runs over
+ * thousands of prompts. The prompts of a job are stored in {@code batch_item} and answered
+ * concurrently, within a concurrency limit per model shared by all jobs of the replica.
+ * With the model {@code auto}, every prompt goes to the first model with a free slot that
+ * can answer without waiting for a load. Prompts are answered without chat memory, and
+ * failed calls are retried with exponential backoff.
+ * Every answer is stored as soon as it arrives, so the results can be streamed while the
+ * job runs and a job interrupted by a restart continues with its pending prompts: the
+ * replica running a job renews a lease on it, and any replica takes over jobs whose lease
+ * has expired.
+ */
+@Service
+public class BatchChatService implements SmartLifecycle {
+
+    public static final String AUTO = "auto";
+    public static final String RUNNING = "RUNNING";
+    public static final String CANCELLED = "CANCELLED";
+
+    private static final Logger log = LoggerFactory.getLogger(BatchChatService.class);
+
+    private static final String ENDPOINT = "/batch/chat";
+    private static final String PENDING = "PENDING";
+    private static final String DONE = "DONE";
+    private static final String FAILED = "FAILED";
+    // Order of preference of the models of auto jobs
+    private static final List<String> MODELS = List.of("gemini", "ollama");
+
+    private static final String INSERT_JOB =
+            "INSERT INTO batch_job (id, model, rag, status, item_count, lease_owner, lease_until) "
+                    + "VALUES (?, ?, ?, 'SUBMITTING', ?, ?, CURRENT_TIMESTAMP + make_interval(secs => ?))";
+    private static final String INSERT_ITEM =
+            "INSERT INTO batch_item (job_id, item_index, custom_id, prompt, rag) VALUES (?, ?, ?, ?, ?)";
+    private static final String RENEW_SUBMISSION =
+            "UPDATE batch_job SET lease_until = CURRENT_TIMESTAMP + make_interval(secs => ?) "
+                    + "WHERE id = ? AND status = 'SUBMITTING'";
+    private static final String START_JOB =
+            "UPDATE batch_job SET status = 'RUNNING', lease_until = CURRENT_TIMESTAMP + make_interval(secs => ?) "
+                    + "WHERE id = ? AND status = 'SUBMITTING'";
+    private static final String DELETE_JOB =
+            "DELETE FROM batch_job WHERE id = ?";
+    private static final String SELECT_JOB =
+            "SELECT j.id, j.model, j.rag, j.status, j.item_count, j.created_at, j.completed_at, "
+                    + "COUNT(*) FILTER (WHERE i.status = 'DONE') AS done, "
+                    + "COUNT(*) FILTER (WHERE i.status = 'FAILED') AS failed "
+                    + "FROM batch_job j LEFT JOIN batch_item i ON i.job_id = j.id WHERE j.id = ? GROUP BY j.id";
+    private static final String SELECT_JOB_STATUS =
+            "SELECT status FROM batch_job WHERE id = ?";
+    private static final String SELECT_PENDING_ITEMS =
+            "SELECT item_index, prompt, rag FROM batch_item "
+                    + "WHERE job_id = ? AND status = 'PENDING' AND item_index > ? ORDER BY item_index LIMIT ?";
+    private static final String SELECT_RESULTS =
+            "SELECT item_index, custom_id, status, model, answer, error, duration_ms FROM batch_item "
+                    + "WHERE job_id = ? AND item_index >= ? ORDER BY item_index LIMIT ?";
+    private static final String COMPLETE_ITEM =
+            "UPDATE batch_item SET status = ?, model = ?, answer = ?, error = ?, attempts = attempts + ?, "
+                    + "duration_ms = ?, completed_at = CURRENT_TIMESTAMP "
+                    + "WHERE job_id = ? AND item_index = ? AND status = 'PENDING'";
+    private static final String COMPLETE_JOB =
+            "UPDATE batch_job SET status = 'COMPLETED', completed_at = CURRENT_TIMESTAMP, "
+                    + "lease_owner = NULL, lease_until = NULL "
+                    + "WHERE id = ? AND status = 'RUNNING' AND lease_owner = ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM batch_item WHERE job_id = ? AND status = 'PENDING')";
+    private static final String CANCEL_JOB =
+            "UPDATE batch_job SET status = 'CANCELLED', completed_at = CURRENT_TIMESTAMP, "
+                    + "lease_owner = NULL, lease_until = NULL WHERE id = ? AND status = 'RUNNING'";
+    private static final String RENEW_LEASE =
+            "UPDATE batch_job SET lease_until = CURRENT_TIMESTAMP + make_interval(secs => ?) "
+                    + "WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'";
+    // Replicas claiming at the same time skip each other's jobs instead of waiting for them
+    private static final String CLAIM_JOBS =
+            "UPDATE batch_job SET lease_owner = ?, lease_until = CURRENT_TIMESTAMP + make_interval(secs => ?) "
+                    + "WHERE id IN (SELECT id FROM batch_job WHERE status = 'RUNNING' "
+                    + "AND (lease_until IS NULL OR lease_until < CURRENT_TIMESTAMP) "
+                    + "ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED) "
+                    + "RETURNING id, model, rag";
+    private static final String RELEASE_LEASES =
+            "UPDATE batch_job SET lease_owner = NULL, lease_until = NULL WHERE lease_owner = ? AND status = 'RUNNING'";
+    // Also deletes submissions cut short by a crash, which no longer renew their lease
+    private static final String PURGE_JOBS =
+            "DELETE FROM batch_job WHERE (status IN ('COMPLETED', 'CANCELLED') "
+                    + "AND completed_at < CURRENT_TIMESTAMP - make_interval(secs => ?)) "
+                    + "OR (status = 'SUBMITTING' AND lease_until < CURRENT_TIMESTAMP)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatClientConfig chatClientConfig;
+    private final RagService ragService;
+    private final ModelSwitchService modelSwitchService;
+    private final PipelineMetrics pipelineMetrics;
+    private final ObjectReader promptReader;
+    private final ObjectWriter promptWriter;
+    private final ObjectWriter recordWriter;
+    // Identifies this replica as lease owner
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<UUID, JobRun> runs = new ConcurrentHashMap<>();
+    // Signals stored answers to the result streams of this replica
+    private final Object progress = new Object();
+    private long progressVersion;
+
+    @Value("${app.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.batch.concurrency.gemini:8}")
+    private int geminiConcurrency;
+
+    @Value("${app.batch.concurrency.ollama:1}")
+    private int ollamaConcurrency;
+
+    @Value("${app.batch.max-jobs:4}")
+    private int maxJobs;
+
+    @Value("${app.batch.max-prompts:100000}")
+    private int maxPrompts;
+
+    @Value("${app.batch.page-size:100}")
+    private int pageSize;
+
+    @Value("${app.batch.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.batch.retry-backoff:2s}")
+    private Duration retryBackoff;
+
+    @Value("${app.batch.poll-interval:1s}")
+    private Duration pollInterval;
+
+    @Value("${app.batch.stream-timeout:1h}")
+    private Duration streamTimeout;
+
+    @Value("${app.batch.lease:2m}")
+    private Duration lease;
+
+    @Value("${app.batch.claim-interval:30s}")
+    private Duration claimInterval;
+
+    @Value("${app.batch.retention:7d}")
+    private Duration retention;
+
+    private ModelSlots modelSlots;
+    private List<String> autoModels;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public BatchChatService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ChatClientConfig chatClientConfig,
+            RagService ragService,
+            ModelSwitchService modelSwitchService,
+            PipelineMetrics pipelineMetrics,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chatClientConfig = chatClientConfig;
+        this.ragService = ragService;
+        this.modelSwitchService = modelSwitchService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.promptReader = objectMapper.readerFor(BatchPromptDto.class);
+        this.promptWriter = objectMapper.writerFor(BatchPromptDto.class);
+        this.recordWriter = objectMapper.writerFor(BatchRecord.class);
+    }
+
+    @Override
+    public void start() {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        limits.put("gemini", geminiConcurrency);
+        limits.put("ollama", ollamaConcurrency);
+        modelSlots = new ModelSlots(limits);
+        autoModels = MODELS.stream().filter(model -> modelSlots.limit(model) > 0).toList();
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("batch-jobs").factory());
+        // Runs right away, so jobs interrupted by a restart of this replica are resumed
+        scheduler.scheduleWithFixedDelay(this::maintainJobs, 0, claimInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        runs.values().forEach(JobRun::stop);
+        // Prompts in flight stay pending; another replica can take the jobs over right away
+        try {
+            jdbcTemplate.update(RELEASE_LEASES, instanceId);
+        } catch (DataAccessException e) {
+            log.warn("Could not release the batch job leases, they expire in {}: {}", lease, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Submit a batch job and start answering its prompts.
+     *
+     * @param prompts the prompts
+     * @param model a model name, or "auto" to use any ready model
+     * @param rag whether to answer the prompts from the knowledge base, unless set per prompt
+     * @return the submitted job
+     * @throws IllegalArgumentException if there are no prompts, too many, a prompt is empty or the model is unknown
+     */
+    public BatchJobDto submit(List<BatchPromptDto> prompts, String model, boolean rag) {
+        String jobModel = jobModel(model);
+        if (prompts == null || prompts.isEmpty()) {
+            throw new IllegalArgumentException("No prompts");
+        }
+        for (int index = 0; index < prompts.size(); index++) {
+            validate(prompts.get(index), index);
+        }
+        return submit(prompts.iterator(), prompts.size(), jobModel, rag);
+    }
+
+    /**
+     * Submit a batch job read from NDJSON or plain text. NDJSON lines are read as
+     * {@link BatchPromptDto}, other lines as one prompt each; blank lines are skipped.
+     * The prompts are read and validated into a temporary file first, so no transaction
+     * is open while the client uploads.
+     *
+     * @param in the prompts, UTF-8 encoded
+     * @see #submit(List, String, boolean)
+     * @throws IOException if reading fails
+     */
+    public BatchJobDto submit(InputStream in, String model, boolean rag) throws IOException {
+        String jobModel = jobModel(model);
+        Path spool = Files.createTempFile("batch-", ".ndjson");
+        try {
+            int count = 0;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            try (Writer writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    BatchPromptDto prompt = readPrompt(line);
+                    validate(prompt, count++);
+                    writer.write(promptWriter.writeValueAsString(prompt));
+                    writer.write('\n');
+                }
+            }
+            if (count == 0) {
+                throw new IllegalArgumentException("No prompts");
+            }
+            try (MappingIterator<BatchPromptDto> prompts = promptReader.readValues(spool.toFile())) {
+                return submit(prompts, count, jobModel, rag);
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * Store a job and its validated prompts. The job is inserted as SUBMITTING and its
+     * prompts a page per transaction, so no transaction stays open for the whole job;
+     * it is started once all prompts are stored, and deleted if storing fails.
+     */
+    private BatchJobDto submit(Iterator<BatchPromptDto> prompts, int count, String jobModel, boolean rag) {
+        UUID jobId = UUID.randomUUID();
+        jdbcTemplate.update(INSERT_JOB, jobId, jobModel, rag, count, instanceId, seconds(lease));
+        try {
+            List<Object[]> batch = new ArrayList<>(pageSize);
+            int index = 0;
+            while (prompts.hasNext()) {
+                BatchPromptDto prompt = prompts.next();
+                batch.add(new Object[] {jobId, index++, prompt.id(), prompt.prompt(), prompt.rag()});
+                if (batch.size() >= pageSize || !prompts.hasNext()) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.batchUpdate(INSERT_ITEM, batch);
+                        jdbcTemplate.update(RENEW_SUBMISSION, seconds(lease), jobId);
+                    });
+                    batch.clear();
+                }
+            }
+            jdbcTemplate.update(START_JOB, seconds(lease), jobId);
+        } catch (RuntimeException e) {
+            try {
+                jdbcTemplate.update(DELETE_JOB, jobId);
+            } catch (DataAccessException deleteFailure) {
+                // Purged by the maintenance once the lease has expired
+                log.warn("Could not delete the failed submission of batch job {}: {}", jobId, deleteFailure.getMessage());
+            }
+            throw e;
+        }
+
+        BatchJobDto job = getJob(jobId);
+        if (running && enabled) {
+            start(new JobRun(jobId, jobModel, rag));
+        }
+        log.info("Batch job {} submitted with {} prompts for model {}", jobId, job.total(), jobModel);
+        return job;
+    }
+
+    /**
+     * Get a batch job with its progress.
+     *
+     * @return the job, or null if it does not exist
+     */
+    public BatchJobDto getJob(UUID jobId) {
+        List<BatchJobDto> jobs = jdbcTemplate.query(SELECT_JOB, (rs, rowNum) -> new BatchJobDto(
+                rs.getObject("id", UUID.class),
+                rs.getString("model"),
+                rs.getBoolean("rag"),
+                rs.getString("status"),
+                rs.getInt("item_count"),
+                rs.getInt("done"),
+                rs.getInt("failed"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("completed_at"))), jobId);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    /**
+     * Cancel a running batch job. Answered prompts are kept; prompts in flight are still stored.
+     *
+     * @return the job, or null if it does not exist
+     */
+    public BatchJobDto cancel(UUID jobId) {
+        if (jdbcTemplate.update(CANCEL_JOB, jobId) > 0) {
+            // The replica running the job notices when it renews the lease
+            JobRun run = runs.get(jobId);
+            if (run != null) {
+                run.stop();
+            }
+            log.info("Batch job {} cancelled", jobId);
+        }
+        signalProgress();
+        return getJob(jobId);
+    }
+
+    /**
+     * Stream the results of a batch job as NDJSON {@link BatchRecord}s in prompt order.
+     * Waits for outstanding results until the job completes or is cancelled, so a client
+     * may read the results while the job runs and resume from the next index after a disconnect.
+     * The results are written from a virtual thread, so no request thread waits for them.
+     * The stream ends after {@code app.batch.stream-timeout}; clients resume from the next index.
+     *
+     * @param job the job
+     * @param from the index of the first result to write
+     * @return the emitter of the stream
+     */
+    public ResponseBodyEmitter streamResults(BatchJobDto job, int from) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        Thread.ofVirtual().name("batch-results-" + job.id()).start(() -> {
+            try {
+                writeResults(job, from, emitter, closed);
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                // Mostly a disconnected client, which resumes from the next index
+                log.debug("Result stream of batch job {} ended: {}", job.id(), e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private void writeResults(BatchJobDto job, int from, ResponseBodyEmitter emitter, AtomicBoolean closed)
+            throws IOException {
+        RowMapper<BatchRecord> resultMapper = (rs, rowNum) -> BatchRecord.result(
+                job.id(),
+                rs.getInt("item_index"),
+                rs.getString("custom_id"),
+                rs.getString("status"),
+                rs.getString("model"),
+                rs.getString("answer"),
+                rs.getString("error"),
+                rs.getObject("duration_ms", Long.class));
+
+        send(emitter, List.of(BatchRecord.job(job)));
+        int next = Math.max(from, 0);
+        while (!closed.get() && running) {
+            long version = progressVersion();
+            List<BatchRecord> results = jdbcTemplate.query(SELECT_RESULTS, resultMapper, job.id(), next, pageSize);
+            List<BatchRecord> page = new ArrayList<>(results.size());
+            boolean outstanding = false;
+            for (BatchRecord result : results) {
+                if (PENDING.equals(result.status())) {
+                    outstanding = true;
+                    break;
+                }
+                page.add(result);
+                next = result.index() + 1;
+            }
+            send(emitter, page);
+            if (!outstanding) {
+                if (results.size() < pageSize) {
+                    break;
+                }
+                continue;
+            }
+            if (!RUNNING.equals(jdbcTemplate.queryForObject(SELECT_JOB_STATUS, String.class, job.id()))) {
+                break;
+            }
+            awaitProgress(version);
+        }
+
+        BatchJobDto finished = getJob(job.id());
+        send(emitter, List.of(BatchRecord.done(finished != null ? finished : job)));
+    }
+
+    /**
+     * Send records as NDJSON lines. They are sent as UTF-8 bytes rather than strings,
+     * which would be written in the default charset of the string converter.
+     */
+    private void send(ResponseBodyEmitter emitter, List<BatchRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (BatchRecord record : records) {
+            lines.write(recordWriter.writeValueAsBytes(record));
+            lines.write('\n');
+        }
+        emitter.send(lines.toByteArray(), MediaType.APPLICATION_NDJSON);
+    }
+
+    /**
+     * Renew the leases of the jobs running here, take over jobs whose lease has expired and
+     * delete finished jobs past their retention.
+     */
+    private void maintainJobs() {
+        try {
+            for (JobRun run : runs.values()) {
+                if (jdbcTemplate.update(RENEW_LEASE, seconds(lease), run.id, instanceId) == 0) {
+                    log.info("Stopping batch job {}, it was cancelled or taken over", run.id);
+                    run.stop();
+                }
+            }
+
+            int free = maxJobs - runs.size();
+            if (free > 0) {
+                List<JobRun> claimed = jdbcTemplate.query(CLAIM_JOBS, (rs, rowNum) -> new JobRun(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("model"),
+                        rs.getBoolean("rag")), instanceId, seconds(lease), free);
+                for (JobRun run : claimed) {
+                    log.info("Resuming batch job {}", run.id);
+                    start(run);
+                }
+            }
+
+            int purged = jdbcTemplate.update(PURGE_JOBS, seconds(retention));
+            if (purged > 0) {
+                log.info("Deleted {} finished batch jobs", purged);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Batch job maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private void start(JobRun run) {
+        if (runs.putIfAbsent(run.id, run) == null) {
+            run.thread = Thread.ofVirtual().name("batch-job-" + run.id).start(() -> run(run));
+        }
+    }
+
+    /**
+     * Answer the pending prompts of a job, as many at a time as the model slots allow.
+     */
+    private void run(JobRun run) {
+        boolean auto = AUTO.equals(run.model);
+        List<String> candidates = auto ? autoModels : List.of(run.model);
+        // Jobs for a named model wait for it to load, auto jobs use the models ready meanwhile
+        Predicate<String> ready = auto ? modelSwitchService::isModelReady : model -> true;
+        Phaser inFlight = new Phaser(1);
+        try {
+            while (!run.stopped) {
+                int after = -1;
+                int dispatched = 0;
+                List<PendingItem> page;
+                do {
+                    page = jdbcTemplate.query(SELECT_PENDING_ITEMS, (rs, rowNum) -> new PendingItem(
+                            rs.getInt("item_index"),
+                            rs.getString("prompt"),
+                            rs.getObject("rag", Boolean.class)), run.id, after, pageSize);
+                    for (PendingItem item : page) {
+                        if (run.stopped) {
+                            break;
+                        }
+                        after = item.index();
+                        if (run.abandoned.contains(item.index())) {
+                            continue;
+                        }
+                        String model = modelSlots.acquire(candidates, ready);
+                        inFlight.register();
+                        Thread.ofVirtual().name("batch-job-" + run.id + "-" + item.index()).start(() -> {
+                            try {
+                                process(run, item, model);
+                            } finally {
+                                modelSlots.release(model);
+                                inFlight.arriveAndDeregister();
+                            }
+                        });
+                        dispatched++;
+                    }
+                } while (page.size() == pageSize && !run.stopped);
+                inFlight.arriveAndAwaitAdvance();
+
+                if (run.stopped) {
+                    return;
+                }
+                if (jdbcTemplate.update(COMPLETE_JOB, run.id, instanceId, run.id) > 0) {
+                    log.info("Batch job {} completed", run.id);
+                    return;
+                }
+                if (dispatched == 0) {
+                    // Only prompts whose result cannot be stored are left; the job is tried
+                    // again once its lease has expired
+                    log.warn("Batch job {} has {} prompts whose result cannot be stored, resuming it in {}",
+                            run.id, run.abandoned.size(), lease);
+                    return;
+                }
+                // Prompts whose result could not be stored are still pending, answer them again
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            // The lease is no longer renewed, so the job is resumed once it expires
+            if (!run.stopped) {
+                log.warn("Batch job {} interrupted, resuming it in {}: {}", run.id, lease, e.getMessage());
+            }
+        } finally {
+            runs.remove(run.id, run);
+            signalProgress();
+        }
+    }
+
+    /**
+     * Answer one prompt with retries and store the result.
+     */
+    private void process(JobRun run, PendingItem item, String modelName) {
+        boolean rag = item.rag() != null ? item.rag() : run.rag;
+        long start = System.nanoTime();
+        String answer = null;
+        String error = null;
+        int attempts = 0;
+
+        PipelineContext.open(ENDPOINT, false);
+        PipelineContext.setCurrentModelName(modelName);
+        try {
+            ChatModel model = modelSwitchService.getModel(modelName);
+            while (answer == null) {
+                attempts++;
+                try {
+                    answer = generate(item.prompt(), model, rag);
+                } catch (RuntimeException e) {
+                    error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+                    if (attempts >= maxAttempts || run.stopped) {
+                        break;
+                    }
+                    Thread.sleep(retryBackoff.toMillis() << (attempts - 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            // Left pending for the next run of the job
+            return;
+        } finally {
+            PipelineContext.close();
+        }
+        if (answer == null && run.stopped) {
+            // Retries were cut short, so the prompt is tried again when the job is resumed
+            return;
+        }
+
+        String outcome = answer != null ? DONE : FAILED;
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        try {
+            jdbcTemplate.update(COMPLETE_ITEM, outcome, modelName, answer, answer != null ? null : error,
+                    attempts, durationMs, run.id, item.index());
+        } catch (DataAccessException e) {
+            int failures = run.storeFailures.merge(item.index(), 1, Integer::sum);
+            if (failures < maxAttempts) {
+                log.warn("Could not store the result of prompt {} of batch job {}, answering it again: {}",
+                        item.index(), run.id, e.getMessage());
+                return;
+            }
+            storeFailure(run, item, modelName, attempts, durationMs, e);
+            return;
+        }
+        pipelineMetrics.recordBatchPrompt(modelName, answer != null ? "success" : "error");
+        signalProgress();
+    }
+
+    /**
+     * Mark a prompt as failed whose result could not be stored after all attempts, e.g.
+     * because the answer holds characters the database rejects. If that fails as well,
+     * the prompt is left pending but skipped until the job is resumed.
+     */
+    private void storeFailure(JobRun run, PendingItem item, String modelName, int attempts, long durationMs,
+                              DataAccessException cause) {
+        try {
+            jdbcTemplate.update(COMPLETE_ITEM, FAILED, modelName, null,
+                    "Could not store the result: " + cause.getMostSpecificCause().getMessage(),
+                    attempts, durationMs, run.id, item.index());
+        } catch (DataAccessException e) {
+            run.abandoned.add(item.index());
+            log.warn("Could not store the result of prompt {} of batch job {}, skipping it: {}",
+                    item.index(), run.id, e.getMessage());
+            return;
+        }
+        log.warn("Could not store the result of prompt {} of batch job {}, marked it as failed: {}",
+                item.index(), run.id, cause.getMessage());
+        pipelineMetrics.recordBatchPrompt(modelName, "error");
+        signalProgress();
+    }
+
+    private String generate(String prompt, ChatModel model, boolean rag) {
+        ChatResponse chatResponse = rag
+                ? ragService.queryWithoutMemory(prompt, model)
+                : chatClientConfig.createStatelessChatClient(model).prompt()
+                        .user(prompt)
+                        .call()
+                        .chatResponse();
+        String text = chatResponse.getResult() != null ? chatResponse.getResult().getOutput().getText() : null;
+        return text != null ? text : "";
+    }
+
+    private String jobModel(String model) {
+        String jobModel = model == null || model.isBlank() ? AUTO : model;
+        if (!AUTO.equals(jobModel)) {
+            modelSwitchService.getModel(jobModel);
+            if (modelSlots.limit(jobModel) <= 0) {
+                throw new IllegalArgumentException("Model " + jobModel + " is disabled for batch jobs");
+            }
+        } else if (autoModels.isEmpty()) {
+            throw new IllegalArgumentException("All models are disabled for batch jobs");
+        }
+        return jobModel;
+    }
+
+    private void validate(BatchPromptDto prompt, int index) {
+        if (index >= maxPrompts) {
+            throw new IllegalArgumentException("More than " + maxPrompts + " prompts");
+        }
+        if (prompt == null || prompt.prompt() == null || prompt.prompt().isBlank()) {
+            throw new IllegalArgumentException("Empty prompt at index " + index);
+        }
+    }
+
+    private BatchPromptDto readPrompt(String line) {
+        if (!line.stripLeading().startsWith("{")) {
+            return new BatchPromptDto(null, line, null);
+        }
+        try {
+            return promptReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed prompt: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private long progressVersion() {
+        synchronized (progress) {
+            return progressVersion;
+        }
+    }
+
+    private void signalProgress() {
+        synchronized (progress) {
+            progressVersion++;
+            progress.notifyAll();
+        }
+    }
+
+    /**
+     * Wait for a result stored on this replica, at most the poll interval, so results
+     * stored by other replicas are picked up as well.
+     */
+    private void awaitProgress(long version) throws InterruptedIOException {
+        synchronized (progress) {
+            try {
+                if (progressVersion == version) {
+                    progress.wait(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for batch results");
+            }
+        }
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record PendingItem(int index, String prompt, Boolean rag) {}
+
+    private static final class JobRun {
+
+        private final UUID id;
+        private final String model;
+        private final boolean rag;
+        // Failed attempts to store the result per prompt index
+        private final Map<Integer, Integer> storeFailures = new ConcurrentHashMap<>();
+        // Prompts skipped by this run because not even their failure could be stored
+        private final Set<Integer> abandoned = ConcurrentHashMap.newKeySet();
+        private volatile boolean stopped;
+        private volatile Thread thread;
+
+        private JobRun(UUID id, String model, boolean rag) {
+            this.id = id;
+            this.model = model;
+            this.rag = rag;
+        }
+
+        private void stop() {
+            stopped = true;
+            Thread runner = thread;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.haeger.springaidemo.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import de.haeger.springaidemo.dto.BatchJobDto;
+
+import java.util.UUID;
+
+/**
+ * One line of the NDJSON results of a batch job.
+ * The first line is a {@code job} line, followed by one {@code result} line per prompt in
+ * prompt order and a final {@code done} line once no result is outstanding; fields that do
+ * not apply to a line type are omitted.
+ *
+ * @param type The line type: job, result or done
+ * @param jobId The job identifier
+ * @param index The position of the prompt in the job, starting at 0
+ * @param id The identifier given to the prompt by the client
+ * @param status The job status, or the prompt status DONE or FAILED
+ * @param model The model that answered the prompt
+ * @param answer The answer
+ * @param error The error of the last attempt of a failed prompt
+ * @param durationMs The time spent on the prompt including retries
+ * @param total The number of prompts of the job
+ * @param done The number of answered prompts
+ * @param failed The number of failed prompts
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchRecord(
+    String type,
+    UUID jobId,
+    Integer index,
+    String id,
+    String status,
+    String model,
+    String answer,
+    String error,
+    Long durationMs,
+    Integer total,
+    Integer done,
+    Integer failed
+) {
+
+    public static final String JOB = "job";
+    public static final String RESULT = "result";
+    public static final String DONE = "done";
+
+    public static BatchRecord job(BatchJobDto job) {
+        return summary(JOB, job);
+    }
+
+    public static BatchRecord result(UUID jobId, int index, String id, String status, String model,
+                                     String answer, String error, Long durationMs) {
+        return new BatchRecord(RESULT, jobId, index, id, status, model, answer, error, durationMs,
+                null, null, null);
+    }
+
+    public static BatchRecord done(BatchJobDto job) {
+        return summary(DONE, job);
+    }
+
+    private static BatchRecord summary(String type, BatchJobDto job) {
+        return new BatchRecord(type, job.id(), null, null, job.status(), job.model(), null, null, null,
+                job.total(), job.done(), job.failed());
+    }
+}
@@ -0,0 +1,55 @@
+package de.haeger.springaidemo.batch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Limits the concurrent batch requests per model, across all batch jobs of this replica.
+ */
+class ModelSlots {
+
+    // Re-check the readiness of models while waiting, a loading model may become ready
+    private static final long WAIT_MILLIS = 1000;
+
+    private final Map<String, Integer> limits;
+    private final Map<String, Integer> inUse = new HashMap<>();
+
+    /**
+     * @param limits the concurrent requests per model; models with a limit of 0 are not used
+     */
+    ModelSlots(Map<String, Integer> limits) {
+        this.limits = Map.copyOf(limits);
+    }
+
+    /**
+     * Wait for a free slot of one of the given models, taking the first ready one in order.
+     *
+     * @param models the models to choose from, in order of preference
+     * @param ready whether a model can take requests now
+     * @return the model whose slot was taken; release it with {@link #release}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized String acquire(List<String> models, Predicate<String> ready) throws InterruptedException {
+        while (true) {
+            for (String model : models) {
+                int used = inUse.getOrDefault(model, 0);
+                if (used < limit(model) && ready.test(model)) {
+                    inUse.put(model, used + 1);
+                    return model;
+                }
+            }
+            wait(WAIT_MILLIS);
+        }
+    }
+
+    synchronized void release(String model) {
+        inUse.merge(model, -1, Integer::sum);
+        notifyAll();
+    }
+
+    int limit(String model) {
+        return limits.getOrDefault(model, 0);
+    }
+}
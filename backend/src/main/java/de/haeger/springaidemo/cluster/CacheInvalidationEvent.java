@@ -0,0 +1,38 @@
+package de.haeger.springaidemo.cluster;
+
+/**
+ * Application event telling the in-process caches that data they hold was changed, by
+ * this or by another backend replica.
+ *
+ * @param cache the cache to invalidate, e.g. {@link #CONVERSATION_MODEL}, or null for all caches
+ * @param key the key of the changed entry, or null for all entries of the cache
+ */
+public record CacheInvalidationEvent(String cache, String key) {
+
+    public static final String APP_SETTING = "app-setting";
+    public static final String CONVERSATION_MODEL = "conversation-model";
+    /** Messages or archive of a conversation, see {@code V10__conversation_event_statement_triggers.sql} */
+    public static final String CONVERSATION = "conversation";
+    public static final String VECTOR_STORE = "vector-store";
+
+    /**
+     * Event invalidating every cache, published when changes may have been missed.
+     */
+    public static CacheInvalidationEvent all() {
+        return new CacheInvalidationEvent(null, null);
+    }
+
+    /**
+     * Check whether the event invalidates the given cache.
+     */
+    public boolean affects(String cacheName) {
+        return cache == null || cache.equals(cacheName);
+    }
+
+    /**
+     * Check whether the event invalidates the given entry of the given cache.
+     */
+    public boolean affects(String cacheName, String entryKey) {
+        return affects(cacheName) && (key == null || key.equals(entryKey));
+    }
+}
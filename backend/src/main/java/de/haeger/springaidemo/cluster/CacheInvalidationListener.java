@@ -0,0 +1,175 @@
+package de.haeger.springaidemo.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Listens for the cache invalidation notifications of the database and republishes them
+ * as {@link CacheInvalidationEvent}s, so every replica drops stale in-process state within
+ * milliseconds of a commit on any replica, without polling.
+ * The triggers of {@code V5__cache_invalidation.sql} send the notifications. The listener
+ * holds one dedicated connection outside the pools, as a LISTEN session lives as long as
+ * its connection; it must be a direct connection, PgBouncer in transaction mode drops it.
+ * Notifications sent while the connection is down are lost, so all caches are invalidated
+ * whenever the connection is lost and again once it is back.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.cluster.notifications", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheInvalidationListener implements SmartLifecycle {
+
+    public static final String CHANNEL = "cache_invalidation";
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private final HikariDataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cluster.notifications.poll-timeout:10s}")
+    private Duration pollTimeout;
+
+    @Value("${app.cluster.notifications.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public CacheInvalidationListener(
+            HikariDataSource dataSource,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("cache-invalidation-listener").start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeConnection();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection listenConnection = connect()) {
+                connection = listenConnection;
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for cache invalidations on channel {}", CHANNEL);
+                // Changes committed before LISTEN took effect were not delivered
+                eventPublisher.publishEvent(CacheInvalidationEvent.all());
+                receive(listenConnection.unwrap(PGConnection.class), listenConnection);
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener disconnected, reconnecting in {}: {}",
+                        reconnectDelay, e.getMessage());
+                eventPublisher.publishEvent(CacheInvalidationEvent.all());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private void receive(PGConnection pgConnection, Connection listenConnection) throws SQLException {
+        int timeoutMillis = (int) pollTimeout.toMillis();
+        while (running) {
+            // Blocks until notifications arrive or the timeout elapses
+            PGNotification[] notifications = pgConnection.getNotifications(timeoutMillis);
+            if (notifications == null || notifications.length == 0) {
+                // A silently dropped connection would otherwise go unnoticed
+                if (!listenConnection.isValid(timeoutMillis / 1000 + 1)) {
+                    throw new SQLException("Listen connection is no longer valid");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                publish(notification.getParameter());
+            }
+        }
+    }
+
+    private void publish(String payload) {
+        CacheInvalidationEvent event;
+        try {
+            JsonNode json = objectMapper.readTree(payload);
+            event = new CacheInvalidationEvent(text(json, "cache"), text(json, "key"));
+        } catch (Exception e) {
+            log.warn("Invalidating all caches for unreadable notification {}: {}", payload, e.getMessage());
+            event = CacheInvalidationEvent.all();
+        }
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            // Keep listening; a failing listener must not stop the others from being notified later
+            log.warn("Cache invalidation {} failed: {}", event, e.getMessage());
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", dataSource.getUsername());
+        if (dataSource.getPassword() != null) {
+            properties.setProperty("password", dataSource.getPassword());
+        }
+        properties.setProperty("ApplicationName", "cache-invalidation-listener");
+        Connection listenConnection = DriverManager.getConnection(dataSource.getJdbcUrl(), properties);
+        listenConnection.setAutoCommit(true);
+        return listenConnection;
+    }
+
+    private void closeConnection() {
+        Connection listenConnection = connection;
+        if (listenConnection != null) {
+            try {
+                listenConnection.close();
+            } catch (SQLException e) {
+                log.debug("Could not close the cache invalidation listener connection", e);
+            }
+        }
+    }
+
+    private static String text(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
@@ -0,0 +1,76 @@
+package de.haeger.springaidemo.coalescing;
+
+import de.haeger.springaidemo.observability.PipelineContext;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Advisor sharing one model call between identical concurrent requests.
+ * Requests are identical when model and full prompt match, i.e. system prompt, history,
+ * retrieved context and question, so in practice new conversations asking the same
+ * question at the same time. Runs after the memory advisor, so every caller still writes
+ * the shared answer into its own conversation, and before the metrics advisor, so only
+ * the model call actually made is measured. Streaming requests are not coalesced.
+ */
+@Component
+public class CoalescingAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final RequestCoalescer requestCoalescer;
+
+    public CoalescingAdvisor(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+        if (!requestCoalescer.isEnabled(RequestCoalescer.Layer.GENERATION)) {
+            return callAdvisorChain.nextCall(chatClientRequest);
+        }
+        ChatClientResponse shared = requestCoalescer.execute(RequestCoalescer.Layer.GENERATION,
+                generationKey(chatClientRequest), () -> callAdvisorChain.nextCall(chatClientRequest));
+
+        // The response context is read by the advisors before this one, e.g. for the
+        // conversation ID, so every caller gets its own request context back
+        Map<String, Object> context = new HashMap<>(shared.context());
+        context.putAll(chatClientRequest.context());
+        return ChatClientResponse.builder()
+                .chatResponse(shared.chatResponse())
+                .context(context)
+                .build();
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        return streamAdvisorChain.nextStream(chatClientRequest);
+    }
+
+    @Override
+    public String getName() {
+        return "CoalescingAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        // Directly before the PipelineMetricsAdvisor
+        return Ordered.LOWEST_PRECEDENCE - 2;
+    }
+
+    private static String generationKey(ChatClientRequest chatClientRequest) {
+        StringBuilder key = new StringBuilder(PipelineContext.current().getModelName());
+        for (Message message : chatClientRequest.prompt().getInstructions()) {
+            key.append('\u0000').append(message.getMessageType()).append(':').append(message.getText());
+        }
+        return key.toString();
+    }
+}
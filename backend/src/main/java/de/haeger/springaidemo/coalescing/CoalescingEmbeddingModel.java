@@ -0,0 +1,42 @@
+package de.haeger.springaidemo.coalescing;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * EmbeddingModel decorator sharing the embedding of identical concurrent query texts.
+ * Similarity searches embed the query with {@link #embed(String)}; ingest batches go
+ * through {@link #call(EmbeddingRequest)} and are not coalesced.
+ */
+public class CoalescingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final RequestCoalescer requestCoalescer;
+
+    public CoalescingEmbeddingModel(EmbeddingModel delegate, RequestCoalescer requestCoalescer) {
+        this.delegate = delegate;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return requestCoalescer.execute(RequestCoalescer.Layer.EMBEDDING, text, () -> delegate.embed(text));
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,118 @@
+package de.haeger.springaidemo.coalescing;
+
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical concurrent requests.
+ * The first caller for a key runs the computation on its own thread; callers arriving with
+ * the same key while it runs wait for and share its result, including its failure. Nothing
+ * is cached: the key is released as soon as the computation completes, so later requests
+ * compute afresh.
+ */
+@Component
+public class RequestCoalescer {
+
+    /**
+     * The pipeline layers requests are coalesced at.
+     */
+    public enum Layer {
+        EMBEDDING("embedding"),
+        RETRIEVAL("retrieval"),
+        GENERATION("generation");
+
+        private final String tagValue;
+
+        Layer(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        public String getTagValue() {
+            return tagValue;
+        }
+    }
+
+    private final PipelineMetrics pipelineMetrics;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.coalescing.embedding.enabled:true}")
+    private boolean embeddingEnabled;
+
+    @Value("${app.coalescing.retrieval.enabled:true}")
+    private boolean retrievalEnabled;
+
+    @Value("${app.coalescing.generation.enabled:false}")
+    private boolean generationEnabled;
+
+    public RequestCoalescer(PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * Run the computation for the key, or share the result of an identical one in flight.
+     *
+     * @param layer the layer the computation belongs to
+     * @param key the key identifying identical requests, must implement equals and hashCode
+     * @param computation the computation
+     * @return the result of the computation
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Layer layer, Object key, Supplier<T> computation) {
+        if (!isEnabled(layer)) {
+            return computation.get();
+        }
+        Key inFlightKey = new Key(layer, key);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(inFlightKey, result);
+        if (running != null) {
+            pipelineMetrics.recordCoalescing(layer.getTagValue(), true);
+            return (T) join(running);
+        }
+
+        pipelineMetrics.recordCoalescing(layer.getTagValue(), false);
+        try {
+            T value = computation.get();
+            result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(inFlightKey, result);
+        }
+    }
+
+    /**
+     * Check whether requests are coalesced at the given layer.
+     */
+    public boolean isEnabled(Layer layer) {
+        return switch (layer) {
+            case EMBEDDING -> embeddingEnabled;
+            case RETRIEVAL -> retrievalEnabled;
+            case GENERATION -> generationEnabled;
+        };
+    }
+
+    private static Object join(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Key(Layer layer, Object key) {}
+}
@@ -2,15 +2,27 @@ package de.haeger.springaidemo.config;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
+import de.haeger.springaidemo.coalescing.CoalescingAdvisor;
+import de.haeger.springaidemo.observability.InstrumentedToolCallback;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.observability.PipelineMetricsAdvisor;
+import de.haeger.springaidemo.prompt.PromptCatalog;
 import de.haeger.springaidemo.service.ModelSwitchService;
+import de.haeger.springaidemo.tools.CachingToolCallback;
+import de.haeger.springaidemo.tools.ToolExecutionService;
 import de.haeger.springaidemo.tools.WeatherTool;
 
+import java.util.Arrays;
+
 /**
  * Configuration class for ChatClient with tool integration and memory.
  * Supports dynamic model switching through ModelSwitchService.
@@ -19,16 +31,35 @@ import de.haeger.springaidemo.tools.WeatherTool;
 public class ChatClientConfig {
 
     private final ChatMemory chatMemory;
-    private final WeatherTool weatherTool;
     private final ModelSwitchService modelSwitchService;
+    private final PipelineMetricsAdvisor pipelineMetricsAdvisor;
+    private final CoalescingAdvisor coalescingAdvisor;
+    private final String systemPrompt;
+    private final ToolCallback[] toolCallbacks;
 
     public ChatClientConfig(
             ChatMemory chatMemory,
             WeatherTool weatherTool,
-            ModelSwitchService modelSwitchService) {
+            ModelSwitchService modelSwitchService,
+            PipelineMetrics pipelineMetrics,
+            PipelineMetricsAdvisor pipelineMetricsAdvisor,
+            CoalescingAdvisor coalescingAdvisor,
+            ToolExecutionService toolExecutionService,
+            PromptCatalog promptCatalog) {
         this.chatMemory = chatMemory;
-        this.weatherTool = weatherTool;
         this.modelSwitchService = modelSwitchService;
+        this.pipelineMetricsAdvisor = pipelineMetricsAdvisor;
+        this.coalescingAdvisor = coalescingAdvisor;
+        this.systemPrompt = promptCatalog.getChatSystemPrompt();
+        // Resolve the tool callbacks once, apply the versioned descriptions in a stable order
+        // and wrap them so tool calls are measured, cached and can run in parallel
+        this.toolCallbacks = Arrays.stream(promptCatalog.describeTools(MethodToolCallbackProvider.builder()
+                        .toolObjects(weatherTool)
+                        .build()
+                        .getToolCallbacks()))
+                .map(toolCallback -> new CachingToolCallback(
+                        new InstrumentedToolCallback(toolCallback, pipelineMetrics), toolExecutionService))
+                .toArray(ToolCallback[]::new);
     }
 
     /**
@@ -50,14 +81,39 @@ public class ChatClientConfig {
      * @return A configured ChatClient instance
      */
     public ChatClient createChatClient(ChatModel model) {
+        return createChatClient(model, MessageChatMemoryAdvisor.builder(chatMemory).build());
+    }
+
+    /**
+     * Creates a ChatClient with a specific ChatModel and chat memory advisor.
+     * Used by the reactive mode with its non-blocking chat memory.
+     *
+     * @param model The ChatModel to use for this client
+     * @param memoryAdvisor The advisor loading and storing the conversation history
+     * @return A configured ChatClient instance
+     */
+    public ChatClient createChatClient(ChatModel model, Advisor memoryAdvisor) {
+        return ChatClient.builder(model)
+                .defaultSystem(systemPrompt)
+                .defaultAdvisors(
+                        memoryAdvisor,
+                        coalescingAdvisor,
+                        pipelineMetricsAdvisor)
+                .defaultToolCallbacks(toolCallbacks)
+                .build();
+    }
+
+    /**
+     * Creates a ChatClient without chat memory, for independent prompts such as batch jobs.
+     *
+     * @param model The ChatModel to use for this client
+     * @return A configured ChatClient instance
+     */
+    public ChatClient createStatelessChatClient(ChatModel model) {
         return ChatClient.builder(model)
-                // .defaultSystem("You are a helpful assistant that can call tools when needed.")
-                .defaultSystem("You are a helpful AI assistant. You can answer any questions the user asks. " +
-                        "You have access to tools that you can use when appropriate, but you are not limited to only using tools. "
-                        +
-                        "Answer questions directly using your knowledge, and only call tools when they would be helpful.")
-                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultTools(weatherTool)
+                .defaultSystem(systemPrompt)
+                .defaultAdvisors(coalescingAdvisor, pipelineMetricsAdvisor)
+                .defaultToolCallbacks(toolCallbacks)
                 .build();
     }
 }
\ No newline at end of file
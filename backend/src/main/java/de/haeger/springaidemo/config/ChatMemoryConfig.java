@@ -0,0 +1,31 @@
+package de.haeger.springaidemo.config;
+
+import de.haeger.springaidemo.memory.ArchiveRestoringChatMemoryRepository;
+import de.haeger.springaidemo.memory.ChatMemoryArchiveService;
+import de.haeger.springaidemo.observability.InstrumentedChatMemory;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the chat memory.
+ * Wraps the JDBC-backed message window memory so that memory loads and writes are measured,
+ * and archived conversations are restored when they are loaded.
+ */
+@Configuration
+public class ChatMemoryConfig {
+
+    @Bean
+    public ChatMemory chatMemory(
+            ChatMemoryRepository chatMemoryRepository,
+            ChatMemoryArchiveService chatMemoryArchiveService,
+            PipelineMetrics pipelineMetrics) {
+        ChatMemory chatMemory = MessageWindowChatMemory.builder()
+                .chatMemoryRepository(new ArchiveRestoringChatMemoryRepository(chatMemoryRepository, chatMemoryArchiveService))
+                .build();
+        return new InstrumentedChatMemory(chatMemory, pipelineMetrics);
+    }
+}
@@ -0,0 +1,98 @@
+package de.haeger.springaidemo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration for the database connection pools.
+ * The workload is split over three Hikari pools on the same database, so a burst on one
+ * path cannot starve the others:
+ * <ul>
+ *   <li>{@code memory}, the primary pool: chat memory, JPA, Flyway and retention</li>
+ *   <li>{@code vector-store}: similarity searches and vector writes</li>
+ *   <li>{@code analytics}: the info endpoints, statistics and vector store compaction</li>
+ * </ul>
+ * Each pool is sized by its own {@code hikari} properties and reports its saturation
+ * through the {@code hikaricp.connections.*} metrics, tagged with the pool name.
+ * The {@code spring.datasource} properties are bound here, as Spring Boot's data source
+ * configuration backs off in the reactive mode, where an R2DBC connection factory exists.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(
+            DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        return createDataSource(properties, connectionDetails);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.vector-store.hikari")
+    public HikariDataSource vectorStoreDataSource(
+            DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        return createDataSource(properties, connectionDetails);
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.analytics.hikari")
+    public HikariDataSource analyticsDataSource(
+            DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        return createDataSource(properties, connectionDetails);
+    }
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public JdbcTemplate vectorStoreJdbcTemplate(@Qualifier("vectorStoreDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public JdbcTemplate analyticsJdbcTemplate(@Qualifier("analyticsDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Create a pool for the configured database. Connection details from a service
+     * connection, e.g. the Testcontainers database of the load test, take precedence
+     * over the {@code spring.datasource} properties.
+     */
+    private static HikariDataSource createDataSource(
+            DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create().type(HikariDataSource.class);
+        if (details != null) {
+            return builder
+                    .url(details.getJdbcUrl())
+                    .username(details.getUsername())
+                    .password(details.getPassword())
+                    .driverClassName(details.getDriverClassName())
+                    .build();
+        }
+        return builder
+                .url(properties.determineUrl())
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .driverClassName(properties.determineDriverClassName())
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package de.haeger.springaidemo.config;
+
+import de.haeger.springaidemo.embedding.BatchingEmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.ai.transformers.TransformersEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+
+/**
+ * Configuration for the embedding model used by the vector store.
+ * {@code app.embedding.provider} selects between the remote Vertex text embedding model,
+ * an Ollama-hosted model, and an ONNX model run in-process on the CPU, which removes the
+ * network round trip from every query and every ingest batch. All three are configured
+ * for 768 dimensions, the size of the {@code vector_store} embedding column; vectors of
+ * different models are not comparable though, see {@code ReembeddingService}.
+ */
+@Configuration
+public class EmbeddingConfig {
+
+    private static final String TRANSFORMERS_EMBEDDING_MODEL =
+            "org.springframework.ai.transformers.TransformersEmbeddingModel";
+
+    // all-mpnet-base-v2 produces 768-dimensional embeddings
+    private static final String ONNX_MODEL_URI =
+            "https://huggingface.co/sentence-transformers/all-mpnet-base-v2/resolve/main/onnx/model.onnx";
+    private static final String ONNX_TOKENIZER_URI =
+            "https://huggingface.co/sentence-transformers/all-mpnet-base-v2/resolve/main/tokenizer.json";
+
+    @Value("${app.embedding.provider:vertex}")
+    private String provider;
+
+    @Value("${app.embedding.onnx.model-uri:" + ONNX_MODEL_URI + "}")
+    private String onnxModelUri;
+
+    @Value("${app.embedding.onnx.tokenizer-uri:" + ONNX_TOKENIZER_URI + "}")
+    private String onnxTokenizerUri;
+
+    @Value("${app.embedding.onnx.model-output-name:last_hidden_state}")
+    private String onnxModelOutputName;
+
+    @Value("${app.embedding.onnx.max-tokens:384}")
+    private int onnxMaxTokens;
+
+    @Value("${app.embedding.onnx.cache-directory:${java.io.tmpdir}/spring-ai-onnx-model}")
+    private String onnxCacheDirectory;
+
+    @Value("${app.embedding.onnx.batch-size:16}")
+    private int onnxBatchSize;
+
+    @Value("${app.embedding.onnx.threads:0}")
+    private int onnxThreads;
+
+    @Bean
+    public EmbeddingModel ragEmbeddingModel(
+            @Qualifier("textEmbedding") ObjectProvider<EmbeddingModel> vertexEmbeddingModel,
+            ObjectProvider<OllamaEmbeddingModel> ollamaEmbeddingModel) throws Exception {
+        return switch (provider) {
+            case "vertex" -> vertexEmbeddingModel.getObject();
+            case "ollama" -> ollamaEmbeddingModel.getObject();
+            case "onnx" -> onnxEmbeddingModel();
+            default -> throw new IllegalStateException("Unknown embedding provider: " + provider);
+        };
+    }
+
+    /**
+     * Create the in-process ONNX embedding model. The model and tokenizer are downloaded
+     * into the cache directory on first use. ONNX Runtime is only packaged with the
+     * {@code onnx} Maven profile.
+     */
+    public EmbeddingModel onnxEmbeddingModel() throws Exception {
+        if (!ClassUtils.isPresent(TRANSFORMERS_EMBEDDING_MODEL, EmbeddingConfig.class.getClassLoader())) {
+            throw new IllegalStateException(
+                    "The onnx embedding provider needs ONNX Runtime, build with the onnx Maven profile");
+        }
+        TransformersEmbeddingModel embeddingModel = new TransformersEmbeddingModel();
+        embeddingModel.setModelResource(onnxModelUri);
+        embeddingModel.setTokenizerResource(onnxTokenizerUri);
+        embeddingModel.setModelOutputName(onnxModelOutputName);
+        embeddingModel.setResourceCacheDirectory(onnxCacheDirectory);
+        // Pad the inputs of a batch to the same length, and cut them at the model's input size
+        embeddingModel.setTokenizerOptions(Map.of(
+                "padding", "true",
+                "truncation", "true",
+                "maxLength", String.valueOf(onnxMaxTokens)));
+        embeddingModel.afterPropertiesSet();
+        int threads = onnxThreads > 0 ? onnxThreads : Runtime.getRuntime().availableProcessors();
+        return new BatchingEmbeddingModel(embeddingModel, onnxBatchSize, threads);
+    }
+}
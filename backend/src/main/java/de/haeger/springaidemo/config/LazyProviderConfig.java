@@ -0,0 +1,58 @@
+package de.haeger.springaidemo.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.MethodMetadata;
+
+import java.util.List;
+
+/**
+ * Configuration deferring the creation of the model provider clients to their first use.
+ * Creating the Vertex and Ollama clients is a large part of the startup time, yet only the
+ * default chat model and the configured embedding model are needed right away. All beans
+ * of the provider packages are therefore made lazy; {@code ModelSwitchService} initializes
+ * the default chat model at startup, and the vector store pulls in the embedding model.
+ * The other provider is created when a request first selects it.
+ */
+@Configuration
+public class LazyProviderConfig {
+
+    private static final List<String> PROVIDER_PACKAGES = List.of(
+            "org.springframework.ai.vertexai.",
+            "com.google.cloud.vertexai.",
+            "org.springframework.ai.ollama.");
+
+    /**
+     * Static, as bean factory post-processors must be created before all other beans.
+     * Runs at build time with Spring AOT, the lazy flags are part of the generated code.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyModelProviders() {
+        return beanFactory -> {
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+                String type = beanType(beanDefinition);
+                if (type != null && PROVIDER_PACKAGES.stream().anyMatch(type::startsWith)) {
+                    beanDefinition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the declared type of a bean without loading or creating it: the return type of
+     * its factory method for {@code @Bean} methods, its class otherwise.
+     */
+    private static String beanType(BeanDefinition beanDefinition) {
+        if (beanDefinition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getReturnTypeName();
+            }
+        }
+        return beanDefinition.getBeanClassName();
+    }
+}
@@ -6,12 +6,20 @@ import org.springframework.ai.vertexai.gemini.VertexAiGeminiChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 
+/**
+ * Exposes the provider chat models under the names used by {@code ModelSwitchService}.
+ * Lazy like the provider beans, see {@link LazyProviderConfig}.
+ */
 @Configuration
+@Profile("!stub")
 public class ModelConfig {
 
     @Bean
+    @Lazy
     @Primary
     @Qualifier("gemini")
     public ChatModel geminiChatModel(VertexAiGeminiChatModel vertexAiGeminiChatModel) {
@@ -19,6 +27,7 @@ public class ModelConfig {
     }
 
     @Bean
+    @Lazy
     @Qualifier("ollama")
     public ChatModel ollamaModel(OllamaChatModel ollamaChatModel) {
         return ollamaChatModel;
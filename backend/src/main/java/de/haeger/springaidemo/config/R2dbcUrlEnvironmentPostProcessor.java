@@ -0,0 +1,31 @@
+package de.haeger.springaidemo.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Derives the R2DBC URL of the reactive mode from {@code spring.datasource.url}, so it
+ * follows {@code SPRING_DATASOURCE_URL} (e.g. the database host of docker-compose) unless
+ * {@code R2DBC_URL} is set. Added as {@code app.reactive.r2dbc-url} with the lowest precedence,
+ * see application-reactive.yml.
+ */
+public class R2dbcUrlEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String PROPERTY = "app.reactive.r2dbc-url";
+
+    private static final String JDBC_PREFIX = "jdbc:";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String jdbcUrl = environment.getProperty("spring.datasource.url");
+        if (jdbcUrl == null || !jdbcUrl.startsWith(JDBC_PREFIX) || environment.containsProperty(PROPERTY)) {
+            return;
+        }
+        String r2dbcUrl = "r2dbc:" + jdbcUrl.substring(JDBC_PREFIX.length());
+        environment.getPropertySources().addLast(new MapPropertySource("r2dbcUrl", Map.of(PROPERTY, r2dbcUrl)));
+    }
+}
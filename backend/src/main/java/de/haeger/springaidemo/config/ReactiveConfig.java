@@ -0,0 +1,72 @@
+package de.haeger.springaidemo.config;
+
+import de.haeger.springaidemo.observability.PipelineContextAccessor;
+import io.micrometer.context.ContextRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Configuration of the reactive mode, selected with the {@code reactive} profile.
+ * Serves the chat, RAG, model and info endpoints with WebFlux on Netty, and keeps the
+ * chat memory and the model per conversation in the database through R2DBC, so a request
+ * does not hold a thread while it waits for the database or the model.
+ * Same CORS settings as the {@link WebConfig} of the servlet mode.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    public ReactiveConfig() {
+        // Lets Reactor restore the pipeline context of a request on every thread it continues on
+        ContextRegistry.getInstance().registerThreadLocalAccessor(new PipelineContextAccessor());
+    }
+
+    /**
+     * Netty instead of Tomcat, which is also on the classpath for the servlet mode and
+     * would otherwise be preferred.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        serverCustomizers.orderedStream().forEach(factory::addServerCustomizers);
+        return factory;
+    }
+
+    /**
+     * RestClient builder for the clients that stay blocking, e.g. the Ollama model manager's.
+     * Spring Boot only provides one in the servlet mode.
+     */
+    @Bean
+    @Scope("prototype")
+    public RestClient.Builder restClientBuilder(ObjectProvider<RestClientCustomizer> customizers) {
+        RestClient.Builder builder = RestClient.builder();
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return builder;
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowedOriginPatterns("http://localhost:4200", "http://localhost:8080")
+                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedHeaders("*")
+                .allowCredentials(true);
+    }
+}
@@ -0,0 +1,34 @@
+package de.haeger.springaidemo.config;
+
+import de.haeger.springaidemo.tools.ParallelToolCallingManager;
+import de.haeger.springaidemo.tools.ToolExecutionService;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for tool execution.
+ * Replaces the auto-configured ToolCallingManager, which the chat models use to run
+ * tool calls, with one that runs the tool calls of a turn in parallel.
+ */
+@Configuration
+public class ToolCallingConfig {
+
+    @Bean
+    public ToolCallingManager toolCallingManager(
+            ToolCallbackResolver toolCallbackResolver,
+            ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            ToolExecutionService toolExecutionService) {
+        ToolCallingManager delegate = ToolCallingManager.builder()
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        return new ParallelToolCallingManager(delegate, toolExecutionService);
+    }
+}
@@ -1,5 +1,11 @@
 package de.haeger.springaidemo.config;
 
+import de.haeger.springaidemo.coalescing.CoalescingEmbeddingModel;
+import de.haeger.springaidemo.coalescing.RequestCoalescer;
+import de.haeger.springaidemo.observability.InstrumentedEmbeddingModel;
+import de.haeger.springaidemo.observability.InstrumentedVectorStore;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
@@ -11,8 +17,30 @@ import org.springframework.jdbc.core.JdbcTemplate;
 @Configuration
 public class VectorStoreConfig {
 
+    /**
+     * Routes every namespace to a PgVectorStore on its own partition of {@code vector_store}.
+     */
     @Bean
-    public VectorStore vectorStore(JdbcTemplate jdbcTemplate, @Qualifier("textEmbedding") EmbeddingModel embeddingModel) {
-        return PgVectorStore.builder(jdbcTemplate, embeddingModel).build();
+    public VectorStoreRouter vectorStoreRouter(
+            @Qualifier("vectorStoreJdbcTemplate") JdbcTemplate jdbcTemplate,
+            @Qualifier("ragEmbeddingModel") EmbeddingModel embeddingModel,
+            PipelineMetrics pipelineMetrics,
+            RequestCoalescer requestCoalescer) {
+        // Identical concurrent query texts share one embedding call, across namespaces
+        EmbeddingModel instrumentedEmbeddingModel = new CoalescingEmbeddingModel(
+                new InstrumentedEmbeddingModel(embeddingModel, pipelineMetrics), requestCoalescer);
+        return new VectorStoreRouter(jdbcTemplate, partition -> new InstrumentedVectorStore(
+                PgVectorStore.builder(jdbcTemplate, instrumentedEmbeddingModel)
+                        .vectorTableName(partition)
+                        .build(),
+                pipelineMetrics));
+    }
+
+    /**
+     * The store of the default namespace, for callers without a namespace such as the directory sync.
+     */
+    @Bean
+    public VectorStore vectorStore(VectorStoreRouter vectorStoreRouter) {
+        return vectorStoreRouter.getDefault();
     }
 }
@@ -1,16 +1,27 @@
 package de.haeger.springaidemo.config;
 
+import de.haeger.springaidemo.observability.PipelineContextInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Web configuration for CORS settings.
  * Allows the frontend to access the backend API from different origins.
+ * Also binds the pipeline metrics context for the chat and RAG endpoints.
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WebConfig implements WebMvcConfigurer {
 
+    private final PipelineContextInterceptor pipelineContextInterceptor;
+
+    public WebConfig(PipelineContextInterceptor pipelineContextInterceptor) {
+        this.pipelineContextInterceptor = pipelineContextInterceptor;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -19,4 +30,10 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(pipelineContextInterceptor)
+                .addPathPatterns("/chat/**", "/rag/**");
+    }
 }
@@ -0,0 +1,179 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.batch.BatchChatService;
+import de.haeger.springaidemo.dto.BatchChatRequestDto;
+import de.haeger.springaidemo.dto.BatchJobDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * REST controller for offline batch processing of prompts.
+ * A job is submitted as JSON, as NDJSON or plain text lines, or as an uploaded file of
+ * either, and its results are streamed back as NDJSON while it runs. The job keeps running
+ * when the client disconnects; its results can be streamed again from any index.
+ */
+@RestController
+@RequestMapping("/batch")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BatchChatController {
+
+    public static final String JOB_ID_HEADER = "X-Batch-Job-Id";
+
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final BatchChatService batchChatService;
+
+    public BatchChatController(BatchChatService batchChatService) {
+        this.batchChatService = batchChatService;
+    }
+
+    /**
+     * Submit a batch job and stream its results.
+     *
+     * @param request the prompts with model and rag flag
+     * @return the results as NDJSON, or an error message
+     */
+    @PostMapping(value = "/chat", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> submit(@RequestBody BatchChatRequestDto request) {
+        return submitAndStream(() -> batchChatService.submit(
+                request.prompts(),
+                request.model(),
+                Boolean.TRUE.equals(request.rag())));
+    }
+
+    /**
+     * Submit a batch job given as NDJSON prompts or one prompt per line, and stream its results.
+     *
+     * @param body the prompts
+     * @param model a model name, or "auto" to use any ready model
+     * @param rag whether to answer the prompts from the knowledge base, unless set per prompt
+     * @return the results as NDJSON, or an error message
+     */
+    @PostMapping(value = "/chat", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> submitLines(
+            InputStream body,
+            @RequestParam(defaultValue = BatchChatService.AUTO) String model,
+            @RequestParam(defaultValue = "false") boolean rag) {
+        return submitAndStream(() -> batchChatService.submit(body, model, rag));
+    }
+
+    /**
+     * Submit a batch job from an uploaded file of NDJSON prompts or one prompt per line,
+     * and stream its results.
+     *
+     * @param file the prompts
+     * @param model a model name, or "auto" to use any ready model
+     * @param rag whether to answer the prompts from the knowledge base, unless set per prompt
+     * @return the results as NDJSON, or an error message
+     */
+    @PostMapping(value = "/chat", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> submitFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = BatchChatService.AUTO) String model,
+            @RequestParam(defaultValue = "false") boolean rag) {
+        return submitAndStream(() -> {
+            try (InputStream in = file.getInputStream()) {
+                return batchChatService.submit(in, model, rag);
+            }
+        });
+    }
+
+    /**
+     * Get a batch job with its progress.
+     *
+     * @param id the job identifier
+     * @return the job
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BatchJobDto> getJob(@PathVariable UUID id) {
+        try {
+            BatchJobDto job = batchChatService.getJob(id);
+            return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Stream the results of a batch job, e.g. to resume after a disconnect.
+     *
+     * @param id the job identifier
+     * @param from the index of the first result, i.e. the number of results already received
+     * @return the results as NDJSON, or an error message
+     */
+    @GetMapping("/jobs/{id}/results")
+    public ResponseEntity<ResponseBodyEmitter> getResults(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "0") int from) {
+        try {
+            BatchJobDto job = batchChatService.getJob(id);
+            if (job == null) {
+                return message(HttpStatus.NOT_FOUND, "Batch job not found: " + id);
+            }
+            return stream(job, from);
+        } catch (Exception e) {
+            return message(HttpStatus.INTERNAL_SERVER_ERROR, "Error retrieving batch results: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancel a batch job. Results stored so far are kept.
+     *
+     * @param id the job identifier
+     * @return the cancelled job
+     */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<BatchJobDto> cancel(@PathVariable UUID id) {
+        try {
+            BatchJobDto job = batchChatService.cancel(id);
+            return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> submitAndStream(Callable<BatchJobDto> submit) {
+        BatchJobDto job;
+        try {
+            job = submit.call();
+        } catch (IllegalArgumentException e) {
+            // No prompts, too many, an empty or malformed prompt, or an unknown model
+            return message(HttpStatus.BAD_REQUEST, "Invalid batch job: " + e.getMessage());
+        } catch (Exception e) {
+            return message(HttpStatus.INTERNAL_SERVER_ERROR, "Error submitting batch job: " + e.getMessage());
+        }
+        return stream(job, 0);
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> stream(BatchJobDto job, int from) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(JOB_ID_HEADER, job.id().toString())
+                .body(batchChatService.streamResults(job, from));
+    }
+
+    /**
+     * Error message as the body of a streaming endpoint, which cannot return a plain string.
+     */
+    private static ResponseEntity<ResponseBodyEmitter> message(HttpStatus status, String message) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        try {
+            emitter.send(message.getBytes(StandardCharsets.UTF_8), TEXT_PLAIN_UTF8);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.status(status).contentType(TEXT_PLAIN_UTF8).body(emitter);
+    }
+}
@@ -1,10 +1,14 @@
 package de.haeger.springaidemo.controller;
 
 import de.haeger.springaidemo.config.ChatClientConfig;
+import de.haeger.springaidemo.observability.PipelineContext;
+import de.haeger.springaidemo.observability.PipelineTrace;
 import de.haeger.springaidemo.service.ModelSwitchService;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
  */
 @RestController
 @RequestMapping("/chat")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ChatController {
 
     private final ChatClientConfig chatClientConfig;
@@ -58,20 +63,7 @@ public class ChatController {
                 return ResponseEntity.badRequest().body("Conversation ID cannot be null or empty");
             }
 
-            // Get the model for this conversation
-            ChatModel model = modelSwitchService.getModelForConversation(conversationId);
-            
-            // Create a fresh ChatClient with the conversation-specific model
-            ChatClient chatClient = chatClientConfig.createChatClient(model);
-
-            // Generate response with memory
-            // The MessageChatMemoryAdvisor automatically manages conversation history
-            // Tools are already configured as defaultTools in the ChatClient bean
-            String response = chatClient.prompt()
-                    .user(msg)
-                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
-                    .call()
-                    .content();
+            String response = textOf(generate(msg, conversationId));
 
             return ResponseEntity.ok(response);
 
@@ -83,6 +75,66 @@ public class ChatController {
         }
     }
 
+    /**
+     * Chat endpoint variant returning the answer together with a trace of the request.
+     * Selected with {@code trace=true}; the breakdown is intended for the debug panel.
+     *
+     * @param msg            the user message
+     * @param conversationId the conversation identifier for memory persistence
+     * @return the AI response with per-stage timings, token usage and model, or an error message
+     */
+    @GetMapping(params = "trace=true")
+    public ResponseEntity<?> chatWithTrace(
+            @RequestParam String msg,
+            @RequestParam String conversationId) {
+
+        try {
+            if (msg == null || msg.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("Message cannot be null or empty");
+            }
+
+            if (conversationId == null || conversationId.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("Conversation ID cannot be null or empty");
+            }
+
+            ChatResponse chatResponse = generate(msg, conversationId);
+
+            PipelineContext context = PipelineContext.current();
+            PipelineTrace trace = context.getTrace();
+            String answer = textOf(chatResponse);
+            return ResponseEntity.ok(trace.toDto(answer, context.getModelName()));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error processing chat: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Generate a response with the model associated with the conversation.
+     * The MessageChatMemoryAdvisor automatically manages conversation history.
+     * Tools are already configured as defaultTools in the ChatClient.
+     */
+    private ChatResponse generate(String msg, String conversationId) {
+        // Get the model for this conversation
+        ChatModel model = modelSwitchService.getModelForConversation(conversationId);
+
+        // Create a fresh ChatClient with the conversation-specific model
+        ChatClient chatClient = chatClientConfig.createChatClient(model);
+
+        return chatClient.prompt()
+                .user(msg)
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                .call()
+                .chatResponse();
+    }
+
+    private static String textOf(ChatResponse chatResponse) {
+        return chatResponse.getResult() != null ? chatResponse.getResult().getOutput().getText() : null;
+    }
+
     /**
      * Clear conversation memory for a specific conversation ID.
      * 
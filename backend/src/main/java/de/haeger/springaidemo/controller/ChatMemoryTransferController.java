@@ -0,0 +1,94 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.dto.RetentionResultDto;
+import de.haeger.springaidemo.memory.ChatMemoryArchiveService;
+import de.haeger.springaidemo.memory.ChatMemoryTransferService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller for bulk export and import of chat memory.
+ * Conversations are transferred as gzip-compressed NDJSON without being loaded into memory.
+ * Also allows running the retention policies on demand.
+ */
+@RestController
+@RequestMapping("/chat/memory")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ChatMemoryTransferController {
+
+    private final ChatMemoryTransferService chatMemoryTransferService;
+    private final ChatMemoryArchiveService chatMemoryArchiveService;
+
+    public ChatMemoryTransferController(
+            ChatMemoryTransferService chatMemoryTransferService,
+            ChatMemoryArchiveService chatMemoryArchiveService) {
+        this.chatMemoryTransferService = chatMemoryTransferService;
+        this.chatMemoryArchiveService = chatMemoryArchiveService;
+    }
+
+    /**
+     * Export conversations with their messages and model selections.
+     * The response is written while the database is read, so it has no fixed size.
+     *
+     * @param conversationIds the conversations to export, all if omitted
+     * @param response the response to stream the export to
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(name = "conversationId", required = false) List<String> conversationIds,
+            HttpServletResponse response) throws Exception {
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"chat-memory-" + LocalDate.now() + ".ndjson.gz\"");
+        chatMemoryTransferService.export(conversationIds, response.getOutputStream());
+    }
+
+    /**
+     * Import an export created by {@link #export}. Accepts gzip-compressed or plain NDJSON.
+     *
+     * @param body the export
+     * @param mode {@code append} to add the messages, {@code replace} to replace the
+     *             messages of the imported conversations
+     * @return a summary of the import, or an error message
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importMemory(
+            InputStream body,
+            @RequestParam(defaultValue = "append") String mode) {
+        try {
+            if (!mode.equals("append") && !mode.equals("replace")) {
+                return ResponseEntity.badRequest().body("Invalid mode: " + mode);
+            }
+            return ResponseEntity.ok(chatMemoryTransferService.importRecords(body, mode.equals("replace")));
+
+        } catch (IllegalArgumentException e) {
+            // Not an export, or malformed JSON
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error importing chat memory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archive cold conversations and purge expired archives now instead of waiting for the schedule.
+     *
+     * @return a summary of the run
+     */
+    @PostMapping("/retention")
+    public ResponseEntity<RetentionResultDto> applyRetention() {
+        try {
+            return ResponseEntity.ok(chatMemoryArchiveService.applyRetention());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -4,12 +4,18 @@ import de.haeger.springaidemo.dto.ChatMemoryDto;
 import de.haeger.springaidemo.dto.ConversationSummaryDto;
 import de.haeger.springaidemo.dto.ModelSettingsDto;
 import de.haeger.springaidemo.dto.VectorStoreStatsDto;
+import de.haeger.springaidemo.memory.ConversationEventService;
+import de.haeger.springaidemo.vectorstore.VectorStoreStatsService;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -21,10 +27,13 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/info")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class InfoController {
 
     private final ChatMemory chatMemory;
     private final JdbcTemplate jdbcTemplate;
+    private final VectorStoreStatsService vectorStoreStatsService;
+    private final ConversationEventService conversationEventService;
 
     @Value("${spring.ai.vertex.ai.gemini.chat.options.model:unknown}")
     private String modelName;
@@ -38,9 +47,15 @@ public class InfoController {
     @Value("${spring.ai.vertex.ai.gemini.location:unknown}")
     private String location;
 
-    public InfoController(ChatMemory chatMemory, JdbcTemplate jdbcTemplate) {
+    public InfoController(
+            ChatMemory chatMemory,
+            @Qualifier("analyticsJdbcTemplate") JdbcTemplate jdbcTemplate,
+            VectorStoreStatsService vectorStoreStatsService,
+            ConversationEventService conversationEventService) {
         this.chatMemory = chatMemory;
         this.jdbcTemplate = jdbcTemplate;
+        this.vectorStoreStatsService = vectorStoreStatsService;
+        this.conversationEventService = conversationEventService;
     }
 
     /**
@@ -99,24 +114,17 @@ public class InfoController {
 
     /**
      * Get vector store statistics.
+     * Served from a short-lived cache and based on catalog statistics, so polling
+     * does not scan the table.
      * 
-     * @return statistics about the vector store including document count
+     * @return statistics about the vector store including estimated document count,
+     *         table and index size, dead tuples, documents per source, embedding dimension
+     *         and recent search latency percentiles
      */
     @GetMapping("/vector-store")
     public ResponseEntity<VectorStoreStatsDto> getVectorStoreStats() {
         try {
-            // Query the vector_store table to get document count
-            Long documentCount = jdbcTemplate.queryForObject(
-                    "SELECT COUNT(*) FROM vector_store",
-                    Long.class
-            );
-
-            VectorStoreStatsDto stats = new VectorStoreStatsDto(
-                    documentCount != null ? documentCount : 0,
-                    "PgVector",
-                    true
-            );
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok(vectorStoreStatsService.getStats());
 
         } catch (Exception e) {
             // If table doesn't exist or query fails, return zero count
@@ -136,24 +144,22 @@ public class InfoController {
             String sql = "SELECT conversation_id, COUNT(*) as message_count, MAX(timestamp) as last_updated, " +
                         "(SELECT content FROM spring_ai_chat_memory m2 " +
                         " WHERE m2.conversation_id = m1.conversation_id AND m2.type = 'USER' " +
-                        " ORDER BY m2.timestamp ASC LIMIT 1) as first_message " +
+                        " ORDER BY m2.timestamp ASC LIMIT 1) as first_message, false as archived " +
                         "FROM spring_ai_chat_memory m1 " +
                         "GROUP BY conversation_id " +
-                        "ORDER BY MAX(timestamp) DESC";
+                        "UNION ALL " +
+                        "SELECT conversation_id, message_count, last_message_at, title, true " +
+                        "FROM chat_memory_archive " +
+                        "ORDER BY last_updated DESC";
             
             List<ConversationSummaryDto> conversations = jdbcTemplate.query(sql, (rs, rowNum) -> {
                 ConversationSummaryDto dto = new ConversationSummaryDto();
                 dto.setConversationId(rs.getString("conversation_id"));
                 dto.setMessageCount(rs.getInt("message_count"));
                 dto.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
+                dto.setArchived(rs.getBoolean("archived"));
                 
-                String firstMessage = rs.getString("first_message");
-                if (firstMessage != null && !firstMessage.isEmpty()) {
-                    dto.setTitle(firstMessage.length() > 50 ? firstMessage.substring(0, 50) + "..." : firstMessage);
-                } else {
-                    dto.setTitle("New Conversation");
-                }
-                
+                dto.setTitle(ConversationSummaryDto.titleOf(rs.getString("first_message")));
                 return dto;
             });
 
@@ -162,4 +168,23 @@ public class InfoController {
             return ResponseEntity.ok(new ArrayList<>());
         }
     }
+
+    /**
+     * Subscribe to changes of conversations as server-sent events, instead of polling
+     * {@code /info/conversations} and {@code /info/memory/{conversationId}}.
+     * An {@code updated} event holds the current summary and model of a conversation that
+     * got new messages, was archived, restored or switched to another model; a
+     * {@code deleted} event the ID of a deleted conversation. After a {@code reset} event
+     * clients reload all conversations, as changes may have been missed.
+     *
+     * @return the event stream
+     */
+    @GetMapping(value = "/conversations/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getConversationEvents() {
+        try {
+            return ResponseEntity.ok(conversationEventService.subscribe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 }
@@ -5,6 +5,7 @@ import de.haeger.springaidemo.dto.ModelInfo;
 import de.haeger.springaidemo.dto.SwitchModelRequest;
 import de.haeger.springaidemo.dto.SwitchModelResponse;
 import de.haeger.springaidemo.service.ModelSwitchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,6 +17,7 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/api/models")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ModelController {
 
     private final ModelSwitchService modelSwitchService;
@@ -1,50 +1,97 @@
 package de.haeger.springaidemo.controller;
 
+import de.haeger.springaidemo.dto.IngestedFileDto;
+import de.haeger.springaidemo.observability.PipelineContext;
+import de.haeger.springaidemo.observability.PipelineTrace;
+import de.haeger.springaidemo.rag.DocumentFormat;
 import de.haeger.springaidemo.rag.DocumentIndexer;
 import de.haeger.springaidemo.rag.RagService;
 import de.haeger.springaidemo.service.ModelSwitchService;
+import de.haeger.springaidemo.vectorstore.VectorStoreMaintenanceService;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
+import de.haeger.springaidemo.vectorstore.VectorStoreStatsService;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * REST controller for RAG (Retrieval-Augmented Generation) functionality.
  * Provides endpoints for document indexing and question-answering using vector
  * store.
- * Supports per-conversation model selection.
+ * Supports per-conversation model selection, and vector store namespaces that keep the
+ * documents of different teams apart.
  */
 @RestController
 @RequestMapping("/rag")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RagController {
 
     private final DocumentIndexer documentIndexer;
     private final RagService ragService;
     private final ModelSwitchService modelSwitchService;
+    private final VectorStoreStatsService vectorStoreStatsService;
+    private final VectorStoreMaintenanceService vectorStoreMaintenanceService;
 
     public RagController(
             DocumentIndexer documentIndexer,
             RagService ragService,
-            ModelSwitchService modelSwitchService) {
+            ModelSwitchService modelSwitchService,
+            VectorStoreStatsService vectorStoreStatsService,
+            VectorStoreMaintenanceService vectorStoreMaintenanceService) {
         this.documentIndexer = documentIndexer;
         this.ragService = ragService;
         this.modelSwitchService = modelSwitchService;
+        this.vectorStoreStatsService = vectorStoreStatsService;
+        this.vectorStoreMaintenanceService = vectorStoreMaintenanceService;
     }
 
     /**
      * Add text content to the vector store for RAG queries.
      * 
      * @param text the text content to index
+     * @param ttl optional time to live such as {@code 7d}, after which the text is deleted
+     * @param namespace optional vector store namespace, the default namespace if omitted
      * @return success message
      */
     @PostMapping("/addText")
-    public ResponseEntity<String> addText(@RequestBody String text) {
+    public ResponseEntity<String> addText(
+            @RequestBody String text,
+            @RequestParam(required = false) String ttl,
+            @RequestParam(required = false) String namespace) {
         try {
             if (text == null || text.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body("Text content cannot be null or empty");
             }
 
-            documentIndexer.indexText(text);
+            Duration timeToLive;
+            try {
+                timeToLive = parseTtl(ttl);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Invalid ttl: " + ttl);
+            }
+
+            String targetNamespace;
+            try {
+                targetNamespace = VectorStoreRouter.normalize(namespace);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+
+            documentIndexer.indexText(text, VectorStoreMaintenanceService.expiryMetadata(timeToLive), targetNamespace);
+            vectorStoreStatsService.invalidate();
             return ResponseEntity.ok("Text successfully indexed");
 
         } catch (Exception e) {
@@ -53,6 +100,78 @@ public class RagController {
         }
     }
 
+    /**
+     * Upload files and index them into the vector store.
+     * Supports PDF, Markdown, HTML and plain text; files are parsed and chunked while
+     * they are read, so large files are not loaded into memory.
+     * The chunks of all files carry the ID of the upload, and if any file fails, the
+     * chunks already stored are deleted again, so an upload is indexed completely or not at all.
+     *
+     * @param files the files to index
+     * @param ttl optional time to live such as {@code 7d}, after which the files are deleted
+     * @param namespace optional vector store namespace, the default namespace if omitted
+     * @return a summary per indexed file, or an error message
+     */
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> upload(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(required = false) String ttl,
+            @RequestParam(required = false) String namespace) {
+        if (files == null || files.isEmpty()) {
+            return ResponseEntity.badRequest().body("No files uploaded");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(DocumentIndexer.SOURCE, "file-upload");
+        metadata.put(VectorStoreMaintenanceService.UPLOAD_ID, uploadId);
+        try {
+            metadata.putAll(VectorStoreMaintenanceService.expiryMetadata(parseTtl(ttl)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid ttl: " + ttl);
+        }
+
+        String targetNamespace;
+        try {
+            targetNamespace = VectorStoreRouter.normalize(namespace);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        // Reject the request before indexing anything if a file is not supported
+        List<DocumentFormat> formats = new ArrayList<>();
+        for (MultipartFile file : files) {
+            DocumentFormat format = DocumentFormat.detect(file.getOriginalFilename(), file.getContentType())
+                    .orElse(null);
+            if (format == null || file.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                        .body("Unsupported or empty file: " + file.getOriginalFilename());
+            }
+            formats.add(format);
+        }
+
+        try {
+            List<IngestedFileDto> results = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                results.add(documentIndexer.indexFile(
+                        file.getOriginalFilename(), formats.get(i), file, metadata, targetNamespace));
+            }
+            vectorStoreStatsService.invalidate();
+            return ResponseEntity.ok(results);
+
+        } catch (Exception e) {
+            String message = "Error indexing files: " + e.getMessage();
+            try {
+                vectorStoreMaintenanceService.deleteUpload(uploadId);
+            } catch (Exception rollbackError) {
+                message += "; chunks of upload " + uploadId + " could not be deleted: " + rollbackError.getMessage();
+            }
+            vectorStoreStatsService.invalidate();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(message);
+        }
+    }
+
     /**
      * Ask a question using RAG to retrieve relevant context from indexed documents.
      * Now supports conversation memory for context-aware responses.
@@ -60,12 +179,14 @@ public class RagController {
      * 
      * @param question the question to ask
      * @param conversationId the conversation identifier for memory persistence
+     * @param namespace optional vector store namespace to search, the default namespace if omitted
      * @return the answer generated using RAG
      */
     @GetMapping("/ask")
     public ResponseEntity<String> ask(
             @RequestParam String question,
-            @RequestParam String conversationId) {
+            @RequestParam String conversationId,
+            @RequestParam(required = false) String namespace) {
         try {
             if (question == null || question.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body("Question cannot be null or empty");
@@ -75,10 +196,17 @@ public class RagController {
                 return ResponseEntity.badRequest().body("Conversation ID cannot be null or empty");
             }
 
+            String searchNamespace;
+            try {
+                searchNamespace = VectorStoreRouter.normalize(namespace);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+
             // Get the model for this conversation
             ChatModel model = modelSwitchService.getModelForConversation(conversationId);
             
-            String answer = ragService.query(question, conversationId, model);
+            String answer = ragService.query(question, conversationId, searchNamespace, model);
             return ResponseEntity.ok(answer);
 
         } catch (Exception e) {
@@ -86,4 +214,52 @@ public class RagController {
                     .body("Error processing question: " + e.getMessage());
         }
     }
+
+    /**
+     * RAG endpoint variant returning the answer together with a trace of the request.
+     * Selected with {@code trace=true}; the breakdown is intended for the debug panel.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace optional vector store namespace to search, the default namespace if omitted
+     * @return the answer with per-stage timings, retrieved documents, token usage and model, or an error message
+     */
+    @GetMapping(value = "/ask", params = "trace=true")
+    public ResponseEntity<?> askWithTrace(
+            @RequestParam String question,
+            @RequestParam String conversationId,
+            @RequestParam(required = false) String namespace) {
+        try {
+            if (question == null || question.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("Question cannot be null or empty");
+            }
+
+            if (conversationId == null || conversationId.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("Conversation ID cannot be null or empty");
+            }
+
+            String searchNamespace;
+            try {
+                searchNamespace = VectorStoreRouter.normalize(namespace);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+
+            ChatModel model = modelSwitchService.getModelForConversation(conversationId);
+            ChatResponse chatResponse = ragService.queryForResponse(question, conversationId, searchNamespace, model);
+
+            PipelineContext context = PipelineContext.current();
+            PipelineTrace trace = context.getTrace();
+            String answer = chatResponse.getResult() != null ? chatResponse.getResult().getOutput().getText() : null;
+            return ResponseEntity.ok(trace.toDto(answer, context.getModelName()));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error processing question: " + e.getMessage());
+        }
+    }
+
+    private static Duration parseTtl(String ttl) {
+        return ttl == null || ttl.isBlank() ? null : DurationStyle.detectAndParse(ttl);
+    }
 }
@@ -0,0 +1,198 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.config.ChatClientConfig;
+import de.haeger.springaidemo.dto.TokenChunkDto;
+import de.haeger.springaidemo.memory.ReactiveChatMemory;
+import de.haeger.springaidemo.memory.ReactiveChatMemoryAdvisor;
+import de.haeger.springaidemo.observability.PipelineContextAccessor;
+import de.haeger.springaidemo.service.ReactiveModelSwitchService;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+/**
+ * Reactive counterpart of the {@link ChatController}, served in the reactive mode.
+ * Same endpoints, backed by the non-blocking chat memory and model lookup, and an
+ * additional endpoint streaming the answer token by token.
+ * The other endpoints aggregate the streamed answer, so no request holds a thread
+ * while the model generates.
+ */
+@RestController
+@RequestMapping("/chat")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatController {
+
+    private final ChatClientConfig chatClientConfig;
+    private final ReactiveChatMemory chatMemory;
+    private final ReactiveChatMemoryAdvisor chatMemoryAdvisor;
+    private final ReactiveModelSwitchService modelSwitchService;
+
+    // Chunks kept for a slow client before the stream fails and the generation is cancelled
+    @Value("${app.reactive.stream.buffer:256}")
+    private int streamBuffer;
+
+    public ReactiveChatController(
+            ChatClientConfig chatClientConfig,
+            ReactiveChatMemory chatMemory,
+            ReactiveModelSwitchService modelSwitchService) {
+        this.chatClientConfig = chatClientConfig;
+        this.chatMemory = chatMemory;
+        this.chatMemoryAdvisor = new ReactiveChatMemoryAdvisor(chatMemory);
+        this.modelSwitchService = modelSwitchService;
+    }
+
+    /**
+     * Chat endpoint with persistent memory support.
+     * Uses the model associated with the conversation, or the current global model if none is set.
+     *
+     * @param msg            the user message
+     * @param conversationId the conversation identifier for memory persistence
+     * @return the AI response
+     */
+    @GetMapping
+    public Mono<ResponseEntity<String>> chat(
+            @RequestParam String msg,
+            @RequestParam String conversationId) {
+
+        if (msg == null || msg.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Message cannot be null or empty"));
+        }
+
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Conversation ID cannot be null or empty"));
+        }
+
+        return PipelineContextAccessor.mono("/chat", false, context -> generate(msg, conversationId)
+                        .collect(Collectors.joining())
+                        .map(ResponseEntity::ok))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(
+                        ResponseEntity.badRequest().body("Invalid input: " + e.getMessage())))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error processing chat: " + e.getMessage())));
+    }
+
+    /**
+     * Chat endpoint variant returning the answer together with a trace of the request.
+     * Selected with {@code trace=true}; the breakdown is intended for the debug panel.
+     *
+     * @param msg            the user message
+     * @param conversationId the conversation identifier for memory persistence
+     * @return the AI response with per-stage timings, token usage and model, or an error message
+     */
+    @GetMapping(params = "trace=true")
+    public Mono<ResponseEntity<?>> chatWithTrace(
+            @RequestParam String msg,
+            @RequestParam String conversationId) {
+
+        if (msg == null || msg.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Message cannot be null or empty"));
+        }
+
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Conversation ID cannot be null or empty"));
+        }
+
+        return PipelineContextAccessor.mono("/chat", true, context -> generate(msg, conversationId)
+                        .collect(Collectors.joining())
+                        .<ResponseEntity<?>>map(answer -> ResponseEntity.ok(
+                                context.getTrace().toDto(answer, context.getModelName()))))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(
+                        ResponseEntity.badRequest().body("Invalid input: " + e.getMessage())))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error processing chat: " + e.getMessage())));
+    }
+
+    /**
+     * Stream the answer as server-sent events, one {@code token} event per chunk.
+     * A client reading slower than the model generates gets up to {@code app.reactive.stream.buffer}
+     * chunks buffered; beyond that, and when the client disconnects, the generation is cancelled.
+     * A failure ends the stream with an {@code error} event holding the message.
+     *
+     * @param msg            the user message
+     * @param conversationId the conversation identifier for memory persistence
+     * @return the stream of answer chunks
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<TokenChunkDto>>> stream(
+            @RequestParam String msg,
+            @RequestParam String conversationId) {
+
+        if (msg == null || msg.trim().isEmpty()
+                || conversationId == null || conversationId.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(PipelineContextAccessor.flux("/chat/stream", context -> generate(msg, conversationId))
+                .onBackpressureBuffer(streamBuffer)
+                .map(content -> ServerSentEvent.builder(new TokenChunkDto(content)).event("token").build())
+                .onErrorResume(e -> Mono.just(ServerSentEvent.builder(new TokenChunkDto(e.getMessage()))
+                        .event("error").build())));
+    }
+
+    /**
+     * Generate a response with the model associated with the conversation.
+     * The ReactiveChatMemoryAdvisor loads and stores the conversation history.
+     */
+    private Flux<String> generate(String msg, String conversationId) {
+        return modelSwitchService.getModelForConversation(conversationId)
+                .flatMapMany(model -> chatClientConfig.createChatClient(model, chatMemoryAdvisor).prompt()
+                        .user(msg)
+                        .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                        .stream()
+                        .content());
+    }
+
+    /**
+     * Clear conversation memory for a specific conversation ID.
+     *
+     * @param conversationId the conversation identifier
+     * @return success message
+     */
+    @DeleteMapping("/memory/{conversationId}")
+    public Mono<ResponseEntity<String>> clearMemory(@PathVariable String conversationId) {
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Conversation ID cannot be null or empty"));
+        }
+
+        return chatMemory.clear(conversationId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok("Memory cleared for conversation: " + conversationId)))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error clearing memory: " + e.getMessage())));
+    }
+
+    /**
+     * Get conversation history for a specific conversation ID.
+     *
+     * @param conversationId the conversation identifier
+     * @return the conversation history
+     */
+    @GetMapping("/memory/{conversationId}")
+    public Mono<ResponseEntity<String>> getMemory(@PathVariable String conversationId) {
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Conversation ID cannot be null or empty"));
+        }
+
+        return chatMemory.get(conversationId)
+                .map(messages -> {
+                    StringBuilder history = new StringBuilder();
+                    for (var message : messages) {
+                        history.append(message.getMessageType().name())
+                                .append(": ")
+                                .append(message.getText())
+                                .append("\n\n");
+                    }
+                    return ResponseEntity.ok(history.toString());
+                })
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error retrieving memory: " + e.getMessage())));
+    }
+}
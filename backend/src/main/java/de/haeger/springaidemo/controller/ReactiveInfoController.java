@@ -0,0 +1,172 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.dto.ChatMemoryDto;
+import de.haeger.springaidemo.dto.ConversationEventDto;
+import de.haeger.springaidemo.dto.ConversationSummaryDto;
+import de.haeger.springaidemo.dto.ModelSettingsDto;
+import de.haeger.springaidemo.dto.VectorStoreStatsDto;
+import de.haeger.springaidemo.memory.ConversationEventService;
+import de.haeger.springaidemo.memory.ReactiveChatMemory;
+import de.haeger.springaidemo.vectorstore.VectorStoreStatsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reactive counterpart of the {@link InfoController}, served in the reactive mode.
+ * The conversation list is queried through R2DBC; the vector store statistics are
+ * JDBC-based and are read on the bounded elastic scheduler.
+ */
+@RestController
+@RequestMapping("/info")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveInfoController {
+
+    private final ReactiveChatMemory chatMemory;
+    private final DatabaseClient databaseClient;
+    private final VectorStoreStatsService vectorStoreStatsService;
+    private final ConversationEventService conversationEventService;
+
+    @Value("${spring.ai.vertex.ai.gemini.chat.options.model:unknown}")
+    private String modelName;
+
+    @Value("${spring.ai.vertex.ai.gemini.chat.options.temperature:0.7}")
+    private Double temperature;
+
+    @Value("${spring.ai.vertex.ai.gemini.project-id:unknown}")
+    private String projectId;
+
+    @Value("${spring.ai.vertex.ai.gemini.location:unknown}")
+    private String location;
+
+    public ReactiveInfoController(
+            ReactiveChatMemory chatMemory,
+            DatabaseClient databaseClient,
+            VectorStoreStatsService vectorStoreStatsService,
+            ConversationEventService conversationEventService) {
+        this.chatMemory = chatMemory;
+        this.databaseClient = databaseClient;
+        this.vectorStoreStatsService = vectorStoreStatsService;
+        this.conversationEventService = conversationEventService;
+    }
+
+    /**
+     * Get current AI model settings.
+     *
+     * @return model configuration including name, temperature, project ID, and location
+     */
+    @GetMapping("/model")
+    public ResponseEntity<ModelSettingsDto> getModelSettings() {
+        return ResponseEntity.ok(new ModelSettingsDto(
+                modelName,
+                temperature,
+                projectId,
+                location
+        ));
+    }
+
+    /**
+     * Get chat memory for a specific conversation ID.
+     *
+     * @param conversationId the conversation identifier
+     * @return conversation history with messages and timestamps
+     */
+    @GetMapping("/memory/{conversationId}")
+    public Mono<ResponseEntity<ChatMemoryDto>> getMemory(@PathVariable String conversationId) {
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return chatMemory.get(conversationId)
+                .map(messages -> {
+                    List<ChatMemoryDto.MessageDto> messageDtos = new ArrayList<>();
+                    for (var message : messages) {
+                        messageDtos.add(new ChatMemoryDto.MessageDto(
+                                message.getMessageType().name(),
+                                message.getText(),
+                                LocalDateTime.now() // Note: Spring AI Message doesn't have timestamp, using current time
+                        ));
+                    }
+                    return ResponseEntity.ok(new ChatMemoryDto(conversationId, messageDtos));
+                })
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+    }
+
+    /**
+     * Get vector store statistics.
+     * Served from a short-lived cache and based on catalog statistics, so polling
+     * does not scan the table.
+     *
+     * @return statistics about the vector store, see {@link InfoController#getVectorStoreStats()}
+     */
+    @GetMapping("/vector-store")
+    public Mono<ResponseEntity<VectorStoreStatsDto>> getVectorStoreStats() {
+        return Mono.fromCallable(vectorStoreStatsService::getStats)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok)
+                // If table doesn't exist or query fails, return zero count
+                .onErrorResume(e -> Mono.just(ResponseEntity.ok(new VectorStoreStatsDto(0, "PgVector", false))));
+    }
+
+    /**
+     * Get list of all conversation IDs with message counts.
+     *
+     * @return list of conversation summaries
+     */
+    @GetMapping("/conversations")
+    public Mono<ResponseEntity<List<ConversationSummaryDto>>> getConversations() {
+        String sql = "SELECT conversation_id, COUNT(*) as message_count, MAX(timestamp) as last_updated, " +
+                    "(SELECT content FROM spring_ai_chat_memory m2 " +
+                    " WHERE m2.conversation_id = m1.conversation_id AND m2.type = 'USER' " +
+                    " ORDER BY m2.timestamp ASC LIMIT 1) as first_message, false as archived " +
+                    "FROM spring_ai_chat_memory m1 " +
+                    "GROUP BY conversation_id " +
+                    "UNION ALL " +
+                    "SELECT conversation_id, message_count, last_message_at, title, true " +
+                    "FROM chat_memory_archive " +
+                    "ORDER BY last_updated DESC";
+
+        return databaseClient.sql(sql)
+                .map(row -> {
+                    ConversationSummaryDto dto = new ConversationSummaryDto();
+                    dto.setConversationId(row.get("conversation_id", String.class));
+                    dto.setMessageCount(row.get("message_count", Long.class).intValue());
+                    dto.setLastUpdated(row.get("last_updated", LocalDateTime.class));
+                    dto.setArchived(row.get("archived", Boolean.class));
+
+                    dto.setTitle(ConversationSummaryDto.titleOf(row.get("first_message", String.class)));
+                    return dto;
+                })
+                .all()
+                .collectList()
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(ResponseEntity.ok(new ArrayList<>())));
+    }
+
+    /**
+     * Subscribe to changes of conversations as server-sent events, see
+     * {@link InfoController#getConversationEvents()}.
+     *
+     * @return the event stream
+     */
+    @GetMapping(value = "/conversations/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<ConversationEventDto>>> getConversationEvents() {
+        try {
+            return ResponseEntity.ok(conversationEventService.stream());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
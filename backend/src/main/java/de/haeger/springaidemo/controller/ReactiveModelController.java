@@ -0,0 +1,92 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.dto.CurrentModelResponse;
+import de.haeger.springaidemo.dto.ModelInfo;
+import de.haeger.springaidemo.dto.SwitchModelRequest;
+import de.haeger.springaidemo.dto.SwitchModelResponse;
+import de.haeger.springaidemo.service.ModelSwitchService;
+import de.haeger.springaidemo.service.ReactiveModelSwitchService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of the {@link ModelController}, served in the reactive mode.
+ * The model of a conversation is read and stored through R2DBC.
+ */
+@RestController
+@RequestMapping("/api/models")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveModelController {
+
+    private final ModelSwitchService modelSwitchService;
+    private final ReactiveModelSwitchService reactiveModelSwitchService;
+
+    public ReactiveModelController(
+            ModelSwitchService modelSwitchService,
+            ReactiveModelSwitchService reactiveModelSwitchService) {
+        this.modelSwitchService = modelSwitchService;
+        this.reactiveModelSwitchService = reactiveModelSwitchService;
+    }
+
+    /**
+     * Get a list of all available AI models with their status.
+     *
+     * @return List of ModelInfo objects containing model details
+     */
+    @GetMapping
+    public ResponseEntity<List<ModelInfo>> getAvailableModels() {
+        return ResponseEntity.ok(modelSwitchService.getAvailableModels());
+    }
+
+    /**
+     * Get the currently active model name.
+     * If a conversationId is provided, returns the model for that conversation.
+     *
+     * @param conversationId Optional conversation ID
+     * @return CurrentModelResponse containing the model name
+     */
+    @GetMapping("/current")
+    public Mono<ResponseEntity<CurrentModelResponse>> getCurrentModel(
+            @RequestParam(required = false) String conversationId) {
+        Mono<String> modelName;
+        if (conversationId != null && !conversationId.isBlank()) {
+            modelName = reactiveModelSwitchService.getModelNameForConversation(conversationId);
+        } else {
+            modelName = Mono.fromSupplier(modelSwitchService::getCurrentModelName);
+        }
+        return modelName.map(name -> ResponseEntity.ok(new CurrentModelResponse(name)));
+    }
+
+    /**
+     * Switch to a different AI model.
+     * If a conversationId is provided, the switch is specific to that conversation.
+     * Otherwise, switches the global default model.
+     *
+     * @param request SwitchModelRequest containing modelName and optional conversationId
+     * @return SwitchModelResponse indicating success or failure
+     */
+    @PostMapping("/switch")
+    public Mono<ResponseEntity<SwitchModelResponse>> switchModel(@RequestBody SwitchModelRequest request) {
+        return reactiveModelSwitchService.switchModelForConversation(request.conversationId(), request.modelName())
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(new SwitchModelResponse(
+                    true,
+                    "Switched to " + request.modelName(),
+                    request.modelName()
+                ))))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().body(
+                    new SwitchModelResponse(
+                        false,
+                        e.getMessage(),
+                        modelSwitchService.getCurrentModelName()
+                    ))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.internalServerError().body(new SwitchModelResponse(
+                    false,
+                    "Failed to switch model: " + e.getMessage(),
+                    modelSwitchService.getCurrentModelName()
+                ))));
+    }
+}
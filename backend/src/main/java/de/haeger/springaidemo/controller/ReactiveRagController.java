@@ -0,0 +1,350 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.dto.IngestedFileDto;
+import de.haeger.springaidemo.dto.TokenChunkDto;
+import de.haeger.springaidemo.memory.ReactiveChatMemory;
+import de.haeger.springaidemo.memory.ReactiveChatMemoryAdvisor;
+import de.haeger.springaidemo.observability.PipelineContextAccessor;
+import de.haeger.springaidemo.rag.DocumentFormat;
+import de.haeger.springaidemo.rag.DocumentIndexer;
+import de.haeger.springaidemo.rag.RagService;
+import de.haeger.springaidemo.service.ReactiveModelSwitchService;
+import de.haeger.springaidemo.vectorstore.VectorStoreMaintenanceService;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
+import de.haeger.springaidemo.vectorstore.VectorStoreStatsService;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Reactive counterpart of the {@link RagController}, served in the reactive mode.
+ * Same endpoints, and an additional endpoint streaming the answer token by token.
+ * The vector store is JDBC-based, so indexing and the similarity search run on the
+ * bounded elastic scheduler; the chat memory, the model lookup and the generation
+ * do not block.
+ */
+@RestController
+@RequestMapping("/rag")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRagController {
+
+    private final DocumentIndexer documentIndexer;
+    private final RagService ragService;
+    private final ReactiveChatMemoryAdvisor chatMemoryAdvisor;
+    private final ReactiveModelSwitchService modelSwitchService;
+    private final VectorStoreStatsService vectorStoreStatsService;
+    private final VectorStoreMaintenanceService vectorStoreMaintenanceService;
+
+    // Chunks kept for a slow client before the stream fails and the generation is cancelled
+    @Value("${app.reactive.stream.buffer:256}")
+    private int streamBuffer;
+
+    public ReactiveRagController(
+            DocumentIndexer documentIndexer,
+            RagService ragService,
+            ReactiveChatMemory chatMemory,
+            ReactiveModelSwitchService modelSwitchService,
+            VectorStoreStatsService vectorStoreStatsService,
+            VectorStoreMaintenanceService vectorStoreMaintenanceService) {
+        this.documentIndexer = documentIndexer;
+        this.ragService = ragService;
+        this.chatMemoryAdvisor = new ReactiveChatMemoryAdvisor(chatMemory);
+        this.modelSwitchService = modelSwitchService;
+        this.vectorStoreStatsService = vectorStoreStatsService;
+        this.vectorStoreMaintenanceService = vectorStoreMaintenanceService;
+    }
+
+    /**
+     * Add text content to the vector store for RAG queries.
+     *
+     * @param text the text content to index
+     * @param ttl optional time to live such as {@code 7d}, after which the text is deleted
+     * @param namespace optional vector store namespace, the default namespace if omitted
+     * @return success message
+     */
+    @PostMapping("/addText")
+    public Mono<ResponseEntity<String>> addText(
+            @RequestBody String text,
+            @RequestParam(required = false) String ttl,
+            @RequestParam(required = false) String namespace) {
+        if (text == null || text.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Text content cannot be null or empty"));
+        }
+
+        Duration timeToLive;
+        try {
+            timeToLive = parseTtl(ttl);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body("Invalid ttl: " + ttl));
+        }
+
+        String targetNamespace;
+        try {
+            targetNamespace = VectorStoreRouter.normalize(namespace);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+
+        return Mono.fromCallable(() -> {
+                    documentIndexer.indexText(text, VectorStoreMaintenanceService.expiryMetadata(timeToLive), targetNamespace);
+                    vectorStoreStatsService.invalidate();
+                    return ResponseEntity.ok("Text successfully indexed");
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error indexing text: " + e.getMessage())));
+    }
+
+    /**
+     * Upload files and index them into the vector store.
+     * Supports PDF, Markdown, HTML and plain text. Each file is written to a temporary
+     * file as it arrives and then parsed and chunked while it is read, so large files
+     * are not loaded into memory.
+     * The chunks of all files carry the ID of the upload, and if any file fails, the
+     * chunks already stored are deleted again, so an upload is indexed completely or not at all.
+     *
+     * @param files the files to index
+     * @param ttl optional time to live such as {@code 7d}, after which the files are deleted
+     * @param namespace optional vector store namespace, the default namespace if omitted
+     * @return a summary per indexed file, or an error message
+     */
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<?>> upload(
+            @RequestPart("files") Flux<FilePart> files,
+            @RequestParam(required = false) String ttl,
+            @RequestParam(required = false) String namespace) {
+        String uploadId = UUID.randomUUID().toString();
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(DocumentIndexer.SOURCE, "file-upload");
+        metadata.put(VectorStoreMaintenanceService.UPLOAD_ID, uploadId);
+        try {
+            metadata.putAll(VectorStoreMaintenanceService.expiryMetadata(parseTtl(ttl)));
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body("Invalid ttl: " + ttl));
+        }
+
+        String targetNamespace;
+        try {
+            targetNamespace = VectorStoreRouter.normalize(namespace);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+
+        return files.collectList().flatMap(parts -> {
+            if (parts.isEmpty()) {
+                return Mono.<ResponseEntity<?>>just(ResponseEntity.badRequest().body("No files uploaded"));
+            }
+
+            // Reject the request before indexing anything if a file is not supported
+            List<DocumentFormat> formats = new ArrayList<>();
+            for (FilePart part : parts) {
+                MediaType contentType = part.headers().getContentType();
+                DocumentFormat format = DocumentFormat.detect(
+                        part.filename(), contentType != null ? contentType.toString() : null).orElse(null);
+                if (format == null) {
+                    return Mono.<ResponseEntity<?>>just(ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                            .body("Unsupported or empty file: " + part.filename()));
+                }
+                formats.add(format);
+            }
+
+            return Flux.range(0, parts.size())
+                    .concatMap(i -> indexFile(parts.get(i), formats.get(i), metadata, targetNamespace))
+                    .collectList()
+                    .<ResponseEntity<?>>map(results -> {
+                        vectorStoreStatsService.invalidate();
+                        return ResponseEntity.ok(results);
+                    })
+                    .onErrorResume(e -> rollback(uploadId, "Error indexing files: " + e.getMessage()));
+        }).onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error indexing files: " + e.getMessage())));
+    }
+
+    private Mono<ResponseEntity<?>> rollback(String uploadId, String message) {
+        return Mono.<ResponseEntity<?>>fromCallable(() -> {
+                    String body = message;
+                    try {
+                        vectorStoreMaintenanceService.deleteUpload(uploadId);
+                    } catch (Exception rollbackError) {
+                        body += "; chunks of upload " + uploadId + " could not be deleted: "
+                                + rollbackError.getMessage();
+                    }
+                    vectorStoreStatsService.invalidate();
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<IngestedFileDto> indexFile(
+            FilePart part, DocumentFormat format, Map<String, Object> metadata, String namespace) {
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("rag-upload-", ".tmp"))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                file -> part.transferTo(file).then(Mono.fromCallable(() -> {
+                    if (Files.size(file) == 0) {
+                        throw new IOException("Empty file: " + part.filename());
+                    }
+                    return documentIndexer.indexFile(
+                            part.filename(), format, new FileSystemResource(file), metadata, namespace);
+                }).subscribeOn(Schedulers.boundedElastic())),
+                ReactiveRagController::deleteTempFile);
+    }
+
+    private static Mono<Void> deleteTempFile(Path file) {
+        return Mono.<Void>fromRunnable(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Ask a question using RAG to retrieve relevant context from indexed documents.
+     * Uses the model associated with the conversation, or the current global model if none is set.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace optional vector store namespace to search, the default namespace if omitted
+     * @return the answer generated using RAG
+     */
+    @GetMapping("/ask")
+    public Mono<ResponseEntity<String>> ask(
+            @RequestParam String question,
+            @RequestParam String conversationId,
+            @RequestParam(required = false) String namespace) {
+        if (question == null || question.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Question cannot be null or empty"));
+        }
+
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Conversation ID cannot be null or empty"));
+        }
+
+        String searchNamespace;
+        try {
+            searchNamespace = VectorStoreRouter.normalize(namespace);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+
+        return PipelineContextAccessor.mono("/rag/ask", false, context -> generate(question, conversationId, searchNamespace)
+                        .collect(Collectors.joining())
+                        .map(ResponseEntity::ok))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error processing question: " + e.getMessage())));
+    }
+
+    /**
+     * RAG endpoint variant returning the answer together with a trace of the request.
+     * Selected with {@code trace=true}; the breakdown is intended for the debug panel.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace optional vector store namespace to search, the default namespace if omitted
+     * @return the answer with per-stage timings, retrieved documents, token usage and model, or an error message
+     */
+    @GetMapping(value = "/ask", params = "trace=true")
+    public Mono<ResponseEntity<?>> askWithTrace(
+            @RequestParam String question,
+            @RequestParam String conversationId,
+            @RequestParam(required = false) String namespace) {
+        if (question == null || question.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Question cannot be null or empty"));
+        }
+
+        if (conversationId == null || conversationId.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Conversation ID cannot be null or empty"));
+        }
+
+        String searchNamespace;
+        try {
+            searchNamespace = VectorStoreRouter.normalize(namespace);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+
+        return PipelineContextAccessor.mono("/rag/ask", true, context -> generate(question, conversationId, searchNamespace)
+                        .collect(Collectors.joining())
+                        .<ResponseEntity<?>>map(answer -> ResponseEntity.ok(
+                                context.getTrace().toDto(answer, context.getModelName()))))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error processing question: " + e.getMessage())));
+    }
+
+    /**
+     * Stream the answer as server-sent events, one {@code token} event per chunk.
+     * A client reading slower than the model generates gets up to {@code app.reactive.stream.buffer}
+     * chunks buffered; beyond that, and when the client disconnects, the generation is cancelled.
+     * A failure ends the stream with an {@code error} event holding the message.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace optional vector store namespace to search, the default namespace if omitted
+     * @return the stream of answer chunks
+     */
+    @GetMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<TokenChunkDto>>> askStream(
+            @RequestParam String question,
+            @RequestParam String conversationId,
+            @RequestParam(required = false) String namespace) {
+        if (question == null || question.trim().isEmpty()
+                || conversationId == null || conversationId.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String searchNamespace;
+        try {
+            searchNamespace = VectorStoreRouter.normalize(namespace);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(PipelineContextAccessor.flux("/rag/ask/stream",
+                        context -> generate(question, conversationId, searchNamespace))
+                .onBackpressureBuffer(streamBuffer)
+                .map(content -> ServerSentEvent.builder(new TokenChunkDto(content)).event("token").build())
+                .onErrorResume(e -> Mono.just(ServerSentEvent.builder(new TokenChunkDto(e.getMessage()))
+                        .event("error").build())));
+    }
+
+    /**
+     * Generate the answer with the model associated with the conversation.
+     */
+    private Flux<String> generate(String question, String conversationId, String namespace) {
+        return modelSwitchService.getModelForConversation(conversationId)
+                .flatMapMany(model -> ragService.stream(question, conversationId, namespace, model, chatMemoryAdvisor))
+                .mapNotNull(ReactiveRagController::textOf);
+    }
+
+    private static String textOf(ChatResponse chatResponse) {
+        return chatResponse.getResult() != null ? chatResponse.getResult().getOutput().getText() : null;
+    }
+
+    private static Duration parseTtl(String ttl) {
+        return ttl == null || ttl.isBlank() ? null : DurationStyle.detectAndParse(ttl);
+    }
+}
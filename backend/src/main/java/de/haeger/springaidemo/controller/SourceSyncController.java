@@ -0,0 +1,40 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.dto.SourceSyncResultDto;
+import de.haeger.springaidemo.sync.SourceSyncService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the source directory synchronization.
+ * Only available when a source directory is configured with {@code app.sync.directory}.
+ */
+@RestController
+@RequestMapping("/rag/sync")
+@ConditionalOnProperty(prefix = "app.sync", name = "directory")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SourceSyncController {
+
+    private final SourceSyncService sourceSyncService;
+
+    public SourceSyncController(SourceSyncService sourceSyncService) {
+        this.sourceSyncService = sourceSyncService;
+    }
+
+    /**
+     * Synchronize the source directory now instead of waiting for the next scan.
+     *
+     * @return a summary of the synchronization
+     */
+    @PostMapping
+    public ResponseEntity<SourceSyncResultDto> synchronize() {
+        try {
+            return ResponseEntity.ok(sourceSyncService.synchronize());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
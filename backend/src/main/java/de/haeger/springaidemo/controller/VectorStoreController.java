@@ -0,0 +1,138 @@
+package de.haeger.springaidemo.controller;
+
+import de.haeger.springaidemo.dto.DeletedDocumentsDto;
+import de.haeger.springaidemo.dto.ReembeddingResultDto;
+import de.haeger.springaidemo.vectorstore.ReembeddingService;
+import de.haeger.springaidemo.vectorstore.VectorStoreMaintenanceService;
+import de.haeger.springaidemo.vectorstore.VectorStoreStatsService;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for the lifecycle of indexed documents.
+ * Provides endpoints to delete documents from the vector store, to compact it and to
+ * migrate it to another embedding model.
+ */
+@RestController
+@RequestMapping("/rag/documents")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class VectorStoreController {
+
+    private final VectorStoreMaintenanceService maintenanceService;
+    private final VectorStoreStatsService vectorStoreStatsService;
+    private final ReembeddingService reembeddingService;
+
+    public VectorStoreController(
+            VectorStoreMaintenanceService maintenanceService,
+            VectorStoreStatsService vectorStoreStatsService,
+            ReembeddingService reembeddingService) {
+        this.maintenanceService = maintenanceService;
+        this.vectorStoreStatsService = vectorStoreStatsService;
+        this.reembeddingService = reembeddingService;
+    }
+
+    /**
+     * Delete a single document by ID.
+     *
+     * @param id the document ID
+     * @return the number of deleted documents
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<DeletedDocumentsDto> deleteById(@PathVariable String id) {
+        return delete(List.of(id), null, null);
+    }
+
+    /**
+     * Delete documents by IDs, by source or by metadata filter.
+     * Exactly one of the parameters must be given.
+     *
+     * @param ids document IDs
+     * @param source the value of the {@code source} metadata, e.g. {@code file-upload}
+     * @param filter a filter expression such as {@code filename == 'manual.pdf'}
+     * @return the number of deleted documents
+     */
+    @DeleteMapping
+    public ResponseEntity<DeletedDocumentsDto> delete(
+            @RequestParam(required = false) List<String> ids,
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String filter) {
+        try {
+            int criteria = (ids != null && !ids.isEmpty() ? 1 : 0)
+                    + (source != null && !source.isBlank() ? 1 : 0)
+                    + (filter != null && !filter.isBlank() ? 1 : 0);
+            if (criteria != 1) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            long deleted;
+            if (ids != null && !ids.isEmpty()) {
+                deleted = maintenanceService.deleteByIds(ids);
+            } else if (source != null && !source.isBlank()) {
+                deleted = maintenanceService.deleteBySource(source);
+            } else {
+                deleted = maintenanceService.deleteByFilter(filter);
+            }
+            vectorStoreStatsService.invalidate();
+            return ResponseEntity.ok(new DeletedDocumentsDto(deleted));
+
+        } catch (IllegalArgumentException | FilterExpressionTextParser.FilterExpressionParseException e) {
+            // Malformed document ID or filter expression
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Delete expired documents now instead of waiting for the next sweep.
+     *
+     * @return the number of deleted documents
+     */
+    @PostMapping("/expire")
+    public ResponseEntity<DeletedDocumentsDto> deleteExpired() {
+        try {
+            long deleted = maintenanceService.deleteExpired();
+            vectorStoreStatsService.invalidate();
+            return ResponseEntity.ok(new DeletedDocumentsDto(deleted));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Vacuum all vector store partitions and rebuild their indexes regardless of the dead-tuple ratio.
+     *
+     * @return success message
+     */
+    @PostMapping("/compact")
+    public ResponseEntity<String> compact() {
+        try {
+            maintenanceService.compact();
+            vectorStoreStatsService.invalidate();
+            return ResponseEntity.ok("Vector store compacted");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error compacting vector store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Embed all documents embedded with another model than the configured one again,
+     * e.g. after switching the embedding provider.
+     *
+     * @return the number of re-embedded documents
+     */
+    @PostMapping("/reembed")
+    public ResponseEntity<ReembeddingResultDto> reembed() {
+        try {
+            return ResponseEntity.ok(reembeddingService.reembed());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
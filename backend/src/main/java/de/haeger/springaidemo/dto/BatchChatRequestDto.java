@@ -0,0 +1,16 @@
+package de.haeger.springaidemo.dto;
+
+import java.util.List;
+
+/**
+ * DTO for submitting a batch job as JSON.
+ *
+ * @param prompts The prompts to answer
+ * @param model The model name, or "auto" to spread the prompts over all ready models; "auto" if null
+ * @param rag Whether to answer the prompts from the knowledge base; false if null
+ */
+public record BatchChatRequestDto(
+    List<BatchPromptDto> prompts,
+    String model,
+    Boolean rag
+) {}
@@ -0,0 +1,29 @@
+package de.haeger.springaidemo.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO describing a batch job and its progress.
+ *
+ * @param id The job identifier
+ * @param model The model name, or "auto"
+ * @param rag Whether the prompts are answered from the knowledge base by default
+ * @param status RUNNING, COMPLETED or CANCELLED
+ * @param total The number of prompts
+ * @param done The number of answered prompts
+ * @param failed The number of prompts that failed after all attempts
+ * @param createdAt The submission time
+ * @param completedAt The time the job completed or was cancelled
+ */
+public record BatchJobDto(
+    UUID id,
+    String model,
+    boolean rag,
+    String status,
+    int total,
+    int done,
+    int failed,
+    LocalDateTime createdAt,
+    LocalDateTime completedAt
+) {}
@@ -0,0 +1,14 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO for one prompt of a batch job.
+ *
+ * @param id An optional identifier of the prompt, returned with its result
+ * @param prompt The prompt text
+ * @param rag Whether to answer from the knowledge base; the job setting applies if null
+ */
+public record BatchPromptDto(
+    String id,
+    String prompt,
+    Boolean rag
+) {}
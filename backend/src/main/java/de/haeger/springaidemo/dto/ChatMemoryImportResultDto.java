@@ -0,0 +1,14 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO summarizing a chat memory import.
+ *
+ * @param conversations The number of conversations with imported messages
+ * @param messages The number of imported messages
+ * @param modelPreferences The number of imported conversation model selections
+ */
+public record ChatMemoryImportResultDto(
+    int conversations,
+    long messages,
+    int modelPreferences
+) {}
@@ -0,0 +1,16 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO for a change of a conversation, pushed to clients subscribed to conversation events.
+ *
+ * @param type The type of change: "updated", "deleted", or "reset" if clients should reload all conversations
+ * @param conversationId The changed conversation, null for "reset"
+ * @param conversation The current summary of the conversation, "updated" only
+ * @param model The model selected for the conversation, null for the default model
+ */
+public record ConversationEventDto(
+    String type,
+    String conversationId,
+    ConversationSummaryDto conversation,
+    String model
+) {}
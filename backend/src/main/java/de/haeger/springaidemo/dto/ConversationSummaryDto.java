@@ -12,6 +12,7 @@ public class ConversationSummaryDto {
     private int messageCount;
     private LocalDateTime lastUpdated;
     private String title;
+    private boolean archived;
 
     public ConversationSummaryDto() {
     }
@@ -23,6 +24,16 @@ public class ConversationSummaryDto {
         this.title = title;
     }
 
+    /**
+     * Get the title shown for a conversation, the start of its first user message.
+     */
+    public static String titleOf(String firstMessage) {
+        if (firstMessage == null || firstMessage.isEmpty()) {
+            return "New Conversation";
+        }
+        return firstMessage.length() > 50 ? firstMessage.substring(0, 50) + "..." : firstMessage;
+    }
+
     public String getConversationId() {
         return conversationId;
     }
@@ -54,4 +65,12 @@ public class ConversationSummaryDto {
     public void setTitle(String title) {
         this.title = title;
     }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
 }
@@ -0,0 +1,10 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO reporting the result of a vector store delete operation.
+ *
+ * @param deleted The number of deleted documents
+ */
+public record DeletedDocumentsDto(
+    long deleted
+) {}
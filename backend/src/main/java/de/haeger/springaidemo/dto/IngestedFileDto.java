@@ -0,0 +1,18 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO summarizing a file indexed into the vector store.
+ *
+ * @param filename The original filename
+ * @param format The detected format (pdf, markdown, html, text)
+ * @param chunks The number of chunks stored in the vector store
+ * @param pages The number of pages for paged formats, null otherwise
+ * @param characters The number of extracted characters
+ */
+public record IngestedFileDto(
+    String filename,
+    String format,
+    int chunks,
+    Integer pages,
+    long characters
+) {}
@@ -0,0 +1,14 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO summarizing a re-embedding run over the vector store.
+ *
+ * @param reembedded The number of documents embedded again
+ * @param embeddingModel The ID of the embedding model the documents are now embedded with
+ * @param durationMs The duration of the run in milliseconds
+ */
+public record ReembeddingResultDto(
+    long reembedded,
+    String embeddingModel,
+    long durationMs
+) {}
@@ -0,0 +1,14 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO summarizing a retention run over the chat memory.
+ *
+ * @param archived The number of conversations moved to the archive
+ * @param purged The number of archived conversations deleted for good
+ * @param durationMs The duration of the run in milliseconds
+ */
+public record RetentionResultDto(
+    int archived,
+    int purged,
+    long durationMs
+) {}
@@ -0,0 +1,22 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO summarizing a synchronization of the source directory with the vector store.
+ *
+ * @param scanned The number of supported files found in the directory
+ * @param added The number of new files indexed
+ * @param updated The number of changed files re-indexed
+ * @param removed The number of deleted files whose vectors were removed
+ * @param unchanged The number of files skipped because their content did not change
+ * @param failed The number of files that could not be indexed
+ * @param durationMs The duration of the synchronization in milliseconds
+ */
+public record SourceSyncResultDto(
+    int scanned,
+    int added,
+    int updated,
+    int removed,
+    int unchanged,
+    int failed,
+    long durationMs
+) {}
@@ -0,0 +1,11 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO for a chunk of a streamed answer, sent as one server-sent event.
+ * Wrapped in JSON so the whitespace at the start of a chunk survives the event stream.
+ *
+ * @param content The text generated since the previous chunk
+ */
+public record TokenChunkDto(
+    String content
+) {}
@@ -0,0 +1,106 @@
+package de.haeger.springaidemo.dto;
+
+import java.util.List;
+
+/**
+ * DTO for an answer returned together with its request trace.
+ * Used by the chat and RAG endpoints when a trace is requested with {@code trace=true}.
+ *
+ * @param answer The generated answer
+ * @param model The logical name of the model used (e.g., "gemini", "ollama")
+ * @param modelVersion The model version reported by the provider, if any
+ * @param traceId The OpenTelemetry trace ID of the request
+ * @param totalDurationMs The total server-side duration in milliseconds
+ * @param spans The recorded spans, the first one being the request itself
+ * @param retrievedDocuments The documents retrieved from the vector store
+ * @param retrievalContext The token accounting of the retrieved context, RAG queries only
+ * @param usage The token usage reported by the model, if any
+ */
+public record TracedAnswerDto(
+    String answer,
+    String model,
+    String modelVersion,
+    String traceId,
+    double totalDurationMs,
+    List<TraceSpanDto> spans,
+    List<RetrievedDocumentDto> retrievedDocuments,
+    RetrievalContextDto retrievalContext,
+    TokenUsageDto usage
+) {
+
+    /**
+     * A single span, using the OpenTelemetry span field names.
+     *
+     * @param traceId The trace ID as 32 hex characters
+     * @param spanId The span ID as 16 hex characters
+     * @param parentSpanId The parent span ID, null for the request span
+     * @param name The stage name (e.g., "vector-search")
+     * @param startTimeUnixNano The start time in epoch nanoseconds
+     * @param endTimeUnixNano The end time in epoch nanoseconds
+     * @param durationMs The duration in milliseconds
+     * @param status "OK" or "ERROR"
+     */
+    public record TraceSpanDto(
+        String traceId,
+        String spanId,
+        String parentSpanId,
+        String name,
+        long startTimeUnixNano,
+        long endTimeUnixNano,
+        double durationMs,
+        String status
+    ) {}
+
+    /**
+     * A document retrieved from the vector store.
+     *
+     * @param id The document ID
+     * @param score The similarity score
+     */
+    public record RetrievedDocumentDto(
+        String id,
+        Double score
+    ) {}
+
+    /**
+     * The token accounting of the context assembled from the retrieved documents.
+     * The dropped tokens add up to the retrieved tokens minus the kept tokens.
+     * All counts are 0 if the retrieval gate skipped the search.
+     *
+     * @param retrievedDocuments The number of retrieved documents
+     * @param keptDocuments The number of documents put into the prompt
+     * @param retrievedTokens The tokens of all retrieved documents
+     * @param keptTokens The tokens put into the prompt
+     * @param duplicateTokens The tokens dropped as near-duplicates of a kept document
+     * @param compressedTokens The tokens removed by sentence compression
+     * @param overBudgetTokens The tokens dropped because they exceeded the budget
+     * @param retrieved Whether the vector store was searched
+     * @param topK The number of documents requested from the vector store, 0 if not searched
+     * @param gateReason The rule of the retrieval gate that decided, e.g. "follow-up" or "broad"
+     */
+    public record RetrievalContextDto(
+        int retrievedDocuments,
+        int keptDocuments,
+        int retrievedTokens,
+        int keptTokens,
+        int duplicateTokens,
+        int compressedTokens,
+        int overBudgetTokens,
+        boolean retrieved,
+        int topK,
+        String gateReason
+    ) {}
+
+    /**
+     * The token usage reported by the model.
+     *
+     * @param promptTokens The number of prompt tokens
+     * @param completionTokens The number of completion tokens
+     * @param totalTokens The total number of tokens
+     */
+    public record TokenUsageDto(
+        Integer promptTokens,
+        Integer completionTokens,
+        Integer totalTokens
+    ) {}
+}
@@ -0,0 +1,18 @@
+package de.haeger.springaidemo.dto;
+
+/**
+ * DTO for the statistics of one vector store namespace.
+ *
+ * @param namespace The namespace
+ * @param documentCount The number of documents, estimated for large namespaces
+ * @param deadTuples The estimated number of dead rows of the partition
+ * @param tableSizeBytes The size of the partition table
+ * @param indexSizeBytes The size of the partition indexes, including its HNSW index
+ */
+public record VectorStoreNamespaceStatsDto(
+    String namespace,
+    long documentCount,
+    long deadTuples,
+    long tableSizeBytes,
+    long indexSizeBytes
+) {}
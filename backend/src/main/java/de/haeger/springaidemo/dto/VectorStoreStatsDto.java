@@ -1,14 +1,33 @@
 package de.haeger.springaidemo.dto;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 /**
  * DTO for vector store statistics.
  * Used by debug endpoints to expose vector store information.
+ * Counts of large tables are estimates from the PostgreSQL statistics.
  */
 public class VectorStoreStatsDto {
     
     private long documentCount;
     private String storageType;
     private boolean isInitialized;
+    private boolean documentCountEstimated;
+    private long deadTuples;
+    private long tableSizeBytes;
+    private long indexSizeBytes;
+    private Integer embeddingDimension;
+    private Map<String, Long> documentsBySource;
+    private List<VectorStoreNamespaceStatsDto> namespaces;
+    private Double searchLatencyP50Ms;
+    private Double searchLatencyP95Ms;
+    private Double searchLatencyP99Ms;
+    private LocalDateTime collectedAt;
+    private long expiredDocumentsDeleted;
+    private LocalDateTime lastExpirySweep;
+    private LocalDateTime lastCompaction;
 
     public VectorStoreStatsDto() {
     }
@@ -42,4 +61,116 @@ public class VectorStoreStatsDto {
     public void setInitialized(boolean initialized) {
         isInitialized = initialized;
     }
+
+    public long getDeadTuples() {
+        return deadTuples;
+    }
+
+    public void setDeadTuples(long deadTuples) {
+        this.deadTuples = deadTuples;
+    }
+
+    public long getExpiredDocumentsDeleted() {
+        return expiredDocumentsDeleted;
+    }
+
+    public void setExpiredDocumentsDeleted(long expiredDocumentsDeleted) {
+        this.expiredDocumentsDeleted = expiredDocumentsDeleted;
+    }
+
+    public LocalDateTime getLastExpirySweep() {
+        return lastExpirySweep;
+    }
+
+    public void setLastExpirySweep(LocalDateTime lastExpirySweep) {
+        this.lastExpirySweep = lastExpirySweep;
+    }
+
+    public LocalDateTime getLastCompaction() {
+        return lastCompaction;
+    }
+
+    public void setLastCompaction(LocalDateTime lastCompaction) {
+        this.lastCompaction = lastCompaction;
+    }
+
+    public boolean isDocumentCountEstimated() {
+        return documentCountEstimated;
+    }
+
+    public void setDocumentCountEstimated(boolean documentCountEstimated) {
+        this.documentCountEstimated = documentCountEstimated;
+    }
+
+    public long getTableSizeBytes() {
+        return tableSizeBytes;
+    }
+
+    public void setTableSizeBytes(long tableSizeBytes) {
+        this.tableSizeBytes = tableSizeBytes;
+    }
+
+    public long getIndexSizeBytes() {
+        return indexSizeBytes;
+    }
+
+    public void setIndexSizeBytes(long indexSizeBytes) {
+        this.indexSizeBytes = indexSizeBytes;
+    }
+
+    public Integer getEmbeddingDimension() {
+        return embeddingDimension;
+    }
+
+    public void setEmbeddingDimension(Integer embeddingDimension) {
+        this.embeddingDimension = embeddingDimension;
+    }
+
+    public Map<String, Long> getDocumentsBySource() {
+        return documentsBySource;
+    }
+
+    public void setDocumentsBySource(Map<String, Long> documentsBySource) {
+        this.documentsBySource = documentsBySource;
+    }
+
+    public List<VectorStoreNamespaceStatsDto> getNamespaces() {
+        return namespaces;
+    }
+
+    public void setNamespaces(List<VectorStoreNamespaceStatsDto> namespaces) {
+        this.namespaces = namespaces;
+    }
+
+    public Double getSearchLatencyP50Ms() {
+        return searchLatencyP50Ms;
+    }
+
+    public void setSearchLatencyP50Ms(Double searchLatencyP50Ms) {
+        this.searchLatencyP50Ms = searchLatencyP50Ms;
+    }
+
+    public Double getSearchLatencyP95Ms() {
+        return searchLatencyP95Ms;
+    }
+
+    public void setSearchLatencyP95Ms(Double searchLatencyP95Ms) {
+        this.searchLatencyP95Ms = searchLatencyP95Ms;
+    }
+
+    public Double getSearchLatencyP99Ms() {
+        return searchLatencyP99Ms;
+    }
+
+    public void setSearchLatencyP99Ms(Double searchLatencyP99Ms) {
+        this.searchLatencyP99Ms = searchLatencyP99Ms;
+    }
+
+    public LocalDateTime getCollectedAt() {
+        return collectedAt;
+    }
+
+    public void setCollectedAt(LocalDateTime collectedAt) {
+        this.collectedAt = collectedAt;
+    }
 }
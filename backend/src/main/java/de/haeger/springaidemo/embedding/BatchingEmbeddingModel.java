@@ -0,0 +1,84 @@
+package de.haeger.springaidemo.embedding;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EmbeddingModel decorator for in-process inference.
+ * Splits requests into batches of a fixed size and runs them on a bounded pool of worker
+ * threads, so large ingests are spread over the cores while concurrent queries queue for
+ * a worker instead of oversubscribing the CPU.
+ */
+public class BatchingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public BatchingEmbeddingModel(EmbeddingModel delegate, int batchSize, int threads) {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "embedding-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> inputs = request.getInstructions();
+        List<CompletableFuture<EmbeddingResponse>> batches = new ArrayList<>();
+        for (int start = 0; start < inputs.size(); start += batchSize) {
+            EmbeddingRequest batch = new EmbeddingRequest(
+                    inputs.subList(start, Math.min(start + batchSize, inputs.size())), request.getOptions());
+            batches.add(CompletableFuture.supplyAsync(() -> delegate.call(batch), executor));
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(inputs.size());
+        for (CompletableFuture<EmbeddingResponse> batch : batches) {
+            for (Embedding embedding : join(batch).getResults()) {
+                embeddings.add(new Embedding(embedding.getOutput(), embeddings.size()));
+            }
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return join(CompletableFuture.supplyAsync(() -> delegate.embed(document), executor));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.haeger.springaidemo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a cold conversation moved out of the chat memory table.
+ * The messages are stored as gzip-compressed NDJSON and restored on first access.
+ */
+@Entity
+@Table(name = "chat_memory_archive")
+public class ArchivedConversation {
+
+    @Id
+    @Column(name = "conversation_id", nullable = false)
+    private String conversationId;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "message_count", nullable = false)
+    private int messageCount;
+
+    @Column(name = "first_message_at", nullable = false)
+    private LocalDateTime firstMessageAt;
+
+    @Column(name = "last_message_at", nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    public ArchivedConversation() {
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(String conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(int messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public LocalDateTime getFirstMessageAt() {
+        return firstMessageAt;
+    }
+
+    public void setFirstMessageAt(LocalDateTime firstMessageAt) {
+        this.firstMessageAt = firstMessageAt;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+}
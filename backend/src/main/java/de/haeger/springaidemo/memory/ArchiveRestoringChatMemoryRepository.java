@@ -0,0 +1,53 @@
+package de.haeger.springaidemo.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chat memory repository that makes archived conversations transparent to the chat memory.
+ * Loading a conversation that has no messages restores it from the archive first, and
+ * deleting a conversation also deletes its archive.
+ */
+public class ArchiveRestoringChatMemoryRepository implements ChatMemoryRepository {
+
+    private final ChatMemoryRepository delegate;
+    private final ChatMemoryArchiveService archiveService;
+
+    public ArchiveRestoringChatMemoryRepository(ChatMemoryRepository delegate, ChatMemoryArchiveService archiveService) {
+        this.delegate = delegate;
+        this.archiveService = archiveService;
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        Set<String> conversationIds = new LinkedHashSet<>(delegate.findConversationIds());
+        conversationIds.addAll(archiveService.findArchivedConversationIds());
+        return List.copyOf(conversationIds);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        List<Message> messages = delegate.findByConversationId(conversationId);
+        // New conversations are never archived; an index lookup spares them the restore transaction
+        if (messages.isEmpty() && archiveService.isArchived(conversationId) && archiveService.restore(conversationId)) {
+            return delegate.findByConversationId(conversationId);
+        }
+        return messages;
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        // The message window memory loads the conversation before saving, which restores it
+        delegate.saveAll(conversationId, messages);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        delegate.deleteByConversationId(conversationId);
+        archiveService.deleteArchive(conversationId);
+    }
+}
@@ -0,0 +1,317 @@
+package de.haeger.springaidemo.memory;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.haeger.springaidemo.dto.RetentionResultDto;
+import de.haeger.springaidemo.entity.ArchivedConversation;
+import de.haeger.springaidemo.repository.ArchivedConversationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Retention and archival for the chat memory.
+ * A scheduled job moves cold conversations, by inactivity or by age, out of the chat memory
+ * table into {@code chat_memory_archive} as gzip-compressed NDJSON, and purges archives past
+ * their retention. The age counts from the start recorded in {@code conversation_start}, since
+ * every save rewrites the message timestamps. Archived conversations are restored on first access, see
+ * {@link ArchiveRestoringChatMemoryRepository}. Work is done in batches with a pause between
+ * them, so retention does not compete with chat traffic.
+ */
+@Service
+public class ChatMemoryArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryArchiveService.class);
+
+    private static final String SELECT_MESSAGES_FOR_UPDATE =
+            "SELECT content, type, \"timestamp\" FROM spring_ai_chat_memory "
+                    + "WHERE conversation_id = ? ORDER BY \"timestamp\" FOR UPDATE";
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)";
+    // The start of a conversation, kept by a trigger; saves rewrite the message timestamps
+    private static final String SELECT_STARTED_AT =
+            "SELECT started_at FROM conversation_start WHERE conversation_id = ?";
+    // Walks the conversations in ID order along the (conversation_id, timestamp) indexes,
+    // so each batch continues where the last one stopped
+    private static final String SELECT_CANDIDATES =
+            "SELECT conversation_id FROM spring_ai_chat_memory m %s GROUP BY conversation_id "
+                    + "HAVING MAX(\"timestamp\") < ? OR (SELECT started_at FROM conversation_start s "
+                    + "WHERE s.conversation_id = m.conversation_id) < ? ORDER BY conversation_id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchivedConversationRepository archivedConversationRepository;
+    private final ObjectWriter recordWriter;
+    private final ObjectReader recordReader;
+
+    @Value("${app.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.retention.max-inactivity:90d}")
+    private Duration maxInactivity;
+
+    @Value("${app.retention.max-age:#{null}}")
+    private Duration maxAge;
+
+    @Value("${app.retention.archive-retention:#{null}}")
+    private Duration archiveRetention;
+
+    @Value("${app.retention.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.retention.batch-pause:200ms}")
+    private Duration batchPause;
+
+    public ChatMemoryArchiveService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ArchivedConversationRepository archivedConversationRepository,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedConversationRepository = archivedConversationRepository;
+        this.recordWriter = objectMapper.writerFor(ChatMemoryRecord.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.recordReader = objectMapper.readerFor(ChatMemoryRecord.class);
+    }
+
+    /**
+     * Apply the retention policies on schedule.
+     */
+    @Scheduled(
+            initialDelayString = "${app.retention.interval:1h}",
+            fixedDelayString = "${app.retention.interval:1h}")
+    public void scheduledRetention() {
+        if (enabled) {
+            applyRetention();
+        }
+    }
+
+    /**
+     * Archive conversations without messages for longer than the maximum inactivity, or
+     * older than the maximum age, and purge archives older than the archive retention.
+     *
+     * @return a summary of the run
+     */
+    public synchronized RetentionResultDto applyRetention() {
+        long start = System.currentTimeMillis();
+        Instant now = Instant.now();
+        Timestamp inactiveBefore = Timestamp.from(now.minus(maxInactivity));
+        // Without an age policy, no conversation qualifies by age
+        Timestamp startedBefore = Timestamp.from(maxAge != null ? now.minus(maxAge) : Instant.EPOCH);
+
+        int archived = 0;
+        String lastId = null;
+        List<String> candidates;
+        do {
+            candidates = archiveCandidates(lastId, inactiveBefore, startedBefore);
+            for (String conversationId : candidates) {
+                if (archive(conversationId, inactiveBefore, startedBefore)) {
+                    archived++;
+                }
+                lastId = conversationId;
+            }
+            pause(candidates.size());
+        } while (candidates.size() == batchSize);
+
+        int purged = 0;
+        if (archiveRetention != null) {
+            Timestamp archivedBefore = Timestamp.from(now.minus(archiveRetention));
+            int batch;
+            do {
+                // The start of a purged conversation goes with its archive
+                batch = jdbcTemplate.queryForObject(
+                        "WITH purged AS (DELETE FROM chat_memory_archive WHERE conversation_id IN ("
+                                + "SELECT conversation_id FROM chat_memory_archive WHERE archived_at < ? LIMIT ?) "
+                                + "RETURNING conversation_id), "
+                                + "forgotten AS (DELETE FROM conversation_start "
+                                + "WHERE conversation_id IN (SELECT conversation_id FROM purged)) "
+                                + "SELECT COUNT(*) FROM purged",
+                        Integer.class, archivedBefore, batchSize);
+                purged += batch;
+                pause(batch);
+            } while (batch == batchSize);
+        }
+
+        RetentionResultDto result = new RetentionResultDto(archived, purged, System.currentTimeMillis() - start);
+        if (archived + purged > 0) {
+            log.info("Chat memory retention: {}", result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the next batch of conversations that qualify for the archive, in ID order.
+     *
+     * @param lastId the last conversation of the previous batch, or null for the first batch
+     */
+    List<String> archiveCandidates(String lastId, Timestamp inactiveBefore, Timestamp startedBefore) {
+        if (lastId == null) {
+            return jdbcTemplate.queryForList(SELECT_CANDIDATES.formatted(""),
+                    String.class, inactiveBefore, startedBefore, batchSize);
+        }
+        return jdbcTemplate.queryForList(SELECT_CANDIDATES.formatted("WHERE conversation_id > ?"),
+                String.class, lastId, inactiveBefore, startedBefore, batchSize);
+    }
+
+    /**
+     * Restore an archived conversation into the chat memory table.
+     * The archive row is claimed with a single DELETE, so concurrent callers restore it once.
+     *
+     * @param conversationId the conversation identifier
+     * @return true if the conversation was archived and has been restored
+     */
+    public boolean restore(String conversationId) {
+        Boolean restored = transactionTemplate.execute(status -> {
+            List<byte[]> payloads = jdbcTemplate.queryForList(
+                    "DELETE FROM chat_memory_archive WHERE conversation_id = ? RETURNING payload",
+                    byte[].class, conversationId);
+            if (payloads.isEmpty()) {
+                return false;
+            }
+            List<Object[]> rows = new ArrayList<>();
+            for (ChatMemoryRecord record : decode(payloads.get(0))) {
+                rows.add(new Object[] {
+                        conversationId, record.content(), record.messageType(), Timestamp.from(record.timestamp())});
+            }
+            jdbcTemplate.batchUpdate(INSERT_MESSAGE, rows);
+            return true;
+        });
+        return Boolean.TRUE.equals(restored);
+    }
+
+    /**
+     * Check whether a conversation is archived.
+     *
+     * @param conversationId the conversation identifier
+     * @return true if the conversation is archived
+     */
+    public boolean isArchived(String conversationId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM chat_memory_archive WHERE conversation_id = ?)",
+                Boolean.class, conversationId));
+    }
+
+    /**
+     * Get the IDs of all archived conversations.
+     */
+    public List<String> findArchivedConversationIds() {
+        return jdbcTemplate.queryForList("SELECT conversation_id FROM chat_memory_archive", String.class);
+    }
+
+    /**
+     * Delete the archive and the recorded start of a conversation, e.g. when its memory is
+     * cleared, so a conversation continued under the same ID starts anew.
+     *
+     * @param conversationId the conversation identifier
+     */
+    public void deleteArchive(String conversationId) {
+        jdbcTemplate.update("DELETE FROM chat_memory_archive WHERE conversation_id = ?", conversationId);
+        jdbcTemplate.update("DELETE FROM conversation_start WHERE conversation_id = ?", conversationId);
+    }
+
+    /**
+     * Decode the messages of an archive payload.
+     *
+     * @param payload the gzip-compressed NDJSON payload
+     * @return the message records in order
+     */
+    public List<ChatMemoryRecord> decode(byte[] payload) {
+        try (MappingIterator<ChatMemoryRecord> records =
+                     recordReader.readValues(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            return records.readAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Move one conversation into the archive, re-checking the policies under row locks so
+     * a conversation that received a message in the meantime stays where it is.
+     */
+    private boolean archive(String conversationId, Timestamp inactiveBefore, Timestamp startedBefore) {
+        Boolean archived = transactionTemplate.execute(status -> {
+            List<ChatMemoryRecord> messages = jdbcTemplate.query(SELECT_MESSAGES_FOR_UPDATE,
+                    (rs, rowNum) -> ChatMemoryRecord.message(conversationId,
+                            rs.getString("type"), rs.getString("content"), rs.getTimestamp("timestamp").toInstant()),
+                    conversationId);
+            if (messages.isEmpty()) {
+                return false;
+            }
+            List<Timestamp> startedAt = jdbcTemplate.queryForList(SELECT_STARTED_AT, Timestamp.class, conversationId);
+            Instant first = startedAt.isEmpty() ? messages.get(0).timestamp() : startedAt.get(0).toInstant();
+            Instant last = messages.get(messages.size() - 1).timestamp();
+            if (!last.isBefore(inactiveBefore.toInstant()) && !first.isBefore(startedBefore.toInstant())) {
+                return false;
+            }
+
+            ArchivedConversation archive = new ArchivedConversation();
+            archive.setConversationId(conversationId);
+            archive.setTitle(messages.stream()
+                    .filter(message -> "USER".equals(message.messageType()) && message.content() != null)
+                    // Kept long enough for the conversation list to shorten it as usual
+                    .map(message -> message.content().length() > 255
+                            ? message.content().substring(0, 255)
+                            : message.content())
+                    .findFirst()
+                    .orElse(null));
+            archive.setMessageCount(messages.size());
+            archive.setFirstMessageAt(LocalDateTime.ofInstant(first, ZoneId.systemDefault()));
+            archive.setLastMessageAt(LocalDateTime.ofInstant(last, ZoneId.systemDefault()));
+            archive.setArchivedAt(LocalDateTime.now());
+            archive.setPayload(encode(messages));
+            archivedConversationRepository.save(archive);
+
+            jdbcTemplate.update("DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?", conversationId);
+            return true;
+        });
+        return Boolean.TRUE.equals(archived);
+    }
+
+    private byte[] encode(List<ChatMemoryRecord> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            recordWriter.writeValues(gzip).writeAll(messages).close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Throttle between batches so retention does not saturate the database.
+     */
+    private void pause(int batch) {
+        if (batch < batchSize || batchPause.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(batchPause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
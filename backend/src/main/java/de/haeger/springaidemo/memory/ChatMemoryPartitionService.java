@@ -0,0 +1,58 @@
+package de.haeger.springaidemo.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of the chat memory table.
+ * Partitions are created ahead of time, so messages never land in the default partition
+ * and no rows have to be moved when a partition is added. The partition layout itself is
+ * defined by the V2 Flyway migration.
+ */
+@Service
+public class ChatMemoryPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.memory.partitions.months-ahead:2}")
+    private int monthsAhead;
+
+    public ChatMemoryPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create the partitions for the current month and the configured number of months ahead.
+     * Runs at startup and then on schedule; existing partitions are left alone.
+     * Replicas starting at the same time take turns on a transaction-level advisory lock,
+     * like {@code create_vector_store_namespace} of V7, so they do not both create a partition.
+     */
+    @Scheduled(fixedDelayString = "${app.memory.partitions.interval:1d}")
+    public void createUpcomingPartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        List<String> partitions = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('create_chat_memory_partition'))");
+            for (int i = 0; i <= monthsAhead; i++) {
+                partitions.add(jdbcTemplate.queryForObject(
+                        "SELECT create_chat_memory_partition(?)", String.class, Date.valueOf(month.plusMonths(i))));
+            }
+        });
+        log.debug("Chat memory partitions up to date: {}", partitions);
+    }
+}
@@ -0,0 +1,47 @@
+package de.haeger.springaidemo.memory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * One line of a chat memory export.
+ * The first line is a {@code header}, followed by {@code conversation_model} and
+ * {@code message} lines; fields that do not apply to a line type are omitted.
+ *
+ * @param type The line type: header, conversation_model or message
+ * @param conversationId The conversation identifier
+ * @param messageType The message type (USER, ASSISTANT, SYSTEM, TOOL)
+ * @param content The message content
+ * @param modelName The model selected for the conversation
+ * @param timestamp The message timestamp, the model selection time or the export time
+ * @param version The export format version, only set on the header
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChatMemoryRecord(
+    String type,
+    String conversationId,
+    String messageType,
+    String content,
+    String modelName,
+    Instant timestamp,
+    Integer version
+) {
+
+    public static final String HEADER = "header";
+    public static final String CONVERSATION_MODEL = "conversation_model";
+    public static final String MESSAGE = "message";
+    public static final int FORMAT_VERSION = 1;
+
+    public static ChatMemoryRecord header(Instant exportedAt) {
+        return new ChatMemoryRecord(HEADER, null, null, null, null, exportedAt, FORMAT_VERSION);
+    }
+
+    public static ChatMemoryRecord conversationModel(String conversationId, String modelName, Instant updatedAt) {
+        return new ChatMemoryRecord(CONVERSATION_MODEL, conversationId, null, null, modelName, updatedAt, null);
+    }
+
+    public static ChatMemoryRecord message(String conversationId, String messageType, String content, Instant timestamp) {
+        return new ChatMemoryRecord(MESSAGE, conversationId, messageType, content, null, timestamp, null);
+    }
+}
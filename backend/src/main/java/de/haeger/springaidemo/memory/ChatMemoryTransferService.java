@@ -0,0 +1,255 @@
+package de.haeger.springaidemo.memory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.haeger.springaidemo.dto.ChatMemoryImportResultDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Bulk export and import of chat memory as gzip-compressed NDJSON.
+ * Exports read through a server-side cursor and imports are staged in a temporary file
+ * and written in JDBC batches, so memory use does not depend on the number of messages.
+ * The conversation model selections are exported along with the messages.
+ */
+@Service
+public class ChatMemoryTransferService {
+
+    private static final String SELECT_MODELS =
+            "SELECT conversation_id, model_name, updated_at FROM conversation_model";
+    private static final String SELECT_MESSAGES =
+            "SELECT conversation_id, content, type, \"timestamp\" FROM spring_ai_chat_memory";
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_MODEL =
+            "INSERT INTO conversation_model (conversation_id, model_name, updated_at) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (conversation_id) DO UPDATE SET model_name = EXCLUDED.model_name, "
+                    + "updated_at = EXCLUDED.updated_at";
+    private static final String DELETE_MESSAGES =
+            "DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?";
+    private static final String SELECT_ARCHIVES =
+            "SELECT payload FROM chat_memory_archive";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatMemoryArchiveService archiveService;
+    private final ObjectWriter recordWriter;
+    private final ObjectReader recordReader;
+
+    @Value("${app.memory.transfer.batch-size:1000}")
+    private int batchSize;
+
+    public ChatMemoryTransferService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ChatMemoryArchiveService archiveService,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL only streams results through a cursor inside a transaction with a fetch size
+        this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorJdbcTemplate.setFetchSize(1000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveService = archiveService;
+        this.recordWriter = objectMapper.writerFor(ChatMemoryRecord.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.recordReader = objectMapper.readerFor(ChatMemoryRecord.class);
+    }
+
+    /**
+     * Export conversations as gzip-compressed NDJSON.
+     *
+     * @param conversationIds the conversations to export, or null or empty for all
+     * @param out the stream to write to; it is finished but not closed
+     * @throws IOException if writing fails
+     */
+    public void export(List<String> conversationIds, OutputStream out) throws IOException {
+        boolean selected = conversationIds != null && !conversationIds.isEmpty();
+        String where = selected ? " WHERE conversation_id = ANY(?)" : "";
+        Object[] args = selected ? new Object[] {conversationIds.toArray(String[]::new)} : new Object[0];
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        try (JsonGenerator generator = recordWriter.createGenerator(gzip)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(generator, ChatMemoryRecord.header(Instant.now()));
+
+            transactionTemplate.executeWithoutResult(status -> {
+                cursorJdbcTemplate.query(SELECT_MODELS + where, rs -> {
+                    write(generator, ChatMemoryRecord.conversationModel(
+                            rs.getString("conversation_id"),
+                            rs.getString("model_name"),
+                            rs.getTimestamp("updated_at").toInstant()));
+                }, args);
+                cursorJdbcTemplate.query(SELECT_MESSAGES + where + " ORDER BY conversation_id, \"timestamp\"", rs -> {
+                    write(generator, ChatMemoryRecord.message(
+                            rs.getString("conversation_id"),
+                            rs.getString("type"),
+                            rs.getString("content"),
+                            rs.getTimestamp("timestamp").toInstant()));
+                }, args);
+                // Archived conversations are exported like live ones, one payload at a time
+                cursorJdbcTemplate.query(SELECT_ARCHIVES + where + " ORDER BY conversation_id", rs -> {
+                    for (ChatMemoryRecord record : archiveService.decode(rs.getBytes("payload"))) {
+                        write(generator, record);
+                    }
+                }, args);
+            });
+            generator.writeRaw('\n');
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        gzip.finish();
+    }
+
+    /**
+     * Import an export, gzip-compressed or plain NDJSON, in one transaction.
+     * The export is read and validated into a temporary file first, so the transaction
+     * does not wait for the client to upload it.
+     *
+     * @param in the export to read
+     * @param replace whether to delete the existing messages of imported conversations first;
+     *                otherwise the messages are appended
+     * @return a summary of the import
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the input is not a chat memory export
+     */
+    public ChatMemoryImportResultDto importRecords(InputStream in, boolean replace) throws IOException {
+        Path staged = Files.createTempFile("chat-memory-import-", ".ndjson.gz");
+        try {
+            stage(in, staged);
+            InputStream records = new GZIPInputStream(Files.newInputStream(staged), 64 * 1024);
+            try (MappingIterator<ChatMemoryRecord> iterator = recordReader.readValues(records)) {
+                return transactionTemplate.execute(status -> importRecords(iterator, replace));
+            }
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    /**
+     * Validate the records of an export and write them, without the header, to a
+     * gzip-compressed file.
+     */
+    private void stage(InputStream in, Path staged) throws IOException {
+        try (MappingIterator<ChatMemoryRecord> records = recordReader.readValues(decompressIfNeeded(in));
+             JsonGenerator generator = recordWriter.createGenerator(
+                     new GZIPOutputStream(Files.newOutputStream(staged), 64 * 1024))) {
+            if (!records.hasNext()) {
+                throw new IllegalArgumentException("Empty chat memory export");
+            }
+            ChatMemoryRecord header = records.next();
+            if (!ChatMemoryRecord.HEADER.equals(header.type()) || header.version() == null
+                    || header.version() > ChatMemoryRecord.FORMAT_VERSION) {
+                throw new IllegalArgumentException("Not a supported chat memory export");
+            }
+            while (records.hasNext()) {
+                ChatMemoryRecord record = records.next();
+                if (!ChatMemoryRecord.CONVERSATION_MODEL.equals(record.type())
+                        && !ChatMemoryRecord.MESSAGE.equals(record.type())) {
+                    throw new IllegalArgumentException("Unknown record type: " + record.type());
+                }
+                if (record.conversationId() == null || record.timestamp() == null) {
+                    throw new IllegalArgumentException("Incomplete record: " + record.type());
+                }
+                recordWriter.writeValue(generator, record);
+            }
+        } catch (JsonProcessingException | RuntimeJsonMappingException | ZipException e) {
+            throw new IllegalArgumentException("Malformed chat memory export", e);
+        }
+    }
+
+    private ChatMemoryImportResultDto importRecords(MappingIterator<ChatMemoryRecord> records, boolean replace) {
+        // Only conversation IDs are kept, messages and models are flushed batch by batch
+        Set<String> conversations = new HashSet<>();
+        List<Object[]> messageBatch = new ArrayList<>(batchSize);
+        List<Object[]> modelBatch = new ArrayList<>();
+        long messages = 0;
+        int modelPreferences = 0;
+        while (records.hasNext()) {
+            ChatMemoryRecord record = records.next();
+            if (ChatMemoryRecord.CONVERSATION_MODEL.equals(record.type())) {
+                modelBatch.add(new Object[] {
+                        record.conversationId(), record.modelName(), Timestamp.from(record.timestamp())});
+                modelPreferences++;
+                if (modelBatch.size() >= batchSize) {
+                    jdbcTemplate.batchUpdate(UPSERT_MODEL, modelBatch);
+                    modelBatch.clear();
+                }
+                continue;
+            }
+            if (conversations.add(record.conversationId())) {
+                if (replace) {
+                    jdbcTemplate.update(DELETE_MESSAGES, record.conversationId());
+                    archiveService.deleteArchive(record.conversationId());
+                } else {
+                    // Append to the archived messages instead of hiding them
+                    archiveService.restore(record.conversationId());
+                }
+            }
+            messageBatch.add(new Object[] {
+                    record.conversationId(), record.content(), record.messageType(),
+                    Timestamp.from(record.timestamp())});
+            messages++;
+            if (messageBatch.size() >= batchSize) {
+                jdbcTemplate.batchUpdate(INSERT_MESSAGE, messageBatch);
+                messageBatch.clear();
+            }
+        }
+        if (!modelBatch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_MODEL, modelBatch);
+        }
+        if (!messageBatch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MESSAGE, messageBatch);
+        }
+        return new ChatMemoryImportResultDto(conversations.size(), messages, modelPreferences);
+    }
+
+    private void write(JsonGenerator generator, ChatMemoryRecord record) {
+        try {
+            recordWriter.writeValue(generator, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Detect gzip by its magic bytes, so plain NDJSON can be imported as well.
+     */
+    private static InputStream decompressIfNeeded(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        boolean gzip = first == 0x1f && second == 0x8b;
+        return gzip ? new GZIPInputStream(buffered, 64 * 1024) : buffered;
+    }
+}
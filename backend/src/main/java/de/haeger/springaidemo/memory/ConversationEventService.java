@@ -0,0 +1,250 @@
+package de.haeger.springaidemo.memory;
+
+import de.haeger.springaidemo.cluster.CacheInvalidationEvent;
+import de.haeger.springaidemo.dto.ConversationEventDto;
+import de.haeger.springaidemo.dto.ConversationSummaryDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes changes of conversations to subscribed clients as server-sent events, so the
+ * conversation list and the memory view stay current without polling {@code /info}.
+ * The triggers of {@code V10__conversation_event_statement_triggers.sql} notify every
+ * replica of the conversations changed by each committed statement on the messages or
+ * the archive, and the triggers of {@code V5__cache_invalidation.sql} of each model
+ * switch. For a changed conversation the service looks up its summary once, with indexed
+ * queries on that conversation only, and sends it to all subscribers. Changes within the
+ * debounce interval are sent as one event.
+ * When notifications may have been missed, subscribers are told to reload everything.
+ * Servlet clients subscribe with an {@link SseEmitter}, reactive clients with a {@link Flux}
+ * of the same events.
+ */
+@Service
+public class ConversationEventService implements SmartLifecycle {
+
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String RESET = "reset";
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationEventService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    // Only emitted from the scheduler thread; each subscriber buffers its own events
+    private final Sinks.Many<ConversationEventDto> sink = Sinks.many().multicast().directBestEffort();
+    private final Set<String> pendingConversations = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.memory.events.debounce:100ms}")
+    private Duration debounce;
+
+    @Value("${app.memory.events.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${app.memory.events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${app.memory.events.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    // Events kept for a slow reactive subscriber before its stream fails and it reconnects
+    @Value("${app.memory.events.buffer:256}")
+    private int bufferSize;
+
+    // Sends all events and heartbeats, so every emitter is written by one thread at a time
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public ConversationEventService(@Qualifier("analyticsJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("conversation-events").factory());
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeat,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+        sink.tryEmitComplete();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Subscribe to conversation events. The stream ends after the configured timeout;
+     * clients reconnect and reload the conversations they show.
+     *
+     * @return the emitter of the subscription
+     * @throws IllegalStateException if the maximum number of subscribers is reached
+     */
+    public SseEmitter subscribe() {
+        if (getSubscriberCount() >= maxSubscribers) {
+            throw new IllegalStateException("Too many conversation event subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * Subscribe to conversation events as a stream of server-sent events, for the reactive
+     * mode. Heartbeats and the timeout are the same as for {@link #subscribe()}. A subscriber
+     * reading slower than events arrive gets up to {@code app.memory.events.buffer} events
+     * buffered; beyond that its stream fails, and it reconnects and reloads.
+     *
+     * @return the event stream
+     * @throws IllegalStateException if the maximum number of subscribers is reached
+     */
+    public Flux<ServerSentEvent<ConversationEventDto>> stream() {
+        if (getSubscriberCount() >= maxSubscribers) {
+            throw new IllegalStateException("Too many conversation event subscribers");
+        }
+        Flux<ServerSentEvent<ConversationEventDto>> events = sink.asFlux()
+                .onBackpressureBuffer(bufferSize)
+                .map(event -> ServerSentEvent.builder(event).event(event.type()).build());
+        Flux<ServerSentEvent<ConversationEventDto>> heartbeats = Flux.interval(heartbeat, heartbeat)
+                .map(tick -> ServerSentEvent.<ConversationEventDto>builder().comment("heartbeat").build());
+        return Flux.merge(events, heartbeats).take(timeout);
+    }
+
+    /**
+     * Get the number of connected subscribers.
+     */
+    public int getSubscriberCount() {
+        return emitters.size() + sink.currentSubscriberCount();
+    }
+
+    /**
+     * Push the conversation changed on any replica, or tell subscribers to reload
+     * everything if changes may have been missed.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (getSubscriberCount() == 0 || !running) {
+            return;
+        }
+        try {
+            if (event.cache() == null) {
+                scheduler.execute(() -> broadcast(new ConversationEventDto(RESET, null, null, null)));
+            } else if ((event.affects(CacheInvalidationEvent.CONVERSATION)
+                    || event.affects(CacheInvalidationEvent.CONVERSATION_MODEL)) && event.key() != null) {
+                String conversationId = event.key();
+                if (pendingConversations.add(conversationId)) {
+                    scheduler.schedule(() -> {
+                        pendingConversations.remove(conversationId);
+                        publish(conversationId);
+                    }, debounce.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void publish(String conversationId) {
+        if (getSubscriberCount() == 0) {
+            return;
+        }
+        ConversationEventDto event;
+        try {
+            event = lookup(conversationId);
+        } catch (RuntimeException e) {
+            log.warn("Could not look up conversation {} for its subscribers: {}", conversationId, e.getMessage());
+            event = new ConversationEventDto(RESET, null, null, null);
+        }
+        broadcast(event);
+    }
+
+    private ConversationEventDto lookup(String conversationId) {
+        // Live messages first; the archive row only counts once the messages are gone
+        List<ConversationSummaryDto> summaries = jdbcTemplate.query(
+                "SELECT COUNT(*) AS message_count, MAX(timestamp) AS last_updated, "
+                        + "(SELECT content FROM spring_ai_chat_memory m2 "
+                        + " WHERE m2.conversation_id = ? AND m2.type = 'USER' "
+                        + " ORDER BY m2.timestamp ASC LIMIT 1) AS first_message, false AS archived "
+                        + "FROM spring_ai_chat_memory WHERE conversation_id = ? HAVING COUNT(*) > 0 "
+                        + "UNION ALL "
+                        + "SELECT message_count, last_message_at, title, true "
+                        + "FROM chat_memory_archive WHERE conversation_id = ? "
+                        + "ORDER BY archived LIMIT 1",
+                (rs, rowNum) -> {
+                    ConversationSummaryDto dto = new ConversationSummaryDto();
+                    dto.setConversationId(conversationId);
+                    dto.setMessageCount(rs.getInt("message_count"));
+                    dto.setLastUpdated(rs.getTimestamp("last_updated").toLocalDateTime());
+                    dto.setArchived(rs.getBoolean("archived"));
+                    dto.setTitle(ConversationSummaryDto.titleOf(rs.getString("first_message")));
+                    return dto;
+                },
+                conversationId, conversationId, conversationId);
+        if (summaries.isEmpty()) {
+            return new ConversationEventDto(DELETED, conversationId, null, null);
+        }
+        List<String> models = jdbcTemplate.queryForList(
+                "SELECT model_name FROM conversation_model WHERE conversation_id = ?", String.class, conversationId);
+        return new ConversationEventDto(UPDATED, conversationId, summaries.get(0), models.isEmpty() ? null : models.get(0));
+    }
+
+    private void broadcast(ConversationEventDto event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(event.type()).data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter
+                emitters.remove(emitter);
+            }
+        }
+        sink.tryEmitNext(event);
+    }
+
+    /**
+     * Keep idle connections open through proxies, and notice clients that went away.
+     */
+    private void sendHeartbeat() {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
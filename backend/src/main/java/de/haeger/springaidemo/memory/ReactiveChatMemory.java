@@ -0,0 +1,85 @@
+package de.haeger.springaidemo.memory;
+
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.observability.PipelineStage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Non-blocking message window chat memory for the reactive mode.
+ * Keeps the same window as the {@code MessageWindowChatMemory} of the servlet mode: the last
+ * messages up to the maximum, system messages always, and a new system message replaces the
+ * old ones. Memory loads and writes are measured like those of the {@code InstrumentedChatMemory}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatMemory {
+
+    // Same default as MessageWindowChatMemory
+    private static final int MAX_MESSAGES = 20;
+
+    private final ReactiveChatMemoryRepository repository;
+    private final PipelineMetrics pipelineMetrics;
+
+    public ReactiveChatMemory(ReactiveChatMemoryRepository repository, PipelineMetrics pipelineMetrics) {
+        this.repository = repository;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * Load the messages of a conversation.
+     */
+    public Mono<List<Message>> get(String conversationId) {
+        return pipelineMetrics.record(PipelineStage.MEMORY_LOAD, repository.findByConversationId(conversationId));
+    }
+
+    /**
+     * Add messages to a conversation, dropping the oldest beyond the window.
+     */
+    public Mono<Void> add(String conversationId, List<Message> messages) {
+        return pipelineMetrics.record(PipelineStage.MEMORY_WRITE, repository.findByConversationId(conversationId)
+                .flatMap(memoryMessages -> repository.saveAll(conversationId, window(memoryMessages, messages))));
+    }
+
+    /**
+     * Delete a conversation.
+     */
+    public Mono<Void> clear(String conversationId) {
+        return repository.deleteByConversationId(conversationId);
+    }
+
+    private static List<Message> window(List<Message> memoryMessages, List<Message> newMessages) {
+        Set<Message> memoryMessageSet = new HashSet<>(memoryMessages);
+        boolean newSystemMessage = newMessages.stream()
+                .anyMatch(message -> message instanceof SystemMessage && !memoryMessageSet.contains(message));
+        List<Message> messages = new ArrayList<>();
+        for (Message message : memoryMessages) {
+            if (!(newSystemMessage && message instanceof SystemMessage)) {
+                messages.add(message);
+            }
+        }
+        messages.addAll(newMessages);
+
+        int toRemove = messages.size() - MAX_MESSAGES;
+        if (toRemove <= 0) {
+            return messages;
+        }
+        List<Message> kept = new ArrayList<>(MAX_MESSAGES);
+        for (Message message : messages) {
+            if (message instanceof SystemMessage || toRemove == 0) {
+                kept.add(message);
+            } else {
+                toRemove--;
+            }
+        }
+        return kept;
+    }
+}
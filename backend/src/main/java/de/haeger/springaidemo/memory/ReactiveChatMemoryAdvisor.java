@@ -0,0 +1,90 @@
+package de.haeger.springaidemo.memory;
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming counterpart of Spring AI's {@code MessageChatMemoryAdvisor} on the
+ * {@link ReactiveChatMemory}: the history is loaded and the messages of the turn are stored
+ * without blocking a thread. The answer is stored once the stream completes; a stream the
+ * client cancelled keeps only the user message. Handles streaming requests only; a call
+ * request would pass it without memory.
+ */
+public class ReactiveChatMemoryAdvisor implements StreamAdvisor {
+
+    private final ReactiveChatMemory chatMemory;
+
+    public ReactiveChatMemoryAdvisor(ReactiveChatMemory chatMemory) {
+        this.chatMemory = chatMemory;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        Object conversationParam = chatClientRequest.context().get(ChatMemory.CONVERSATION_ID);
+        String conversationId = conversationParam != null ? conversationParam.toString() : ChatMemory.DEFAULT_CONVERSATION_ID;
+        AtomicReference<ChatClientResponse> answer = new AtomicReference<>();
+
+        return chatMemory.get(conversationId)
+                .flatMap(history -> {
+                    ChatClientRequest request = withHistory(chatClientRequest, history);
+                    return chatMemory.add(conversationId, List.of(request.prompt().getUserMessage())).thenReturn(request);
+                })
+                // Like the advisors based on BaseAdvisor, continue on the bounded elastic scheduler:
+                // some model clients, e.g. Gemini's, block the subscribing thread while streaming
+                .publishOn(BaseAdvisor.DEFAULT_SCHEDULER)
+                .flatMapMany(request -> new ChatClientMessageAggregator()
+                        .aggregateChatClientResponse(streamAdvisorChain.nextStream(request), answer::set))
+                .concatWith(Mono.defer(() -> saveAnswer(conversationId, answer.get())).then(Mono.empty()));
+    }
+
+    private static ChatClientRequest withHistory(ChatClientRequest chatClientRequest, List<Message> history) {
+        List<Message> messages = new ArrayList<>(history);
+        messages.addAll(chatClientRequest.prompt().getInstructions());
+        // The system prompt goes first, before the history
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                messages.add(0, messages.remove(i));
+                break;
+            }
+        }
+        return chatClientRequest.mutate()
+                .prompt(chatClientRequest.prompt().mutate().messages(messages).build())
+                .build();
+    }
+
+    private Mono<Void> saveAnswer(String conversationId, ChatClientResponse response) {
+        if (response == null || response.chatResponse() == null) {
+            return Mono.empty();
+        }
+        List<Message> messages = response.chatResponse().getResults().stream()
+                .map(Generation::getOutput)
+                .map(Message.class::cast)
+                .toList();
+        return chatMemory.add(conversationId, messages);
+    }
+
+    @Override
+    public String getName() {
+        return "ReactiveChatMemoryAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER;
+    }
+}
@@ -0,0 +1,109 @@
+package de.haeger.springaidemo.memory;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Non-blocking chat memory repository for the reactive mode, on the same table as Spring AI's
+ * {@code JdbcChatMemoryRepository}. Like {@link ArchiveRestoringChatMemoryRepository}, loading
+ * a conversation without messages restores it from the archive, and deleting a conversation
+ * deletes its archive. Both are rare and run on the bounded elastic scheduler, as the archive
+ * service is JDBC-based.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatMemoryRepository {
+
+    // The old messages are deleted and the new ones inserted in one statement, so no
+    // transaction is needed; the timestamps keep the order of the messages
+    private static final String REPLACE_MESSAGES = "WITH deleted AS ("
+            + "DELETE FROM spring_ai_chat_memory WHERE conversation_id = :conversationId) "
+            + "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") "
+            + "SELECT :conversationId, m.content, m.type, LOCALTIMESTAMP + (m.position - 1) * INTERVAL '1 millisecond' "
+            + "FROM unnest(CAST(:contents AS TEXT[]), CAST(:types AS TEXT[])) WITH ORDINALITY AS m(content, type, position)";
+
+    private final DatabaseClient databaseClient;
+    private final ChatMemoryArchiveService archiveService;
+
+    public ReactiveChatMemoryRepository(DatabaseClient databaseClient, ChatMemoryArchiveService archiveService) {
+        this.databaseClient = databaseClient;
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Load the messages of a conversation, restoring it from the archive if it has none.
+     *
+     * @param conversationId the conversation identifier
+     * @return the messages in order
+     */
+    public Mono<List<Message>> findByConversationId(String conversationId) {
+        return selectMessages(conversationId).flatMap(messages -> {
+            if (!messages.isEmpty()) {
+                return Mono.just(messages);
+            }
+            return Mono.fromCallable(() -> archiveService.restore(conversationId))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(restored -> restored ? selectMessages(conversationId) : Mono.just(messages));
+        });
+    }
+
+    /**
+     * Replace the messages of a conversation.
+     *
+     * @param conversationId the conversation identifier
+     * @param messages the messages in order
+     */
+    public Mono<Void> saveAll(String conversationId, List<Message> messages) {
+        String[] contents = messages.stream().map(Message::getText).map(text -> text != null ? text : "")
+                .toArray(String[]::new);
+        String[] types = messages.stream().map(message -> message.getMessageType().name()).toArray(String[]::new);
+        return databaseClient.sql(REPLACE_MESSAGES)
+                .bind("conversationId", conversationId)
+                .bind("contents", contents)
+                .bind("types", types)
+                .then();
+    }
+
+    /**
+     * Delete the messages and the archive of a conversation.
+     *
+     * @param conversationId the conversation identifier
+     */
+    public Mono<Void> deleteByConversationId(String conversationId) {
+        return databaseClient.sql("DELETE FROM spring_ai_chat_memory WHERE conversation_id = :conversationId")
+                .bind("conversationId", conversationId)
+                .then()
+                .then(Mono.<Void>fromRunnable(() -> archiveService.deleteArchive(conversationId))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private Mono<List<Message>> selectMessages(String conversationId) {
+        return databaseClient.sql("SELECT content, type FROM spring_ai_chat_memory "
+                        + "WHERE conversation_id = :conversationId ORDER BY \"timestamp\"")
+                .bind("conversationId", conversationId)
+                .map(row -> toMessage(row.get("type", String.class), row.get("content", String.class)))
+                .all()
+                .collectList();
+    }
+
+    private static Message toMessage(String type, String content) {
+        return switch (MessageType.valueOf(type)) {
+            case USER -> new UserMessage(content);
+            case ASSISTANT -> new AssistantMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            // Tool responses are not kept, same as in JdbcChatMemoryRepository
+            case TOOL -> ToolResponseMessage.builder().responses(List.of()).build();
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package de.haeger.springaidemo.observability;
+
+import com.google.cloud.vertexai.api.GenerateContentResponse;
+import org.springframework.ai.chat.metadata.Usage;
+
+/**
+ * Reads the Gemini-specific parts of the usage reported with a chat response.
+ * Only referenced once the Vertex AI classes are known to be present, so the metrics
+ * work without them.
+ */
+final class GeminiUsage {
+
+    static final String USAGE_METADATA_CLASS = "com.google.cloud.vertexai.api.GenerateContentResponse";
+
+    private GeminiUsage() {
+    }
+
+    /**
+     * Get the prompt tokens Gemini served from its context cache.
+     *
+     * @param usage the usage of a chat response
+     * @return the cached tokens, or null if the usage is not Gemini's
+     */
+    static Integer cachedContentTokens(Usage usage) {
+        if (usage.getNativeUsage() instanceof GenerateContentResponse.UsageMetadata metadata) {
+            return metadata.getCachedContentTokenCount();
+        }
+        return null;
+    }
+}
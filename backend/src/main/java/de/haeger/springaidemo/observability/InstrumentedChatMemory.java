@@ -0,0 +1,35 @@
+package de.haeger.springaidemo.observability;
+
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * ChatMemory decorator recording the memory load and memory write stages.
+ */
+public class InstrumentedChatMemory implements ChatMemory {
+
+    private final ChatMemory delegate;
+    private final PipelineMetrics pipelineMetrics;
+
+    public InstrumentedChatMemory(ChatMemory delegate, PipelineMetrics pipelineMetrics) {
+        this.delegate = delegate;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        pipelineMetrics.record(PipelineStage.MEMORY_WRITE, () -> delegate.add(conversationId, messages));
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        return pipelineMetrics.record(PipelineStage.MEMORY_LOAD, () -> delegate.get(conversationId));
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        delegate.clear(conversationId);
+    }
+}
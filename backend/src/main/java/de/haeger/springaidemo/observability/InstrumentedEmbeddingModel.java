@@ -0,0 +1,35 @@
+package de.haeger.springaidemo.observability;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * EmbeddingModel decorator recording the embedding stage.
+ */
+public class InstrumentedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final PipelineMetrics pipelineMetrics;
+
+    public InstrumentedEmbeddingModel(EmbeddingModel delegate, PipelineMetrics pipelineMetrics) {
+        this.delegate = delegate;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return pipelineMetrics.record(PipelineStage.EMBEDDING, () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return pipelineMetrics.record(PipelineStage.EMBEDDING, () -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
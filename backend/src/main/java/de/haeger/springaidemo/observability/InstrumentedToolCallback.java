@@ -0,0 +1,42 @@
+package de.haeger.springaidemo.observability;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * ToolCallback decorator recording the tool call stage and counting invocations per tool.
+ */
+public class InstrumentedToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final PipelineMetrics pipelineMetrics;
+
+    public InstrumentedToolCallback(ToolCallback delegate, PipelineMetrics pipelineMetrics) {
+        this.delegate = delegate;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        pipelineMetrics.recordToolCall(delegate.getToolDefinition().name());
+        return pipelineMetrics.record(PipelineStage.TOOL_CALL, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        pipelineMetrics.recordToolCall(delegate.getToolDefinition().name());
+        return pipelineMetrics.record(PipelineStage.TOOL_CALL, () -> delegate.call(toolInput, toolContext));
+    }
+}
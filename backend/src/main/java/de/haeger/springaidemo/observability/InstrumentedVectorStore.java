@@ -0,0 +1,61 @@
+package de.haeger.springaidemo.observability;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * VectorStore decorator recording the vector search stage.
+ * The measured search includes embedding the query. Retrieved documents are
+ * added to the trace of traced requests.
+ */
+public class InstrumentedVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final PipelineMetrics pipelineMetrics;
+
+    public InstrumentedVectorStore(VectorStore delegate, PipelineMetrics pipelineMetrics) {
+        this.delegate = delegate;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Document> documents = pipelineMetrics.record(PipelineStage.VECTOR_SEARCH,
+                () -> delegate.similaritySearch(request));
+        PipelineTrace trace = PipelineContext.current().getTrace();
+        if (trace != null) {
+            trace.addRetrievedDocuments(documents);
+        }
+        return documents;
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+}
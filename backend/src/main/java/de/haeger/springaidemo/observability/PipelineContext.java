@@ -0,0 +1,142 @@
+package de.haeger.springaidemo.observability;
+
+/**
+ * Per-request context for pipeline metrics.
+ * Holds the endpoint and model name of the request currently handled by this thread,
+ * so that decorators deep inside the advisor chain can tag their measurements.
+ */
+public final class PipelineContext {
+
+    public static final String UNKNOWN = "none";
+
+    private static final ThreadLocal<PipelineContext> CURRENT = new ThreadLocal<>();
+    private static final PipelineContext EMPTY = new PipelineContext(UNKNOWN);
+
+    private final String endpoint;
+    private final PipelineTrace trace;
+    private volatile String modelName = UNKNOWN;
+
+    private PipelineContext(String endpoint) {
+        this(endpoint, null);
+    }
+
+    private PipelineContext(String endpoint, PipelineTrace trace) {
+        this.endpoint = endpoint;
+        this.trace = trace;
+    }
+
+    /**
+     * Bind a new context for the given endpoint to the current thread.
+     *
+     * @param endpoint the endpoint pattern, e.g. "/chat"
+     * @param traced whether spans should be recorded for this request
+     * @return the bound context
+     */
+    public static PipelineContext open(String endpoint, boolean traced) {
+        PipelineContext context = create(endpoint, traced);
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * Create a context for the given endpoint without binding it to a thread.
+     * Reactive requests carry it in their Reactor context instead, see {@link PipelineContextAccessor}.
+     *
+     * @param endpoint the endpoint pattern, e.g. "/chat"
+     * @param traced whether spans should be recorded for this request
+     * @return the new context
+     */
+    public static PipelineContext create(String endpoint, boolean traced) {
+        String name = endpoint != null ? endpoint : UNKNOWN;
+        return new PipelineContext(name, traced ? new PipelineTrace(name) : null);
+    }
+
+    /**
+     * Remove the context from the current thread.
+     */
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Run a task on the current thread with the given context bound.
+     * Used to carry the request context to worker threads.
+     *
+     * @param context the context captured on the request thread
+     * @param task the task to run
+     */
+    public static void runWith(PipelineContext context, Runnable task) {
+        PipelineContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the context bound to the current thread, or null if none is bound.
+     */
+    static PipelineContext bound() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind a context to the current thread, or remove it if null.
+     */
+    static void bind(PipelineContext context) {
+        if (context != null) {
+            CURRENT.set(context);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Get the context bound to the current thread, or an empty context if none is bound.
+     */
+    public static PipelineContext current() {
+        PipelineContext context = CURRENT.get();
+        return context != null ? context : EMPTY;
+    }
+
+    /**
+     * Record the resolved model name on the current context.
+     */
+    public static void setCurrentModelName(String modelName) {
+        PipelineContext context = CURRENT.get();
+        if (context != null) {
+            context.setModelName(modelName);
+        }
+    }
+
+    /**
+     * Record the resolved model name on this context.
+     */
+    public void setModelName(String modelName) {
+        // The empty context is shared by all requests without one
+        if (modelName != null && this != EMPTY) {
+            this.modelName = modelName;
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Get the trace of this request, or null if the request is not traced.
+     */
+    public PipelineTrace getTrace() {
+        return trace;
+    }
+}
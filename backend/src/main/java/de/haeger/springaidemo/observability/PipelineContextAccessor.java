@@ -0,0 +1,77 @@
+package de.haeger.springaidemo.observability;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+
+/**
+ * Carries the {@link PipelineContext} of reactive requests.
+ * A reactive request runs on whatever thread delivers its next signal, so its context is
+ * kept in the Reactor context under {@link #KEY}. Registered with Micrometer's context
+ * propagation, this accessor lets Reactor bind the context to the thread of each operator,
+ * so the advisors and decorators reading {@link PipelineContext#current()} work unchanged.
+ */
+public class PipelineContextAccessor implements ThreadLocalAccessor<PipelineContext> {
+
+    public static final String KEY = "de.haeger.springaidemo.pipeline-context";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public PipelineContext getValue() {
+        return PipelineContext.bound();
+    }
+
+    @Override
+    public void setValue(PipelineContext value) {
+        PipelineContext.bind(value);
+    }
+
+    @Override
+    public void setValue() {
+        PipelineContext.close();
+    }
+
+    /**
+     * Get the context of a reactive request, or the context bound to the current thread
+     * if the Reactor context holds none.
+     */
+    public static PipelineContext current(ContextView contextView) {
+        return contextView.getOrDefault(KEY, PipelineContext.current());
+    }
+
+    /**
+     * Run a reactive request with a new context for the given endpoint.
+     *
+     * @param endpoint the endpoint pattern, e.g. "/chat"
+     * @param traced whether spans should be recorded for this request
+     * @param request builds the request from its context
+     * @return the request, with the context in its Reactor context
+     */
+    public static <T> Mono<T> mono(String endpoint, boolean traced, Function<PipelineContext, Mono<T>> request) {
+        return Mono.defer(() -> {
+            PipelineContext context = PipelineContext.create(endpoint, traced);
+            return request.apply(context).contextWrite(c -> c.put(KEY, context));
+        });
+    }
+
+    /**
+     * Run a streaming reactive request with a new context for the given endpoint.
+     *
+     * @param endpoint the endpoint pattern, e.g. "/chat/stream"
+     * @param request builds the request from its context
+     * @return the request, with the context in its Reactor context
+     */
+    public static <T> Flux<T> flux(String endpoint, Function<PipelineContext, Flux<T>> request) {
+        return Flux.defer(() -> {
+            PipelineContext context = PipelineContext.create(endpoint, false);
+            return request.apply(context).contextWrite(c -> c.put(KEY, context));
+        });
+    }
+}
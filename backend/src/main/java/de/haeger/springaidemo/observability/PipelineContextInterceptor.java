@@ -0,0 +1,33 @@
+package de.haeger.springaidemo.observability;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Binds a {@link PipelineContext} for the matched endpoint to the request thread.
+ * Requests with {@code trace=true} additionally get a {@link PipelineTrace}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PipelineContextInterceptor implements HandlerInterceptor {
+
+    public static final String TRACE_PARAMETER = "trace";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Exactly what the params = "trace=true" mappings of the traced endpoints match
+        boolean traced = "true".equals(request.getParameter(TRACE_PARAMETER));
+        PipelineContext.open(pattern != null ? pattern.toString() : request.getRequestURI(), traced);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PipelineContext.close();
+    }
+}
@@ -0,0 +1,411 @@
+package de.haeger.springaidemo.observability;
+
+import de.haeger.springaidemo.dto.TracedAnswerDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Records Micrometer timers and counters for the stages of the LLM request pipeline.
+ * All meters are tagged with the stage, the model name and the endpoint of the
+ * current {@link PipelineContext}. Stages of traced requests are also recorded as
+ * spans on the request's {@link PipelineTrace}.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE_TIMER = "llm.pipeline.stage";
+    public static final String TOKEN_COUNTER = "llm.tokens";
+    public static final String PROMPT_CACHE_COUNTER = "llm.tokens.prompt.cache";
+    public static final String CONTEXT_TOKEN_COUNTER = "llm.rag.context.tokens";
+    public static final String COALESCING_COUNTER = "llm.coalescing.requests";
+    public static final String TOOL_CALL_COUNTER = "llm.tool.calls";
+    public static final String TOOL_LATENCY_TIMER = "llm.tool.latency";
+    public static final String TOOL_CACHE_COUNTER = "llm.tool.cache";
+    public static final String MODEL_WARMUP_TIMER = "llm.model.warmup";
+    public static final String MODEL_LOADED_GAUGE = "llm.model.loaded";
+    public static final String MODEL_FALLBACK_COUNTER = "llm.model.fallback";
+    public static final String BATCH_PROMPT_COUNTER = "llm.batch.prompts";
+    public static final String SEARCH_LATENCY_TIMER = "llm.vector.search.latency";
+    public static final String RETRIEVAL_GATE_COUNTER = "llm.rag.retrieval.gate";
+    public static final String RETRIEVAL_SAVED_TIMER = "llm.rag.retrieval.saved";
+
+    private static final boolean GEMINI_PRESENT =
+            ClassUtils.isPresent(GeminiUsage.USAGE_METADATA_CLASS, PipelineMetrics.class.getClassLoader());
+
+    private final MeterRegistry meterRegistry;
+    private final Timer searchLatencyTimer;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        // One untagged timer, so recent percentiles cover all models and endpoints
+        this.searchLatencyTimer = Timer.builder(SEARCH_LATENCY_TIMER)
+                .description("Recent vector search latency across all models and endpoints")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .distributionStatisticExpiry(Duration.ofMinutes(5))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Time the given action as a pipeline stage.
+     *
+     * @param stage the stage being measured
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public <T> T record(PipelineStage stage, Supplier<T> action) {
+        PipelineContext context = PipelineContext.current();
+        PipelineTrace trace = context.getTrace();
+        PipelineTrace.Span span = trace != null ? trace.startSpan(stage) : null;
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            timer(stage, outcome, context).record(nanos, TimeUnit.NANOSECONDS);
+            if (stage == PipelineStage.VECTOR_SEARCH) {
+                searchLatencyTimer.record(nanos, TimeUnit.NANOSECONDS);
+            }
+            if (span != null) {
+                trace.endSpan(span, outcome);
+            }
+        }
+    }
+
+    /**
+     * Time the given action as a pipeline stage.
+     *
+     * @param stage the stage being measured
+     * @param action the action to run
+     */
+    public void record(PipelineStage stage, Runnable action) {
+        record(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Time a non-blocking action as a pipeline stage, from subscription until it completes.
+     * The context is taken from the Reactor context, see {@link PipelineContextAccessor}.
+     *
+     * @param stage the stage being measured
+     * @param action the action to run
+     * @return the action, measured when subscribed
+     */
+    public <T> Mono<T> record(PipelineStage stage, Mono<T> action) {
+        return Mono.deferContextual(contextView -> {
+            PipelineContext context = PipelineContextAccessor.current(contextView);
+            long start = System.nanoTime();
+            return action
+                    .doOnSuccess(result -> recordDuration(stage, System.nanoTime() - start, "success", context))
+                    .doOnError(e -> recordDuration(stage, System.nanoTime() - start, "error", context));
+        });
+    }
+
+    /**
+     * Record an already measured duration for a pipeline stage.
+     * Used where the measurement does not run on the request thread, e.g. streaming.
+     *
+     * @param stage the stage being measured
+     * @param nanos the duration in nanoseconds
+     * @param outcome "success" or "error"
+     * @param context the context captured on the request thread
+     */
+    public void recordDuration(PipelineStage stage, long nanos, String outcome, PipelineContext context) {
+        timer(stage, outcome, context).record(nanos, TimeUnit.NANOSECONDS);
+        if (context.getTrace() != null) {
+            context.getTrace().addSpan(stage, nanos, outcome);
+        }
+    }
+
+    /**
+     * Count the prompt and completion tokens reported in the response metadata.
+     * Where the provider reports prompt tokens served from its context cache, the prompt
+     * tokens are also counted as cached and uncached.
+     *
+     * @param chatResponse the model response, may be null
+     * @param context the context captured on the request thread
+     */
+    public void recordUsage(ChatResponse chatResponse, PipelineContext context) {
+        if (chatResponse == null || chatResponse.getMetadata() == null) {
+            return;
+        }
+        Usage usage = chatResponse.getMetadata().getUsage();
+        if (usage == null) {
+            return;
+        }
+        incrementTokens("prompt", usage.getPromptTokens(), context);
+        incrementTokens("completion", usage.getCompletionTokens(), context);
+        Integer cachedTokens = cachedPromptTokens(usage);
+        if (cachedTokens != null && usage.getPromptTokens() != null) {
+            incrementPromptCache("cached", cachedTokens, context);
+            incrementPromptCache("uncached", usage.getPromptTokens() - cachedTokens, context);
+        }
+
+        PipelineTrace trace = context.getTrace();
+        if (trace != null) {
+            trace.setUsage(usage);
+            trace.setModelVersion(chatResponse.getMetadata().getModel());
+        }
+    }
+
+    /**
+     * Count the retrieved tokens kept in and dropped from the RAG context, and attach the
+     * accounting to the trace of the current request.
+     *
+     * @param retrievalContext the token accounting of the assembled context
+     */
+    public void recordRetrievalContext(TracedAnswerDto.RetrievalContextDto retrievalContext) {
+        PipelineContext context = PipelineContext.current();
+        incrementContextTokens("kept", retrievalContext.keptTokens(), context);
+        incrementContextTokens("duplicate", retrievalContext.duplicateTokens(), context);
+        incrementContextTokens("compressed", retrievalContext.compressedTokens(), context);
+        incrementContextTokens("over-budget", retrievalContext.overBudgetTokens(), context);
+        if (context.getTrace() != null) {
+            context.getTrace().setRetrievalContext(retrievalContext);
+        }
+    }
+
+    /**
+     * Count a decision of the retrieval gate. For a skipped search, the median of the recent
+     * vector search latency is recorded as the time saved.
+     *
+     * @param retrieved whether the vector store is searched
+     * @param reason the rule that decided, e.g. "follow-up"
+     */
+    public void recordRetrievalGate(boolean retrieved, String reason) {
+        PipelineContext context = PipelineContext.current();
+        Counter.builder(RETRIEVAL_GATE_COUNTER)
+                .description("RAG questions searched in or answered without the vector store")
+                .tag("decision", retrieved ? "retrieve" : "skip")
+                .tag("reason", reason)
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .register(meterRegistry)
+                .increment();
+        if (retrieved) {
+            return;
+        }
+        for (ValueAtPercentile percentile : searchLatencyTimer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.5 && percentile.value() > 0) {
+                Timer.builder(RETRIEVAL_SAVED_TIMER)
+                        .description("Estimated vector search time saved by skipped searches")
+                        .tag("model", context.getModelName())
+                        .tag("endpoint", context.getEndpoint())
+                        .register(meterRegistry)
+                        .record((long) percentile.value(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Count a request passing a coalescing layer.
+     *
+     * @param layer the layer, e.g. "retrieval"
+     * @param coalesced whether the request shared the result of an identical one in flight
+     */
+    public void recordCoalescing(String layer, boolean coalesced) {
+        PipelineContext context = PipelineContext.current();
+        Counter.builder(COALESCING_COUNTER)
+                .description("Requests executed or coalesced with an identical request in flight")
+                .tag("layer", layer)
+                .tag("result", coalesced ? "coalesced" : "executed")
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Count a tool invocation.
+     *
+     * @param toolName the name of the invoked tool
+     */
+    public void recordToolCall(String toolName) {
+        PipelineContext context = PipelineContext.current();
+        Counter.builder(TOOL_CALL_COUNTER)
+                .description("Number of tool invocations requested by the model")
+                .tag("tool", toolName)
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Record the execution time of a tool, excluding cache hits.
+     *
+     * @param toolName the name of the executed tool
+     * @param nanos the duration in nanoseconds
+     * @param outcome "success" or "error"
+     */
+    public void recordToolExecution(String toolName, long nanos, String outcome) {
+        Timer.builder(TOOL_LATENCY_TIMER)
+                .description("Execution time of a tool, excluding cache hits")
+                .tag("tool", toolName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count a tool result cache lookup.
+     *
+     * @param toolName the name of the tool
+     * @param hit whether a cached or in-flight result was reused
+     */
+    public void recordToolCacheLookup(String toolName, boolean hit) {
+        Counter.builder(TOOL_CACHE_COUNTER)
+                .description("Tool result cache lookups")
+                .tag("tool", toolName)
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Record a load or keep-alive request of a local model.
+     *
+     * @param model the model, e.g. "gpt-oss:20b"
+     * @param trigger "startup", "demand", "reload" or "keep-alive"
+     * @param nanos the duration in nanoseconds
+     * @param outcome "success" or "error"
+     */
+    public void recordModelWarmup(String model, String trigger, long nanos, String outcome) {
+        Timer.builder(MODEL_WARMUP_TIMER)
+                .description("Time to load a local model, or to renew its keep-alive if it was loaded")
+                .tag("model", model)
+                .tag("trigger", trigger)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Register a gauge reporting whether a local model is loaded.
+     *
+     * @param model the model, e.g. "gpt-oss:20b"
+     * @param loaded supplies whether the model is loaded
+     */
+    public void registerModelLoadedGauge(String model, BooleanSupplier loaded) {
+        Gauge.builder(MODEL_LOADED_GAUGE, () -> loaded.getAsBoolean() ? 1 : 0)
+                .description("Whether a local model is loaded, 1 or 0")
+                .tag("model", model)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count a request routed to another model because its model was not loaded.
+     *
+     * @param requested the requested model, e.g. "ollama"
+     * @param used the model used instead
+     */
+    public void recordModelFallback(String requested, String used) {
+        Counter.builder(MODEL_FALLBACK_COUNTER)
+                .description("Requests routed to another model while their model was loading")
+                .tag("requested", requested)
+                .tag("model", used)
+                .tag("endpoint", PipelineContext.current().getEndpoint())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Count a prompt of a batch job answered or given up on.
+     *
+     * @param model the model, e.g. "gemini"
+     * @param outcome "success" or "error"
+     */
+    public void recordBatchPrompt(String model, String outcome) {
+        Counter.builder(BATCH_PROMPT_COUNTER)
+                .description("Prompts of batch jobs answered, or failed after all attempts")
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Get the timer holding recent vector search latency percentiles.
+     */
+    public Timer getSearchLatencyTimer() {
+        return searchLatencyTimer;
+    }
+
+    private Timer timer(PipelineStage stage, String outcome, PipelineContext context) {
+        return Timer.builder(STAGE_TIMER)
+                .description("Duration of a stage of the LLM request pipeline")
+                .tag("stage", stage.getTagValue())
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the prompt tokens served from the provider's context cache, if reported.
+     * Gemini reports them in its usage metadata; Ollama does not report KV cache reuse.
+     */
+    private static Integer cachedPromptTokens(Usage usage) {
+        return GEMINI_PRESENT ? GeminiUsage.cachedContentTokens(usage) : null;
+    }
+
+    private void incrementPromptCache(String cache, int tokens, PipelineContext context) {
+        Counter counter = Counter.builder(PROMPT_CACHE_COUNTER)
+                .description("Prompt tokens served from or missing the provider's context cache")
+                .baseUnit("tokens")
+                .tag("cache", cache)
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .register(meterRegistry);
+        if (tokens > 0) {
+            counter.increment(tokens);
+        }
+    }
+
+    private void incrementContextTokens(String result, int tokens, PipelineContext context) {
+        Counter counter = Counter.builder(CONTEXT_TOKEN_COUNTER)
+                .description("Retrieved tokens kept in or dropped from the RAG context")
+                .baseUnit("tokens")
+                .tag("result", result)
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .register(meterRegistry);
+        if (tokens > 0) {
+            counter.increment(tokens);
+        }
+    }
+
+    private void incrementTokens(String type, Integer tokens, PipelineContext context) {
+        if (tokens == null || tokens <= 0) {
+            return;
+        }
+        Counter.builder(TOKEN_COUNTER)
+                .description("Number of prompt and completion tokens reported by the model")
+                .baseUnit("tokens")
+                .tag("type", type)
+                .tag("model", context.getModelName())
+                .tag("endpoint", context.getEndpoint())
+                .register(meterRegistry)
+                .increment(tokens);
+    }
+}
@@ -0,0 +1,74 @@
+package de.haeger.springaidemo.observability;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Advisor measuring the generation stage, time to first token and token usage.
+ * Runs last in the advisor chain so that only the model call itself (including
+ * any tool calls executed by the model) is measured.
+ */
+@Component
+public class PipelineMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final PipelineMetrics pipelineMetrics;
+
+    public PipelineMetricsAdvisor(PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+        ChatClientResponse response = pipelineMetrics.record(PipelineStage.GENERATION,
+                () -> callAdvisorChain.nextCall(chatClientRequest));
+        pipelineMetrics.recordUsage(response.chatResponse(), PipelineContext.current());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        // Capture the context on the request thread, chunks are emitted on other threads
+        PipelineContext context = PipelineContext.current();
+        long start = System.nanoTime();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        AtomicReference<ChatClientResponse> lastResponse = new AtomicReference<>();
+
+        return streamAdvisorChain.nextStream(chatClientRequest)
+                .doOnNext(response -> {
+                    if (firstToken.compareAndSet(true, false)) {
+                        pipelineMetrics.recordDuration(PipelineStage.TIME_TO_FIRST_TOKEN,
+                                System.nanoTime() - start, "success", context);
+                    }
+                    lastResponse.set(response);
+                })
+                .doOnComplete(() -> {
+                    pipelineMetrics.recordDuration(PipelineStage.GENERATION, System.nanoTime() - start, "success", context);
+                    ChatClientResponse last = lastResponse.get();
+                    if (last != null) {
+                        pipelineMetrics.recordUsage(last.chatResponse(), context);
+                    }
+                })
+                .doOnError(e -> pipelineMetrics.recordDuration(PipelineStage.GENERATION,
+                        System.nanoTime() - start, "error", context));
+    }
+
+    @Override
+    public String getName() {
+        return "PipelineMetricsAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
@@ -0,0 +1,27 @@
+package de.haeger.springaidemo.observability;
+
+/**
+ * Enum representing the measured stages of an LLM request.
+ * The tag value is used as the "stage" tag on pipeline metrics.
+ */
+public enum PipelineStage {
+    MODEL_LOOKUP("model-lookup"),
+    MEMORY_LOAD("memory-load"),
+    EMBEDDING("embedding"),
+    VECTOR_SEARCH("vector-search"),
+    CONTEXT_ASSEMBLY("context-assembly"),
+    GENERATION("generation"),
+    TIME_TO_FIRST_TOKEN("time-to-first-token"),
+    TOOL_CALL("tool-call"),
+    MEMORY_WRITE("memory-write");
+
+    private final String tagValue;
+
+    PipelineStage(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,175 @@
+package de.haeger.springaidemo.observability;
+
+import de.haeger.springaidemo.dto.TracedAnswerDto;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Span recorder for a single traced request.
+ * Only created when a client opts in to a trace, so untraced requests pay nothing
+ * beyond a null check. Spans use OpenTelemetry identifiers and epoch nanosecond
+ * timestamps so they can be forwarded to an OTLP collector unchanged.
+ */
+public class PipelineTrace {
+
+    private static final long ANCHOR_EPOCH_NANOS = System.currentTimeMillis() * 1_000_000L;
+    private static final long ANCHOR_NANO_TIME = System.nanoTime();
+
+    private final String traceId = randomHex(16);
+    private final Span rootSpan;
+    private final Deque<Span> openSpans = new ArrayDeque<>();
+    private final List<Span> spans = new ArrayList<>();
+    private final List<TracedAnswerDto.RetrievedDocumentDto> retrievedDocuments = new ArrayList<>();
+    private TracedAnswerDto.RetrievalContextDto retrievalContext;
+    private TracedAnswerDto.TokenUsageDto usage;
+    private String modelVersion;
+
+    public PipelineTrace(String endpoint) {
+        this.rootSpan = new Span(randomHex(8), null, endpoint, epochNanos());
+        this.openSpans.push(rootSpan);
+    }
+
+    /**
+     * Start a child span of the innermost open span.
+     *
+     * @param stage the stage being measured
+     * @return the started span, to be passed to {@link #endSpan(Span, String)}
+     */
+    public synchronized Span startSpan(PipelineStage stage) {
+        Span parent = openSpans.peek();
+        Span span = new Span(randomHex(8), parent != null ? parent.spanId : null, stage.getTagValue(), epochNanos());
+        openSpans.push(span);
+        spans.add(span);
+        return span;
+    }
+
+    /**
+     * End a span started by {@link #startSpan(PipelineStage)}.
+     *
+     * @param span the span to end
+     * @param outcome "success" or "error"
+     */
+    public synchronized void endSpan(Span span, String outcome) {
+        span.endNanos = epochNanos();
+        span.outcome = outcome;
+        openSpans.remove(span);
+    }
+
+    /**
+     * Add a span for a duration measured outside of a {@link #startSpan(PipelineStage)} call.
+     */
+    public synchronized void addSpan(PipelineStage stage, long durationNanos, String outcome) {
+        long end = epochNanos();
+        Span parent = openSpans.peek();
+        Span span = new Span(randomHex(8), parent != null ? parent.spanId : null, stage.getTagValue(), end - durationNanos);
+        span.endNanos = end;
+        span.outcome = outcome;
+        spans.add(span);
+    }
+
+    public synchronized void addRetrievedDocuments(List<Document> documents) {
+        for (Document document : documents) {
+            retrievedDocuments.add(new TracedAnswerDto.RetrievedDocumentDto(document.getId(), document.getScore()));
+        }
+    }
+
+    public synchronized void setRetrievalContext(TracedAnswerDto.RetrievalContextDto retrievalContext) {
+        this.retrievalContext = retrievalContext;
+    }
+
+    public synchronized void setUsage(Usage usage) {
+        if (usage != null) {
+            this.usage = new TracedAnswerDto.TokenUsageDto(
+                    usage.getPromptTokens(), usage.getCompletionTokens(), usage.getTotalTokens());
+        }
+    }
+
+    public synchronized void setModelVersion(String modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Finish the root span and convert the trace into a response DTO.
+     *
+     * @param answer the generated answer
+     * @param modelName the logical model name used for the request
+     * @return the answer together with the trace
+     */
+    public synchronized TracedAnswerDto toDto(String answer, String modelName) {
+        rootSpan.endNanos = epochNanos();
+        rootSpan.outcome = "success";
+
+        List<TracedAnswerDto.TraceSpanDto> spanDtos = new ArrayList<>();
+        spanDtos.add(rootSpan.toDto(traceId));
+        for (Span span : spans) {
+            spanDtos.add(span.toDto(traceId));
+        }
+
+        return new TracedAnswerDto(
+                answer,
+                modelName,
+                modelVersion,
+                traceId,
+                (rootSpan.endNanos - rootSpan.startNanos) / 1_000_000.0,
+                spanDtos,
+                List.copyOf(retrievedDocuments),
+                retrievalContext,
+                usage
+        );
+    }
+
+    private static long epochNanos() {
+        // Wall clock anchored nano time, OpenTelemetry span timestamps are epoch nanoseconds
+        return ANCHOR_EPOCH_NANOS + (System.nanoTime() - ANCHOR_NANO_TIME);
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] buffer = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(buffer);
+        return HexFormat.of().formatHex(buffer);
+    }
+
+    /**
+     * A single recorded span.
+     */
+    public static final class Span {
+        private final String spanId;
+        private final String parentSpanId;
+        private final String name;
+        private final long startNanos;
+        private long endNanos;
+        private String outcome;
+
+        private Span(String spanId, String parentSpanId, String name, long startNanos) {
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        private TracedAnswerDto.TraceSpanDto toDto(String traceId) {
+            long end = endNanos != 0 ? endNanos : startNanos;
+            return new TracedAnswerDto.TraceSpanDto(
+                    traceId,
+                    spanId,
+                    parentSpanId,
+                    name,
+                    startNanos,
+                    end,
+                    (end - startNanos) / 1_000_000.0,
+                    "error".equals(outcome) ? "ERROR" : "OK"
+            );
+        }
+    }
+}
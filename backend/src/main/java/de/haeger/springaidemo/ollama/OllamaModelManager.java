@@ -0,0 +1,293 @@
+package de.haeger.springaidemo.ollama;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.haeger.springaidemo.dto.ModelStatus;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Ollama models loaded while they are in use.
+ * Loading gpt-oss:20b takes a minute or more, and Ollama unloads a model once its
+ * keep-alive has expired, so the first request after an idle period used to wait for it.
+ * The manager preloads the configured models at startup and tracks their real state with
+ * Ollama's {@code /api/ps}. While requests came in within the idle timeout it renews the
+ * keep-alive of a model before it expires, and reloads a model that was unloaded anyway;
+ * after that the model is left to unload and free its memory. A request for a model that
+ * is not loaded starts loading it, and {@code ModelSwitchService} routes such requests to
+ * the other provider until it is loaded.
+ */
+@Component
+public class OllamaModelManager implements SmartLifecycle {
+
+    /**
+     * State of a model as last seen by the manager.
+     */
+    public enum State {
+        /** Not checked yet, or the manager is disabled */
+        UNKNOWN,
+        /** Ollama is reachable, the model is not loaded */
+        UNLOADED,
+        /** A load request is in flight */
+        LOADING,
+        LOADED,
+        /** Ollama did not answer */
+        UNREACHABLE
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(OllamaModelManager.class);
+
+    private final PipelineMetrics pipelineMetrics;
+    private final RestClient.Builder restClientBuilder;
+    private final Map<String, ModelState> models = new ConcurrentHashMap<>();
+
+    @Value("${app.ollama.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.ai.ollama.base-url:http://localhost:11434}")
+    private String baseUrl;
+
+    @Value("${spring.ai.ollama.chat.options.model:gpt-oss:20b}")
+    private String chatModel;
+
+    @Value("${app.ollama.warmup.models:}")
+    private List<String> additionalModels;
+
+    @Value("${spring.ai.ollama.chat.options.keep-alive:30m}")
+    private String keepAlive;
+
+    @Value("${app.ollama.warmup.interval:1m}")
+    private Duration interval;
+
+    @Value("${app.ollama.warmup.idle-timeout:2h}")
+    private Duration idleTimeout;
+
+    @Value("${app.ollama.warmup.load-timeout:5m}")
+    private Duration loadTimeout;
+
+    private RestClient restClient;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService loader;
+    private volatile boolean running;
+
+    public OllamaModelManager(PipelineMetrics pipelineMetrics, RestClient.Builder restClientBuilder) {
+        this.pipelineMetrics = pipelineMetrics;
+        this.restClientBuilder = restClientBuilder;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(5));
+        requestFactory.setReadTimeout(loadTimeout);
+        restClient = restClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+
+        long now = System.nanoTime();
+        models.put(withTag(chatModel), new ModelState(chatModel, now));
+        for (String model : additionalModels) {
+            if (!model.isBlank()) {
+                models.putIfAbsent(withTag(model.trim()), new ModelState(model.trim(), now));
+            }
+        }
+        models.values().forEach(state ->
+                pipelineMetrics.registerModelLoadedGauge(state.name, () -> state.state == State.LOADED));
+
+        // Loads run one at a time, so two large models do not compete for memory while loading
+        loader = Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("ollama-model-loader").factory());
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("ollama-model-manager").factory());
+        models.values().forEach(state -> load(state, "startup"));
+        scheduler.scheduleWithFixedDelay(this::refresh, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            loader.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Record a request for the Ollama chat model and check whether it can be served
+     * without waiting for the model to load. If the model is not loaded, loading starts.
+     *
+     * @return false if the model is loading or not loaded, true otherwise, including when its state is unknown
+     */
+    public boolean useChatModel() {
+        ModelState state = models.get(withTag(chatModel));
+        if (state == null) {
+            return true;
+        }
+        state.lastUsedNanos = System.nanoTime();
+        return switch (state.state) {
+            case LOADED, UNKNOWN, UNREACHABLE -> true;
+            case LOADING -> false;
+            case UNLOADED -> {
+                load(state, "demand");
+                yield false;
+            }
+        };
+    }
+
+    /**
+     * Get the state of the Ollama chat model.
+     */
+    public State getChatModelState() {
+        ModelState state = models.get(withTag(chatModel));
+        return state != null ? state.state : State.UNKNOWN;
+    }
+
+    /**
+     * Get the status of the Ollama chat model as reported to the UI. A model that is not
+     * loaded is still online, as it is loaded on first use.
+     */
+    public ModelStatus getChatModelStatus() {
+        return switch (getChatModelState()) {
+            case LOADING -> ModelStatus.LOADING;
+            case UNREACHABLE -> ModelStatus.OFFLINE;
+            case UNKNOWN, UNLOADED, LOADED -> ModelStatus.ONLINE;
+        };
+    }
+
+    /**
+     * Update the model states from {@code /api/ps} and renew the keep-alive of models in use.
+     */
+    private void refresh() {
+        Map<String, OffsetDateTime> loaded = new HashMap<>();
+        try {
+            RunningModels runningModels = restClient.get().uri("/api/ps").retrieve().body(RunningModels.class);
+            if (runningModels != null && runningModels.models() != null) {
+                for (RunningModel model : runningModels.models()) {
+                    if (model.name() != null) {
+                        loaded.put(withTag(model.name()), model.expiresAt());
+                    }
+                    if (model.model() != null) {
+                        loaded.putIfAbsent(withTag(model.model()), model.expiresAt());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not list the loaded Ollama models: {}", e.getMessage());
+            models.values().forEach(state -> {
+                if (state.state != State.LOADING) {
+                    state.state = State.UNREACHABLE;
+                }
+            });
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (ModelState state : models.values()) {
+            if (state.state == State.LOADING) {
+                continue;
+            }
+            OffsetDateTime expiresAt = loaded.get(withTag(state.name));
+            state.state = expiresAt != null ? State.LOADED : State.UNLOADED;
+            if (now - state.lastUsedNanos > idleTimeout.toNanos()) {
+                // Idle, let Ollama unload the model when its keep-alive expires
+                continue;
+            }
+            if (expiresAt == null) {
+                load(state, "reload");
+            } else if (expiresAt.isBefore(OffsetDateTime.now().plus(interval.multipliedBy(2)))) {
+                load(state, "keep-alive");
+            }
+        }
+    }
+
+    /**
+     * Load the model, or renew its keep-alive if it is loaded, with an empty generate request.
+     *
+     * @param trigger why the model is loaded, recorded as metric tag
+     */
+    private void load(ModelState state, String trigger) {
+        synchronized (state) {
+            if (state.loadPending || loader == null || loader.isShutdown()) {
+                return;
+            }
+            state.loadPending = true;
+            if (state.state != State.LOADED) {
+                state.state = State.LOADING;
+            }
+        }
+        loader.execute(() -> {
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                restClient.post()
+                        .uri("/api/generate")
+                        .body(Map.of("model", state.name, "keep_alive", keepAlive))
+                        .retrieve()
+                        .toBodilessEntity();
+                state.state = State.LOADED;
+                log.info("Ollama model {} loaded ({}) in {} ms", state.name, trigger,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (Exception e) {
+                outcome = "error";
+                state.state = State.UNREACHABLE;
+                log.warn("Could not load Ollama model {} ({}): {}", state.name, trigger, e.getMessage());
+            } finally {
+                state.loadPending = false;
+                pipelineMetrics.recordModelWarmup(state.name, trigger, System.nanoTime() - start, outcome);
+            }
+        });
+    }
+
+    /**
+     * Ollama reports models with their tag, so a name without a tag, such as {@code llama3},
+     * is compared as {@code llama3:latest}. A colon before the last slash is a registry port.
+     */
+    static String withTag(String name) {
+        return name.indexOf(':', name.lastIndexOf('/') + 1) < 0 ? name + ":latest" : name;
+    }
+
+    private static final class ModelState {
+
+        private final String name;
+        private volatile State state = State.UNKNOWN;
+        private volatile long lastUsedNanos;
+        private volatile boolean loadPending;
+
+        private ModelState(String name, long lastUsedNanos) {
+            this.name = name;
+            // Startup counts as use, so preloaded models are kept loaded for the idle timeout
+            this.lastUsedNanos = lastUsedNanos;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record RunningModels(List<RunningModel> models) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record RunningModel(String name, String model, @JsonProperty("expires_at") OffsetDateTime expiresAt) {}
+}
@@ -0,0 +1,47 @@
+package de.haeger.springaidemo.prompt;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * ToolCallback decorator replacing the tool description with the one of the current
+ * prompt version; name, input schema and execution are those of the wrapped tool.
+ */
+public class DescribedToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final ToolDefinition toolDefinition;
+
+    public DescribedToolCallback(ToolCallback delegate, String description) {
+        this.delegate = delegate;
+        ToolDefinition original = delegate.getToolDefinition();
+        this.toolDefinition = DefaultToolDefinition.builder()
+                .name(original.name())
+                .description(description)
+                .inputSchema(original.inputSchema())
+                .build();
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return toolDefinition;
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return delegate.call(toolInput);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return delegate.call(toolInput, toolContext);
+    }
+}
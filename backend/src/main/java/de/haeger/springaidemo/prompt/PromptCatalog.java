@@ -0,0 +1,97 @@
+package de.haeger.springaidemo.prompt;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+/**
+ * Versioned system prompts and tool descriptions, loaded from {@code prompts/<version>/}.
+ * The prompts are read once, so every request sends a byte-identical prefix: system
+ * prompt first, then the tool definitions in a fixed order. That lets Gemini's implicit
+ * context cache and Ollama's KV cache reuse the prefix instead of processing it again.
+ */
+@Component
+public class PromptCatalog {
+
+    private final String version;
+    private final String chatSystemPrompt;
+    private final String ragSystemPrompt;
+    private final String ragContextTemplate;
+    private final Properties toolDescriptions;
+
+    public PromptCatalog(@Value("${app.prompts.version:v1}") String version) {
+        this.version = version;
+        this.chatSystemPrompt = read("chat-system.st");
+        this.ragSystemPrompt = read("rag-system.st");
+        this.ragContextTemplate = read("rag-context.st");
+        try {
+            this.toolDescriptions = PropertiesLoaderUtils.loadProperties(resource("tools.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the tool descriptions of prompt version " + version, e);
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the system prompt of the tool-enabled chat.
+     */
+    public String getChatSystemPrompt() {
+        return chatSystemPrompt;
+    }
+
+    /**
+     * Get the system prompt of RAG queries.
+     */
+    public String getRagSystemPrompt() {
+        return ragSystemPrompt;
+    }
+
+    /**
+     * Get the template of the RAG user message, with the {@code query} and {@code context} variables.
+     */
+    public String getRagContextTemplate() {
+        return ragContextTemplate;
+    }
+
+    /**
+     * Apply the versioned tool descriptions and sort the tools by name, so the tool
+     * definitions are sent in the same order on every request and after every restart.
+     *
+     * @param toolCallbacks the tool callbacks
+     * @return the described tool callbacks in name order
+     */
+    public ToolCallback[] describeTools(ToolCallback[] toolCallbacks) {
+        return Arrays.stream(toolCallbacks)
+                .map(toolCallback -> {
+                    String description = toolDescriptions.getProperty(toolCallback.getToolDefinition().name());
+                    return description != null ? new DescribedToolCallback(toolCallback, description) : toolCallback;
+                })
+                .sorted(Comparator.comparing(toolCallback -> toolCallback.getToolDefinition().name()))
+                .toArray(ToolCallback[]::new);
+    }
+
+    private String read(String name) {
+        try {
+            return resource(name).getContentAsString(StandardCharsets.UTF_8).strip();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + name + " of prompt version " + version, e);
+        }
+    }
+
+    private Resource resource(String name) {
+        return new ClassPathResource("prompts/" + version + "/" + name);
+    }
+}
@@ -0,0 +1,229 @@
+package de.haeger.springaidemo.rag;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Assembles the retrieved documents of a RAG query into a prompt context that fits a token budget.
+ * Documents are taken in rank order. A document whose text is mostly contained in an
+ * already kept one is dropped as a duplicate, which is common for overlapping chunks.
+ * With compression enabled, only the sentences mentioning a query term are kept.
+ * Documents that no longer fit the budget are skipped, so a smaller, lower ranked one
+ * may still be kept.
+ * Tokens are counted with the encoding configured for the model; Gemini's tokenizer is not
+ * public, so its counts are an estimate.
+ */
+@Component
+public class ContextAssembler {
+
+    private static final Pattern WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int SHINGLE_SIZE = 3;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "are", "was", "were", "what", "which", "who", "whom", "when", "where",
+            "why", "how", "does", "did", "with", "that", "this", "these", "those", "from", "have", "has",
+            "about", "into", "there", "their", "they", "you", "your", "can", "could", "would", "should");
+
+    private final Map<String, TokenCountEstimator> estimators = new ConcurrentHashMap<>();
+
+    @Value("${app.rag.context.max-tokens:2000}")
+    private int maxTokens;
+
+    @Value("${app.rag.context.duplicate-threshold:0.8}")
+    private double duplicateThreshold;
+
+    @Value("${app.rag.context.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${app.rag.context.encoding.gemini:cl100k_base}")
+    private String geminiEncoding;
+
+    @Value("${app.rag.context.encoding.ollama:o200k_base}")
+    private String ollamaEncoding;
+
+    /**
+     * Assemble the context for a query.
+     *
+     * @param query the user question
+     * @param documents the retrieved documents in rank order
+     * @param modelName the logical model name, selecting the token encoding
+     * @return the kept documents and the token accounting
+     */
+    public AssembledContext assemble(String query, List<Document> documents, String modelName) {
+        TokenCountEstimator estimator = estimator(modelName);
+        Set<String> queryTerms = compressionEnabled ? terms(query) : Set.of();
+
+        List<Document> kept = new ArrayList<>();
+        List<Set<String>> keptShingles = new ArrayList<>();
+        int retrievedTokens = 0;
+        int keptTokens = 0;
+        int duplicateTokens = 0;
+        int compressedTokens = 0;
+        int overBudgetTokens = 0;
+
+        for (Document document : documents) {
+            String text = document.getText() != null ? document.getText() : "";
+            int tokens = estimator.estimate(text);
+            retrievedTokens += tokens;
+
+            Set<String> shingles = shingles(text);
+            if (isDuplicate(shingles, keptShingles)) {
+                duplicateTokens += tokens;
+                continue;
+            }
+
+            Document candidate = document;
+            int candidateTokens = tokens;
+            if (compressionEnabled) {
+                String compressed = compress(text, queryTerms);
+                if (compressed.length() < text.length()) {
+                    candidateTokens = estimator.estimate(compressed);
+                    compressedTokens += tokens - candidateTokens;
+                    candidate = document.mutate().text(compressed).build();
+                }
+            }
+
+            if (keptTokens + candidateTokens > maxTokens) {
+                overBudgetTokens += candidateTokens;
+                continue;
+            }
+            kept.add(candidate);
+            keptShingles.add(shingles);
+            keptTokens += candidateTokens;
+        }
+
+        return new AssembledContext(List.copyOf(kept), documents.size(), retrievedTokens, keptTokens,
+                duplicateTokens, compressedTokens, overBudgetTokens);
+    }
+
+    /**
+     * Count the tokens of a text with the encoding of the given model.
+     */
+    public int countTokens(String text, String modelName) {
+        return estimator(modelName).estimate(text);
+    }
+
+    private TokenCountEstimator estimator(String modelName) {
+        String encoding = "gemini".equals(modelName) ? geminiEncoding : ollamaEncoding;
+        return estimators.computeIfAbsent(encoding, name -> new JTokkitTokenCountEstimator(
+                EncodingType.fromName(name)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown token encoding: " + name))));
+    }
+
+    /**
+     * Check whether most word shingles of a document already occur in one kept document.
+     */
+    private boolean isDuplicate(Set<String> shingles, List<Set<String>> keptShingles) {
+        if (shingles.isEmpty()) {
+            return false;
+        }
+        for (Set<String> other : keptShingles) {
+            int shared = 0;
+            for (String shingle : shingles) {
+                if (other.contains(shingle)) {
+                    shared++;
+                }
+            }
+            if (shared >= duplicateThreshold * shingles.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> shingles(String text) {
+        String[] words = WORD.split(text.toLowerCase(Locale.ROOT).strip());
+        Set<String> shingles = new HashSet<>();
+        if (words.length < SHINGLE_SIZE) {
+            // Too short for shingles, compare the whole normalized text
+            String joined = String.join(" ", words).strip();
+            if (!joined.isEmpty()) {
+                shingles.add(joined);
+            }
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= words.length; i++) {
+            shingles.add(words[i] + ' ' + words[i + 1] + ' ' + words[i + 2]);
+        }
+        return shingles;
+    }
+
+    /**
+     * Get the lower case words of a text, without short words and stop words.
+     */
+    static Set<String> terms(String query) {
+        Set<String> terms = new HashSet<>();
+        for (String word : WORD.split(query.toLowerCase(Locale.ROOT))) {
+            if (word.length() > 2 && !STOP_WORDS.contains(word)) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Keep the sentences mentioning a query term. A document without any such sentence
+     * is kept whole, as it was retrieved for its meaning rather than its wording.
+     */
+    private static String compress(String text, Set<String> queryTerms) {
+        if (queryTerms.isEmpty()) {
+            return text;
+        }
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ROOT);
+        sentences.setText(text);
+        StringBuilder compressed = new StringBuilder();
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            String sentence = text.substring(start, end);
+            for (String word : WORD.split(sentence.toLowerCase(Locale.ROOT))) {
+                if (queryTerms.contains(word)) {
+                    compressed.append(sentence.strip()).append(' ');
+                    break;
+                }
+            }
+        }
+        return compressed.isEmpty() ? text : compressed.toString().strip();
+    }
+
+    /**
+     * The outcome of assembling a context.
+     *
+     * @param documents the kept documents in rank order, compressed where enabled
+     * @param retrievedDocuments the number of retrieved documents
+     * @param retrievedTokens the tokens of all retrieved documents
+     * @param keptTokens the tokens of the kept documents
+     * @param duplicateTokens the tokens of documents dropped as duplicates
+     * @param compressedTokens the tokens removed by compression
+     * @param overBudgetTokens the tokens of documents dropped for the budget
+     */
+    public record AssembledContext(
+        List<Document> documents,
+        int retrievedDocuments,
+        int retrievedTokens,
+        int keptTokens,
+        int duplicateTokens,
+        int compressedTokens,
+        int overBudgetTokens
+    ) {
+
+        /**
+         * Get the tokens of the retrieved documents that did not make it into the prompt.
+         */
+        public int droppedTokens() {
+            return retrievedTokens - keptTokens;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package de.haeger.springaidemo.rag;
+
+import de.haeger.springaidemo.coalescing.RequestCoalescer;
+import de.haeger.springaidemo.dto.TracedAnswerDto;
+import de.haeger.springaidemo.observability.PipelineContext;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.observability.PipelineStage;
+import de.haeger.springaidemo.prompt.PromptCatalog;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Advisor retrieving documents for the user question and adding them to the user message.
+ * Takes the place of Spring AI's {@code QuestionAnswerAdvisor}: instead of pasting every
+ * retrieved chunk verbatim, the chunks go through the {@link ContextAssembler}, so the
+ * context stays within the token budget. The kept and dropped tokens are counted and
+ * reported on the request trace. Identical concurrent queries share one retrieval.
+ * Searches the namespace given in the request context, or the default namespace.
+ * The {@link RetrievalGate} decides first whether the question needs a search at all and
+ * how many documents to fetch; a question answered from the chat history goes to the
+ * model unchanged.
+ */
+@Component
+public class ContextAssemblingAdvisor implements BaseAdvisor {
+
+    /**
+     * Context key of the kept documents, also set on the response metadata.
+     * Same key as {@code QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS}.
+     */
+    public static final String RETRIEVED_DOCUMENTS = "qa_retrieved_documents";
+
+    /**
+     * Context key of an optional filter expression restricting the search.
+     * Same key as {@code QuestionAnswerAdvisor.FILTER_EXPRESSION}.
+     */
+    public static final String FILTER_EXPRESSION = "qa_filter_expression";
+
+    /**
+     * Context key of the vector store namespace to search, the default namespace if absent.
+     */
+    public static final String NAMESPACE = "rag_namespace";
+
+    private final VectorStoreRouter vectorStoreRouter;
+    private final ContextAssembler contextAssembler;
+    private final RetrievalGate retrievalGate;
+    private final PipelineMetrics pipelineMetrics;
+    private final RequestCoalescer requestCoalescer;
+    private final PromptTemplate promptTemplate;
+
+    @Value("${app.rag.context.top-k:8}")
+    private int topK;
+
+    @Value("${app.rag.context.similarity-threshold:0.0}")
+    private double similarityThreshold;
+
+    public ContextAssemblingAdvisor(
+            VectorStoreRouter vectorStoreRouter,
+            ContextAssembler contextAssembler,
+            RetrievalGate retrievalGate,
+            PipelineMetrics pipelineMetrics,
+            RequestCoalescer requestCoalescer,
+            PromptCatalog promptCatalog) {
+        this.vectorStoreRouter = vectorStoreRouter;
+        this.contextAssembler = contextAssembler;
+        this.retrievalGate = retrievalGate;
+        this.pipelineMetrics = pipelineMetrics;
+        this.requestCoalescer = requestCoalescer;
+        this.promptTemplate = new PromptTemplate(promptCatalog.getRagContextTemplate());
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        String query = chatClientRequest.prompt().getUserMessage().getText();
+        Object filter = chatClientRequest.context().get(FILTER_EXPRESSION);
+        String filterExpression = filter != null && StringUtils.hasText(filter.toString()) ? filter.toString() : null;
+        Object namespaceParam = chatClientRequest.context().get(NAMESPACE);
+        String namespace = VectorStoreRouter.normalize(namespaceParam != null ? namespaceParam.toString() : null);
+        String modelName = PipelineContext.current().getModelName();
+
+        RetrievalGate.Decision decision = retrievalGate.decide(query, history(chatClientRequest), topK);
+        pipelineMetrics.recordRetrievalGate(decision.retrieve(), decision.reason());
+        if (!decision.retrieve()) {
+            pipelineMetrics.recordRetrievalContext(new TracedAnswerDto.RetrievalContextDto(
+                    0, 0, 0, 0, 0, 0, 0, false, 0, decision.reason()));
+            Map<String, Object> requestContext = new HashMap<>(chatClientRequest.context());
+            requestContext.put(RETRIEVED_DOCUMENTS, List.of());
+            return chatClientRequest.mutate().context(requestContext).build();
+        }
+
+        int searchTopK = decision.topK();
+        ContextAssembler.AssembledContext assembled = requestCoalescer.execute(RequestCoalescer.Layer.RETRIEVAL,
+                new RetrievalKey(namespace, query, filterExpression, searchTopK, modelName),
+                () -> retrieve(namespace, query, filterExpression, searchTopK, modelName));
+        pipelineMetrics.recordRetrievalContext(new TracedAnswerDto.RetrievalContextDto(
+                assembled.retrievedDocuments(),
+                assembled.documents().size(),
+                assembled.retrievedTokens(),
+                assembled.keptTokens(),
+                assembled.duplicateTokens(),
+                assembled.compressedTokens(),
+                assembled.overBudgetTokens(),
+                true,
+                searchTopK,
+                decision.reason()));
+
+        String context = assembled.documents().stream()
+                .map(Document::getText)
+                .collect(Collectors.joining(System.lineSeparator()));
+        String augmentedUserText = promptTemplate.render(Map.of("query", query, "context", context));
+
+        Map<String, Object> requestContext = new HashMap<>(chatClientRequest.context());
+        requestContext.put(RETRIEVED_DOCUMENTS, assembled.documents());
+        return chatClientRequest.mutate()
+                .prompt(chatClientRequest.prompt().augmentUserMessage(augmentedUserText))
+                .context(requestContext)
+                .build();
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        ChatResponse.Builder chatResponse = chatClientResponse.chatResponse() != null
+                ? ChatResponse.builder().from(chatClientResponse.chatResponse())
+                : ChatResponse.builder();
+        chatResponse.metadata(RETRIEVED_DOCUMENTS, chatClientResponse.context().get(RETRIEVED_DOCUMENTS));
+        return chatClientResponse.mutate()
+                .chatResponse(chatResponse.build())
+                .build();
+    }
+
+    /**
+     * Get the conversation history added by the chat memory advisor, which runs first,
+     * without the system prompt and the question itself.
+     */
+    private static List<Message> history(ChatClientRequest chatClientRequest) {
+        List<Message> instructions = chatClientRequest.prompt().getInstructions();
+        int end = instructions.isEmpty() ? 0 : instructions.size() - 1;
+        return instructions.subList(0, end).stream()
+                .filter(message -> message.getMessageType() != MessageType.SYSTEM)
+                .toList();
+    }
+
+    private ContextAssembler.AssembledContext retrieve(
+            String namespace, String query, String filterExpression, int searchTopK, String modelName) {
+        SearchRequest.Builder searchRequest = SearchRequest.builder()
+                .query(query)
+                .topK(searchTopK)
+                .similarityThreshold(similarityThreshold);
+        if (filterExpression != null) {
+            searchRequest.filterExpression(new FilterExpressionTextParser().parse(filterExpression));
+        }
+        List<Document> documents = vectorStoreRouter.forSearch(namespace)
+                .map(vectorStore -> vectorStore.similaritySearch(searchRequest.build()))
+                .orElse(List.of());
+        return pipelineMetrics.record(PipelineStage.CONTEXT_ASSEMBLY,
+                () -> contextAssembler.assemble(query, documents, modelName));
+    }
+
+    @Override
+    public String getName() {
+        return "ContextAssemblingAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    /**
+     * Identifies identical retrievals; the model selects the token encoding of the assembly.
+     */
+    private record RetrievalKey(String namespace, String query, String filterExpression, int topK, String modelName) {}
+}
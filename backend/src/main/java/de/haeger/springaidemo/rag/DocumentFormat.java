@@ -0,0 +1,57 @@
+package de.haeger.springaidemo.rag;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Document formats supported for file ingestion.
+ */
+public enum DocumentFormat {
+    PDF("pdf", List.of(".pdf"), List.of("application/pdf")),
+    MARKDOWN("markdown", List.of(".md", ".markdown"), List.of("text/markdown", "text/x-markdown")),
+    HTML("html", List.of(".html", ".htm"), List.of("text/html", "application/xhtml+xml")),
+    TEXT("text", List.of(".txt", ".text"), List.of("text/plain"));
+
+    private final String metadataValue;
+    private final List<String> extensions;
+    private final List<String> contentTypes;
+
+    DocumentFormat(String metadataValue, List<String> extensions, List<String> contentTypes) {
+        this.metadataValue = metadataValue;
+        this.extensions = extensions;
+        this.contentTypes = contentTypes;
+    }
+
+    public String getMetadataValue() {
+        return metadataValue;
+    }
+
+    /**
+     * Detect the format of an uploaded file. The file extension takes precedence
+     * over the content type, as browsers often send generic content types.
+     *
+     * @param filename the original filename, may be null
+     * @param contentType the content type sent with the file, may be null
+     * @return the detected format, or empty if the file is not supported
+     */
+    public static Optional<DocumentFormat> detect(String filename, String contentType) {
+        if (filename != null) {
+            String lowerCaseName = filename.toLowerCase(Locale.ROOT);
+            for (DocumentFormat format : values()) {
+                if (format.extensions.stream().anyMatch(lowerCaseName::endsWith)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        if (contentType != null) {
+            String mediaType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+            for (DocumentFormat format : values()) {
+                if (format.contentTypes.contains(mediaType)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
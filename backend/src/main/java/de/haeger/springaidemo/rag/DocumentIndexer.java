@@ -1,36 +1,244 @@
 package de.haeger.springaidemo.rag;
 
-import org.springframework.ai.document.Document;
+import de.haeger.springaidemo.dto.IngestedFileDto;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Service for indexing text content into the vector store.
  * Converts text into embeddings and stores them for RAG queries.
+ * Files are read incrementally and split into chunks while reading, so memory use is
+ * bounded by chunk size rather than file size.
+ * Documents go into the default namespace of the vector store unless a namespace is given.
  */
 @Service
 public class DocumentIndexer {
 
+    public static final String SOURCE = "source";
+    public static final String FILENAME = "filename";
+    public static final String FORMAT = "format";
+    /** Metadata key holding the embedding model a chunk was embedded with. */
+    public static final String EMBEDDING_MODEL = "embedding_model";
+
+    private static final Pattern MARKDOWN_HEADING = Pattern.compile("^ {0,3}#{1,6}\\s+(.*?)\\s*#*\\s*$");
+
     private final EmbeddingModel embeddingModel;
-    private final VectorStore vectorStore;
+    private final VectorStoreRouter vectorStoreRouter;
+
+    @Value("${app.rag.ingest.chunk-size:1000}")
+    private int chunkSize;
 
-    public DocumentIndexer(@Qualifier("textEmbedding") EmbeddingModel embeddingModel, VectorStore vectorStore) {
+    @Value("${app.rag.ingest.batch-size:32}")
+    private int batchSize;
+
+    @Value("${app.embedding.model-id:vertex:text-embedding-004}")
+    private String embeddingModelId;
+
+    public DocumentIndexer(
+            @Qualifier("ragEmbeddingModel") EmbeddingModel embeddingModel,
+            VectorStoreRouter vectorStoreRouter) {
         this.embeddingModel = embeddingModel;
-        this.vectorStore = vectorStore;
+        this.vectorStoreRouter = vectorStoreRouter;
     }
 
     /**
      * Index text content into the vector store.
-     * 
+     *
      * @param text the text content to index
      */
     public void indexText(String text) {
-        Document document = new Document(text, Map.of("source", "text-input"));
-        vectorStore.add(List.of(document));
+        indexText(text, Map.of());
+    }
+
+    /**
+     * Index text content into the vector store with additional metadata on every chunk.
+     *
+     * @param text the text content to index
+     * @param metadata additional metadata, e.g. an expiry time
+     */
+    public void indexText(String text, Map<String, Object> metadata) {
+        indexText(text, metadata, VectorStoreRouter.DEFAULT_NAMESPACE);
+    }
+
+    /**
+     * Index text content into a namespace of the vector store.
+     *
+     * @param text the text content to index
+     * @param metadata additional metadata, e.g. an expiry time
+     * @param namespace the namespace, created if it does not exist
+     */
+    public void indexText(String text, Map<String, Object> metadata, String namespace) {
+        Map<String, Object> chunkMetadata = new HashMap<>(metadata);
+        chunkMetadata.putIfAbsent(SOURCE, "text-input");
+        StreamingChunker chunker = newChunker(chunkMetadata, namespace);
+        try {
+            readText(new StringReader(text), chunker);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading text", e);
+        }
+        chunker.finish();
+    }
+
+    /**
+     * Index an uploaded file into the vector store.
+     * The file is parsed while it is read and its chunks are embedded in batches.
+     * Each chunk stores the filename, format, chunk index, character offset and,
+     * where available, the page or Markdown section in its metadata.
+     *
+     * @param filename the original filename
+     * @param format the format of the file
+     * @param source the file content
+     * @return a summary of the indexed file
+     * @throws IOException if the file cannot be read
+     */
+    public IngestedFileDto indexFile(String filename, DocumentFormat format, InputStreamSource source) throws IOException {
+        return indexFile(filename, format, source, Map.of(SOURCE, "file-upload"));
+    }
+
+    /**
+     * Index a file into the vector store with additional metadata on every chunk.
+     *
+     * @param filename the filename stored in the chunk metadata
+     * @param format the format of the file
+     * @param source the file content
+     * @param metadata additional metadata, including the source of the file
+     * @return a summary of the indexed file
+     * @throws IOException if the file cannot be read
+     */
+    public IngestedFileDto indexFile(
+            String filename, DocumentFormat format, InputStreamSource source, Map<String, Object> metadata)
+            throws IOException {
+        return indexFile(filename, format, source, metadata, VectorStoreRouter.DEFAULT_NAMESPACE);
+    }
+
+    /**
+     * Index a file into a namespace of the vector store with additional metadata on every chunk.
+     *
+     * @param filename the filename stored in the chunk metadata
+     * @param format the format of the file
+     * @param source the file content
+     * @param metadata additional metadata, including the source of the file
+     * @param namespace the namespace, created if it does not exist
+     * @return a summary of the indexed file
+     * @throws IOException if the file cannot be read
+     */
+    public IngestedFileDto indexFile(
+            String filename, DocumentFormat format, InputStreamSource source, Map<String, Object> metadata,
+            String namespace) throws IOException {
+        Map<String, Object> chunkMetadata = new HashMap<>(metadata);
+        chunkMetadata.put(FILENAME, filename);
+        chunkMetadata.put(FORMAT, format.getMetadataValue());
+        StreamingChunker chunker = newChunker(chunkMetadata, namespace);
+
+        Integer pages = null;
+        switch (format) {
+            case PDF -> pages = readPdf(source, chunker);
+            case MARKDOWN -> {
+                try (BufferedReader reader = utf8Reader(source.getInputStream())) {
+                    readMarkdown(reader, chunker);
+                }
+            }
+            case HTML -> {
+                try (Reader reader = new HtmlTextReader(utf8Reader(source.getInputStream()))) {
+                    readText(reader, chunker);
+                }
+            }
+            case TEXT -> {
+                try (Reader reader = utf8Reader(source.getInputStream())) {
+                    readText(reader, chunker);
+                }
+            }
+        }
+
+        int chunks = chunker.finish();
+        return new IngestedFileDto(filename, format.getMetadataValue(), chunks, pages, chunker.getCharacterCount());
+    }
+
+    private StreamingChunker newChunker(Map<String, Object> metadata, String namespace) {
+        metadata.put(EMBEDDING_MODEL, embeddingModelId);
+        return new StreamingChunker(chunkSize, batchSize, metadata, vectorStoreRouter.forWrite(namespace)::add);
+    }
+
+    private static void readText(Reader reader, StreamingChunker chunker) throws IOException {
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            chunker.append(CharBuffer.wrap(buffer, 0, read));
+        }
+    }
+
+    private static void readMarkdown(BufferedReader reader, StreamingChunker chunker) throws IOException {
+        boolean inCodeBlock = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.stripLeading().startsWith("```")) {
+                inCodeBlock = !inCodeBlock;
+            }
+            Matcher heading = MARKDOWN_HEADING.matcher(line);
+            if (!inCodeBlock && heading.matches()) {
+                chunker.startSection(heading.group(1));
+            }
+            chunker.append(line);
+            chunker.append("\n");
+        }
+    }
+
+    /**
+     * Extract a PDF page by page. PDFBox needs random access, so the upload is spooled
+     * to a temporary file and parsed with a file-backed stream cache.
+     *
+     * @return the number of pages
+     */
+    private static int readPdf(InputStreamSource source, StreamingChunker chunker) throws IOException {
+        Path file = Files.createTempFile("rag-upload-", ".pdf");
+        try {
+            try (InputStream in = source.getInputStream()) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (PDDocument document = Loader.loadPDF(
+                    new RandomAccessReadBufferedFile(file.toFile()), null, null, null,
+                    IOUtils.createTempFileOnlyStreamCache())) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                int pageCount = document.getNumberOfPages();
+                for (int page = 1; page <= pageCount; page++) {
+                    stripper.setStartPage(page);
+                    stripper.setEndPage(page);
+                    chunker.startPage(page);
+                    chunker.append(stripper.getText(document));
+                }
+                return pageCount;
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static BufferedReader utf8Reader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,150 @@
+package de.haeger.springaidemo.rag;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reader extracting the text of an HTML document while it is being read.
+ * Tags, comments, scripts and styles are dropped, block-level tags become line breaks
+ * and common character references are decoded. This is a lenient extraction for
+ * indexing, not a conforming HTML parser; it never holds more than one tag in memory.
+ */
+class HtmlTextReader extends Reader {
+
+    private static final int MAX_TAG_LENGTH = 4096;
+
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "p", "div", "br", "li", "ul", "ol", "tr", "table", "section", "article", "header", "footer",
+            "h1", "h2", "h3", "h4", "h5", "h6", "pre", "blockquote", "hr", "title");
+
+    private static final Set<String> SKIPPED_CONTENT_TAGS = Set.of("script", "style", "noscript", "template");
+
+    private static final Map<String, String> ENTITIES = Map.of(
+            "amp", "&", "lt", "<", "gt", ">", "quot", "\"", "apos", "'", "nbsp", " ");
+
+    private final PushbackReader in;
+    private String pending = "";
+    private int pendingPosition;
+
+    HtmlTextReader(Reader in) {
+        this.in = new PushbackReader(in, 16);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int count = 0;
+        while (count < len) {
+            if (pendingPosition < pending.length()) {
+                cbuf[off + count++] = pending.charAt(pendingPosition++);
+                continue;
+            }
+            int c = in.read();
+            if (c == -1) {
+                break;
+            }
+            if (c == '<') {
+                pending = readTag();
+            } else if (c == '&') {
+                pending = readEntity();
+            } else {
+                cbuf[off + count++] = (char) c;
+                continue;
+            }
+            pendingPosition = 0;
+        }
+        return count == 0 && len > 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Consume a tag after its opening bracket and return its text replacement.
+     */
+    private String readTag() throws IOException {
+        StringBuilder tag = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != '>') {
+            if (tag.length() < MAX_TAG_LENGTH) {
+                tag.append((char) c);
+            }
+            if (tag.length() == 3 && tag.toString().equals("!--")) {
+                skipUntil("-->");
+                return "";
+            }
+        }
+
+        String name = tagName(tag);
+        if (!tag.isEmpty() && tag.charAt(0) != '/' && SKIPPED_CONTENT_TAGS.contains(name)) {
+            skipUntil("</" + name);
+            skipUntil(">");
+            return "";
+        }
+        return BLOCK_TAGS.contains(name) ? "\n" : "";
+    }
+
+    private String readEntity() throws IOException {
+        StringBuilder entity = new StringBuilder();
+        int c;
+        while (entity.length() < 10 && (c = in.read()) != -1) {
+            if (c == ';') {
+                String decoded = decode(entity.toString());
+                if (decoded != null) {
+                    return decoded;
+                }
+                entity.append(';');
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '#') {
+                in.unread(c);
+                break;
+            }
+            entity.append((char) c);
+        }
+        return "&" + entity;
+    }
+
+    private static String decode(String entity) {
+        try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                return Character.toString(Integer.parseInt(entity.substring(2), 16));
+            }
+            if (entity.startsWith("#")) {
+                return Character.toString(Integer.parseInt(entity.substring(1)));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return ENTITIES.get(entity.toLowerCase(Locale.ROOT));
+    }
+
+    private static String tagName(CharSequence tag) {
+        int start = !tag.isEmpty() && tag.charAt(0) == '/' ? 1 : 0;
+        int end = start;
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+            end++;
+        }
+        return tag.subSequence(start, end).toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Skip input until after the given marker, matched case-insensitively.
+     */
+    private void skipUntil(String marker) throws IOException {
+        int matched = 0;
+        int c;
+        while (matched < marker.length() && (c = in.read()) != -1) {
+            if (Character.toLowerCase(c) == marker.charAt(matched)) {
+                matched++;
+            } else {
+                matched = Character.toLowerCase(c) == marker.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+}
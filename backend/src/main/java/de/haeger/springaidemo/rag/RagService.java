@@ -2,21 +2,38 @@ package de.haeger.springaidemo.rag;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import de.haeger.springaidemo.coalescing.CoalescingAdvisor;
+import de.haeger.springaidemo.observability.PipelineMetricsAdvisor;
+import de.haeger.springaidemo.prompt.PromptCatalog;
+import de.haeger.springaidemo.vectorstore.VectorStoreRouter;
 
 @Service
 public class RagService {
 
-    private final VectorStore vectorStore;
+    private final ContextAssemblingAdvisor contextAssemblingAdvisor;
     private final ChatMemory chatMemory;
+    private final PipelineMetricsAdvisor pipelineMetricsAdvisor;
+    private final CoalescingAdvisor coalescingAdvisor;
+    private final String systemPrompt;
 
-    public RagService(VectorStore vectorStore, ChatMemory chatMemory) {
-        this.vectorStore = vectorStore;
+    public RagService(
+            ContextAssemblingAdvisor contextAssemblingAdvisor,
+            ChatMemory chatMemory,
+            PipelineMetricsAdvisor pipelineMetricsAdvisor,
+            CoalescingAdvisor coalescingAdvisor,
+            PromptCatalog promptCatalog) {
+        this.contextAssemblingAdvisor = contextAssemblingAdvisor;
         this.chatMemory = chatMemory;
+        this.pipelineMetricsAdvisor = pipelineMetricsAdvisor;
+        this.coalescingAdvisor = coalescingAdvisor;
+        this.systemPrompt = promptCatalog.getRagSystemPrompt();
     }
 
     /**
@@ -29,19 +46,104 @@ public class RagService {
      * @return the answer generated using RAG
      */
     public String query(String question, String conversationId, ChatModel chatModel) {
-        ChatClient ragChatClient = ChatClient.builder(chatModel)
-                .defaultSystem("You are a helpful AI assistant. Answer questions based on the provided context from the document store. " +
-                        "If the context doesn't contain relevant information, you can still answer using your general knowledge.")
+        return query(question, conversationId, VectorStoreRouter.DEFAULT_NAMESPACE, chatModel);
+    }
+
+    /**
+     * Query the RAG system with a specific model, retrieving from one namespace of the vector store.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace the vector store namespace to search
+     * @param chatModel the model to use for this query
+     * @return the answer generated using RAG
+     */
+    public String query(String question, String conversationId, String namespace, ChatModel chatModel) {
+        ChatResponse chatResponse = queryForResponse(question, conversationId, namespace, chatModel);
+        return chatResponse.getResult() != null ? chatResponse.getResult().getOutput().getText() : null;
+    }
+
+    /**
+     * Query the RAG system with a specific model and return the full model response.
+     * 
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param chatModel the model to use for this query
+     * @return the model response including usage and retrieval metadata
+     */
+    public ChatResponse queryForResponse(String question, String conversationId, ChatModel chatModel) {
+        return queryForResponse(question, conversationId, VectorStoreRouter.DEFAULT_NAMESPACE, chatModel);
+    }
+
+    /**
+     * Query the RAG system with a specific model, retrieving from one namespace of the vector
+     * store, and return the full model response.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace the vector store namespace to search
+     * @param chatModel the model to use for this query
+     * @return the model response including usage and retrieval metadata
+     */
+    public ChatResponse queryForResponse(String question, String conversationId, String namespace, ChatModel chatModel) {
+        return ragChatClient(chatModel, MessageChatMemoryAdvisor.builder(chatMemory).build()).prompt()
+                .user(question)
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId)
+                        .param(ContextAssemblingAdvisor.NAMESPACE, namespace))
+                .call()
+                .chatResponse();
+    }
+
+    /**
+     * Stream the answer of the RAG system, retrieving from one namespace of the vector store.
+     * Used by the reactive mode with its non-blocking chat memory.
+     *
+     * @param question the question to ask
+     * @param conversationId the conversation identifier for memory persistence
+     * @param namespace the vector store namespace to search
+     * @param chatModel the model to use for this query
+     * @param memoryAdvisor the streaming advisor loading and storing the conversation history
+     * @return the chunks of the model response
+     */
+    public Flux<ChatResponse> stream(
+            String question, String conversationId, String namespace, ChatModel chatModel, Advisor memoryAdvisor) {
+        return ragChatClient(chatModel, memoryAdvisor).prompt()
+                .user(question)
+                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId)
+                        .param(ContextAssemblingAdvisor.NAMESPACE, namespace))
+                .stream()
+                .chatResponse();
+    }
+
+    private ChatClient ragChatClient(ChatModel chatModel, Advisor memoryAdvisor) {
+        return ChatClient.builder(chatModel)
+                // The retrieved context goes into the user message, after the stable system prompt and history
+                .defaultSystem(systemPrompt)
                 .defaultAdvisors(
-                    QuestionAnswerAdvisor.builder(vectorStore).build(),
-                    MessageChatMemoryAdvisor.builder(chatMemory).build()
+                    contextAssemblingAdvisor,
+                    memoryAdvisor,
+                    coalescingAdvisor,
+                    pipelineMetricsAdvisor
                 )
                 .build();
-        
+    }
+
+    /**
+     * Query the RAG system without chat memory, for independent questions such as batch jobs.
+     *
+     * @param question the question to ask
+     * @param chatModel the model to use for this query
+     * @return the model response including usage and retrieval metadata
+     */
+    public ChatResponse queryWithoutMemory(String question, ChatModel chatModel) {
+        ChatClient ragChatClient = ChatClient.builder(chatModel)
+                .defaultSystem(systemPrompt)
+                .defaultAdvisors(contextAssemblingAdvisor, coalescingAdvisor, pipelineMetricsAdvisor)
+                .build();
+
         return ragChatClient.prompt()
                 .user(question)
-                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
                 .call()
-                .content();
+                .chatResponse();
     }
 }
@@ -0,0 +1,252 @@
+package de.haeger.springaidemo.rag;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Decides per turn whether a RAG question needs a vector search, and how many documents to fetch.
+ * Greetings, thanks and acknowledgements, requests to rework the previous answer such as
+ * "explain that shorter", and questions whose terms all appear in the last answer are
+ * answered from the chat history alone. With the classifier enabled, a naive Bayes model
+ * trained on a small set of labelled examples catches more of these follow-ups. Everything
+ * else is retrieved, so the gate falls back to the full path whenever it is unsure.
+ * The number of documents depends on the question: broad questions such as comparisons or
+ * overviews fetch more, lookups of a specific identifier or quoted phrase fetch fewer.
+ * All checks are local and take microseconds.
+ */
+@Component
+public class RetrievalGate {
+
+    private static final Logger log = LoggerFactory.getLogger(RetrievalGate.class);
+
+    private static final Pattern WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern SMALL_TALK = Pattern.compile(
+            "(hi|hello|hey|good (morning|afternoon|evening)|thanks?( you)?( very much| a lot)?|thx|ty|"
+                    + "ok(ay)?|cool|great|nice|perfect|got it|understood|bye|goodbye|see you|yes|no|sure)"
+                    + "( there| again| so much)?[\\s!.?,:)]*",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern FOLLOW_UP = Pattern.compile(
+            "(please )?(can you |could you )?(explain|say|summari[sz]e|rephrase|rewrite|repeat|translate|shorten|simplify|format|put)"
+                    + " (that|this|it|the (last |previous )?answer)\\b.*"
+                    + "|((please )?make (it|that) )?(shorter|simpler|longer|more detail(s|ed)?|in (english|german|bullet points)|tl;?dr)[\\s!.?]*",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern BROAD = Pattern.compile(
+            "\\b(compare|comparison|difference(s)?|differ|versus|vs\\.?|list|overview|summari[sz]e|pros and cons)\\b",
+            Pattern.CASE_INSENSITIVE);
+    // Quoted phrases, error codes, versions, property keys and other identifiers
+    private static final Pattern SPECIFIC = Pattern.compile(
+            "\"[^\"]+\"|'[^']+'|\\b[\\p{L}_]*\\d[\\p{L}\\d_.-]*\\b|\\b\\p{L}+[._]\\p{L}[\\p{L}\\d._-]*\\b");
+    private static final int SPECIFIC_MAX_TERMS = 4;
+
+    @Value("${app.rag.gating.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rag.gating.history.enabled:true}")
+    private boolean historyEnabled;
+
+    @Value("${app.rag.gating.history.min-terms:2}")
+    private int historyMinTerms;
+
+    @Value("${app.rag.gating.top-k.narrow:4}")
+    private int narrowTopK;
+
+    @Value("${app.rag.gating.top-k.broad:16}")
+    private int broadTopK;
+
+    @Value("${app.rag.gating.classifier.enabled:false}")
+    private boolean classifierEnabled;
+
+    @Value("${app.rag.gating.classifier.examples:classpath:rag/retrieval-gate-examples.tsv}")
+    private String classifierExamples;
+
+    @Value("${app.rag.gating.classifier.min-confidence:0.9}")
+    private double classifierMinConfidence;
+
+    private volatile Classifier classifier;
+    private volatile boolean classifierFailed;
+
+    /**
+     * Decide whether to retrieve for a question.
+     *
+     * @param question the user question
+     * @param history the earlier messages of the conversation, oldest first, without the question
+     * @param defaultTopK the number of documents to fetch for an ordinary question
+     * @return the decision
+     */
+    public Decision decide(String question, List<Message> history, int defaultTopK) {
+        if (!enabled) {
+            return Decision.retrieve(defaultTopK, "disabled");
+        }
+        String text = question.strip();
+        if (text.isEmpty() || SMALL_TALK.matcher(text).matches()) {
+            return Decision.skip("small-talk");
+        }
+        Message lastAnswer = lastAnswer(history);
+        if (lastAnswer != null && FOLLOW_UP.matcher(text).matches()) {
+            return Decision.skip("follow-up");
+        }
+
+        Set<String> terms = ContextAssembler.terms(text);
+        if (historyEnabled && lastAnswer != null && lastAnswer.getText() != null && terms.size() >= historyMinTerms
+                && ContextAssembler.terms(lastAnswer.getText()).containsAll(terms)) {
+            return Decision.skip("history");
+        }
+        if (classifierEnabled && lastAnswer != null) {
+            // Without history there is nothing to answer from, so only follow-ups are classified
+            Classifier loaded = classifier();
+            if (loaded != null && loaded.skipProbability(text) >= classifierMinConfidence) {
+                return Decision.skip("classifier");
+            }
+        }
+
+        if (BROAD.matcher(text).find()) {
+            return Decision.retrieve(Math.max(defaultTopK, broadTopK), "broad");
+        }
+        if (terms.size() <= SPECIFIC_MAX_TERMS && SPECIFIC.matcher(text).find()) {
+            return Decision.retrieve(Math.min(defaultTopK, narrowTopK), "specific");
+        }
+        return Decision.retrieve(defaultTopK, "default");
+    }
+
+    private static Message lastAnswer(List<Message> history) {
+        for (int i = history.size() - 1; i >= 0; i--) {
+            if (history.get(i).getMessageType() == MessageType.ASSISTANT) {
+                return history.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the classifier, trained on first use. Returns null if the examples cannot be read,
+     * so questions are retrieved as if the classifier were disabled.
+     */
+    private Classifier classifier() {
+        Classifier loaded = classifier;
+        if (loaded == null && !classifierFailed) {
+            synchronized (this) {
+                loaded = classifier;
+                if (loaded == null && !classifierFailed) {
+                    try {
+                        loaded = Classifier.train(new DefaultResourceLoader().getResource(classifierExamples));
+                        classifier = loaded;
+                    } catch (UncheckedIOException e) {
+                        log.warn("Retrieval gate classifier disabled: {}", e.getMessage());
+                        classifierFailed = true;
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * The decision for a question.
+     *
+     * @param retrieve whether to search the vector store
+     * @param topK the number of documents to fetch, 0 if not retrieving
+     * @param reason the rule that decided, e.g. "small-talk" or "broad", recorded as metric tag
+     */
+    public record Decision(boolean retrieve, int topK, String reason) {
+
+        static Decision retrieve(int topK, String reason) {
+            return new Decision(true, topK, reason);
+        }
+
+        static Decision skip(String reason) {
+            return new Decision(false, 0, reason);
+        }
+    }
+
+    /**
+     * Multinomial naive Bayes over the words of a question, with the labels
+     * {@code skip} and {@code retrieve}.
+     */
+    private static final class Classifier {
+
+        private final Map<String, Map<String, Integer>> wordCounts = new HashMap<>();
+        private final Map<String, Integer> totalWords = new HashMap<>();
+        private final Map<String, Integer> documents = new HashMap<>();
+        private final Set<String> vocabulary = new HashSet<>();
+
+        /**
+         * Train on lines of the form {@code <label><TAB><text>}; empty lines and lines starting with # are ignored.
+         */
+        static Classifier train(Resource examples) {
+            Classifier classifier = new Classifier();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(examples.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (line.isBlank() || line.startsWith("#") || tab < 0) {
+                        continue;
+                    }
+                    classifier.add(line.substring(0, tab).strip(), line.substring(tab + 1));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the retrieval gate examples " + examples, e);
+            }
+            log.info("Trained the retrieval gate classifier on {} examples", classifier.documents.values().stream()
+                    .mapToInt(Integer::intValue).sum());
+            return classifier;
+        }
+
+        private void add(String label, String text) {
+            documents.merge(label, 1, Integer::sum);
+            Map<String, Integer> counts = wordCounts.computeIfAbsent(label, l -> new HashMap<>());
+            for (String word : words(text)) {
+                counts.merge(word, 1, Integer::sum);
+                totalWords.merge(label, 1, Integer::sum);
+                vocabulary.add(word);
+            }
+        }
+
+        double skipProbability(String text) {
+            if (!documents.containsKey("skip") || !documents.containsKey("retrieve")) {
+                return 0;
+            }
+            double skip = logLikelihood("skip", text);
+            double retrieve = logLikelihood("retrieve", text);
+            return 1 / (1 + Math.exp(retrieve - skip));
+        }
+
+        private double logLikelihood(String label, String text) {
+            int total = documents.values().stream().mapToInt(Integer::intValue).sum();
+            double likelihood = Math.log((double) documents.get(label) / total);
+            Map<String, Integer> counts = wordCounts.get(label);
+            double denominator = totalWords.getOrDefault(label, 0) + vocabulary.size();
+            for (String word : words(text)) {
+                // Laplace smoothing
+                likelihood += Math.log((counts.getOrDefault(word, 0) + 1) / denominator);
+            }
+            return likelihood;
+        }
+
+        private static List<String> words(String text) {
+            return Arrays.stream(WORD.split(text.toLowerCase(Locale.ROOT)))
+                    .filter(word -> !word.isEmpty())
+                    .toList();
+        }
+    }
+}
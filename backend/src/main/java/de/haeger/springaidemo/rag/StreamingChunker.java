@@ -0,0 +1,126 @@
+package de.haeger.springaidemo.rag;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Splits incrementally appended text into chunks and hands them to a sink in batches.
+ * Only the current chunk and the current batch are held in memory, so memory is bounded
+ * by chunk size and batch size rather than by document size.
+ * Each chunk carries the base metadata plus its index, its character offset in the
+ * document and the page or section it was read from.
+ */
+class StreamingChunker {
+
+    static final String CHUNK_INDEX = "chunk_index";
+    static final String OFFSET = "offset";
+    static final String PAGE = "page";
+    static final String SECTION = "section";
+
+    private final int chunkSize;
+    private final int batchSize;
+    private final Map<String, Object> baseMetadata;
+    private final Consumer<List<Document>> sink;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final List<Document> batch = new ArrayList<>();
+    private long offset;
+    private int chunkCount;
+    private Integer page;
+    private String section;
+
+    StreamingChunker(int chunkSize, int batchSize, Map<String, Object> baseMetadata, Consumer<List<Document>> sink) {
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.baseMetadata = baseMetadata;
+        this.sink = sink;
+    }
+
+    /**
+     * Append text, emitting every chunk that is complete.
+     */
+    void append(CharSequence text) {
+        buffer.append(text);
+        while (buffer.length() >= chunkSize) {
+            emitChunk(cutPosition());
+        }
+    }
+
+    /**
+     * Start a new page. Chunks never span pages.
+     */
+    void startPage(int page) {
+        emitChunk(buffer.length());
+        this.page = page;
+    }
+
+    /**
+     * Start a new section, e.g. at a Markdown heading. Chunks never span sections.
+     */
+    void startSection(String section) {
+        emitChunk(buffer.length());
+        this.section = section;
+    }
+
+    /**
+     * Emit the remaining text and the last batch.
+     *
+     * @return the number of chunks emitted
+     */
+    int finish() {
+        emitChunk(buffer.length());
+        if (!batch.isEmpty()) {
+            sink.accept(List.copyOf(batch));
+            batch.clear();
+        }
+        return chunkCount;
+    }
+
+    long getCharacterCount() {
+        return offset + buffer.length();
+    }
+
+    /**
+     * Prefer cutting at a paragraph break, then at whitespace, in the second half of the chunk.
+     */
+    private int cutPosition() {
+        int paragraph = buffer.lastIndexOf("\n\n", chunkSize);
+        if (paragraph >= chunkSize / 2) {
+            return paragraph + 2;
+        }
+        for (int i = chunkSize - 1; i >= chunkSize / 2; i--) {
+            if (Character.isWhitespace(buffer.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return chunkSize;
+    }
+
+    private void emitChunk(int length) {
+        String text = buffer.substring(0, length);
+        String trimmed = text.strip();
+        if (!trimmed.isEmpty()) {
+            Map<String, Object> metadata = new HashMap<>(baseMetadata);
+            metadata.put(CHUNK_INDEX, chunkCount++);
+            metadata.put(OFFSET, offset + text.indexOf(trimmed.charAt(0)));
+            if (page != null) {
+                metadata.put(PAGE, page);
+            }
+            if (section != null) {
+                metadata.put(SECTION, section);
+            }
+            batch.add(new Document(trimmed, metadata));
+            if (batch.size() >= batchSize) {
+                sink.accept(List.copyOf(batch));
+                batch.clear();
+            }
+        }
+        offset += length;
+        buffer.delete(0, length);
+    }
+}
@@ -0,0 +1,42 @@
+package de.haeger.springaidemo.repository;
+
+import de.haeger.springaidemo.entity.AppSetting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repository for managing AppSetting entities.
+ * Writes notify all replicas through the cache invalidation trigger of the table.
+ */
+@Repository
+public interface AppSettingRepository extends JpaRepository<AppSetting, String> {
+
+    /**
+     * Find only the value of a setting, without loading the entity.
+     *
+     * @param name The setting name
+     * @return Optional containing the value if the setting exists
+     */
+    @Query("SELECT s.value FROM AppSetting s WHERE s.name = :name")
+    Optional<String> findValueByName(@Param("name") String name);
+
+    /**
+     * Insert or update a setting in a single statement.
+     *
+     * @param name The setting name
+     * @param value The value
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO app_setting (name, value, updated_at) "
+            + "VALUES (:name, :value, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (name) DO UPDATE SET value = EXCLUDED.value, "
+            + "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void upsertValue(@Param("name") String name, @Param("value") String value);
+}
@@ -0,0 +1,13 @@
+package de.haeger.springaidemo.repository;
+
+import de.haeger.springaidemo.entity.ArchivedConversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for managing ArchivedConversation entities.
+ * Provides data access to conversations moved out of the chat memory table by retention.
+ */
+@Repository
+public interface ArchivedConversationRepository extends JpaRepository<ArchivedConversation, String> {
+}
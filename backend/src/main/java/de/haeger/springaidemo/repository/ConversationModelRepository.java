@@ -2,7 +2,11 @@ package de.haeger.springaidemo.repository;
 
 import de.haeger.springaidemo.entity.ConversationModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -20,4 +24,27 @@ public interface ConversationModelRepository extends JpaRepository<ConversationM
      * @return Optional containing the ConversationModel if found
      */
     Optional<ConversationModel> findByConversationId(String conversationId);
+
+    /**
+     * Find only the model name of a conversation, without loading the entity.
+     *
+     * @param conversationId The conversation ID
+     * @return Optional containing the model name if one is stored
+     */
+    @Query("SELECT c.modelName FROM ConversationModel c WHERE c.conversationId = :conversationId")
+    Optional<String> findModelNameByConversationId(@Param("conversationId") String conversationId);
+
+    /**
+     * Insert or update the model of a conversation in a single statement.
+     *
+     * @param conversationId The conversation ID
+     * @param modelName The model name
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversation_model (conversation_id, model_name, updated_at) "
+            + "VALUES (:conversationId, :modelName, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (conversation_id) DO UPDATE SET model_name = EXCLUDED.model_name, "
+            + "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    void upsertModelName(@Param("conversationId") String conversationId, @Param("modelName") String modelName);
 }
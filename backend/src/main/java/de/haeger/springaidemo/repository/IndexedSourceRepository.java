@@ -0,0 +1,13 @@
+package de.haeger.springaidemo.repository;
+
+import de.haeger.springaidemo.entity.IndexedSource;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for managing IndexedSource entities.
+ * Provides the indexed state of the files of the synchronized source directory.
+ */
+@Repository
+public interface IndexedSourceRepository extends JpaRepository<IndexedSource, String> {
+}
@@ -0,0 +1,50 @@
+package de.haeger.springaidemo.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository for the model selected per conversation, used by the reactive mode.
+ * Same queries as {@link ConversationModelRepository}, on R2DBC.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConversationModelRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveConversationModelRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Find the model name of a conversation.
+     *
+     * @param conversationId The conversation ID
+     * @return the model name, or empty if none is stored
+     */
+    public Mono<String> findModelNameByConversationId(String conversationId) {
+        return databaseClient.sql("SELECT model_name FROM conversation_model WHERE conversation_id = :conversationId")
+                .bind("conversationId", conversationId)
+                .map(row -> row.get("model_name", String.class))
+                .one();
+    }
+
+    /**
+     * Insert or update the model of a conversation in a single statement.
+     *
+     * @param conversationId The conversation ID
+     * @param modelName The model name
+     */
+    public Mono<Void> upsertModelName(String conversationId, String modelName) {
+        return databaseClient.sql("INSERT INTO conversation_model (conversation_id, model_name, updated_at) "
+                        + "VALUES (:conversationId, :modelName, CURRENT_TIMESTAMP) "
+                        + "ON CONFLICT (conversation_id) DO UPDATE SET model_name = EXCLUDED.model_name, "
+                        + "updated_at = EXCLUDED.updated_at")
+                .bind("conversationId", conversationId)
+                .bind("modelName", modelName)
+                .then();
+    }
+}
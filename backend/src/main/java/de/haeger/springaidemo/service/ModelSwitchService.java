@@ -1,33 +1,86 @@
 package de.haeger.springaidemo.service;
 
+import de.haeger.springaidemo.cluster.CacheInvalidationEvent;
 import de.haeger.springaidemo.dto.ModelInfo;
 import de.haeger.springaidemo.dto.ModelStatus;
-import de.haeger.springaidemo.entity.ConversationModel;
+import de.haeger.springaidemo.observability.PipelineContext;
+import de.haeger.springaidemo.ollama.OllamaModelManager;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.observability.PipelineStage;
+import de.haeger.springaidemo.repository.AppSettingRepository;
 import de.haeger.springaidemo.repository.ConversationModelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Selects the chat model globally and per conversation.
+ * Both choices are stored in the database and shared by all backend replicas. Each replica
+ * keeps the default model and the models of recent conversations in memory, and drops them
+ * on the {@link CacheInvalidationEvent}s of writes on any replica.
+ * The chat models are injected as lazy proxies: only the default model is created at
+ * startup, the other one on its first use.
+ */
 @Service
 public class ModelSwitchService {
 
+    public static final String DEFAULT_MODEL_SETTING = "default_model";
+
+    private static final Logger log = LoggerFactory.getLogger(ModelSwitchService.class);
+
+    private static final String DEFAULT_MODEL = "gemini";
+
+    // Marks conversations without a stored model, ConcurrentHashMap does not take null values
+    private static final String NO_MODEL = "";
+
     private final Map<String, ChatModel> models;
     private final ConversationModelRepository conversationModelRepository;
-    private String currentModelName = "gemini";
+    private final AppSettingRepository appSettingRepository;
+    private final OllamaModelManager ollamaModelManager;
+    private final PipelineMetrics pipelineMetrics;
+    private final Map<String, String> conversationModels = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile String currentModelName;
+
+    @Value("${app.ollama.warmup.fallback-model:gemini}")
+    private String ollamaFallbackModel;
+
+    @Value("${app.models.conversation-cache.enabled:true}")
+    private boolean conversationCacheEnabled;
+
+    @Value("${app.models.conversation-cache.max-entries:10000}")
+    private int conversationCacheMaxEntries;
 
     public ModelSwitchService(
-            @Qualifier("gemini") ChatModel geminiModel,
-            @Qualifier("ollama") ChatModel ollamaModel,
-            ConversationModelRepository conversationModelRepository) {
+            @Lazy @Qualifier("gemini") ChatModel geminiModel,
+            @Lazy @Qualifier("ollama") ChatModel ollamaModel,
+            ConversationModelRepository conversationModelRepository,
+            AppSettingRepository appSettingRepository,
+            OllamaModelManager ollamaModelManager,
+            PipelineMetrics pipelineMetrics) {
         this.models = Map.of(
             "gemini", geminiModel,
             "ollama", ollamaModel
         );
         this.conversationModelRepository = conversationModelRepository;
+        this.appSettingRepository = appSettingRepository;
+        this.ollamaModelManager = ollamaModelManager;
+        this.pipelineMetrics = pipelineMetrics;
+        this.currentModelName = loadDefaultModelName();
+        // Resolves the lazy proxy, so the first request does not pay for creating the client
+        models.get(currentModelName).getDefaultOptions();
     }
 
     /**
@@ -47,41 +100,126 @@ public class ModelSwitchService {
     /**
      * Get the model for a specific conversation.
      * If no model is stored for the conversation, returns the current global model.
+     * While the Ollama model is loading, returns the fallback model instead of waiting.
+     * The lookup is recorded as the model lookup stage of the request pipeline.
      */
     public ChatModel getModelForConversation(String conversationId) {
-        if (conversationId == null || conversationId.isBlank()) {
-            return getCurrentModel();
+        return pipelineMetrics.record(PipelineStage.MODEL_LOOKUP, () -> {
+            String modelName = resolveModelName(getModelNameForConversation(conversationId));
+            PipelineContext.setCurrentModelName(modelName);
+            return models.get(modelName);
+        });
+    }
+
+    /**
+     * Get the name of the model to answer with instead of the given one: the current model
+     * for an unknown name, and the fallback model while the Ollama model is loading.
+     *
+     * @param modelName the model name stored for a conversation
+     * @return the name of a known model
+     */
+    public String resolveModelName(String modelName) {
+        if (!models.containsKey(modelName)) {
+            modelName = currentModelName;
         }
-        
-        Optional<ConversationModel> conversationModel = conversationModelRepository.findByConversationId(conversationId);
-        if (conversationModel.isPresent()) {
-            String modelName = conversationModel.get().getModelName();
-            return models.getOrDefault(modelName, getCurrentModel());
+        if (modelName.equals("ollama") && !ollamaModelManager.useChatModel()
+                && models.containsKey(ollamaFallbackModel)) {
+            pipelineMetrics.recordModelFallback(modelName, ollamaFallbackModel);
+            modelName = ollamaFallbackModel;
         }
-        
-        return getCurrentModel();
+        return modelName;
+    }
+
+    /**
+     * Get a model by name.
+     *
+     * @throws IllegalArgumentException if the model is unknown
+     */
+    public ChatModel getModel(String modelName) {
+        ChatModel model = models.get(modelName);
+        if (model == null) {
+            throw new IllegalArgumentException("Unknown model: " + modelName);
+        }
+        return model;
+    }
+
+    /**
+     * Check whether a model can answer without waiting for it to load.
+     * Starts loading the Ollama model if it is not loaded.
+     */
+    public boolean isModelReady(String modelName) {
+        return !modelName.equals("ollama") || ollamaModelManager.useChatModel();
     }
 
     /**
      * Get the model name for a specific conversation.
+     * Served from the conversation cache once the conversation was looked up.
      */
     public String getModelNameForConversation(String conversationId) {
+        Optional<String> cached = findCachedModelNameForConversation(conversationId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long generation = getConversationCacheGeneration();
+        return cacheModelNameForConversation(conversationId,
+                conversationModelRepository.findModelNameByConversationId(conversationId).orElse(null), generation);
+    }
+
+    /**
+     * Get the model name of a conversation if no query is needed: for requests without a
+     * conversation, or from the conversation cache. Non-blocking callers query the stored
+     * model themselves on a miss and pass it to {@link #cacheModelNameForConversation}.
+     */
+    public Optional<String> findCachedModelNameForConversation(String conversationId) {
         if (conversationId == null || conversationId.isBlank()) {
-            return currentModelName;
+            return Optional.of(currentModelName);
         }
-        
-        return conversationModelRepository.findByConversationId(conversationId)
-            .map(ConversationModel::getModelName)
-            .orElse(currentModelName);
+        String cached = conversationCacheEnabled ? conversationModels.get(conversationId) : null;
+        if (cached == null) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.equals(NO_MODEL) ? currentModelName : cached);
+    }
+
+    /**
+     * Get the generation of the conversation cache, to be read before querying a stored model.
+     */
+    public long getConversationCacheGeneration() {
+        return invalidations.get();
+    }
+
+    /**
+     * Cache the stored model of a conversation, unless the cache was invalidated since the query.
+     *
+     * @param conversationId the conversation ID
+     * @param storedModelName the stored model name, or null if none is stored
+     * @param generation the cache generation read before the query
+     * @return the model name of the conversation
+     */
+    public String cacheModelNameForConversation(String conversationId, String storedModelName, long generation) {
+        String modelName = storedModelName != null ? storedModelName : NO_MODEL;
+        if (conversationCacheEnabled) {
+            if (conversationModels.size() >= conversationCacheMaxEntries) {
+                conversationModels.clear();
+            }
+            conversationModels.putIfAbsent(conversationId, modelName);
+            // A value read before a concurrent invalidation may be stale, so it is not kept
+            if (invalidations.get() != generation) {
+                conversationModels.remove(conversationId, modelName);
+            }
+        }
+        return modelName.equals(NO_MODEL) ? currentModelName : modelName;
     }
 
     /**
-     * Switch the global model.
+     * Switch the global model of all replicas.
      */
     public synchronized void switchModel(String modelName) {
         if (!models.containsKey(modelName)) {
             throw new IllegalArgumentException("Unknown model: " + modelName);
         }
+        appSettingRepository.upsertValue(DEFAULT_MODEL_SETTING, modelName);
+        // The notification of the write updates the other replicas
         this.currentModelName = modelName;
     }
 
@@ -100,14 +238,46 @@ public class ModelSwitchService {
         }
         
         // Save or update the conversation model preference
-        Optional<ConversationModel> existing = conversationModelRepository.findByConversationId(conversationId);
-        if (existing.isPresent()) {
-            ConversationModel conversationModel = existing.get();
-            conversationModel.setModelName(modelName);
-            conversationModelRepository.save(conversationModel);
-        } else {
-            ConversationModel conversationModel = new ConversationModel(conversationId, modelName);
-            conversationModelRepository.save(conversationModel);
+        conversationModelRepository.upsertModelName(conversationId, modelName);
+        invalidateConversation(conversationId);
+    }
+
+    /**
+     * Drop the default model and cached conversation models changed on any replica.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.affects(CacheInvalidationEvent.APP_SETTING, DEFAULT_MODEL_SETTING)) {
+            currentModelName = loadDefaultModelName();
+        }
+        if (event.affects(CacheInvalidationEvent.CONVERSATION_MODEL)) {
+            if (event.key() == null) {
+                invalidations.incrementAndGet();
+                conversationModels.clear();
+            } else {
+                invalidateConversation(event.key());
+            }
+        }
+    }
+
+    /**
+     * Drop the cached model of a conversation, e.g. after storing a new one.
+     */
+    public void invalidateConversation(String conversationId) {
+        invalidations.incrementAndGet();
+        conversationModels.remove(conversationId);
+    }
+
+    private String loadDefaultModelName() {
+        try {
+            return appSettingRepository.findValueByName(DEFAULT_MODEL_SETTING)
+                .filter(models::containsKey)
+                .orElse(DEFAULT_MODEL);
+        } catch (DataAccessException e) {
+            // Reloaded once the cache invalidation listener has connected
+            String modelName = currentModelName != null ? currentModelName : DEFAULT_MODEL;
+            log.warn("Could not load the default model, using {}: {}", modelName, e.getMessage());
+            return modelName;
         }
     }
 
@@ -117,7 +287,7 @@ public class ModelSwitchService {
     public List<ModelInfo> getAvailableModels() {
         return List.of(
             new ModelInfo("gemini", "Gemini 2.5 Flash", "cloud", checkModelStatus("gemini")),
-            new ModelInfo("ollama", "GPT-OSS 20B", "local", checkModelStatus("ollama"))
+            new ModelInfo("ollama", "GPT-OSS 20B", "local", ollamaModelManager.getChatModelStatus())
         );
     }
 
@@ -0,0 +1,85 @@
+package de.haeger.springaidemo.service;
+
+import de.haeger.springaidemo.observability.PipelineContextAccessor;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.observability.PipelineStage;
+import de.haeger.springaidemo.repository.ReactiveConversationModelRepository;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking model selection for the reactive mode.
+ * Shares the default model and the conversation cache of the {@link ModelSwitchService}, and
+ * queries the stored model of a conversation on R2DBC when it is not cached.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveModelSwitchService {
+
+    private final ModelSwitchService modelSwitchService;
+    private final ReactiveConversationModelRepository conversationModelRepository;
+    private final PipelineMetrics pipelineMetrics;
+
+    public ReactiveModelSwitchService(
+            ModelSwitchService modelSwitchService,
+            ReactiveConversationModelRepository conversationModelRepository,
+            PipelineMetrics pipelineMetrics) {
+        this.modelSwitchService = modelSwitchService;
+        this.conversationModelRepository = conversationModelRepository;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * Get the model for a specific conversation, see {@link ModelSwitchService#getModelForConversation}.
+     * The lookup is recorded as the model lookup stage of the request pipeline.
+     */
+    public Mono<ChatModel> getModelForConversation(String conversationId) {
+        return pipelineMetrics.record(PipelineStage.MODEL_LOOKUP, Mono.deferContextual(contextView ->
+                getModelNameForConversation(conversationId).map(storedModelName -> {
+                    String modelName = modelSwitchService.resolveModelName(storedModelName);
+                    PipelineContextAccessor.current(contextView).setModelName(modelName);
+                    return modelSwitchService.getModel(modelName);
+                })));
+    }
+
+    /**
+     * Get the model name for a specific conversation.
+     * Served from the conversation cache once the conversation was looked up.
+     */
+    public Mono<String> getModelNameForConversation(String conversationId) {
+        return Mono.defer(() -> {
+            var cached = modelSwitchService.findCachedModelNameForConversation(conversationId);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            long generation = modelSwitchService.getConversationCacheGeneration();
+            return conversationModelRepository.findModelNameByConversationId(conversationId)
+                    .map(storedModelName -> modelSwitchService.cacheModelNameForConversation(
+                            conversationId, storedModelName, generation))
+                    .switchIfEmpty(Mono.fromSupplier(() -> modelSwitchService.cacheModelNameForConversation(
+                            conversationId, null, generation)));
+        });
+    }
+
+    /**
+     * Switch the model for a specific conversation and persist the choice.
+     * Without a conversation ID the global model is switched; that rare write goes through
+     * the JPA repository on the bounded elastic scheduler.
+     *
+     * @throws IllegalArgumentException through the returned Mono if the model is unknown
+     */
+    public Mono<Void> switchModelForConversation(String conversationId, String modelName) {
+        return Mono.defer(() -> {
+            modelSwitchService.getModel(modelName);
+            if (conversationId == null || conversationId.isBlank()) {
+                return Mono.<Void>fromRunnable(() -> modelSwitchService.switchModel(modelName))
+                        .subscribeOn(Schedulers.boundedElastic());
+            }
+            return conversationModelRepository.upsertModelName(conversationId, modelName)
+                    .then(Mono.fromRunnable(() -> modelSwitchService.invalidateConversation(conversationId)));
+        });
+    }
+}
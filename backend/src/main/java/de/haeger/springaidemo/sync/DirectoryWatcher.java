@@ -0,0 +1,140 @@
+package de.haeger.springaidemo.sync;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Runs the source synchronization in the background.
+ * A WatchService triggers a synchronization shortly after files change, and a periodic
+ * scan catches changes the WatchService misses, e.g. on network file systems.
+ * All synchronizations run on one background thread, so queries are never blocked.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.sync", name = "directory")
+public class DirectoryWatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    private final SourceSyncService sourceSyncService;
+    private final AtomicBoolean syncScheduled = new AtomicBoolean();
+
+    @Value("${app.sync.scan-interval:5m}")
+    private Duration scanInterval;
+
+    @Value("${app.sync.debounce:2s}")
+    private Duration debounce;
+
+    private ScheduledExecutorService scheduler;
+    private WatchService watchService;
+    private volatile boolean running;
+
+    public DirectoryWatcher(SourceSyncService sourceSyncService) {
+        this.sourceSyncService = sourceSyncService;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("source-sync").factory());
+        scheduler.scheduleWithFixedDelay(this::synchronize, 0, scanInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerRecursively(sourceSyncService.getDirectory());
+            Thread.ofPlatform().daemon().name("source-sync-watch").start(this::watch);
+        } catch (IOException e) {
+            log.warn("Could not watch {}, relying on periodic scans: {}", sourceSyncService.getDirectory(), e.getMessage());
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Could not close watch service", e);
+            }
+        }
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                            && Files.isDirectory(dir.resolve((Path) event.context()))) {
+                        registerRecursively(dir.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+                requestSync();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        } catch (IOException e) {
+            log.warn("Stopped watching {}, relying on periodic scans: {}", sourceSyncService.getDirectory(), e.getMessage());
+        }
+    }
+
+    /**
+     * Schedule a synchronization after the debounce delay, coalescing bursts of events
+     * such as a file being written in several steps.
+     */
+    private void requestSync() {
+        if (syncScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::synchronize, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void synchronize() {
+        syncScheduled.set(false);
+        try {
+            sourceSyncService.synchronize();
+        } catch (Exception e) {
+            // Keep the periodic scan alive
+            log.warn("Synchronization of {} failed: {}", sourceSyncService.getDirectory(), e.getMessage());
+        }
+    }
+
+    private void registerRecursively(Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package de.haeger.springaidemo.sync;
+
+import de.haeger.springaidemo.dto.IngestedFileDto;
+import de.haeger.springaidemo.dto.SourceSyncResultDto;
+import de.haeger.springaidemo.entity.IndexedSource;
+import de.haeger.springaidemo.rag.DocumentFormat;
+import de.haeger.springaidemo.rag.DocumentIndexer;
+import de.haeger.springaidemo.repository.IndexedSourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Synchronizes the files of a local directory with the vector store.
+ * Tracks a content hash per file and only re-chunks and re-embeds files whose content
+ * changed; the vectors of deleted files are removed. A changed file is indexed before its
+ * previous vectors are deleted, so queries never see the file missing.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.sync", name = "directory")
+public class SourceSyncService {
+
+    public static final String SOURCE_VALUE = "directory-sync";
+    public static final String CONTENT_HASH = "content_hash";
+
+    private static final Logger log = LoggerFactory.getLogger(SourceSyncService.class);
+
+    private final DocumentIndexer documentIndexer;
+    private final VectorStore vectorStore;
+    private final IndexedSourceRepository indexedSourceRepository;
+    private final Path directory;
+
+    public SourceSyncService(
+            DocumentIndexer documentIndexer,
+            VectorStore vectorStore,
+            IndexedSourceRepository indexedSourceRepository,
+            @Value("${app.sync.directory}") Path directory) {
+        this.documentIndexer = documentIndexer;
+        this.vectorStore = vectorStore;
+        this.indexedSourceRepository = indexedSourceRepository;
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Scan the directory and bring the vector store in line with it.
+     * Files are compared by size and modification time first; only files that differ
+     * are hashed, and only files whose hash differs are re-indexed.
+     *
+     * @return a summary of the synchronization
+     * @throws IOException if the directory cannot be listed
+     */
+    public synchronized SourceSyncResultDto synchronize() throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, IndexedSource> known = indexedSourceRepository.findAll().stream()
+                .collect(Collectors.toMap(IndexedSource::getPath, Function.identity(), (a, b) -> a, HashMap::new));
+
+        int scanned = 0, added = 0, updated = 0, unchanged = 0, failed = 0;
+        for (Path file : listFiles()) {
+            String path = relativePath(file);
+            DocumentFormat format = DocumentFormat.detect(path, null).orElseThrow();
+            IndexedSource existing = known.remove(path);
+            scanned++;
+            try {
+                switch (syncFile(file, path, format, existing)) {
+                    case ADDED -> added++;
+                    case UPDATED -> updated++;
+                    case UNCHANGED -> unchanged++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not index {}: {}", path, e.getMessage());
+                failed++;
+            }
+        }
+
+        // Whatever is left was deleted from the directory
+        for (IndexedSource removed : known.values()) {
+            vectorStore.delete(fileFilter(removed.getPath()));
+            indexedSourceRepository.delete(removed);
+        }
+
+        SourceSyncResultDto result = new SourceSyncResultDto(
+                scanned, added, updated, known.size(), unchanged, failed, System.currentTimeMillis() - start);
+        if (added + updated + known.size() + failed > 0) {
+            log.info("Synchronized {}: {}", directory, result);
+        }
+        return result;
+    }
+
+    private SyncOutcome syncFile(Path file, String path, DocumentFormat format, IndexedSource existing) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (existing != null && existing.getSize() == size && existing.getLastModified() == lastModified) {
+            return SyncOutcome.UNCHANGED;
+        }
+
+        String contentHash = hash(file);
+        IndexedSource source = existing != null ? existing : new IndexedSource(path);
+        boolean changed = existing == null || !contentHash.equals(existing.getContentHash());
+        if (changed) {
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            // Drop leftovers of an earlier attempt that failed after indexing this version
+            vectorStore.delete(b.and(
+                    b.and(b.eq(DocumentIndexer.SOURCE, SOURCE_VALUE), b.eq(DocumentIndexer.FILENAME, path)),
+                    b.eq(CONTENT_HASH, contentHash)).build());
+            IngestedFileDto ingested = documentIndexer.indexFile(path, format, new FileSystemResource(file),
+                    Map.of(DocumentIndexer.SOURCE, SOURCE_VALUE, CONTENT_HASH, contentHash));
+            // Remove the previous version only after the new one is searchable
+            vectorStore.delete(b.and(
+                    b.and(b.eq(DocumentIndexer.SOURCE, SOURCE_VALUE), b.eq(DocumentIndexer.FILENAME, path)),
+                    b.ne(CONTENT_HASH, contentHash)).build());
+            source.setContentHash(contentHash);
+            source.setChunkCount(ingested.chunks());
+            source.setIndexedAt(LocalDateTime.now());
+        }
+        // Also record the new size and modification time of touched but unchanged files
+        source.setSize(size);
+        source.setLastModified(lastModified);
+        indexedSourceRepository.save(source);
+
+        if (!changed) {
+            return SyncOutcome.UNCHANGED;
+        }
+        return existing == null ? SyncOutcome.ADDED : SyncOutcome.UPDATED;
+    }
+
+    private List<Path> listFiles() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Source directory does not exist: " + directory);
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .filter(file -> DocumentFormat.detect(file.getFileName().toString(), null).isPresent())
+                    .sorted()
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String relativePath(Path file) {
+        return directory.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static Filter.Expression fileFilter(String path) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        return b.and(b.eq(DocumentIndexer.SOURCE, SOURCE_VALUE), b.eq(DocumentIndexer.FILENAME, path)).build();
+    }
+
+    private static String hash(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private enum SyncOutcome {
+        ADDED, UPDATED, UNCHANGED
+    }
+}
@@ -0,0 +1,48 @@
+package de.haeger.springaidemo.tools;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * ToolCallback decorator routing calls through the {@link ToolExecutionService},
+ * which caches results and shares results started in parallel for the current turn.
+ */
+public class CachingToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final ToolExecutionService toolExecutionService;
+
+    public CachingToolCallback(ToolCallback delegate, ToolExecutionService toolExecutionService) {
+        this.delegate = delegate;
+        this.toolExecutionService = toolExecutionService;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return toolExecutionService.call(delegate, toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return toolExecutionService.call(delegate, toolInput, toolContext);
+    }
+
+    /**
+     * Get the wrapped tool callback.
+     */
+    public ToolCallback getDelegate() {
+        return delegate;
+    }
+}
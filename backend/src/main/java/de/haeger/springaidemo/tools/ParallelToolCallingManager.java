@@ -0,0 +1,102 @@
+package de.haeger.springaidemo.tools;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ToolCallingManager running the independent tool calls of one model turn concurrently.
+ * The calls of the turn are started in parallel through the {@link ToolExecutionService};
+ * the Spring AI manager then assembles the tool response messages as usual, with each
+ * call picking up its already running or finished result.
+ */
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private final ToolCallingManager delegate;
+    private final ToolExecutionService toolExecutionService;
+
+    public ParallelToolCallingManager(ToolCallingManager delegate, ToolExecutionService toolExecutionService) {
+        this.delegate = delegate;
+        this.toolExecutionService = toolExecutionService;
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        List<ToolExecutionService.PendingToolCall> toolCalls = pendingToolCalls(prompt, chatResponse);
+        if (toolCalls.size() < 2) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+        return toolExecutionService.executeTurn(toolCalls, () -> delegate.executeToolCalls(prompt, chatResponse));
+    }
+
+    private List<ToolExecutionService.PendingToolCall> pendingToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        if (!(prompt.getOptions() instanceof ToolCallingChatOptions options) || options.getToolCallbacks() == null) {
+            return List.of();
+        }
+
+        Map<String, ToolCallback> toolCallbacks = new HashMap<>();
+        for (ToolCallback toolCallback : options.getToolCallbacks()) {
+            toolCallbacks.putIfAbsent(toolCallback.getToolDefinition().name(), toolCallback);
+        }
+
+        List<ToolExecutionService.PendingToolCall> toolCalls = new ArrayList<>();
+        for (Generation generation : chatResponse.getResults()) {
+            AssistantMessage output = generation.getOutput();
+            if (output == null || !output.hasToolCalls()) {
+                continue;
+            }
+            ToolContext toolContext = toolContext(prompt, options, output);
+            for (AssistantMessage.ToolCall toolCall : output.getToolCalls()) {
+                // Only tools routed through the execution service can pick up parallel results
+                if (toolCallbacks.get(toolCall.name()) instanceof CachingToolCallback caching) {
+                    // Same default as the Spring AI manager for calls without arguments
+                    String arguments = StringUtils.hasText(toolCall.arguments()) ? toolCall.arguments() : "{}";
+                    toolCalls.add(new ToolExecutionService.PendingToolCall(
+                            caching.getDelegate(), arguments, toolContext));
+                }
+            }
+            // Spring AI executes the tool calls of the first generation with tool calls
+            break;
+        }
+        return toolCalls;
+    }
+
+    /**
+     * Build the tool context the way the Spring AI manager does, so a tool started in
+     * parallel sees the same context, including the tool call history.
+     */
+    private static ToolContext toolContext(Prompt prompt, ToolCallingChatOptions options, AssistantMessage output) {
+        if (CollectionUtils.isEmpty(options.getToolContext())) {
+            return new ToolContext(Map.of());
+        }
+        Map<String, Object> context = new HashMap<>(options.getToolContext());
+        List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+        history.add(AssistantMessage.builder()
+                .content(output.getText())
+                .properties(output.getMetadata())
+                .toolCalls(output.getToolCalls())
+                .build());
+        context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        return new ToolContext(context);
+    }
+}
@@ -0,0 +1,268 @@
+package de.haeger.springaidemo.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.observability.PipelineContext;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+
+/**
+ * Executes tool calls with result caching and parallel execution.
+ * Results are cached per tool, normalized arguments and tool context for a configurable TTL;
+ * concurrent calls with the same key share one execution. The independent tool calls
+ * of one model turn are started concurrently, see {@link ParallelToolCallingManager}.
+ */
+@Service
+public class ToolExecutionService implements DisposableBean {
+
+    private final PipelineMetrics pipelineMetrics;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, CompletableFuture<String>>> currentTurn = new ThreadLocal<>();
+
+    @Value("${app.tools.cache.ttl:10m}")
+    private Duration cacheTtl;
+
+    @Value("${app.tools.cache.max-entries:1000}")
+    private int maxEntries;
+
+    public ToolExecutionService(PipelineMetrics pipelineMetrics, ObjectMapper objectMapper) {
+        this.pipelineMetrics = pipelineMetrics;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Execute a tool call, reusing a result started for the current turn or a cached result.
+     *
+     * @param toolCallback the tool to call
+     * @param toolInput the tool arguments as JSON
+     * @param toolContext the tool context, may be null
+     * @return the tool result
+     */
+    public String call(ToolCallback toolCallback, String toolInput, ToolContext toolContext) {
+        String key = cacheKey(toolCallback, toolInput, toolContext);
+        Map<String, CompletableFuture<String>> turn = currentTurn.get();
+        if (key != null && turn != null && turn.containsKey(key)) {
+            return join(turn.get(key));
+        }
+        // Execute on the calling thread
+        return join(lookupOrExecute(key, toolCallback, toolInput, toolContext, Runnable::run));
+    }
+
+    /**
+     * Start the given tool calls concurrently, then run the sequential execution,
+     * whose tool calls pick up the already running or finished results.
+     *
+     * @param toolCalls the tool calls of one model turn
+     * @param sequentialExecution the sequential execution of the turn
+     * @return the result of the sequential execution
+     */
+    public <T> T executeTurn(List<PendingToolCall> toolCalls, Supplier<T> sequentialExecution) {
+        PipelineContext context = PipelineContext.current();
+        Executor workers = task -> executor.execute(() -> PipelineContext.runWith(context, task));
+
+        Map<String, CompletableFuture<String>> turn = new HashMap<>();
+        for (PendingToolCall toolCall : toolCalls) {
+            String key = cacheKey(toolCall.toolCallback(), toolCall.toolInput(), toolCall.toolContext());
+            if (key == null) {
+                // Not shareable, the sequential execution calls it
+                continue;
+            }
+            turn.computeIfAbsent(key, k -> lookupOrExecute(
+                    k, toolCall.toolCallback(), toolCall.toolInput(), toolCall.toolContext(), workers));
+        }
+
+        currentTurn.set(turn);
+        try {
+            return sequentialExecution.get();
+        } finally {
+            currentTurn.remove();
+        }
+    }
+
+    /**
+     * Remove all cached tool results.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<String> lookupOrExecute(
+            String key, ToolCallback toolCallback, String toolInput, ToolContext toolContext, Executor executor) {
+        String toolName = toolCallback.getToolDefinition().name();
+        CacheEntry entry = new CacheEntry();
+
+        if (key != null && !cacheTtl.isZero()) {
+            long now = System.nanoTime();
+            CacheEntry current = cache.compute(key, (k, existing) ->
+                    existing != null && !existing.isExpired(now) ? existing : entry);
+            if (current != entry) {
+                pipelineMetrics.recordToolCacheLookup(toolName, true);
+                return current.result;
+            }
+            evictIfNeeded();
+        }
+        pipelineMetrics.recordToolCacheLookup(toolName, false);
+
+        try {
+            executor.execute(() -> execute(key, entry, toolCallback, toolInput, toolContext));
+        } catch (RuntimeException e) {
+            // E.g. rejected on shutdown; callers sharing the entry must not wait forever
+            fail(key, entry, e);
+        }
+        return entry.result;
+    }
+
+    private void execute(
+            String key, CacheEntry entry, ToolCallback toolCallback, String toolInput, ToolContext toolContext) {
+        long start = System.nanoTime();
+        try {
+            String result = toolContext != null
+                    ? toolCallback.call(toolInput, toolContext)
+                    : toolCallback.call(toolInput);
+            entry.expiresAtNanos = System.nanoTime() + cacheTtl.toNanos();
+            entry.result.complete(result);
+        } catch (Throwable e) {
+            fail(key, entry, e);
+        } finally {
+            // The result is complete before the metrics are recorded, so a failure there cannot leave it open
+            pipelineMetrics.recordToolExecution(toolCallback.getToolDefinition().name(), System.nanoTime() - start,
+                    entry.result.isCompletedExceptionally() ? "error" : "success");
+        }
+    }
+
+    private void fail(String key, CacheEntry entry, Throwable e) {
+        // Failures are not cached
+        if (key != null) {
+            cache.remove(key, entry);
+        }
+        entry.result.completeExceptionally(e);
+    }
+
+    private void evictIfNeeded() {
+        if (cache.size() <= maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        cache.values().removeIf(entry -> entry.isExpired(now));
+        Iterator<Map.Entry<String, CacheEntry>> oldest = cache.entrySet().stream()
+                .filter(e -> e.getValue().result.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAtNanos))
+                .limit(Math.max(0, cache.size() - maxEntries))
+                .toList()
+                .iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, CacheEntry> entry = oldest.next();
+            cache.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Build the cache key from the tool name, the normalized arguments and the tool context.
+     * Only the JSON structure is normalized: object keys are sorted, values are kept as they
+     * are, so {"a":1,"b":2} and {"b":2,"a":1} share one result but "Bonn" and "bonn" do not.
+     * The tool context, e.g. the conversation ID, is part of the key except for the tool call
+     * history, which changes with every turn.
+     *
+     * @return the key, or {@code null} if the tool context cannot be part of a key and the
+     *         call must not be cached
+     */
+    String cacheKey(ToolCallback toolCallback, String toolInput, ToolContext toolContext) {
+        String arguments = toolInput != null ? toolInput : "";
+        try {
+            arguments = objectMapper.writeValueAsString(normalize(objectMapper.readTree(arguments)));
+        } catch (JsonProcessingException e) {
+            // Not JSON, so the tool sees the arguments as they are
+        }
+        String key = toolCallback.getToolDefinition().name() + ":" + arguments;
+
+        Map<String, Object> context = new TreeMap<>();
+        if (toolContext != null && toolContext.getContext() != null) {
+            context.putAll(toolContext.getContext());
+            context.remove(ToolContext.TOOL_CALL_HISTORY);
+        }
+        if (context.isEmpty()) {
+            return key;
+        }
+        try {
+            return key + ":" + objectMapper.writeValueAsString(normalize(objectMapper.valueToTree(context)));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Object normalize(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        if (node.isObject()) {
+            Map<String, Object> sorted = new TreeMap<>();
+            node.properties().forEach(entry -> sorted.put(entry.getKey(), normalize(entry.getValue())));
+            return sorted;
+        }
+        if (node.isArray()) {
+            return StreamSupport.stream(node.spliterator(), false).map(this::normalize).toList();
+        }
+        return node;
+    }
+
+    private static String join(CompletableFuture<String> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A tool call requested by the model.
+     *
+     * @param toolCallback the tool to call
+     * @param toolInput the tool arguments as JSON
+     * @param toolContext the tool context, may be null
+     */
+    public record PendingToolCall(ToolCallback toolCallback, String toolInput, ToolContext toolContext) {}
+
+    private static final class CacheEntry {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile long expiresAtNanos = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            // Running executions never expire, so concurrent callers share them
+            return result.isDone() && expiresAtNanos - now < 0;
+        }
+    }
+}
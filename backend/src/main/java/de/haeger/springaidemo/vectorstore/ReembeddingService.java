@@ -0,0 +1,151 @@
+package de.haeger.springaidemo.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import de.haeger.springaidemo.dto.ReembeddingResultDto;
+import de.haeger.springaidemo.rag.DocumentIndexer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Migration of the vector store to another embedding model.
+ * Embeddings of different models are not comparable, so after switching
+ * {@code app.embedding.provider} every document embedded with the previous model is
+ * embedded again. Documents record their model in the {@code embedding_model} metadata;
+ * the migration walks the table in ID order and only touches documents with a different
+ * or no model, so an interrupted run can simply be started again.
+ */
+@Service
+public class ReembeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReembeddingService.class);
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.embedding.model-id:vertex:text-embedding-004}")
+    private String embeddingModelId;
+
+    @Value("${app.embedding.reembed.batch-size:64}")
+    private int batchSize;
+
+    public ReembeddingService(
+            @Qualifier("vectorStoreJdbcTemplate") JdbcTemplate jdbcTemplate,
+            @Qualifier("ragEmbeddingModel") EmbeddingModel embeddingModel,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Count the documents not embedded with the configured model.
+     */
+    public long countOutdated() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM vector_store WHERE metadata->>'" + DocumentIndexer.EMBEDDING_MODEL
+                        + "' IS DISTINCT FROM ?",
+                Long.class, embeddingModelId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Embed every document not embedded with the configured model again, in batches.
+     * Searches return mixed results until the run has finished.
+     *
+     * @return a summary of the run
+     */
+    public synchronized ReembeddingResultDto reembed() {
+        long start = System.currentTimeMillis();
+        long reembedded = 0;
+        // No lower bound on the first page: PostgreSQL orders UUIDs by their unsigned bytes,
+        // so there is no signed Java UUID below all of them
+        UUID lastId = null;
+        List<Document> batch;
+        do {
+            batch = nextBatch(lastId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            // Same options and batching as the vector store, so the text sent to the model is identical
+            List<float[]> embeddings = embeddingModel.embed(
+                    batch, EmbeddingOptions.builder().build(), new TokenCountBatchingStrategy());
+
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                rows.add(new Object[] {
+                        new PGvector(embeddings.get(i)), embeddingModelId, UUID.fromString(batch.get(i).getId())});
+            }
+            jdbcTemplate.batchUpdate(
+                    "UPDATE vector_store SET embedding = ?, metadata = COALESCE(metadata, '{}'::jsonb) "
+                            + "|| jsonb_build_object('" + DocumentIndexer.EMBEDDING_MODEL + "', ?::text) WHERE id = ?",
+                    rows);
+            reembedded += batch.size();
+            lastId = UUID.fromString(batch.get(batch.size() - 1).getId());
+        } while (batch.size() == batchSize);
+
+        ReembeddingResultDto result = new ReembeddingResultDto(
+                reembedded, embeddingModelId, System.currentTimeMillis() - start);
+        if (reembedded > 0) {
+            log.info("Re-embedded the vector store: {}", result);
+        }
+        return result;
+    }
+
+    /**
+     * Read the next page of outdated documents after the given ID, or the first page
+     * if it is {@code null}.
+     */
+    List<Document> nextBatch(UUID lastId) {
+        RowMapper<Document> documentMapper = (rs, rowNum) -> Document.builder()
+                .id(rs.getString("id"))
+                .text(rs.getString("content"))
+                .metadata(parseMetadata(rs.getString("metadata")))
+                .build();
+        String outdated = "metadata->>'" + DocumentIndexer.EMBEDDING_MODEL + "' IS DISTINCT FROM ?";
+        if (lastId == null) {
+            return jdbcTemplate.query(
+                    "SELECT id, content, metadata::text AS metadata FROM vector_store WHERE " + outdated
+                            + " ORDER BY id LIMIT ?",
+                    documentMapper, embeddingModelId, batchSize);
+        }
+        return jdbcTemplate.query(
+                "SELECT id, content, metadata::text AS metadata FROM vector_store WHERE id > ? AND " + outdated
+                        + " ORDER BY id LIMIT ?",
+                documentMapper, lastId, embeddingModelId, batchSize);
+    }
+
+    public String getEmbeddingModelId() {
+        return embeddingModelId;
+    }
+
+    private Map<String, Object> parseMetadata(String metadata) {
+        if (metadata == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(metadata, METADATA_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid document metadata", e);
+        }
+    }
+}
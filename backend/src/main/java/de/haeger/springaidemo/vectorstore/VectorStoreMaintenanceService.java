@@ -0,0 +1,323 @@
+package de.haeger.springaidemo.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.ai.vectorstore.filter.FilterExpressionTextParser;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lifecycle management for the {@code vector_store} table.
+ * Deletes documents by ID, source or metadata filter in bounded batches, expires documents
+ * whose {@code expires_at} metadata lies in the past, and compacts the namespace partitions
+ * and their HNSW indexes once the share of dead tuples of a partition crosses a threshold.
+ */
+@Service
+public class VectorStoreMaintenanceService {
+
+    /** Metadata key holding the expiry time of a document in epoch seconds. */
+    public static final String EXPIRES_AT = "expires_at";
+    /** Metadata key holding the ID of the upload request a document was written by. */
+    public static final String UPLOAD_ID = "upload_id";
+
+    private static final Logger log = LoggerFactory.getLogger(VectorStoreMaintenanceService.class);
+
+    private static final String TABLE = "vector_store";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Compaction and statistics run on the analytics pool, so they never hold vector store connections
+    private final JdbcTemplate analyticsJdbcTemplate;
+    private final PgVectorFilterExpressionConverter filterConverter = new PgVectorFilterExpressionConverter();
+    private final AtomicLong expiredDocumentsDeleted = new AtomicLong();
+
+    @Value("${app.vector-store.delete-batch-size:500}")
+    private int deleteBatchSize;
+
+    @Value("${app.vector-store.compaction.dead-tuple-ratio:0.2}")
+    private double compactionDeadTupleRatio;
+
+    @Value("${app.vector-store.compaction.min-dead-tuples:1000}")
+    private long compactionMinDeadTuples;
+
+    @Value("${app.vector-store.compaction.reindex:false}")
+    private boolean compactionReindex;
+
+    private volatile LocalDateTime lastExpirySweep;
+    private volatile LocalDateTime lastCompaction;
+
+    public VectorStoreMaintenanceService(
+            @Qualifier("vectorStoreJdbcTemplate") JdbcTemplate jdbcTemplate,
+            @Qualifier("analyticsJdbcTemplate") JdbcTemplate analyticsJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.analyticsJdbcTemplate = analyticsJdbcTemplate;
+    }
+
+    /**
+     * Metadata marking a document to expire after the given time to live.
+     *
+     * @param ttl the time to live, may be null for documents that never expire
+     * @return the expiry metadata, empty if ttl is null
+     */
+    public static Map<String, Object> expiryMetadata(Duration ttl) {
+        if (ttl == null) {
+            return Map.of();
+        }
+        return Map.of(EXPIRES_AT, Instant.now().plus(ttl).getEpochSecond());
+    }
+
+    /**
+     * Delete documents by ID.
+     *
+     * @param ids the document IDs
+     * @return the number of deleted documents
+     */
+    public int deleteByIds(List<String> ids) {
+        int deleted = 0;
+        for (int i = 0; i < ids.size(); i += deleteBatchSize) {
+            List<UUID> batch = ids.subList(i, Math.min(ids.size(), i + deleteBatchSize)).stream()
+                    .map(UUID::fromString)
+                    .toList();
+            deleted += jdbcTemplate.update(
+                    "DELETE FROM " + TABLE + " WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", batch.toArray())));
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete all documents of a source, e.g. {@code file-upload} or {@code text-input}.
+     *
+     * @param source the value of the {@code source} metadata
+     * @return the number of deleted documents
+     */
+    public long deleteBySource(String source) {
+        return deleteByFilter(new FilterExpressionBuilder().eq("source", source).build());
+    }
+
+    /**
+     * Delete all documents written by an upload request, e.g. to roll back an upload
+     * that failed after some of its chunks were stored.
+     *
+     * @param uploadId the value of the {@code upload_id} metadata
+     * @return the number of deleted documents
+     */
+    public long deleteUpload(String uploadId) {
+        long deleted = deleteByFilter(new FilterExpressionBuilder().eq(UPLOAD_ID, uploadId).build());
+        log.info("Rolled back upload {}, deleted {} documents", uploadId, deleted);
+        return deleted;
+    }
+
+    /**
+     * Delete all documents matching a portable filter expression such as
+     * {@code filename == 'manual.pdf' && page > 10}.
+     *
+     * @param filter the filter expression text
+     * @return the number of deleted documents
+     * @throws org.springframework.ai.vectorstore.filter.FilterExpressionTextParser.FilterExpressionParseException
+     *         if the expression is invalid
+     */
+    public long deleteByFilter(String filter) {
+        return deleteByFilter(new FilterExpressionTextParser().parse(filter));
+    }
+
+    /**
+     * Delete all documents matching a filter expression.
+     * Deletes in batches so no single statement holds locks on a large part of the table.
+     *
+     * @param filter the filter expression
+     * @return the number of deleted documents
+     */
+    public long deleteByFilter(Filter.Expression filter) {
+        return deleteInBatches(filterConverter.convertExpression(filter));
+    }
+
+    /**
+     * Delete expired documents on schedule.
+     */
+    @Scheduled(
+            initialDelayString = "${app.vector-store.expiry.interval:10m}",
+            fixedDelayString = "${app.vector-store.expiry.interval:10m}")
+    public void scheduledExpiry() {
+        deleteExpired();
+    }
+
+    /**
+     * Delete documents whose {@code expires_at} metadata lies in the past.
+     *
+     * @return the number of deleted documents
+     */
+    public long deleteExpired() {
+        long deleted = deleteInBatches("$." + EXPIRES_AT + " < " + Instant.now().getEpochSecond());
+        expiredDocumentsDeleted.addAndGet(deleted);
+        lastExpirySweep = LocalDateTime.now();
+        if (deleted > 0) {
+            log.info("Deleted {} expired documents from the vector store", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Compact the partitions on schedule. Runs on the scheduler pool sized in
+     * {@code spring.task.scheduling.pool.size}, so a long vacuum does not delay the other jobs.
+     */
+    @Scheduled(
+            initialDelayString = "${app.vector-store.compaction.interval:1h}",
+            fixedDelayString = "${app.vector-store.compaction.interval:1h}")
+    public void scheduledCompaction() {
+        compactIfNeeded();
+    }
+
+    /**
+     * Compact every namespace partition whose share of dead tuples crosses the configured threshold.
+     *
+     * @return true if a partition was compacted
+     */
+    public boolean compactIfNeeded() {
+        boolean compacted = false;
+        for (Map.Entry<String, TupleStats> partition : partitionTupleStats().entrySet()) {
+            TupleStats stats = partition.getValue();
+            if (stats.deadTuples() >= compactionMinDeadTuples && stats.deadTupleRatio() >= compactionDeadTupleRatio) {
+                compact(partition.getKey());
+                compacted = true;
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Vacuum all namespace partitions, and rebuild their indexes if enabled.
+     */
+    public void compact() {
+        partitionTupleStats().keySet().forEach(this::compact);
+    }
+
+    /**
+     * Vacuum a partition, which also removes the entries of deleted rows from its HNSW index.
+     * With {@code app.vector-store.compaction.reindex} the indexes are rebuilt as well, which
+     * tightens a graph degraded by many deletes but takes as long as building the index anew;
+     * the rebuild runs concurrently and does not block searches or inserts.
+     */
+    private void compact(String partition) {
+        long start = System.currentTimeMillis();
+        // Neither statement may run inside a transaction; JdbcTemplate runs them in auto-commit mode
+        analyticsJdbcTemplate.execute("VACUUM (ANALYZE) " + partition);
+        if (compactionReindex) {
+            analyticsJdbcTemplate.execute("REINDEX TABLE CONCURRENTLY " + partition);
+        }
+        lastCompaction = LocalDateTime.now();
+        log.info("Compacted vector store partition {} in {} ms", partition, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Live and dead tuple counts of all namespaces together, as tracked by the statistics collector.
+     */
+    public TupleStats tupleStats() {
+        long live = 0;
+        long dead = 0;
+        for (TupleStats stats : partitionTupleStats().values()) {
+            live += stats.liveTuples();
+            dead += stats.deadTuples();
+        }
+        return new TupleStats(live, dead);
+    }
+
+    /**
+     * Live and dead tuple counts per partition. The statistics collector tracks the
+     * partitions only, not the partitioned table.
+     *
+     * @return the counts by partition table name
+     */
+    public Map<String, TupleStats> partitionTupleStats() {
+        Map<String, TupleStats> stats = new LinkedHashMap<>();
+        analyticsJdbcTemplate.query(
+                "SELECT c.relname, COALESCE(s.n_live_tup, 0) AS n_live_tup, COALESCE(s.n_dead_tup, 0) AS n_dead_tup "
+                        + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid "
+                        + "WHERE i.inhparent = ?::regclass ORDER BY c.relname",
+                rs -> {
+                    stats.put(rs.getString("relname"),
+                            new TupleStats(rs.getLong("n_live_tup"), rs.getLong("n_dead_tup")));
+                },
+                TABLE);
+        return stats;
+    }
+
+    public long getExpiredDocumentsDeleted() {
+        return expiredDocumentsDeleted.get();
+    }
+
+    public LocalDateTime getLastExpirySweep() {
+        return lastExpirySweep;
+    }
+
+    public LocalDateTime getLastCompaction() {
+        return lastCompaction;
+    }
+
+    /**
+     * Delete the documents matching a JSON path predicate in batches. The matching IDs are
+     * collected page by page in ID order, each page continuing after the last ID of the
+     * previous one, so the table is scanned once in total rather than once per batch.
+     */
+    private long deleteInBatches(String jsonPath) {
+        long deleted = 0;
+        UUID lastId = null;
+        List<UUID> batch;
+        do {
+            batch = matchingIds(jsonPath, lastId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<UUID> ids = batch;
+            deleted += jdbcTemplate.update(
+                    "DELETE FROM " + TABLE + " WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())));
+            lastId = batch.get(batch.size() - 1);
+        } while (batch.size() == deleteBatchSize);
+        return deleted;
+    }
+
+    /**
+     * Read the next page of IDs matching a JSON path predicate after the given ID, or the
+     * first page if it is {@code null}.
+     */
+    List<UUID> matchingIds(String jsonPath, UUID lastId) {
+        if (lastId == null) {
+            return jdbcTemplate.queryForList(
+                    "SELECT id FROM " + TABLE + " WHERE metadata::jsonb @@ ?::jsonpath ORDER BY id LIMIT ?",
+                    UUID.class, jsonPath, deleteBatchSize);
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM " + TABLE + " WHERE id > ? AND metadata::jsonb @@ ?::jsonpath ORDER BY id LIMIT ?",
+                UUID.class, lastId, jsonPath, deleteBatchSize);
+    }
+
+    /**
+     * Live and dead tuples of the vector store table.
+     *
+     * @param liveTuples the estimated number of live rows
+     * @param deadTuples the estimated number of dead rows
+     */
+    public record TupleStats(long liveTuples, long deadTuples) {
+
+        public double deadTupleRatio() {
+            long total = liveTuples + deadTuples;
+            return total == 0 ? 0 : (double) deadTuples / total;
+        }
+    }
+}
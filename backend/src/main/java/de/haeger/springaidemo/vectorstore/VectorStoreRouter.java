@@ -0,0 +1,114 @@
+package de.haeger.springaidemo.vectorstore;
+
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Routes vector store access to the partition of a namespace.
+ * The {@code vector_store} table is list-partitioned by namespace, see
+ * {@code V7__vector_store_namespaces.sql}, and every namespace is served by its own
+ * {@link VectorStore} on its partition table, so searches only walk the HNSW index of that
+ * namespace. Partitions are created on the first write to a namespace; searching a
+ * namespace that does not exist finds nothing.
+ */
+public class VectorStoreRouter {
+
+    public static final String DEFAULT_NAMESPACE = "default";
+
+    private static final String PARTITION_PREFIX = "vector_store_ns_";
+    // Same rule as create_vector_store_namespace; the partition name must fit into 63 characters
+    private static final Pattern NAMESPACE = Pattern.compile("[a-z0-9_]{1,40}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Function<String, VectorStore> storeFactory;
+    private final Map<String, VectorStore> stores = new ConcurrentHashMap<>();
+
+    /**
+     * @param jdbcTemplate the template used to look up and create partitions
+     * @param storeFactory creates the store of a partition table
+     */
+    public VectorStoreRouter(JdbcTemplate jdbcTemplate, Function<String, VectorStore> storeFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storeFactory = storeFactory;
+        // Created by the migration, so no database access is needed at startup
+        stores.put(DEFAULT_NAMESPACE, storeFactory.apply(partitionName(DEFAULT_NAMESPACE)));
+    }
+
+    /**
+     * Validate a namespace given by a client.
+     *
+     * @param namespace the namespace, may be null or blank for the default namespace
+     * @return the namespace to use
+     * @throws IllegalArgumentException if the namespace is not 1 to 40 lower case letters, digits or underscores
+     */
+    public static String normalize(String namespace) {
+        if (namespace == null || namespace.isBlank()) {
+            return DEFAULT_NAMESPACE;
+        }
+        if (!NAMESPACE.matcher(namespace).matches()) {
+            throw new IllegalArgumentException("Invalid namespace: " + namespace);
+        }
+        return namespace;
+    }
+
+    /**
+     * Get the name of the partition table of a namespace.
+     */
+    public static String partitionName(String namespace) {
+        return PARTITION_PREFIX + namespace;
+    }
+
+    /**
+     * Get the namespace of a partition table, or null if the table is not a namespace partition.
+     */
+    public static String namespaceOf(String partitionName) {
+        return partitionName.startsWith(PARTITION_PREFIX) ? partitionName.substring(PARTITION_PREFIX.length()) : null;
+    }
+
+    /**
+     * Get the store of the default namespace.
+     */
+    public VectorStore getDefault() {
+        return stores.get(DEFAULT_NAMESPACE);
+    }
+
+    /**
+     * Get the store to write documents of a namespace to, creating the namespace if needed.
+     *
+     * @param namespace a namespace checked with {@link #normalize}
+     */
+    public VectorStore forWrite(String namespace) {
+        VectorStore store = stores.get(namespace);
+        if (store != null) {
+            return store;
+        }
+        jdbcTemplate.queryForObject("SELECT create_vector_store_namespace(?)", String.class, namespace);
+        return stores.computeIfAbsent(namespace, ns -> storeFactory.apply(partitionName(ns)));
+    }
+
+    /**
+     * Get the store to search a namespace, without creating it.
+     *
+     * @param namespace a namespace checked with {@link #normalize}
+     * @return the store, or empty if the namespace has no documents yet
+     */
+    public Optional<VectorStore> forSearch(String namespace) {
+        VectorStore store = stores.get(namespace);
+        if (store != null) {
+            return Optional.of(store);
+        }
+        // The namespace may have been created by another replica
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partitionName(namespace));
+        if (!Boolean.TRUE.equals(exists)) {
+            return Optional.empty();
+        }
+        return Optional.of(stores.computeIfAbsent(namespace, ns -> storeFactory.apply(partitionName(ns))));
+    }
+}
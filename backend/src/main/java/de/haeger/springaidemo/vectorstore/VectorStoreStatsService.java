@@ -0,0 +1,236 @@
+package de.haeger.springaidemo.vectorstore;
+
+import de.haeger.springaidemo.cluster.CacheInvalidationEvent;
+import de.haeger.springaidemo.dto.VectorStoreNamespaceStatsDto;
+import de.haeger.springaidemo.dto.VectorStoreStatsDto;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects vector store statistics without scanning the table.
+ * Row counts are estimates from the PostgreSQL statistics collector, sizes come from the
+ * catalog, and the per-source breakdown is extrapolated from a block sample once the table
+ * is too large to count exactly. The statistics collector tracks the namespace partitions
+ * only, so table figures are summed over the partitions, and reported per namespace as
+ * well. Results are cached for a short time, as the debug panel polls them, and dropped
+ * when any replica writes to the vector store.
+ */
+@Service
+public class VectorStoreStatsService {
+
+    private static final String TABLE = "vector_store";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VectorStoreMaintenanceService maintenanceService;
+    private final PipelineMetrics pipelineMetrics;
+
+    @Value("${app.vector-store.stats.cache-ttl:30s}")
+    private Duration cacheTtl;
+
+    @Value("${app.vector-store.stats.exact-count-threshold:10000}")
+    private long exactCountThreshold;
+
+    @Value("${app.vector-store.stats.sample-rows:10000}")
+    private long sampleRows;
+
+    private volatile CachedStats cached;
+
+    public VectorStoreStatsService(
+            @Qualifier("analyticsJdbcTemplate") JdbcTemplate jdbcTemplate,
+            VectorStoreMaintenanceService maintenanceService,
+            PipelineMetrics pipelineMetrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maintenanceService = maintenanceService;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * Get the vector store statistics, served from the cache while it is fresh.
+     * Search latency percentiles and maintenance state are always current.
+     *
+     * @return the statistics
+     */
+    public VectorStoreStatsDto getStats() {
+        CachedStats stats = cached;
+        if (stats == null || stats.isExpired()) {
+            stats = refresh();
+        }
+
+        VectorStoreStatsDto dto = new VectorStoreStatsDto(stats.documentCount(), "PgVector", true);
+        dto.setDocumentCountEstimated(stats.documentCountEstimated());
+        dto.setDeadTuples(stats.deadTuples());
+        dto.setTableSizeBytes(stats.tableSizeBytes());
+        dto.setIndexSizeBytes(stats.indexSizeBytes());
+        dto.setEmbeddingDimension(stats.embeddingDimension());
+        dto.setDocumentsBySource(stats.documentsBySource());
+        dto.setNamespaces(stats.namespaces());
+        dto.setCollectedAt(stats.collectedAt());
+        dto.setExpiredDocumentsDeleted(maintenanceService.getExpiredDocumentsDeleted());
+        dto.setLastExpirySweep(maintenanceService.getLastExpirySweep());
+        dto.setLastCompaction(maintenanceService.getLastCompaction());
+
+        for (ValueAtPercentile percentile : pipelineMetrics.getSearchLatencyTimer().takeSnapshot().percentileValues()) {
+            double millis = percentile.value(TimeUnit.MILLISECONDS);
+            if (percentile.percentile() == 0.5) {
+                dto.setSearchLatencyP50Ms(millis);
+            } else if (percentile.percentile() == 0.95) {
+                dto.setSearchLatencyP95Ms(millis);
+            } else if (percentile.percentile() == 0.99) {
+                dto.setSearchLatencyP99Ms(millis);
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * Drop the cached statistics, e.g. after documents were added or deleted by the user.
+     */
+    public void invalidate() {
+        cached = null;
+    }
+
+    /**
+     * Drop the cached statistics after a write to the vector store on any replica.
+     */
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.affects(CacheInvalidationEvent.VECTOR_STORE)) {
+            invalidate();
+        }
+    }
+
+    private synchronized CachedStats refresh() {
+        CachedStats stats = cached;
+        if (stats != null && !stats.isExpired()) {
+            // Refreshed by a concurrent caller
+            return stats;
+        }
+
+        List<PartitionStats> partitions = jdbcTemplate.query(
+                "SELECT c.relname, c.reltuples::bigint AS reltuples, "
+                        + "COALESCE(s.n_live_tup, 0) AS live_tuples, COALESCE(s.n_dead_tup, 0) AS dead_tuples, "
+                        + "pg_table_size(c.oid) AS table_size, pg_indexes_size(c.oid) AS index_size "
+                        + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid "
+                        + "WHERE i.inhparent = ?::regclass ORDER BY c.relname",
+                (rs, rowNum) -> {
+                    // n_live_tup follows every write; reltuples is only updated by VACUUM and ANALYZE
+                    long liveTuples = rs.getLong("live_tuples");
+                    long relTuples = rs.getLong("reltuples");
+                    return new PartitionStats(
+                            VectorStoreRouter.namespaceOf(rs.getString("relname")),
+                            liveTuples > 0 ? liveTuples : Math.max(relTuples, 0),
+                            rs.getLong("dead_tuples"),
+                            rs.getLong("table_size"),
+                            rs.getLong("index_size"));
+                },
+                TABLE);
+        Integer dimension = jdbcTemplate.queryForObject(
+                "SELECT a.atttypmod FROM pg_attribute a "
+                        + "WHERE a.attrelid = ?::regclass AND a.attname = 'embedding' AND NOT a.attisdropped",
+                Integer.class,
+                TABLE);
+
+        long estimate = partitions.stream().mapToLong(PartitionStats::estimate).sum();
+        long documentCount;
+        boolean estimated;
+        Map<String, Long> bySource;
+        Map<String, Long> byNamespace = new LinkedHashMap<>();
+        if (estimate < exactCountThreshold) {
+            bySource = countBySource("");
+            documentCount = bySource.values().stream().mapToLong(Long::longValue).sum();
+            estimated = false;
+            jdbcTemplate.query(
+                    "SELECT namespace, COUNT(*) AS documents FROM " + TABLE + " GROUP BY 1",
+                    rs -> {
+                        byNamespace.put(rs.getString("namespace"), rs.getLong("documents"));
+                    });
+        } else {
+            double percent = Math.min(100.0, 100.0 * sampleRows / estimate);
+            Map<String, Long> sampled = countBySource(
+                    String.format(Locale.ROOT, " TABLESAMPLE SYSTEM (%.6f)", percent));
+            long sampledTotal = sampled.values().stream().mapToLong(Long::longValue).sum();
+            bySource = new LinkedHashMap<>();
+            sampled.forEach((source, count) ->
+                    bySource.put(source, sampledTotal == 0 ? 0 : Math.round((double) count * estimate / sampledTotal)));
+            documentCount = estimate;
+            estimated = true;
+        }
+
+        List<VectorStoreNamespaceStatsDto> namespaces = new ArrayList<>();
+        for (PartitionStats partition : partitions) {
+            if (partition.namespace() != null) {
+                namespaces.add(new VectorStoreNamespaceStatsDto(
+                        partition.namespace(),
+                        estimated ? partition.estimate() : byNamespace.getOrDefault(partition.namespace(), 0L),
+                        partition.deadTuples(),
+                        partition.tableSizeBytes(),
+                        partition.indexSizeBytes()));
+            }
+        }
+
+        stats = new CachedStats(
+                documentCount,
+                estimated,
+                partitions.stream().mapToLong(PartitionStats::deadTuples).sum(),
+                partitions.stream().mapToLong(PartitionStats::tableSizeBytes).sum(),
+                partitions.stream().mapToLong(PartitionStats::indexSizeBytes).sum(),
+                dimension != null && dimension > 0 ? dimension : null,
+                bySource,
+                namespaces,
+                LocalDateTime.now(),
+                System.nanoTime() + cacheTtl.toNanos());
+        cached = stats;
+        return stats;
+    }
+
+    private Map<String, Long> countBySource(String sample) {
+        Map<String, Long> bySource = new LinkedHashMap<>();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT COALESCE(metadata->>'source', 'unknown') AS source, COUNT(*) AS documents "
+                        + "FROM " + TABLE + sample + " GROUP BY 1 ORDER BY 2 DESC");
+        for (Map<String, Object> row : rows) {
+            bySource.put((String) row.get("source"), ((Number) row.get("documents")).longValue());
+        }
+        return bySource;
+    }
+
+    private record PartitionStats(
+            String namespace,
+            long estimate,
+            long deadTuples,
+            long tableSizeBytes,
+            long indexSizeBytes) {
+    }
+
+    private record CachedStats(
+            long documentCount,
+            boolean documentCountEstimated,
+            long deadTuples,
+            long tableSizeBytes,
+            long indexSizeBytes,
+            Integer embeddingDimension,
+            Map<String, Long> documentsBySource,
+            List<VectorStoreNamespaceStatsDto> namespaces,
+            LocalDateTime collectedAt,
+            long expiresAtNanos) {
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
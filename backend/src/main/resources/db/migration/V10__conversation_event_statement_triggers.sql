@@ -0,0 +1,72 @@
+-- The conversation change triggers of V8 fired once per row, so a save rewriting a
+-- conversation of a thousand messages called pg_notify a thousand times. They now fire
+-- once per statement and notify once per distinct conversation of the changed rows.
+-- Transition tables need one trigger per event; the same function reads the rows from
+-- whichever transition table the firing trigger defines. On the partitioned chat memory
+-- table they hold the rows of all affected partitions.
+CREATE OR REPLACE FUNCTION notify_conversation_changes() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    changed_conversation TEXT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        FOR changed_conversation IN SELECT DISTINCT conversation_id FROM new_rows LOOP
+            PERFORM pg_notify('cache_invalidation',
+                    json_build_object('cache', 'conversation', 'key', changed_conversation)::text);
+        END LOOP;
+    ELSIF TG_OP = 'UPDATE' THEN
+        FOR changed_conversation IN
+            SELECT conversation_id FROM new_rows UNION SELECT conversation_id FROM old_rows
+        LOOP
+            PERFORM pg_notify('cache_invalidation',
+                    json_build_object('cache', 'conversation', 'key', changed_conversation)::text);
+        END LOOP;
+    ELSE
+        FOR changed_conversation IN SELECT DISTINCT conversation_id FROM old_rows LOOP
+            PERFORM pg_notify('cache_invalidation',
+                    json_build_object('cache', 'conversation', 'key', changed_conversation)::text);
+        END LOOP;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS spring_ai_chat_memory_conversation_change ON spring_ai_chat_memory;
+DROP TRIGGER IF EXISTS chat_memory_archive_conversation_change ON chat_memory_archive;
+DROP FUNCTION IF EXISTS notify_conversation_change();
+
+DROP TRIGGER IF EXISTS spring_ai_chat_memory_conversation_insert ON spring_ai_chat_memory;
+CREATE TRIGGER spring_ai_chat_memory_conversation_insert
+AFTER INSERT ON spring_ai_chat_memory
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_conversation_changes();
+
+DROP TRIGGER IF EXISTS spring_ai_chat_memory_conversation_update ON spring_ai_chat_memory;
+CREATE TRIGGER spring_ai_chat_memory_conversation_update
+AFTER UPDATE ON spring_ai_chat_memory
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_conversation_changes();
+
+DROP TRIGGER IF EXISTS spring_ai_chat_memory_conversation_delete ON spring_ai_chat_memory;
+CREATE TRIGGER spring_ai_chat_memory_conversation_delete
+AFTER DELETE ON spring_ai_chat_memory
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_conversation_changes();
+
+DROP TRIGGER IF EXISTS chat_memory_archive_conversation_insert ON chat_memory_archive;
+CREATE TRIGGER chat_memory_archive_conversation_insert
+AFTER INSERT ON chat_memory_archive
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_conversation_changes();
+
+DROP TRIGGER IF EXISTS chat_memory_archive_conversation_update ON chat_memory_archive;
+CREATE TRIGGER chat_memory_archive_conversation_update
+AFTER UPDATE ON chat_memory_archive
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_conversation_changes();
+
+DROP TRIGGER IF EXISTS chat_memory_archive_conversation_delete ON chat_memory_archive;
+CREATE TRIGGER chat_memory_archive_conversation_delete
+AFTER DELETE ON chat_memory_archive
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION notify_conversation_changes();
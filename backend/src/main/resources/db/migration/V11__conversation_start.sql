@@ -0,0 +1,38 @@
+-- Start of each conversation, for the max-age retention policy.
+-- JdbcChatMemoryRepository rewrites a conversation with fresh timestamps on every save, so the
+-- earliest message timestamp only tells when the conversation was last saved. The start is
+-- recorded on the first insert of a conversation and kept while it is rewritten, archived and
+-- restored; only clearing the memory or purging the archive deletes it.
+CREATE TABLE IF NOT EXISTS conversation_start (
+    conversation_id VARCHAR(255) PRIMARY KEY,
+    started_at TIMESTAMP NOT NULL
+);
+
+-- Messages inserted with older timestamps, as by an import or a restore, move the start back;
+-- rewrites with fresh timestamps leave the row untouched
+CREATE OR REPLACE FUNCTION record_conversation_start() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO conversation_start (conversation_id, started_at)
+    SELECT conversation_id, MIN("timestamp") FROM new_rows GROUP BY conversation_id
+    ON CONFLICT (conversation_id) DO UPDATE SET started_at = EXCLUDED.started_at
+    WHERE EXCLUDED.started_at < conversation_start.started_at;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS spring_ai_chat_memory_conversation_start ON spring_ai_chat_memory;
+CREATE TRIGGER spring_ai_chat_memory_conversation_start
+AFTER INSERT ON spring_ai_chat_memory
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION record_conversation_start();
+
+-- Existing conversations start at their earliest known message
+INSERT INTO conversation_start (conversation_id, started_at)
+SELECT conversation_id, MIN(started_at) FROM (
+    SELECT conversation_id, MIN("timestamp") AS started_at FROM spring_ai_chat_memory GROUP BY conversation_id
+    UNION ALL
+    SELECT conversation_id, first_message_at FROM chat_memory_archive
+) known
+GROUP BY conversation_id
+ON CONFLICT (conversation_id) DO NOTHING;
@@ -0,0 +1,54 @@
+-- Schema as previously created by init/01-init.sql, the Spring AI chat memory schema
+-- initialization and Hibernate ddl-auto. Idempotent, so it also runs on existing databases.
+
+CREATE EXTENSION IF NOT EXISTS vector;
+
+-- Vector store table for PgVectorStore
+CREATE TABLE IF NOT EXISTS vector_store (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    content TEXT,
+    metadata JSONB,
+    embedding vector(768)
+);
+
+CREATE INDEX IF NOT EXISTS vector_store_embedding_idx ON vector_store
+USING hnsw (embedding vector_cosine_ops);
+
+-- Chat memory of JdbcChatMemoryRepository
+CREATE TABLE IF NOT EXISTS spring_ai_chat_memory (
+    conversation_id VARCHAR(36) NOT NULL,
+    content TEXT NOT NULL,
+    type VARCHAR(10) NOT NULL CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')),
+    "timestamp" TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx
+ON spring_ai_chat_memory (conversation_id, "timestamp");
+
+-- Model selected per conversation
+CREATE TABLE IF NOT EXISTS conversation_model (
+    conversation_id VARCHAR(255) PRIMARY KEY,
+    model_name VARCHAR(50) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Files of the synchronized source directory
+CREATE TABLE IF NOT EXISTS indexed_source (
+    path VARCHAR(1024) PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL,
+    size BIGINT NOT NULL,
+    last_modified BIGINT NOT NULL,
+    chunk_count INTEGER NOT NULL,
+    indexed_at TIMESTAMP NOT NULL
+);
+
+-- Conversations moved out of the chat memory by the retention job
+CREATE TABLE IF NOT EXISTS chat_memory_archive (
+    conversation_id VARCHAR(255) PRIMARY KEY,
+    title VARCHAR(255),
+    message_count INTEGER NOT NULL,
+    first_message_at TIMESTAMP NOT NULL,
+    last_message_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    payload BYTEA NOT NULL
+);
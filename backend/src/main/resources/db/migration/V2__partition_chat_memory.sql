@@ -0,0 +1,61 @@
+-- Monthly range partitioning of the chat memory by message timestamp.
+-- JdbcChatMemoryRepository rewrites a conversation with fresh timestamps on every save, so
+-- active conversations live in the current month's partition and cold ones stay behind in
+-- older partitions with their own, smaller indexes.
+
+ALTER TABLE spring_ai_chat_memory RENAME TO spring_ai_chat_memory_legacy;
+ALTER INDEX IF EXISTS spring_ai_chat_memory_conversation_id_timestamp_idx
+    RENAME TO spring_ai_chat_memory_legacy_conversation_id_timestamp_idx;
+
+CREATE TABLE spring_ai_chat_memory (
+    conversation_id VARCHAR(36) NOT NULL,
+    content TEXT NOT NULL,
+    type VARCHAR(10) NOT NULL CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')),
+    "timestamp" TIMESTAMP NOT NULL
+) PARTITION BY RANGE ("timestamp");
+
+-- Catches messages of months without a partition, so inserts never fail
+CREATE TABLE spring_ai_chat_memory_default PARTITION OF spring_ai_chat_memory DEFAULT;
+
+-- Defined on the parent, so every partition gets its own (conversation_id, timestamp) index
+CREATE INDEX spring_ai_chat_memory_conversation_id_timestamp_idx
+ON spring_ai_chat_memory (conversation_id, "timestamp");
+
+-- Create the partition for the month containing the given date. Messages of that month that
+-- already landed in the default partition are moved into the new table before it is attached.
+CREATE OR REPLACE FUNCTION create_chat_memory_partition(month DATE) RETURNS TEXT AS $$
+DECLARE
+    range_start DATE := date_trunc('month', month)::DATE;
+    range_end DATE := (date_trunc('month', month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'spring_ai_chat_memory_' || to_char(range_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE spring_ai_chat_memory INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM spring_ai_chat_memory_default '
+                   'WHERE "timestamp" >= %L AND "timestamp" < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved',
+                   range_start, range_end, partition_name);
+    EXECUTE format('ALTER TABLE spring_ai_chat_memory ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for every month with existing messages, the current month and the next two
+SELECT create_chat_memory_partition(month::DATE)
+FROM (
+    SELECT DISTINCT date_trunc('month', "timestamp") AS month FROM spring_ai_chat_memory_legacy
+    UNION
+    SELECT generate_series(date_trunc('month', LOCALTIMESTAMP), date_trunc('month', LOCALTIMESTAMP) + INTERVAL '2 months',
+                           INTERVAL '1 month')
+) months
+ORDER BY month;
+
+-- Move the existing messages; each row is routed to its month's partition
+INSERT INTO spring_ai_chat_memory (conversation_id, content, type, "timestamp")
+SELECT conversation_id, content, type, "timestamp" FROM spring_ai_chat_memory_legacy;
+
+DROP TABLE spring_ai_chat_memory_legacy;
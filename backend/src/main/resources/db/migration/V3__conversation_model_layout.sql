@@ -0,0 +1,8 @@
+-- conversation_model is read by primary key on every chat request and written with a single
+-- upsert on model switches. Neither model_name nor updated_at is indexed, so leaving free
+-- space on each page lets those updates stay heap-only without touching the primary key index.
+-- model_name keeps its length: databases created by Hibernate have VARCHAR(255) there, and
+-- Ollama model tags can be longer than the 50 characters of the baseline.
+
+ALTER TABLE conversation_model ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE conversation_model SET (fillfactor = 80);
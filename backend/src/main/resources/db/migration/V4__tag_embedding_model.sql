@@ -0,0 +1,7 @@
+-- Every document records the embedding model it was embedded with, so switching the model
+-- only re-embeds what is outdated (POST /rag/documents/reembed). All documents indexed so far
+-- were embedded with Vertex text-embedding-004.
+
+UPDATE vector_store
+SET metadata = COALESCE(metadata, '{}'::jsonb) || '{"embedding_model": "vertex:text-embedding-004"}'::jsonb
+WHERE metadata IS NULL OR NOT metadata ? 'embedding_model';
@@ -0,0 +1,50 @@
+-- Settings shared by all backend replicas, starting with the global default model,
+-- which used to live in the memory of each replica
+CREATE TABLE IF NOT EXISTS app_setting (
+    name VARCHAR(100) PRIMARY KEY,
+    value TEXT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO app_setting (name, value) VALUES ('default_model', 'gemini')
+ON CONFLICT (name) DO NOTHING;
+
+-- Every committed write to a table cached by the backend notifies the cache_invalidation
+-- channel, so all replicas drop their copies no matter which replica or tool wrote.
+-- The payload names the cache (first trigger argument) and, for row triggers, the key of
+-- the changed row (column named by the second argument). Notifications are delivered on
+-- commit, and identical ones of a transaction are delivered once.
+CREATE OR REPLACE FUNCTION notify_cache_invalidation() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    changed_key TEXT;
+BEGIN
+    IF TG_LEVEL = 'ROW' THEN
+        IF TG_OP = 'DELETE' THEN
+            changed_key := to_jsonb(OLD) ->> TG_ARGV[1];
+        ELSE
+            changed_key := to_jsonb(NEW) ->> TG_ARGV[1];
+        END IF;
+    END IF;
+    PERFORM pg_notify('cache_invalidation',
+            json_build_object('cache', TG_ARGV[0], 'key', changed_key)::text);
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS app_setting_cache_invalidation ON app_setting;
+CREATE TRIGGER app_setting_cache_invalidation
+AFTER INSERT OR UPDATE OR DELETE ON app_setting
+FOR EACH ROW EXECUTE FUNCTION notify_cache_invalidation('app-setting', 'name');
+
+DROP TRIGGER IF EXISTS conversation_model_cache_invalidation ON conversation_model;
+CREATE TRIGGER conversation_model_cache_invalidation
+AFTER INSERT OR UPDATE OR DELETE ON conversation_model
+FOR EACH ROW EXECUTE FUNCTION notify_cache_invalidation('conversation-model', 'conversation_id');
+
+-- Statement level: ingest and deletes write documents in batches, and the statistics
+-- cache is dropped as a whole anyway
+DROP TRIGGER IF EXISTS vector_store_cache_invalidation ON vector_store;
+CREATE TRIGGER vector_store_cache_invalidation
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON vector_store
+FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation('vector-store');
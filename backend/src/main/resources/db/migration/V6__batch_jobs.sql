@@ -0,0 +1,38 @@
+-- Offline batch chat jobs (POST /batch/chat). Every prompt is an item whose result is stored
+-- as soon as it is answered, so a job interrupted by a restart continues with its pending
+-- items. The replica running a job holds a lease on it; once the lease expires, any replica
+-- takes the job over.
+CREATE TABLE IF NOT EXISTS batch_job (
+    id UUID PRIMARY KEY,
+    -- A chat model name, or auto to spread the items over all ready models
+    model VARCHAR(50) NOT NULL,
+    rag BOOLEAN NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('RUNNING', 'COMPLETED', 'CANCELLED')),
+    item_count INTEGER NOT NULL,
+    lease_owner VARCHAR(64),
+    lease_until TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS batch_job_running_idx ON batch_job (lease_until) WHERE status = 'RUNNING';
+
+CREATE TABLE IF NOT EXISTS batch_item (
+    job_id UUID NOT NULL REFERENCES batch_job (id) ON DELETE CASCADE,
+    item_index INTEGER NOT NULL,
+    -- Identifier given by the client, returned with the result
+    custom_id VARCHAR(255),
+    prompt TEXT NOT NULL,
+    -- Overrides the rag flag of the job if set
+    rag BOOLEAN,
+    status VARCHAR(10) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'DONE', 'FAILED')),
+    model VARCHAR(50),
+    answer TEXT,
+    error TEXT,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    duration_ms BIGINT,
+    completed_at TIMESTAMP,
+    PRIMARY KEY (job_id, item_index)
+);
+
+CREATE INDEX IF NOT EXISTS batch_item_pending_idx ON batch_item (job_id, item_index) WHERE status = 'PENDING';
@@ -0,0 +1,61 @@
+-- List partitioning of the vector store by namespace. Every namespace is a partition with
+-- its own HNSW index, so a search within a namespace only walks the graph of that
+-- namespace instead of the whole corpus. Existing documents move into the default namespace.
+
+ALTER TABLE vector_store RENAME TO vector_store_legacy;
+ALTER INDEX IF EXISTS vector_store_embedding_idx RENAME TO vector_store_legacy_embedding_idx;
+DROP TRIGGER IF EXISTS vector_store_cache_invalidation ON vector_store_legacy;
+
+-- No primary key on the parent: it would have to include the namespace, while PgVectorStore
+-- upserts with ON CONFLICT (id). Each partition has its own primary key on id instead, and
+-- documents are written to the partition of their namespace directly.
+CREATE TABLE vector_store (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    content TEXT,
+    metadata JSONB,
+    embedding vector(768),
+    namespace VARCHAR(40) NOT NULL DEFAULT 'default'
+) PARTITION BY LIST (namespace);
+
+-- Statement triggers fire for the table a statement names, so the parent notifies for writes
+-- through the parent, e.g. expiry and re-embedding, and every partition for direct writes
+CREATE TRIGGER vector_store_cache_invalidation
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON vector_store
+FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation('vector-store');
+
+-- Create the partition of a namespace, named vector_store_ns_<namespace>. Rows written to the
+-- partition directly get the namespace as default. Replicas creating the same namespace at
+-- the same time wait for each other.
+CREATE OR REPLACE FUNCTION create_vector_store_namespace(ns TEXT) RETURNS TEXT AS $$
+DECLARE
+    partition_name TEXT := 'vector_store_ns_' || ns;
+BEGIN
+    IF ns !~ '^[a-z0-9_]{1,40}$' THEN
+        RAISE EXCEPTION 'Invalid vector store namespace: %', ns;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtext('create_vector_store_namespace'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF vector_store FOR VALUES IN (%L)', partition_name, ns);
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', partition_name);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN namespace SET DEFAULT %L', partition_name, ns);
+    EXECUTE format('CREATE TRIGGER vector_store_cache_invalidation '
+                   'AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON %I '
+                   'FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_invalidation(%L)',
+                   partition_name, 'vector-store');
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_vector_store_namespace('default');
+
+INSERT INTO vector_store (id, content, metadata, embedding, namespace)
+SELECT id, content, metadata, embedding, 'default' FROM vector_store_legacy;
+
+DROP TABLE vector_store_legacy;
+
+-- Defined on the parent after the copy, so the HNSW graph of existing documents is built in
+-- one pass, and every partition created later gets its own index
+CREATE INDEX vector_store_embedding_idx ON vector_store
+USING hnsw (embedding vector_cosine_ops);
@@ -0,0 +1,32 @@
+-- Every committed change to the messages or the archive of a conversation notifies the
+-- cache_invalidation channel with the conversation ID, so the backend can push the changed
+-- conversation to subscribed clients instead of clients polling the conversation list.
+-- JdbcChatMemoryRepository rewrites a conversation on every save; the notifications of a
+-- transaction are identical and delivered once. The conversation ID is read from the row
+-- directly, as converting the whole row to JSON would copy every message text.
+CREATE OR REPLACE FUNCTION notify_conversation_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    changed_conversation TEXT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        changed_conversation := OLD.conversation_id;
+    ELSE
+        changed_conversation := NEW.conversation_id;
+    END IF;
+    PERFORM pg_notify('cache_invalidation',
+            json_build_object('cache', 'conversation', 'key', changed_conversation)::text);
+    RETURN NULL;
+END
+$$;
+
+-- Row triggers on the partitioned table are cloned to every present and future partition
+DROP TRIGGER IF EXISTS spring_ai_chat_memory_conversation_change ON spring_ai_chat_memory;
+CREATE TRIGGER spring_ai_chat_memory_conversation_change
+AFTER INSERT OR UPDATE OR DELETE ON spring_ai_chat_memory
+FOR EACH ROW EXECUTE FUNCTION notify_conversation_change();
+
+DROP TRIGGER IF EXISTS chat_memory_archive_conversation_change ON chat_memory_archive;
+CREATE TRIGGER chat_memory_archive_conversation_change
+AFTER INSERT OR UPDATE OR DELETE ON chat_memory_archive
+FOR EACH ROW EXECUTE FUNCTION notify_conversation_change();
@@ -0,0 +1,7 @@
+-- A batch job is inserted as SUBMITTING and its prompts in short transactions of a page each,
+-- after the upload has been read and validated. It becomes RUNNING once all prompts are
+-- stored. A submission cut short by a crash keeps renewing no lease and is deleted once
+-- the lease has expired.
+ALTER TABLE batch_job DROP CONSTRAINT IF EXISTS batch_job_status_check;
+ALTER TABLE batch_job ADD CONSTRAINT batch_job_status_check
+    CHECK (status IN ('SUBMITTING', 'RUNNING', 'COMPLETED', 'CANCELLED'));
@@ -0,0 +1,90 @@
+package de.haeger.springaidemo.stub;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Latency distribution for the stub models.
+ * Parsed from a compact specification:
+ * <ul>
+ *   <li>{@code fixed:200ms}</li>
+ *   <li>{@code uniform:100ms:400ms} (min, max)</li>
+ *   <li>{@code normal:500ms:100ms} (mean, standard deviation)</li>
+ *   <li>{@code lognormal:800ms:0.5} (median, sigma), the typical shape of LLM latencies</li>
+ * </ul>
+ * Sampling uses a seeded random, so a run with the same seed and request order is reproducible.
+ */
+public final class LatencyDistribution {
+
+    public static final LatencyDistribution NONE = new LatencyDistribution(Kind.FIXED, 0, 0);
+
+    private enum Kind { FIXED, UNIFORM, NORMAL, LOGNORMAL }
+
+    private final Kind kind;
+    private final double first;
+    private final double second;
+
+    private LatencyDistribution(Kind kind, double first, double second) {
+        this.kind = kind;
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Parse a latency specification.
+     *
+     * @param spec the specification, e.g. "lognormal:800ms:0.5"
+     * @return the distribution
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank() || spec.equals("none")) {
+            return NONE;
+        }
+        String[] parts = spec.trim().split(":");
+        try {
+            return switch (parts[0]) {
+                case "fixed" -> new LatencyDistribution(Kind.FIXED, millis(parts[1]), 0);
+                case "uniform" -> new LatencyDistribution(Kind.UNIFORM, millis(parts[1]), millis(parts[2]));
+                case "normal" -> new LatencyDistribution(Kind.NORMAL, millis(parts[1]), millis(parts[2]));
+                case "lognormal" -> new LatencyDistribution(Kind.LOGNORMAL, millis(parts[1]), Double.parseDouble(parts[2]));
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + parts[0]);
+            };
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Incomplete latency specification: " + spec, e);
+        }
+    }
+
+    /**
+     * Sample a latency.
+     *
+     * @param random the random source
+     * @return the sampled latency, never negative
+     */
+    public Duration sample(SplittableRandom random) {
+        double millis = switch (kind) {
+            case FIXED -> first;
+            case UNIFORM -> first + random.nextDouble() * (second - first);
+            case NORMAL -> first + gaussian(random) * second;
+            case LOGNORMAL -> first * Math.exp(gaussian(random) * second);
+        };
+        return Duration.ofNanos((long) (Math.max(0, millis) * 1_000_000));
+    }
+
+    public boolean isNone() {
+        return kind == Kind.FIXED && first == 0;
+    }
+
+    private static double millis(String value) {
+        return DurationStyle.detectAndParse(value).toNanos() / 1_000_000.0;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller, SplittableRandom has no nextGaussian on all JDKs we target
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+}
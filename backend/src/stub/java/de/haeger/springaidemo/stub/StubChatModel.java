@@ -0,0 +1,126 @@
+package de.haeger.springaidemo.stub;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic ChatModel for benchmarks and offline load tests.
+ * Answers are derived from the user message, so identical prompts get identical answers,
+ * and no network call is made. Latency is sampled from a configurable distribution;
+ * streaming emits the answer word by word after a first-token delay.
+ */
+public class StubChatModel implements ChatModel {
+
+    private final String modelName;
+    private final LatencyDistribution latency;
+    private final Duration firstTokenLatency;
+    private final Duration tokenInterval;
+    private final SplittableRandom random;
+
+    public StubChatModel(String modelName) {
+        this(modelName, LatencyDistribution.NONE, Duration.ZERO, Duration.ZERO, 0);
+    }
+
+    public StubChatModel(
+            String modelName,
+            LatencyDistribution latency,
+            Duration firstTokenLatency,
+            Duration tokenInterval,
+            long seed) {
+        this.modelName = modelName;
+        this.latency = latency;
+        this.firstTokenLatency = firstTokenLatency;
+        this.tokenInterval = tokenInterval;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        simulateLatency();
+        String answer = answerFor(questionOf(prompt));
+        return response(answer, prompt.getContents(), answer);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        String answer = answerFor(questionOf(prompt));
+        List<String> chunks = new ArrayList<>();
+        for (String word : answer.split(" ")) {
+            chunks.add(chunks.isEmpty() ? word : " " + word);
+        }
+        Flux<String> tokens = Flux.fromIterable(chunks);
+        if (!tokenInterval.isZero()) {
+            tokens = tokens.delayElements(tokenInterval);
+        }
+        return Mono.delay(firstTokenLatency)
+                .thenMany(tokens)
+                .map(chunk -> response(chunk, prompt.getContents(), answer));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        // Tool calling options so that ChatClient passes tool definitions like for the real models
+        return ToolCallingChatOptions.builder().build();
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Build the deterministic answer for a question.
+     */
+    protected String answerFor(String question) {
+        return String.format("[%s] Stub answer #%08x for: %s", modelName, question.hashCode(), question);
+    }
+
+    /**
+     * Rough token estimate of four characters per token.
+     */
+    protected static int estimateTokens(String text) {
+        return text == null ? 0 : Math.max(1, text.length() / 4);
+    }
+
+    private ChatResponse response(String text, String promptText, String answer) {
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .model(modelName)
+                .usage(new DefaultUsage(estimateTokens(promptText), estimateTokens(answer)))
+                .build();
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata);
+    }
+
+    private void simulateLatency() {
+        if (latency.isNone()) {
+            return;
+        }
+        Duration delay;
+        synchronized (random) {
+            delay = latency.sample(random);
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String questionOf(Prompt prompt) {
+        UserMessage userMessage = prompt.getUserMessage();
+        return userMessage != null && userMessage.getText() != null ? userMessage.getText() : "";
+    }
+}
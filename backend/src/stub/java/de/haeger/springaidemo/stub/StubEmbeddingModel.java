@@ -0,0 +1,107 @@
+package de.haeger.springaidemo.stub;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic EmbeddingModel for benchmarks and offline load tests.
+ * Hashes the words of the text into a normalized vector, so texts sharing words
+ * are close to each other and the same text always gets the same embedding.
+ * Each call waits for a latency sampled from a configurable distribution.
+ */
+public class StubEmbeddingModel implements EmbeddingModel {
+
+    public static final int DEFAULT_DIMENSIONS = 768;
+
+    private final int dimensions;
+    private final LatencyDistribution latency;
+    private final SplittableRandom random;
+
+    public StubEmbeddingModel() {
+        this(DEFAULT_DIMENSIONS);
+    }
+
+    public StubEmbeddingModel(int dimensions) {
+        this(dimensions, LatencyDistribution.NONE, 0);
+    }
+
+    public StubEmbeddingModel(int dimensions, LatencyDistribution latency, long seed) {
+        this.dimensions = dimensions;
+        this.latency = latency;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        simulateLatency();
+        List<String> inputs = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(vectorFor(inputs.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        simulateLatency();
+        return vectorFor(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private void simulateLatency() {
+        if (latency.isNone()) {
+            return;
+        }
+        Duration delay;
+        synchronized (random) {
+            delay = latency.sample(random);
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private float[] vectorFor(String text) {
+        float[] vector = new float[dimensions];
+        if (text == null || text.isBlank()) {
+            vector[0] = 1.0f;
+            return vector;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            int hash = word.hashCode();
+            vector[Math.floorMod(hash, dimensions)] += (hash & 1) == 0 ? 1.0f : -1.0f;
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            vector[0] = 1.0f;
+            return vector;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
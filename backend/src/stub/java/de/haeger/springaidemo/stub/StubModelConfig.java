@@ -0,0 +1,55 @@
+package de.haeger.springaidemo.stub;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Replaces the Gemini and Ollama chat models and the Vertex text embedding model
+ * with deterministic local stubs when the "stub" profile is active.
+ * Used for offline load tests, see application-stub.yml for the latency settings.
+ */
+@Configuration
+@Profile("stub")
+public class StubModelConfig {
+
+    @Value("${app.stub.chat.latency:lognormal:800ms:0.4}")
+    private String chatLatency;
+
+    @Value("${app.stub.chat.first-token-latency:300ms}")
+    private Duration firstTokenLatency;
+
+    @Value("${app.stub.chat.token-interval:20ms}")
+    private Duration tokenInterval;
+
+    @Value("${app.stub.embedding.latency:fixed:30ms}")
+    private String embeddingLatency;
+
+    @Value("${app.stub.seed:42}")
+    private long seed;
+
+    @Bean
+    @Primary
+    @Qualifier("gemini")
+    public ChatModel geminiChatModel() {
+        return new StubChatModel("gemini", LatencyDistribution.parse(chatLatency), firstTokenLatency, tokenInterval, seed);
+    }
+
+    @Bean
+    @Qualifier("ollama")
+    public ChatModel ollamaModel() {
+        return new StubChatModel("ollama", LatencyDistribution.parse(chatLatency), firstTokenLatency, tokenInterval, seed + 1);
+    }
+
+    @Bean
+    public EmbeddingModel textEmbedding() {
+        return new StubEmbeddingModel(StubEmbeddingModel.DEFAULT_DIMENSIONS, LatencyDistribution.parse(embeddingLatency), seed);
+    }
+}
@@ -0,0 +1,310 @@
+package de.haeger.springaidemo.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.config.ChatClientConfig;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.dto.BatchJobDto;
+import de.haeger.springaidemo.dto.BatchPromptDto;
+import de.haeger.springaidemo.loadtest.PgVectorContainerConfig;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import de.haeger.springaidemo.rag.RagService;
+import de.haeger.springaidemo.service.ModelSwitchService;
+import de.haeger.springaidemo.stub.StubChatModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lifecycle of batch jobs: staged submission, answering with retries, cancellation,
+ * takeover of jobs with an expired lease and purging of abandoned submissions.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PgVectorContainerConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("de.haeger.springaidemo.loadtest.PgVectorContainerConfig#isDockerAvailable")
+class BatchChatServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ChatModel model = new StubChatModel("gemini");
+    private BatchChatService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM batch_job");
+
+        ModelSwitchService modelSwitchService = mock(ModelSwitchService.class);
+        when(modelSwitchService.getModel(anyString())).thenAnswer(invocation -> {
+            if (!"gemini".equals(invocation.getArgument(0))) {
+                throw new IllegalArgumentException("Unknown model: " + invocation.getArgument(0));
+            }
+            return model;
+        });
+        when(modelSwitchService.isModelReady(anyString())).thenReturn(true);
+        ChatClientConfig chatClientConfig = mock(ChatClientConfig.class);
+        when(chatClientConfig.createStatelessChatClient(any()))
+                .thenAnswer(invocation -> ChatClient.create(invocation.<ChatModel>getArgument(0)));
+
+        service = PropertyDefaults.apply(new BatchChatService(jdbcTemplate, transactionManager, chatClientConfig,
+                mock(RagService.class), modelSwitchService, new PipelineMetrics(new SimpleMeterRegistry()),
+                new ObjectMapper()));
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        ReflectionTestUtils.setField(service, "ollamaConcurrency", 0);
+        ReflectionTestUtils.setField(service, "retryBackoff", Duration.ofMillis(10));
+        // Maintenance is run by the tests that need it
+        ReflectionTestUtils.setField(service, "claimInterval", Duration.ofHours(1));
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void submittedJobAnswersAllPromptsAndCompletes() {
+        List<BatchPromptDto> prompts = IntStream.range(0, 5)
+                .mapToObj(index -> new BatchPromptDto("id-" + index, "Prompt " + index, null))
+                .toList();
+
+        BatchJobDto job = service.submit(prompts, "gemini", false);
+
+        assertThat(job.total()).isEqualTo(5);
+        BatchJobDto completed = awaitStatus(job.id(), "COMPLETED");
+        assertThat(completed.done()).isEqualTo(5);
+        assertThat(completed.failed()).isZero();
+        assertThat(completed.completedAt()).isNotNull();
+        List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "SELECT custom_id, answer, attempts, model FROM batch_item WHERE job_id = ? ORDER BY item_index",
+                job.id());
+        assertThat(items).hasSize(5);
+        assertThat(items.get(3))
+                .containsEntry("custom_id", "id-3")
+                .containsEntry("attempts", 1)
+                .containsEntry("model", "gemini");
+        assertThat((String) items.get(3).get("answer")).endsWith("for: Prompt 3");
+        assertThat(jdbcTemplate.queryForObject("SELECT lease_owner FROM batch_job WHERE id = ?", String.class, job.id()))
+                .isNull();
+    }
+
+    @Test
+    void uploadedPromptsAreReadAsNdjsonOrPlainText() throws Exception {
+        String upload = """
+                {"id": "first", "prompt": "Classify: great product"}
+
+                Classify: broken on arrival
+                {"prompt": "Classify: ok", "rag": false}
+                """;
+
+        BatchJobDto job = service.submit(
+                new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), null, false);
+
+        assertThat(job.model()).isEqualTo(BatchChatService.AUTO);
+        assertThat(job.total()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT COALESCE(custom_id, '-') || ' ' || prompt FROM batch_item WHERE job_id = ? ORDER BY item_index",
+                String.class, job.id()))
+                .containsExactly("first Classify: great product", "- Classify: broken on arrival", "- Classify: ok");
+        awaitStatus(job.id(), "COMPLETED");
+    }
+
+    @Test
+    void invalidUploadIsRejectedBeforeAnythingIsStored() {
+        String upload = "First prompt\n{\"prompt\": \"unterminated\"\n";
+
+        assertThatThrownBy(() -> service.submit(
+                new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)), "gemini", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Malformed prompt");
+        assertThatThrownBy(() -> service.submit(List.of(new BatchPromptDto(null, " ", null)), "gemini", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Empty prompt at index 0");
+        assertThatThrownBy(() -> service.submit(List.of(new BatchPromptDto(null, "Hi", null)), "unknown", false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM batch_job", Integer.class)).isZero();
+    }
+
+    @Test
+    void submissionFailingAfterTheFirstPageIsDeleted() {
+        // The third prompt, on the second page, does not fit the custom_id column
+        List<BatchPromptDto> prompts = List.of(
+                new BatchPromptDto("a", "Prompt a", null),
+                new BatchPromptDto("b", "Prompt b", null),
+                new BatchPromptDto("c".repeat(256), "Prompt c", null));
+
+        assertThatThrownBy(() -> service.submit(prompts, "gemini", false)).isInstanceOf(DataAccessException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM batch_job", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM batch_item", Integer.class)).isZero();
+    }
+
+    @Test
+    void failingPromptsAreRetriedAndMarkedFailed() {
+        StubChatModel stub = new StubChatModel("gemini");
+        model = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                if (prompt.getContents().contains("fail")) {
+                    throw new IllegalStateException("Model unavailable");
+                }
+                return stub.call(prompt);
+            }
+        };
+
+        BatchJobDto job = service.submit(List.of(
+                new BatchPromptDto(null, "Please fail", null),
+                new BatchPromptDto(null, "Please answer", null)), "gemini", false);
+
+        BatchJobDto completed = awaitStatus(job.id(), "COMPLETED");
+        assertThat(completed.done()).isEqualTo(1);
+        assertThat(completed.failed()).isEqualTo(1);
+        Map<String, Object> failed = jdbcTemplate.queryForMap(
+                "SELECT status, error, attempts, answer FROM batch_item WHERE job_id = ? AND item_index = 0", job.id());
+        assertThat(failed)
+                .containsEntry("status", "FAILED")
+                .containsEntry("attempts", 3)
+                .containsEntry("answer", null);
+        assertThat((String) failed.get("error")).contains("Model unavailable");
+    }
+
+    @Test
+    void cancelledJobKeepsItsPendingPrompts() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubChatModel stub = new StubChatModel("gemini");
+        model = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted");
+                }
+                return stub.call(prompt);
+            }
+        };
+        ReflectionTestUtils.setField(service, "geminiConcurrency", 1);
+        service.stop();
+        service.start();
+
+        BatchJobDto job = service.submit(List.of(
+                new BatchPromptDto(null, "One", null),
+                new BatchPromptDto(null, "Two", null),
+                new BatchPromptDto(null, "Three", null)), "gemini", false);
+        BatchJobDto cancelled = service.cancel(job.id());
+        release.countDown();
+
+        assertThat(cancelled.status()).isEqualTo(BatchChatService.CANCELLED);
+        assertThat(cancelled.completedAt()).isNotNull();
+        // The prompt in flight may still be stored, the others are not dispatched any more
+        Thread.sleep(500);
+        BatchJobDto after = service.getJob(job.id());
+        assertThat(after.status()).isEqualTo(BatchChatService.CANCELLED);
+        assertThat(after.done()).isLessThanOrEqualTo(1);
+        assertThat(service.cancel(job.id()).status()).isEqualTo(BatchChatService.CANCELLED);
+    }
+
+    @Test
+    void jobWithAnExpiredLeaseIsTakenOver() {
+        UUID jobId = UUID.randomUUID();
+        // One statement, so the maintenance started with the service sees the job with all its prompts
+        jdbcTemplate.update("WITH job AS (INSERT INTO batch_job (id, model, rag, status, item_count, lease_owner, "
+                + "lease_until) VALUES (?, 'gemini', false, 'RUNNING', 3, 'crashed-replica', "
+                + "CURRENT_TIMESTAMP - INTERVAL '1 minute') RETURNING id) "
+                + "INSERT INTO batch_item (job_id, item_index, prompt, status, answer, attempts) "
+                + "SELECT id, 0, 'Answered before the crash', 'DONE', 'Earlier answer', 1 FROM job "
+                + "UNION ALL SELECT id, 1, 'Pending 1', 'PENDING', NULL, 0 FROM job "
+                + "UNION ALL SELECT id, 2, 'Pending 2', 'PENDING', NULL, 0 FROM job", jobId);
+
+        ReflectionTestUtils.invokeMethod(service, "maintainJobs");
+
+        BatchJobDto completed = awaitStatus(jobId, "COMPLETED");
+        assertThat(completed.done()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT answer FROM batch_item WHERE job_id = ? AND item_index = 0", String.class, jobId))
+                .isEqualTo("Earlier answer");
+    }
+
+    @Test
+    void maintenancePurgesAbandonedSubmissionsAndExpiredJobs() {
+        UUID abandoned = UUID.randomUUID();
+        UUID submitting = UUID.randomUUID();
+        UUID expired = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        jdbcTemplate.update("WITH jobs AS (INSERT INTO batch_job (id, model, rag, status, item_count, lease_until, "
+                + "completed_at) VALUES "
+                + "(?, 'gemini', false, 'SUBMITTING', 1, CURRENT_TIMESTAMP - INTERVAL '1 minute', NULL), "
+                + "(?, 'gemini', false, 'SUBMITTING', 1, CURRENT_TIMESTAMP + INTERVAL '1 minute', NULL), "
+                + "(?, 'gemini', false, 'COMPLETED', 1, NULL, CURRENT_TIMESTAMP - INTERVAL '8 days'), "
+                + "(?, 'gemini', false, 'COMPLETED', 1, NULL, CURRENT_TIMESTAMP - INTERVAL '1 day') RETURNING id) "
+                + "INSERT INTO batch_item (job_id, item_index, prompt) SELECT id, 0, 'Prompt' FROM jobs",
+                abandoned, submitting, expired, recent);
+
+        ReflectionTestUtils.invokeMethod(service, "maintainJobs");
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM batch_job", UUID.class))
+                .containsExactlyInAnyOrder(submitting, recent);
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT job_id FROM batch_item", UUID.class))
+                .containsExactlyInAnyOrder(submitting, recent);
+    }
+
+    private BatchJobDto awaitStatus(UUID jobId, String status) {
+        await(() -> status.equals(service.getJob(jobId).status()));
+        return service.getJob(jobId);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted while waiting", e);
+            }
+        }
+    }
+}
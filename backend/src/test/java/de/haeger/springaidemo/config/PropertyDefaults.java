@@ -0,0 +1,51 @@
+package de.haeger.springaidemo.config;
+
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.annotation.QualifierAnnotationAutowireCandidateResolver;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.expression.StandardBeanExpressionResolver;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+
+/**
+ * Injects the {@code @Value} fields of components created outside Spring, e.g. by tests
+ * and benchmarks, with the defaults of their placeholders, so the defaults are declared
+ * only once, in the placeholder. Values are converted as in the application, so
+ * {@code 30s} becomes a {@link java.time.Duration}.
+ */
+public final class PropertyDefaults {
+
+    private static final DefaultListableBeanFactory BEAN_FACTORY = new DefaultListableBeanFactory();
+
+    static {
+        BEAN_FACTORY.setAutowireCandidateResolver(new QualifierAnnotationAutowireCandidateResolver());
+        BEAN_FACTORY.setConversionService(ApplicationConversionService.getSharedInstance());
+        // Only system properties, for nested placeholders such as ${java.io.tmpdir}; the
+        // environment variables of the machine must not change the defaults
+        MutablePropertySources propertySources = new MutablePropertySources();
+        propertySources.addFirst(new PropertiesPropertySource("systemProperties", System.getProperties()));
+        BEAN_FACTORY.addEmbeddedValueResolver(
+                new PropertySourcesPropertyResolver(propertySources)::resolveRequiredPlaceholders);
+        // Evaluates defaults such as #{null}
+        BEAN_FACTORY.setBeanExpressionResolver(new StandardBeanExpressionResolver());
+        AutowiredAnnotationBeanPostProcessor processor = new AutowiredAnnotationBeanPostProcessor();
+        processor.setBeanFactory(BEAN_FACTORY);
+        BEAN_FACTORY.addBeanPostProcessor(processor);
+    }
+
+    private PropertyDefaults() {
+    }
+
+    /**
+     * Inject the {@code @Value} fields of a component with their defaults.
+     *
+     * @param component the component
+     * @return the component
+     */
+    public static <T> T apply(T component) {
+        BEAN_FACTORY.autowireBean(component);
+        return component;
+    }
+}
@@ -0,0 +1,304 @@
+package de.haeger.springaidemo.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how many concurrent connections the backend holds per GB of heap.
+ * For each step it keeps the given number of connections open for the hold time and
+ * samples the used heap and live threads from the actuator. The heap is the lowest
+ * sample after the settle time, which is close to the live heap after a collection,
+ * minus the same measure while idle. Run it against the servlet and the reactive mode
+ * started with the same {@code -Xmx} to compare them.
+ * <ul>
+ *   <li>{@code chat}: closed loop of {@code /chat} requests, one in flight per connection</li>
+ *   <li>{@code chat-stream}: the same on {@code /chat/stream}, reading every event</li>
+ *   <li>{@code events}: one open {@code /info/conversations/events} stream per connection</li>
+ * </ul>
+ *
+ * <pre>
+ * --base-url=http://localhost:8080   backend to drive
+ * --endpoint=chat                    chat, chat-stream or events
+ * --connections=100,500,1000         concurrent connections per step
+ * --hold=30s                         how long each step keeps its connections open
+ * --settle=10s                       ramp-up before the heap is sampled
+ * --output=target/capacity.json      optional JSON report
+ * </pre>
+ */
+public class ConnectionCapacityDriver {
+
+    private static final Pattern VALUE_STATISTIC =
+            Pattern.compile("\"statistic\"\\s*:\\s*\"VALUE\"\\s*,\\s*\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(500);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        String endpoint = options.getOrDefault("endpoint", "chat");
+        List<Integer> steps = Arrays.stream(options.getOrDefault("connections", "100,500,1000").split(","))
+                .map(Integer::parseInt)
+                .toList();
+        Duration hold = parseDuration(options.getOrDefault("hold", "30s"));
+        Duration settle = parseDuration(options.getOrDefault("settle", "10s"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        List<Step> results = new ArrayList<>();
+        for (int connections : steps) {
+            System.out.printf(Locale.ROOT, "Holding %d %s connections for %ds%n",
+                    connections, endpoint, hold.toSeconds());
+            Sample idle = sample(client, baseUrl, settle);
+            Step step = new Step(endpoint, connections, hold, idle);
+            run(client, baseUrl, step, settle);
+            results.add(step);
+        }
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-12s %6s %10s %10s %12s %8s %10s %10s %8s%n",
+                "endpoint", "conns", "heap MB", "KB/conn", "conns/GB", "threads", "req/s", "p99 ms", "errors");
+        for (Step step : results) {
+            System.out.printf(Locale.ROOT, "%-12s %6d %10.1f %10.1f %12.0f %8d %10.1f %10.1f %7.2f%%%n",
+                    step.endpoint, step.connections, step.heapDeltaBytes() / 1024.0 / 1024.0,
+                    step.bytesPerConnection() / 1024.0, step.connectionsPerGb(), step.loaded.threads,
+                    step.throughput(), step.percentile(0.99), step.errorRate() * 100);
+        }
+
+        String output = options.get("output");
+        if (output != null) {
+            Files.writeString(Path.of(output), toJson(results));
+            System.out.println("Report written to " + output);
+        }
+    }
+
+    private static void run(HttpClient client, String baseUrl, Step step, Duration settle) throws Exception {
+        long deadline = System.nanoTime() + step.hold.toNanos();
+        AtomicLong sequence = new AtomicLong();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int connection = 0; connection < step.connections; connection++) {
+                workers.submit(() -> {
+                    if (step.endpoint.equals("events")) {
+                        step.record(0, hold(client, eventsRequest(baseUrl, deadline), deadline));
+                        return;
+                    }
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        boolean success = hold(client, chatRequest(baseUrl, step.endpoint, sequence.getAndIncrement()), deadline);
+                        if (System.nanoTime() < deadline) {
+                            step.record(System.nanoTime() - start, success);
+                        }
+                    }
+                });
+            }
+            Thread.sleep(settle.toMillis());
+            long remaining = deadline - System.nanoTime();
+            step.loaded = sample(client, baseUrl, Duration.ofNanos(Math.max(remaining, SAMPLE_INTERVAL.toNanos())));
+        }
+    }
+
+    /**
+     * Send a request and read its response to the end, or until the deadline for streams
+     * that stay open. An idle event stream is noticed at its next heartbeat.
+     */
+    private static boolean hold(HttpClient client, HttpRequest request, long deadline) {
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                byte[] buffer = new byte[8192];
+                while (System.nanoTime() < deadline && body.read(buffer) >= 0) {
+                    // Consume the answer or events as they arrive
+                }
+            }
+            return response.statusCode() >= 200 && response.statusCode() < 300;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static HttpRequest chatRequest(String baseUrl, String endpoint, long sequence) {
+        String path = switch (endpoint) {
+            case "chat" -> "/chat";
+            case "chat-stream" -> "/chat/stream";
+            default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        };
+        // One conversation per request, so the history does not grow during the run
+        return HttpRequest.newBuilder(URI.create(baseUrl + path + "?msg=" + encode("What is the weather in Bonn?")
+                        + "&conversationId=capacity-" + sequence))
+                .timeout(Duration.ofMinutes(5))
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest eventsRequest(String baseUrl, long deadline) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/info/conversations/events"))
+                .timeout(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 1)).plusSeconds(10))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+    }
+
+    /**
+     * Sample the used heap and live threads for a while. The heap is the lowest sample,
+     * the threads the highest.
+     */
+    private static Sample sample(HttpClient client, String baseUrl, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        double heap = Double.MAX_VALUE;
+        double threads = 0;
+        do {
+            heap = Math.min(heap, metric(client, baseUrl, "jvm.memory.used?tag=area:heap"));
+            threads = Math.max(threads, metric(client, baseUrl, "jvm.threads.live"));
+            Thread.sleep(SAMPLE_INTERVAL.toMillis());
+        } while (System.nanoTime() < deadline);
+        return new Sample((long) heap, (int) threads);
+    }
+
+    private static double metric(HttpClient client, String baseUrl, String metric) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + metric))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("No metric " + metric);
+        }
+        Matcher matcher = VALUE_STATISTIC.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected metrics response: " + response.body());
+        }
+        return Double.parseDouble(matcher.group(1));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value.endsWith("s") ? value.substring(0, value.length() - 1) : value));
+    }
+
+    private static String toJson(List<Step> results) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Step step = results.get(i);
+            json.append(String.format(Locale.ROOT,
+                    "  {\"endpoint\": \"%s\", \"connections\": %d, \"idleHeapBytes\": %d, \"heapBytes\": %d, "
+                            + "\"bytesPerConnection\": %.0f, \"connectionsPerGb\": %.0f, \"threads\": %d, "
+                            + "\"requests\": %d, \"throughput\": %.2f, \"p99Ms\": %.2f, \"errorRate\": %.4f}%s%n",
+                    step.endpoint, step.connections, step.idle.heapBytes, step.loaded.heapBytes,
+                    step.bytesPerConnection(), step.connectionsPerGb(), step.loaded.threads,
+                    step.count(), step.throughput(), step.percentile(0.99), step.errorRate(),
+                    i < results.size() - 1 ? "," : ""));
+        }
+        return json.append("]\n").toString();
+    }
+
+    /**
+     * Used heap and live threads of the backend.
+     */
+    private record Sample(long heapBytes, int threads) {}
+
+    /**
+     * Heap samples, latencies and errors of one step.
+     */
+    private static final class Step {
+        private final String endpoint;
+        private final int connections;
+        private final Duration hold;
+        private final Sample idle;
+        private final List<Long> latencies = new ArrayList<>();
+        private long errors;
+        private volatile Sample loaded;
+
+        private Step(String endpoint, int connections, Duration hold, Sample idle) {
+            this.endpoint = endpoint;
+            this.connections = connections;
+            this.hold = hold;
+            this.idle = idle;
+        }
+
+        private synchronized void record(long nanos, boolean success) {
+            latencies.add(nanos);
+            if (!success) {
+                errors++;
+            }
+        }
+
+        private long heapDeltaBytes() {
+            return Math.max(loaded.heapBytes - idle.heapBytes, 0);
+        }
+
+        private double bytesPerConnection() {
+            return (double) heapDeltaBytes() / connections;
+        }
+
+        private double connectionsPerGb() {
+            double bytesPerConnection = bytesPerConnection();
+            return bytesPerConnection == 0 ? 0 : (1024.0 * 1024 * 1024) / bytesPerConnection;
+        }
+
+        private synchronized int count() {
+            return latencies.size();
+        }
+
+        private synchronized double throughput() {
+            return endpoint.equals("events") ? 0 : latencies.size() / (hold.toNanos() / 1e9);
+        }
+
+        private synchronized double errorRate() {
+            return latencies.isEmpty() ? 0 : (double) errors / latencies.size();
+        }
+
+        private synchronized double percentile(double quantile) {
+            if (latencies.isEmpty() || endpoint.equals("events")) {
+                return 0;
+            }
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+}
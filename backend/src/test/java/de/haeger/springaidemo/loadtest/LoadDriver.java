@@ -0,0 +1,275 @@
+package de.haeger.springaidemo.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load driver for the chat and RAG endpoints.
+ * Runs a fixed number of concurrent workers per endpoint for a fixed duration and
+ * reports throughput, p50/p95/p99 latency and error rate.
+ * Afterwards it checks the longest time a connection of each database pool was held:
+ * the stub model's latency is far above any query, so a longer hold means a connection
+ * was kept checked out while waiting for the model, and the run fails.
+ *
+ * <pre>
+ * --base-url=http://localhost:8080   backend to drive
+ * --endpoints=chat,rag-ask,rag-add-text
+ * --concurrency=16                   concurrent workers per endpoint
+ * --duration=60s                     measured run length
+ * --warmup=10s                       unmeasured warmup
+ * --output=target/loadtest.json      optional JSON report
+ * --pools=memory,vector-store         database pools to check
+ * --max-connection-hold=250ms         longest allowed connection hold per pool
+ * </pre>
+ */
+public class LoadDriver {
+
+    private static final List<String> QUESTIONS = List.of(
+            "What is the weather in Bonn?",
+            "Summarize the indexed weather data.",
+            "Which day had the most rain?",
+            "What was the highest temperature?",
+            "Explain the forecast in one sentence."
+    );
+
+    private static final Pattern MAX_STATISTIC =
+            Pattern.compile("\"statistic\"\\s*:\\s*\"MAX\"\\s*,\\s*\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        List<String> endpoints = Arrays.asList(options.getOrDefault("endpoints", "chat,rag-ask,rag-add-text").split(","));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "60s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        List<String> pools = Arrays.asList(options.getOrDefault("pools", "memory,vector-store").split(","));
+        Duration maxConnectionHold = parseDuration(options.getOrDefault("max-connection-hold", "250ms"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        // Make sure there is something to retrieve before asking RAG questions
+        send(client, request(baseUrl, "rag-add-text", 0));
+
+        List<Result> results = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            System.out.printf(Locale.ROOT, "Driving %s with %d workers for %ds (warmup %ds)%n",
+                    endpoint, concurrency, duration.toSeconds(), warmup.toSeconds());
+            run(client, baseUrl, endpoint, concurrency, warmup, null);
+            Result result = new Result(endpoint, concurrency, duration);
+            run(client, baseUrl, endpoint, concurrency, duration, result);
+            results.add(result);
+        }
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-14s %6s %10s %10s %10s %10s %8s%n",
+                "endpoint", "conc", "req/s", "p50 ms", "p95 ms", "p99 ms", "errors");
+        for (Result result : results) {
+            System.out.printf(Locale.ROOT, "%-14s %6d %10.1f %10.1f %10.1f %10.1f %7.2f%%%n",
+                    result.endpoint, result.concurrency, result.throughput(),
+                    result.percentile(0.50), result.percentile(0.95), result.percentile(0.99),
+                    result.errorRate() * 100);
+        }
+
+        String output = options.get("output");
+        if (output != null) {
+            Files.writeString(Path.of(output), toJson(results));
+            System.out.println("Report written to " + output);
+        }
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-14s %16s%n", "pool", "max hold ms");
+        boolean held = false;
+        for (String pool : pools) {
+            double maxHoldMs = maxConnectionHoldMs(client, baseUrl, pool);
+            boolean exceeded = maxHoldMs > maxConnectionHold.toMillis();
+            held |= exceeded;
+            System.out.printf(Locale.ROOT, "%-14s %16.1f%s%n", pool, maxHoldMs, exceeded ? "  EXCEEDED" : "");
+        }
+        if (held) {
+            System.out.printf(Locale.ROOT, "A connection was held longer than %d ms%n", maxConnectionHold.toMillis());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read the longest recent connection hold of a pool from the Hikari usage timer.
+     */
+    private static double maxConnectionHoldMs(HttpClient client, String baseUrl, String pool) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl
+                        + "/actuator/metrics/hikaricp.connections.usage?tag=pool:" + encode(pool)))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("No connection usage metrics for pool " + pool);
+        }
+        Matcher matcher = MAX_STATISTIC.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected metrics response: " + response.body());
+        }
+        return Double.parseDouble(matcher.group(1)) * 1000;
+    }
+
+    private static void run(HttpClient client, String baseUrl, String endpoint, int concurrency,
+                            Duration duration, Result result) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong sequence = new AtomicLong();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = request(baseUrl, endpoint, sequence.getAndIncrement());
+                        long start = System.nanoTime();
+                        boolean success = send(client, request);
+                        if (result != null) {
+                            result.record(System.nanoTime() - start, success);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static HttpRequest request(String baseUrl, String endpoint, long sequence) {
+        String question = QUESTIONS.get((int) (sequence % QUESTIONS.size()));
+        // Spread requests over a bounded set of conversations, like real users would
+        String conversationId = "loadtest-" + (sequence % 256);
+        return switch (endpoint) {
+            case "chat" -> HttpRequest.newBuilder(URI.create(baseUrl + "/chat?msg=" + encode(question)
+                            + "&conversationId=" + conversationId))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            case "rag-ask" -> HttpRequest.newBuilder(URI.create(baseUrl + "/rag/ask?question=" + encode(question)
+                            + "&conversationId=" + conversationId))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            case "rag-add-text" -> HttpRequest.newBuilder(URI.create(baseUrl + "/rag/addText"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofString("Load test document " + sequence
+                            + ". The weather in Bonn is sunny with 24 degrees and light wind from the west."))
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+        };
+    }
+
+    private static boolean send(HttpClient client, HttpRequest request) {
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() >= 200 && response.statusCode() < 300;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value.endsWith("s") ? value.substring(0, value.length() - 1) : value));
+    }
+
+    private static String toJson(List<Result> results) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(String.format(Locale.ROOT,
+                    "  {\"endpoint\": \"%s\", \"concurrency\": %d, \"requests\": %d, \"throughput\": %.2f, "
+                            + "\"p50Ms\": %.2f, \"p95Ms\": %.2f, \"p99Ms\": %.2f, \"errorRate\": %.4f}%s%n",
+                    result.endpoint, result.concurrency, result.count(), result.throughput(),
+                    result.percentile(0.50), result.percentile(0.95), result.percentile(0.99),
+                    result.errorRate(), i < results.size() - 1 ? "," : ""));
+        }
+        return json.append("]\n").toString();
+    }
+
+    /**
+     * Latencies and errors of one endpoint run.
+     */
+    private static final class Result {
+        private final String endpoint;
+        private final int concurrency;
+        private final Duration duration;
+        private final List<Long> latencies = new ArrayList<>();
+        private long errors;
+
+        private Result(String endpoint, int concurrency, Duration duration) {
+            this.endpoint = endpoint;
+            this.concurrency = concurrency;
+            this.duration = duration;
+        }
+
+        private synchronized void record(long nanos, boolean success) {
+            latencies.add(nanos);
+            if (!success) {
+                errors++;
+            }
+        }
+
+        private synchronized int count() {
+            return latencies.size();
+        }
+
+        private synchronized double throughput() {
+            return latencies.size() / (duration.toNanos() / 1e9);
+        }
+
+        private synchronized double errorRate() {
+            return latencies.isEmpty() ? 0 : (double) errors / latencies.size();
+        }
+
+        private synchronized double percentile(double quantile) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package de.haeger.springaidemo.loadtest;
+
+import de.haeger.springaidemo.SpringAiDemoApplication;
+import org.springframework.boot.SpringApplication;
+
+/**
+ * Starts the backend with stub models and a Testcontainers pgvector database.
+ * Needs Docker but no cloud credentials or GPU:
+ * {@code mvn spring-boot:test-run -Dspring-boot.run.main-class=de.haeger.springaidemo.loadtest.LoadTestApplication}
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.from(SpringAiDemoApplication::main)
+                .with(PgVectorContainerConfig.class)
+                .withAdditionalProfiles("stub")
+                .run(args);
+    }
+}
@@ -0,0 +1,39 @@
+package de.haeger.springaidemo.loadtest;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+/**
+ * Starts the same pgvector image as docker-compose.yml with the same init script,
+ * and connects the datasource to it. Tests using it are skipped without Docker, see
+ * {@link #isDockerAvailable()}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class PgVectorContainerConfig {
+
+    /**
+     * Condition of the database tests:
+     * {@code @EnabledIf("de.haeger.springaidemo.loadtest.PgVectorContainerConfig#isDockerAvailable")}
+     */
+    public static boolean isDockerAvailable() {
+        return DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @Bean
+    @ServiceConnection
+    public PostgreSQLContainer<?> pgVectorContainer() {
+        return new PostgreSQLContainer<>(DockerImageName.parse("pgvector/pgvector:pg18-trixie")
+                .asCompatibleSubstituteFor("postgres"))
+                .withDatabaseName("ai")
+                .withUsername("aiuser")
+                .withPassword("aisecret")
+                .withCopyFileToContainer(
+                        MountableFile.forHostPath("init/01-init.sql"),
+                        "/docker-entrypoint-initdb.d/01-init.sql");
+    }
+}
@@ -0,0 +1,187 @@
+package de.haeger.springaidemo.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.dto.RetentionResultDto;
+import de.haeger.springaidemo.entity.ArchivedConversation;
+import de.haeger.springaidemo.loadtest.PgVectorContainerConfig;
+import de.haeger.springaidemo.repository.ArchivedConversationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retention moves cold conversations into the archive in keyset batches, and restore moves
+ * them back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PgVectorContainerConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("de.haeger.springaidemo.loadtest.PgVectorContainerConfig#isDockerAvailable")
+class ChatMemoryArchiveServiceTest {
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(200)).truncatedTo(ChronoUnit.MILLIS);
+    private static final Instant RECENT = Instant.now().minus(Duration.ofDays(1)).truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArchivedConversationRepository archivedConversationRepository;
+
+    private ChatMemoryArchiveService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM spring_ai_chat_memory");
+        jdbcTemplate.update("DELETE FROM chat_memory_archive");
+        jdbcTemplate.update("DELETE FROM conversation_start");
+        service = PropertyDefaults.apply(new ChatMemoryArchiveService(jdbcTemplate, transactionManager,
+                archivedConversationRepository, new ObjectMapper().findAndRegisterModules()));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "batchPause", Duration.ZERO);
+    }
+
+    @Test
+    void candidatesArePagedInIdOrder() {
+        for (String conversationId : List.of("e", "b", "d", "a", "c")) {
+            insertMessage(conversationId, "USER", "Hello", OLD);
+        }
+        insertMessage("f", "USER", "Hello", RECENT);
+        Timestamp inactiveBefore = Timestamp.from(Instant.now().minus(Duration.ofDays(90)));
+        Timestamp startedBefore = Timestamp.from(Instant.EPOCH);
+
+        assertThat(service.archiveCandidates(null, inactiveBefore, startedBefore)).containsExactly("a", "b");
+        assertThat(service.archiveCandidates("b", inactiveBefore, startedBefore)).containsExactly("c", "d");
+        assertThat(service.archiveCandidates("d", inactiveBefore, startedBefore)).containsExactly("e");
+        assertThat(service.archiveCandidates("e", inactiveBefore, startedBefore)).isEmpty();
+    }
+
+    @Test
+    void retentionArchivesInactiveConversationsAcrossBatches() {
+        for (String conversationId : List.of("a", "b", "c", "d", "e")) {
+            insertMessage(conversationId, "SYSTEM", "You are helpful", OLD);
+            insertMessage(conversationId, "USER", "Question " + conversationId, OLD.plusSeconds(1));
+            insertMessage(conversationId, "ASSISTANT", "Answer " + conversationId, OLD.plusSeconds(2));
+        }
+        insertMessage("f", "USER", "Recent question", RECENT);
+
+        RetentionResultDto result = service.applyRetention();
+
+        assertThat(result.archived()).isEqualTo(5);
+        assertThat(service.findArchivedConversationIds()).containsExactlyInAnyOrder("a", "b", "c", "d", "e");
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT conversation_id FROM spring_ai_chat_memory", String.class))
+                .containsExactly("f");
+        ArchivedConversation archive = archivedConversationRepository.findById("c").orElseThrow();
+        assertThat(archive.getTitle()).isEqualTo("Question c");
+        assertThat(archive.getMessageCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retentionArchivesConversationsStartedBeforeTheMaximumAgeOnceConfigured() {
+        ChatMemoryRepository repository = JdbcChatMemoryRepository.builder().jdbcTemplate(jdbcTemplate).build();
+        repository.saveAll("a", List.of(new UserMessage("Old question")));
+        jdbcTemplate.update("UPDATE conversation_start SET started_at = ? WHERE conversation_id = ?",
+                Timestamp.from(OLD), "a");
+        // Every save rewrites the messages with fresh timestamps
+        repository.saveAll("a", List.of(new UserMessage("Old question"), new UserMessage("Recent question")));
+
+        assertThat(service.applyRetention().archived()).isZero();
+
+        ReflectionTestUtils.setField(service, "maxAge", Duration.ofDays(30));
+        assertThat(service.applyRetention().archived()).isEqualTo(1);
+        assertThat(service.isArchived("a")).isTrue();
+        assertThat(archivedConversationRepository.findById("a").orElseThrow().getFirstMessageAt())
+                .isEqualTo(LocalDateTime.ofInstant(OLD, ZoneId.systemDefault()));
+    }
+
+    @Test
+    void conversationStartIsKeptUntilTheMemoryIsCleared() {
+        insertMessage("a", "USER", "Question", RECENT);
+        insertMessage("a", "USER", "Earlier question", OLD);
+        insertMessage("a", "USER", "Later question", Instant.now());
+        assertThat(startedAt("a")).containsExactly(OLD);
+
+        service.deleteArchive("a");
+
+        assertThat(startedAt("a")).isEmpty();
+    }
+
+    @Test
+    void restoreMovesTheMessagesBackInOrder() {
+        insertMessage("a", "USER", "Question", OLD);
+        insertMessage("a", "ASSISTANT", "Answer", OLD.plusSeconds(1));
+        service.applyRetention();
+        assertThat(service.isArchived("a")).isTrue();
+
+        assertThat(service.restore("a")).isTrue();
+
+        assertThat(service.isArchived("a")).isFalse();
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT type || ': ' || content FROM spring_ai_chat_memory WHERE conversation_id = ? "
+                        + "ORDER BY \"timestamp\"", String.class, "a"))
+                .containsExactly("USER: Question", "ASSISTANT: Answer");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT \"timestamp\" FROM spring_ai_chat_memory WHERE conversation_id = ? AND type = 'USER'",
+                Timestamp.class, "a").toInstant()).isEqualTo(OLD);
+        assertThat(service.restore("a")).isFalse();
+    }
+
+    @Test
+    void restoreOfAnUnknownConversationRestoresNothing() {
+        assertThat(service.isArchived("unknown")).isFalse();
+        assertThat(service.restore("unknown")).isFalse();
+    }
+
+    @Test
+    void retentionPurgesArchivesPastTheirRetention() {
+        insertMessage("a", "USER", "Question", OLD);
+        service.applyRetention();
+        jdbcTemplate.update("UPDATE chat_memory_archive SET archived_at = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(400)));
+
+        ReflectionTestUtils.setField(service, "archiveRetention", Duration.ofDays(365));
+        RetentionResultDto result = service.applyRetention();
+
+        assertThat(result.purged()).isEqualTo(1);
+        assertThat(service.isArchived("a")).isFalse();
+        assertThat(startedAt("a")).isEmpty();
+    }
+
+    private List<Instant> startedAt(String conversationId) {
+        return jdbcTemplate.queryForList("SELECT started_at FROM conversation_start WHERE conversation_id = ?",
+                Timestamp.class, conversationId).stream().map(Timestamp::toInstant).toList();
+    }
+
+    private void insertMessage(String conversationId, String type, String content, Instant timestamp) {
+        jdbcTemplate.update(
+                "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") VALUES (?, ?, ?, ?)",
+                conversationId, content, type, Timestamp.from(timestamp));
+    }
+}
@@ -0,0 +1,153 @@
+package de.haeger.springaidemo.memory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.loadtest.PgVectorContainerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The statement triggers of V10 notify once per distinct conversation of a statement.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PgVectorContainerConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("de.haeger.springaidemo.loadtest.PgVectorContainerConfig#isDockerAvailable")
+class ConversationEventTriggersTest {
+
+    private static final String INSERT_MESSAGES =
+            "INSERT INTO spring_ai_chat_memory (conversation_id, content, type, \"timestamp\") "
+                    + "SELECT conversation_id, 'message', 'USER', CURRENT_TIMESTAMP "
+                    + "FROM unnest(?::text[]) AS conversation_id";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String first = UUID.randomUUID().toString();
+    private final String second = UUID.randomUUID().toString();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Connection connection;
+    private PGConnection listener;
+
+    @BeforeEach
+    void listen() throws SQLException {
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN cache_invalidation");
+        }
+        listener = connection.unwrap(PGConnection.class);
+        // Drops notifications a pooled connection received before
+        listener.getNotifications();
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UNLISTEN *");
+        }
+        connection.close();
+        jdbcTemplate.update("DELETE FROM spring_ai_chat_memory WHERE conversation_id IN (?, ?)", first, second);
+        jdbcTemplate.update("DELETE FROM chat_memory_archive WHERE conversation_id IN (?, ?)", first, second);
+    }
+
+    @Test
+    void insertNotifiesOncePerConversation() throws Exception {
+        jdbcTemplate.update(INSERT_MESSAGES, (Object) new String[] {first, first, first, second, second});
+
+        assertThat(notifiedConversations()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void updateNotifiesOncePerConversation() throws Exception {
+        jdbcTemplate.update(INSERT_MESSAGES, (Object) new String[] {first, first, second});
+        notifiedConversations();
+
+        jdbcTemplate.update("UPDATE spring_ai_chat_memory SET content = 'edited' WHERE conversation_id IN (?, ?)",
+                first, second);
+
+        assertThat(notifiedConversations()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void updateMovingMessagesNotifiesBothConversations() throws Exception {
+        jdbcTemplate.update(INSERT_MESSAGES, (Object) new String[] {first, first});
+        notifiedConversations();
+
+        jdbcTemplate.update("UPDATE spring_ai_chat_memory SET conversation_id = ? WHERE conversation_id = ?",
+                second, first);
+
+        assertThat(notifiedConversations()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void deleteNotifiesOncePerConversation() throws Exception {
+        jdbcTemplate.update(INSERT_MESSAGES, (Object) new String[] {first, first, second, second});
+        notifiedConversations();
+
+        jdbcTemplate.update("DELETE FROM spring_ai_chat_memory WHERE conversation_id IN (?, ?)", first, second);
+
+        assertThat(notifiedConversations()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void statementWithoutRowsNotifiesNothing() throws Exception {
+        jdbcTemplate.update("DELETE FROM spring_ai_chat_memory WHERE conversation_id = ?", first);
+
+        assertThat(notifiedConversations()).isEmpty();
+    }
+
+    @Test
+    void archiveChangesNotify() throws Exception {
+        jdbcTemplate.update("INSERT INTO chat_memory_archive (conversation_id, message_count, first_message_at, "
+                + "last_message_at, archived_at, payload) VALUES (?, 1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, "
+                + "CURRENT_TIMESTAMP, ''::bytea)", first);
+        assertThat(notifiedConversations()).containsExactly(first);
+
+        jdbcTemplate.update("DELETE FROM chat_memory_archive WHERE conversation_id = ?", first);
+        assertThat(notifiedConversations()).containsExactly(first);
+    }
+
+    /**
+     * Collect the conversations notified until no notification arrives for a while.
+     * Notifications of other caches, e.g. the vector store, are ignored.
+     */
+    private List<String> notifiedConversations() throws Exception {
+        List<String> conversations = new ArrayList<>();
+        PGNotification[] notifications;
+        while ((notifications = listener.getNotifications(500)) != null && notifications.length > 0) {
+            for (PGNotification notification : notifications) {
+                JsonNode payload = objectMapper.readTree(notification.getParameter());
+                if ("conversation".equals(payload.path("cache").asText())) {
+                    conversations.add(payload.path("key").asText());
+                }
+            }
+        }
+        return conversations;
+    }
+}
@@ -0,0 +1,107 @@
+package de.haeger.springaidemo.ollama;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The manager matches the models listed by a fake {@code /api/ps} to the configured models.
+ */
+class OllamaModelManagerTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile String runningModels = "{\"models\": []}";
+
+    private HttpServer ollama;
+    private OllamaModelManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ollama = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ollama.createContext("/api/ps", exchange -> respond(exchange, runningModels));
+        ollama.createContext("/api/generate", exchange -> {
+            loads.incrementAndGet();
+            respond(exchange, "{\"done\": true}");
+        });
+        ollama.start();
+
+        manager = PropertyDefaults.apply(
+                new OllamaModelManager(new PipelineMetrics(new SimpleMeterRegistry()), RestClient.builder()));
+        ReflectionTestUtils.setField(manager, "baseUrl", "http://localhost:" + ollama.getAddress().getPort());
+        ReflectionTestUtils.setField(manager, "chatModel", "llama3");
+        ReflectionTestUtils.setField(manager, "loadTimeout", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.stop();
+        ollama.stop(0);
+    }
+
+    @Test
+    void namesWithoutTagAreComparedWithTheLatestTag() {
+        assertThat(OllamaModelManager.withTag("llama3")).isEqualTo("llama3:latest");
+        assertThat(OllamaModelManager.withTag("gpt-oss:20b")).isEqualTo("gpt-oss:20b");
+        assertThat(OllamaModelManager.withTag("localhost:5000/llama3")).isEqualTo("localhost:5000/llama3:latest");
+        assertThat(OllamaModelManager.withTag("localhost:5000/llama3:8b")).isEqualTo("localhost:5000/llama3:8b");
+    }
+
+    @Test
+    void untaggedModelListedWithItsTagStaysLoaded() {
+        startAndAwaitPreload();
+        runningModels = "{\"models\": [{\"name\": \"llama3:latest\", \"model\": \"llama3:latest\", "
+                + "\"expires_at\": \"" + OffsetDateTime.now().plusMinutes(30) + "\"}]}";
+
+        ReflectionTestUtils.invokeMethod(manager, "refresh");
+
+        assertThat(manager.getChatModelState()).isEqualTo(OllamaModelManager.State.LOADED);
+        assertThat(manager.useChatModel()).isTrue();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void modelMissingFromTheListIsReloaded() {
+        startAndAwaitPreload();
+
+        ReflectionTestUtils.invokeMethod(manager, "refresh");
+
+        assertThat(manager.useChatModel()).isFalse();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(loads).hasValue(2);
+            assertThat(manager.getChatModelState()).isEqualTo(OllamaModelManager.State.LOADED);
+        });
+    }
+
+    private void startAndAwaitPreload() {
+        manager.start();
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> manager.getChatModelState() == OllamaModelManager.State.LOADED);
+        assertThat(loads).hasValue(1);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (exchange) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+}
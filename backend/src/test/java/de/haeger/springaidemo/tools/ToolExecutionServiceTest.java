@@ -0,0 +1,129 @@
+package de.haeger.springaidemo.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.observability.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolExecutionServiceTest {
+
+    private final ToolExecutionService service = PropertyDefaults.apply(
+            new ToolExecutionService(new PipelineMetrics(new SimpleMeterRegistry()), new ObjectMapper()));
+
+    @AfterEach
+    void shutDown() {
+        service.destroy();
+    }
+
+    @Test
+    void keyIgnoresTheOrderOfObjectKeys() {
+        CountingTool tool = new CountingTool("weather");
+
+        assertThat(service.cacheKey(tool, "{\"city\":\"Bonn\",\"days\":3,\"options\":{\"b\":1,\"a\":2}}", null))
+                .isEqualTo(service.cacheKey(tool, "{\"options\":{\"a\":2,\"b\":1},\"days\":3,\"city\":\"Bonn\"}", null));
+    }
+
+    @Test
+    void keyKeepsValuesAndArrayOrder() {
+        CountingTool tool = new CountingTool("weather");
+
+        assertThat(service.cacheKey(tool, "{\"city\":\"Bonn\"}", null))
+                .isNotEqualTo(service.cacheKey(tool, "{\"city\":\"bonn\"}", null));
+        assertThat(service.cacheKey(tool, "{\"days\":[1,2]}", null))
+                .isNotEqualTo(service.cacheKey(tool, "{\"days\":[2,1]}", null));
+    }
+
+    @Test
+    void keyDistinguishesToolsAndKeepsArgumentsThatAreNoJson() {
+        assertThat(service.cacheKey(new CountingTool("weather"), "{}", null))
+                .isNotEqualTo(service.cacheKey(new CountingTool("forecast"), "{}", null));
+        assertThat(service.cacheKey(new CountingTool("weather"), "Bonn, 3 days", null))
+                .isEqualTo("weather:Bonn, 3 days");
+    }
+
+    @Test
+    void keyIncludesTheToolContextExceptTheToolCallHistory() {
+        CountingTool tool = new CountingTool("weather");
+        String input = "{\"city\":\"Bonn\"}";
+
+        String first = service.cacheKey(tool, input, new ToolContext(Map.of(
+                "conversationId", "c1",
+                ToolContext.TOOL_CALL_HISTORY, List.of(new UserMessage("first")))));
+        String later = service.cacheKey(tool, input, new ToolContext(Map.of(
+                "conversationId", "c1",
+                ToolContext.TOOL_CALL_HISTORY, List.of(new UserMessage("first"), new UserMessage("second")))));
+        String other = service.cacheKey(tool, input, new ToolContext(Map.of("conversationId", "c2")));
+
+        assertThat(later).isEqualTo(first);
+        assertThat(other).isNotEqualTo(first);
+        assertThat(service.cacheKey(tool, input, new ToolContext(Map.of())))
+                .isEqualTo(service.cacheKey(tool, input, null));
+    }
+
+    @Test
+    void keyIsNullForAToolContextThatCannotBeSerialized() {
+        ToolContext context = new ToolContext(Map.of("stream", new Object()));
+
+        assertThat(service.cacheKey(new CountingTool("weather"), "{}", context)).isNull();
+    }
+
+    @Test
+    void callsWithTheSameKeyShareOneExecution() {
+        CountingTool tool = new CountingTool("weather");
+
+        String first = service.call(tool, "{\"city\":\"Bonn\",\"days\":3}", null);
+        String second = service.call(tool, "{\"days\":3,\"city\":\"Bonn\"}", null);
+        service.call(tool, "{\"city\":\"Köln\",\"days\":3}", null);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(tool.calls).hasValue(2);
+    }
+
+    @Test
+    void callsOfOtherConversationsAreExecutedAgain() {
+        CountingTool tool = new CountingTool("weather");
+
+        service.call(tool, "{\"city\":\"Bonn\"}", new ToolContext(Map.of("conversationId", "c1")));
+        service.call(tool, "{\"city\":\"Bonn\"}", new ToolContext(Map.of("conversationId", "c1")));
+        service.call(tool, "{\"city\":\"Bonn\"}", new ToolContext(Map.of("conversationId", "c2")));
+
+        assertThat(tool.calls).hasValue(2);
+    }
+
+    private static final class CountingTool implements ToolCallback {
+
+        private final ToolDefinition definition;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingTool(String name) {
+            this.definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return definition;
+        }
+
+        @Override
+        public String call(String toolInput) {
+            return definition.name() + " #" + calls.incrementAndGet() + " for " + toolInput;
+        }
+
+        @Override
+        public String call(String toolInput, ToolContext toolContext) {
+            return call(toolInput);
+        }
+    }
+}
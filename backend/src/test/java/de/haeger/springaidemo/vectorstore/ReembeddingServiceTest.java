@@ -0,0 +1,113 @@
+package de.haeger.springaidemo.vectorstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.loadtest.PgVectorContainerConfig;
+import de.haeger.springaidemo.stub.StubEmbeddingModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The re-embedding walks the outdated documents with a keyset cursor in PostgreSQL's UUID order.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PgVectorContainerConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("de.haeger.springaidemo.loadtest.PgVectorContainerConfig#isDockerAvailable")
+class ReembeddingServiceTest {
+
+    private static final String MODEL_ID = "stub:embedding";
+
+    // In PostgreSQL's unsigned byte order; the last two sort before the first as signed Java UUIDs
+    private static final List<String> OUTDATED = List.of(
+            "00000000-0000-0000-0000-000000000001",
+            "00000000-0000-0000-0000-000000000003",
+            "7fffffff-0000-0000-0000-000000000001",
+            "80000000-0000-0000-0000-000000000001",
+            "ffffffff-0000-0000-0000-000000000001");
+    private static final String OTHER_MODEL = "00000000-0000-0000-0000-000000000004";
+    private static final String CURRENT = "00000000-0000-0000-0000-000000000002";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ReembeddingService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM vector_store");
+        for (String id : OUTDATED) {
+            insertDocument(id, "{\"source\": \"text-input\"}");
+        }
+        insertDocument(OTHER_MODEL,
+                "{\"source\": \"text-input\", \"embedding_model\": \"vertex:text-embedding-004\"}");
+        insertDocument(CURRENT, "{\"source\": \"text-input\", \"embedding_model\": \"" + MODEL_ID + "\"}");
+
+        service = PropertyDefaults.apply(
+                new ReembeddingService(jdbcTemplate, new StubEmbeddingModel(), new ObjectMapper()));
+        ReflectionTestUtils.setField(service, "embeddingModelId", MODEL_ID);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    void cursorWalksOutdatedDocumentsInIdOrder() {
+        List<String> first = ids(service.nextBatch(null));
+        List<String> second = ids(service.nextBatch(UUID.fromString(first.get(1))));
+        List<String> third = ids(service.nextBatch(UUID.fromString(second.get(1))));
+        List<String> last = ids(service.nextBatch(UUID.fromString(third.get(1))));
+
+        assertThat(first).containsExactly(OUTDATED.get(0), OUTDATED.get(1));
+        assertThat(second).containsExactly(OTHER_MODEL, OUTDATED.get(2));
+        assertThat(third).containsExactly(OUTDATED.get(3), OUTDATED.get(4));
+        assertThat(last).isEmpty();
+    }
+
+    @Test
+    void batchCarriesContentAndMetadata() {
+        Document document = service.nextBatch(null).get(0);
+
+        assertThat(document.getText()).isEqualTo("Content of " + OUTDATED.get(0));
+        assertThat(document.getMetadata()).containsEntry("source", "text-input");
+    }
+
+    @Test
+    void reembedUpdatesEveryOutdatedDocumentOnce() {
+        assertThat(service.countOutdated()).isEqualTo(6);
+
+        assertThat(service.reembed().reembedded()).isEqualTo(6);
+
+        assertThat(service.countOutdated()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM vector_store WHERE embedding IS NULL AND id <> ?::uuid", Integer.class, CURRENT))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT metadata->>'source' FROM vector_store WHERE id = ?::uuid", String.class, OUTDATED.get(4)))
+                .isEqualTo("text-input");
+        assertThat(service.reembed().reembedded()).isZero();
+    }
+
+    private void insertDocument(String id, String metadata) {
+        jdbcTemplate.update("INSERT INTO vector_store (id, content, metadata) VALUES (?::uuid, ?, ?::jsonb)",
+                id, "Content of " + id, metadata);
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+}
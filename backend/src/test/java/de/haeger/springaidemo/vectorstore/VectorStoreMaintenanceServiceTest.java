@@ -0,0 +1,134 @@
+package de.haeger.springaidemo.vectorstore;
+
+import de.haeger.springaidemo.config.PropertyDefaults;
+import de.haeger.springaidemo.loadtest.PgVectorContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The deletes of the maintenance walk the matching documents in ID order and delete them in batches.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PgVectorContainerConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIf("de.haeger.springaidemo.loadtest.PgVectorContainerConfig#isDockerAvailable")
+class VectorStoreMaintenanceServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private VectorStoreMaintenanceService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM vector_store");
+        service = PropertyDefaults.apply(new VectorStoreMaintenanceService(jdbcTemplate, jdbcTemplate));
+        ReflectionTestUtils.setField(service, "deleteBatchSize", 2);
+    }
+
+    @Test
+    void matchingIdsArePagedInIdOrder() {
+        List<UUID> uploads = List.of(
+                insertDocument("{\"source\": \"file-upload\"}"),
+                insertDocument("{\"source\": \"file-upload\"}"),
+                insertDocument("{\"source\": \"file-upload\"}"));
+        insertDocument("{\"source\": \"text-input\"}");
+        // The string order of UUIDs is PostgreSQL's order
+        List<UUID> expected = uploads.stream().sorted(Comparator.comparing(UUID::toString)).toList();
+        String jsonPath = "$.source == \"file-upload\"";
+
+        List<UUID> first = service.matchingIds(jsonPath, null);
+        List<UUID> second = service.matchingIds(jsonPath, first.get(1));
+
+        assertThat(first).containsExactly(expected.get(0), expected.get(1));
+        assertThat(second).containsExactly(expected.get(2));
+        assertThat(service.matchingIds(jsonPath, expected.get(2))).isEmpty();
+    }
+
+    @Test
+    void deleteBySourceDeletesAcrossBatches() {
+        for (int i = 0; i < 5; i++) {
+            insertDocument("{\"source\": \"file-upload\"}");
+        }
+        UUID kept = insertDocument("{\"source\": \"text-input\"}");
+
+        assertThat(service.deleteBySource("file-upload")).isEqualTo(5);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM vector_store", UUID.class)).containsExactly(kept);
+    }
+
+    @Test
+    void deleteByFilterMatchesTheWholeExpression() {
+        insertDocument("{\"filename\": \"manual.pdf\", \"page\": 12}");
+        insertDocument("{\"filename\": \"manual.pdf\", \"page\": 14}");
+        UUID earlyPage = insertDocument("{\"filename\": \"manual.pdf\", \"page\": 3}");
+        UUID otherFile = insertDocument("{\"filename\": \"guide.pdf\", \"page\": 12}");
+
+        assertThat(service.deleteByFilter("filename == 'manual.pdf' && page > 10")).isEqualTo(2);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM vector_store", UUID.class))
+                .containsExactlyInAnyOrder(earlyPage, otherFile);
+    }
+
+    @Test
+    void deleteUploadDeletesOnlyTheChunksOfTheUpload() {
+        for (int i = 0; i < 3; i++) {
+            insertDocument("{\"source\": \"file-upload\", \"upload_id\": \"failed\"}");
+        }
+        UUID kept = insertDocument("{\"source\": \"file-upload\", \"upload_id\": \"completed\"}");
+
+        assertThat(service.deleteUpload("failed")).isEqualTo(3);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM vector_store", UUID.class)).containsExactly(kept);
+    }
+
+    @Test
+    void deleteExpiredKeepsDocumentsWithoutOrWithFutureExpiry() {
+        long now = Instant.now().getEpochSecond();
+        for (int i = 0; i < 3; i++) {
+            insertDocument("{\"expires_at\": " + (now - 60 - i) + "}");
+        }
+        UUID future = insertDocument("{\"expires_at\": " + (now + 3600) + "}");
+        UUID permanent = insertDocument("{\"source\": \"text-input\"}");
+
+        assertThat(service.deleteExpired()).isEqualTo(3);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM vector_store", UUID.class))
+                .containsExactlyInAnyOrder(future, permanent);
+        assertThat(service.getExpiredDocumentsDeleted()).isEqualTo(3);
+        assertThat(service.getLastExpirySweep()).isNotNull();
+    }
+
+    @Test
+    void deleteByIdsDeletesInBatches() {
+        List<UUID> ids = List.of(
+                insertDocument("{}"), insertDocument("{}"), insertDocument("{}"), insertDocument("{}"));
+
+        assertThat(service.deleteByIds(ids.subList(0, 3).stream().map(UUID::toString).toList())).isEqualTo(3);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM vector_store", UUID.class)).containsExactly(ids.get(3));
+    }
+
+    private UUID insertDocument(String metadata) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO vector_store (content, metadata) VALUES ('Document', ?::jsonb) RETURNING id",
+                UUID.class, metadata);
+    }
+}
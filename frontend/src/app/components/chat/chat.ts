@@ -18,6 +18,7 @@ import { DebugService } from '../../services/debug';
 import { ModelService } from '../../services/model';
 import { ModelSelectorComponent } from '../model-selector/model-selector';
 import { ChatMessage } from '../../models/chat-message.model';
+import { TracedAnswer } from '../../models/pipeline-trace.model';
 
 @Component({
   selector: 'app-chat',
@@ -174,6 +175,18 @@ export class ChatComponent implements OnInit, AfterViewChecked {
         body: null
       });
 
+      if (this.debugService.isTraceEnabled()) {
+        this.ragService.askQuestionWithTrace(userMessage, this.conversationId).subscribe({
+          next: (traced) => {
+            this.handleTracedResponse(traced, startTime);
+          },
+          error: (error) => {
+            this.handleError(error, startTime);
+          }
+        });
+        return;
+      }
+
       this.ragService.askQuestion(userMessage, this.conversationId).subscribe({
         next: (response) => {
           this.handleAIResponse(response, startTime);
@@ -191,6 +204,18 @@ export class ChatComponent implements OnInit, AfterViewChecked {
         body: null
       });
 
+      if (this.debugService.isTraceEnabled()) {
+        this.chatService.sendMessageWithTrace(userMessage, this.conversationId).subscribe({
+          next: (traced) => {
+            this.handleTracedResponse(traced, startTime);
+          },
+          error: (error) => {
+            this.handleError(error, startTime);
+          }
+        });
+        return;
+      }
+
       this.chatService.sendMessage(userMessage, this.conversationId).subscribe({
         next: (response) => {
           this.handleAIResponse(response, startTime);
@@ -233,6 +258,11 @@ export class ChatComponent implements OnInit, AfterViewChecked {
     this.messageSent.emit();
   }
 
+  private handleTracedResponse(traced: TracedAnswer, startTime: number): void {
+    this.debugService.setLastTrace(traced);
+    this.handleAIResponse(traced.answer, startTime);
+  }
+
   private handleError(error: any, startTime: number): void {
     console.error('Error:', error);
     const errorMsg: ChatMessage = {
@@ -285,16 +315,17 @@ export class ChatComponent implements OnInit, AfterViewChecked {
     if (input.files && input.files.length > 0) {
       const file = input.files[0];
 
-      if (!file.name.endsWith('.txt') && file.type !== 'text/plain') {
-        this.snackBar.open('Please select a .txt file', 'Close', { duration: 3000 });
+      const supportedExtensions = ['.txt', '.md', '.markdown', '.html', '.htm', '.pdf'];
+      if (!supportedExtensions.some(extension => file.name.toLowerCase().endsWith(extension))) {
+        this.snackBar.open('Please select a PDF, Markdown, HTML or text file', 'Close', { duration: 3000 });
         this.selectedFile = null;
         input.value = '';
         return;
       }
 
-      const maxSize = 5 * 1024 * 1024;
+      const maxSize = 50 * 1024 * 1024;
       if (file.size > maxSize) {
-        this.snackBar.open('File size must be less than 5MB', 'Close', { duration: 3000 });
+        this.snackBar.open('File size must be less than 50MB', 'Close', { duration: 3000 });
         this.selectedFile = null;
         input.value = '';
         return;
@@ -304,66 +335,57 @@ export class ChatComponent implements OnInit, AfterViewChecked {
     }
   }
 
-  uploadTextFile(): void {
+  uploadDocument(): void {
     if (!this.selectedFile || this.isUploadingFile) {
       return;
     }
 
     this.isUploadingFile = true;
+    const file = this.selectedFile;
+    const startTime = Date.now();
 
-    const reader = new FileReader();
-    reader.onload = (e) => {
-      const text = e.target?.result as string;
-      const startTime = Date.now();
-
-      this.debugService.setLastRequest({
-        method: 'POST',
-        url: '/rag/addText',
-        timestamp: new Date(),
-        body: { text: text.substring(0, 100) + '...' }
-      });
-
-      this.ragService.addText(text).subscribe({
-        next: (response) => {
-          this.hasIndexedDocuments = true;
-          this.checkForIndexedDocuments(); // Refresh document count
-          this.snackBar.open('Document uploaded and indexed successfully!', 'Close', { duration: 3000 });
-
-          this.debugService.setLastResponse({
-            statusCode: 200,
-            duration: Date.now() - startTime,
-            timestamp: new Date(),
-            body: response
-          });
-
-          this.selectedFile = null;
-          const fileInput = document.getElementById('txtFileInput') as HTMLInputElement;
-          if (fileInput) {
-            fileInput.value = '';
-          }
-          this.isUploadingFile = false;
-        },
-        error: (error) => {
-          console.error('Error uploading file:', error);
-          this.snackBar.open(`Error uploading file: ${error.error || error.message}`, 'Close', { duration: 5000 });
+    this.debugService.setLastRequest({
+      method: 'POST',
+      url: '/rag/upload',
+      timestamp: new Date(),
+      body: { filename: file.name, size: file.size }
+    });
 
-          this.debugService.setLastResponse({
-            statusCode: error.status || 500,
-            duration: Date.now() - startTime,
-            timestamp: new Date(),
-            body: error.message
-          });
+    this.ragService.uploadFiles([file]).subscribe({
+      next: (response) => {
+        this.hasIndexedDocuments = true;
+        this.checkForIndexedDocuments(); // Refresh document count
+        const chunks = response.reduce((total, ingested) => total + ingested.chunks, 0);
+        this.snackBar.open(`Document indexed successfully (${chunks} chunks)`, 'Close', { duration: 3000 });
+
+        this.debugService.setLastResponse({
+          statusCode: 200,
+          duration: Date.now() - startTime,
+          timestamp: new Date(),
+          body: response
+        });
 
-          this.isUploadingFile = false;
+        this.selectedFile = null;
+        const fileInput = document.getElementById('txtFileInput') as HTMLInputElement;
+        if (fileInput) {
+          fileInput.value = '';
         }
-      });
-    };
-
-    reader.onerror = () => {
-      this.snackBar.open('Error reading file', 'Close', { duration: 3000 });
-      this.isUploadingFile = false;
-    };
-
-    reader.readAsText(this.selectedFile);
+        this.isUploadingFile = false;
+      },
+      error: (error) => {
+        console.error('Error uploading file:', error);
+        const message = typeof error.error === 'string' ? error.error : error.message;
+        this.snackBar.open(`Error uploading file: ${message}`, 'Close', { duration: 5000 });
+
+        this.debugService.setLastResponse({
+          statusCode: error.status || 500,
+          duration: Date.now() - startTime,
+          timestamp: new Date(),
+          body: error.message
+        });
+
+        this.isUploadingFile = false;
+      }
+    });
   }
 }
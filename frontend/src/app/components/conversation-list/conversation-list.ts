@@ -1,4 +1,4 @@
-import { Component, OnInit, Output, EventEmitter, Input } from '@angular/core';
+import { Component, OnInit, OnDestroy, Output, EventEmitter, Input } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { MatListModule } from '@angular/material/list';
 import { MatIconModule } from '@angular/material/icon';
@@ -6,8 +6,10 @@ import { MatButtonModule } from '@angular/material/button';
 import { MatTooltipModule } from '@angular/material/tooltip';
 import { MatDividerModule } from '@angular/material/divider';
 import { MatProgressSpinnerModule } from '@angular/material/progress-spinner';
+import { Subscription } from 'rxjs';
 import { ChatService } from '../../services/chat';
 import { ConversationSummary } from '../../models/conversation-summary.model';
+import { ConversationEvent } from '../../models/conversation-event.model';
 
 @Component({
   selector: 'app-conversation-list',
@@ -23,18 +25,50 @@ import { ConversationSummary } from '../../models/conversation-summary.model';
   templateUrl: './conversation-list.html',
   styleUrl: './conversation-list.scss'
 })
-export class ConversationListComponent implements OnInit {
+export class ConversationListComponent implements OnInit, OnDestroy {
   @Input() currentConversationId: string = '';
   @Output() conversationSelected = new EventEmitter<string>();
   @Output() newConversation = new EventEmitter<void>();
 
   conversations: ConversationSummary[] = [];
   isLoading: boolean = false;
+  // Whether changes are pushed by the backend, so the list does not need to be reloaded
+  live: boolean = false;
+
+  private eventSubscription?: Subscription;
 
   constructor(private chatService: ChatService) {}
 
   ngOnInit(): void {
     this.loadConversations();
+    this.eventSubscription = this.chatService.getConversationEvents().subscribe({
+      next: (event) => this.applyEvent(event),
+      error: () => this.live = false
+    });
+  }
+
+  ngOnDestroy(): void {
+    this.eventSubscription?.unsubscribe();
+  }
+
+  onMessageSent(): void {
+    if (!this.live) {
+      this.loadConversations();
+    }
+  }
+
+  private applyEvent(event: ConversationEvent): void {
+    this.live = true;
+    if (event.type === 'reset') {
+      this.loadConversations();
+      return;
+    }
+    const others = this.conversations.filter(c => c.conversationId !== event.conversationId);
+    if (event.type === 'updated' && event.conversation) {
+      others.push(event.conversation);
+      others.sort((a, b) => new Date(b.lastUpdated).getTime() - new Date(a.lastUpdated).getTime());
+    }
+    this.conversations = others;
   }
 
   loadConversations(): void {
@@ -66,7 +100,9 @@ export class ConversationListComponent implements OnInit {
       this.chatService.deleteConversation(conversationId).subscribe({
         next: () => {
           this.chatService.removeStoredConversationId(conversationId);
-          this.loadConversations();
+          if (!this.live) {
+            this.loadConversations();
+          }
           
           // If deleted conversation was active, create new one
           if (this.currentConversationId === conversationId) {
@@ -9,13 +9,15 @@ import { MatIconModule } from '@angular/material/icon';
 import { MatButtonModule } from '@angular/material/button';
 import { MatSnackBar, MatSnackBarModule } from '@angular/material/snack-bar';
 import { MatSlideToggleModule } from '@angular/material/slide-toggle';
-import { Subscription, interval } from 'rxjs';
+import { Subscription } from 'rxjs';
 import { DebugService } from '../../services/debug';
+import { ChatService } from '../../services/chat';
 import { ModelSettings } from '../../models/model-settings.model';
 import { ChatMessage } from '../../models/chat-message.model';
 import { RequestDebugInfo } from '../../models/request-debug-info.model';
 import { ResponseDebugInfo } from '../../models/response-debug-info.model';
 import { ApiEndpoints } from '../../models/api-endpoints.model';
+import { TracedAnswer } from '../../models/pipeline-trace.model';
 
 @Component({
   selector: 'app-debug-panel',
@@ -44,11 +46,14 @@ export class DebugPanel implements OnInit, OnDestroy {
   vectorStoreStats: any = null;
   chatMemory: any = null;
   debugEnabled: boolean = false;
+  traceEnabled: boolean = false;
+  lastTrace: TracedAnswer | null = null;
 
-  private refreshSubscription?: Subscription;
+  private eventSubscription?: Subscription;
 
   constructor(
     private debugService: DebugService,
+    private chatService: ChatService,
     private snackBar: MatSnackBar
   ) {}
 
@@ -58,9 +63,17 @@ export class DebugPanel implements OnInit, OnDestroy {
       this.debugService.toggleDebug();
     }
     this.loadDebugInfo();
+
+    // Reload the memory of the shown conversation only when it changed
+    this.eventSubscription = this.chatService.getConversationEvents().subscribe(event => {
+      if (this.conversationId && (event.type === 'reset' || event.conversationId === this.conversationId)) {
+        this.loadChatMemory();
+      }
+    });
   }
 
   ngOnDestroy(): void {
+    this.eventSubscription?.unsubscribe();
   }
 
   loadDebugInfo(): void {
@@ -70,6 +83,8 @@ export class DebugPanel implements OnInit, OnDestroy {
     this.apiEndpoints = this.debugService.getApiEndpoints();
     this.lastRequest = this.debugService.getLastRequest();
     this.lastResponse = this.debugService.getLastResponse();
+    this.traceEnabled = this.debugService.isTraceEnabled();
+    this.lastTrace = this.debugService.getLastTrace();
 
     this.debugService.getModelSettings().subscribe({
       next: (settings) => {
@@ -80,6 +95,19 @@ export class DebugPanel implements OnInit, OnDestroy {
       }
     });
 
+    this.loadChatMemory();
+
+    this.debugService.getVectorStoreStats().subscribe({
+      next: (stats) => {
+        this.vectorStoreStats = stats;
+      },
+      error: (error) => {
+        console.error('Failed to load vector store stats:', error);
+      }
+    });
+  }
+
+  loadChatMemory(): void {
     if (this.conversationId) {
       this.debugService.getChatMemory(this.conversationId).subscribe({
         next: (memory) => {
@@ -104,15 +132,6 @@ export class DebugPanel implements OnInit, OnDestroy {
     } else {
       this.chatHistory = [];
     }
-
-    this.debugService.getVectorStoreStats().subscribe({
-      next: (stats) => {
-        this.vectorStoreStats = stats;
-      },
-      error: (error) => {
-        console.error('Failed to load vector store stats:', error);
-      }
-    });
   }
 
 
@@ -127,6 +146,32 @@ export class DebugPanel implements OnInit, OnDestroy {
     });
   }
 
+  onTraceToggle(enabled: boolean): void {
+    this.debugService.setTraceEnabled(enabled);
+    this.traceEnabled = enabled;
+    this.lastTrace = this.debugService.getLastTrace();
+  }
+
+  formatStat(value: unknown): string {
+    if (value === null || value === undefined) return '-';
+    if (typeof value === 'object') {
+      return Object.entries(value as Record<string, unknown>)
+        .map(([key, entry]) => `${key}: ${entry}`)
+        .join(', ') || '-';
+    }
+    return String(value);
+  }
+
+  traceStages(): { name: string; durationMs: number; depth: number; status: string }[] {
+    if (!this.lastTrace) return [];
+    const depthById = new Map<string, number>();
+    return this.lastTrace.spans.map(span => {
+      const depth = span.parentSpanId ? (depthById.get(span.parentSpanId) ?? 0) + 1 : 0;
+      depthById.set(span.spanId, depth);
+      return { name: span.name, durationMs: span.durationMs, depth, status: span.status };
+    });
+  }
+
   refresh(): void {
     this.loadDebugInfo();
   }
@@ -1,6 +1,7 @@
 export interface ApiEndpoints {
   chat: string;
   ragAddText: string;
+  ragUpload: string;
   ragAsk: string;
   infoModel: string;
   infoMemory: string;
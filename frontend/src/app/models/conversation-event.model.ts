@@ -0,0 +1,12 @@
+import { ConversationSummary } from './conversation-summary.model';
+
+/**
+ * Change of a conversation pushed by the backend.
+ * After a 'reset' all conversations are reloaded, as changes may have been missed.
+ */
+export interface ConversationEvent {
+  type: 'updated' | 'deleted' | 'reset';
+  conversationId?: string;
+  conversation?: ConversationSummary;
+  model?: string;
+}
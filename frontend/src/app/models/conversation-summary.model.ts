@@ -3,4 +3,5 @@ export interface ConversationSummary {
   messageCount: number;
   lastUpdated: Date | string;
   title?: string;
+  archived?: boolean;
 }
@@ -4,3 +4,6 @@ export * from './model.model';
 export * from './request-debug-info.model';
 export * from './response-debug-info.model';
 export * from './api-endpoints.model';
+export * from './pipeline-trace.model';
+export * from './ingested-file.model';
+export * from './conversation-event.model';
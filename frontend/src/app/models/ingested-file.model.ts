@@ -0,0 +1,7 @@
+export interface IngestedFile {
+  filename: string;
+  format: string;
+  chunks: number;
+  pages: number | null;
+  characters: number;
+}
@@ -0,0 +1,46 @@
+export interface TraceSpan {
+  traceId: string;
+  spanId: string;
+  parentSpanId?: string;
+  name: string;
+  startTimeUnixNano: number;
+  endTimeUnixNano: number;
+  durationMs: number;
+  status: 'OK' | 'ERROR';
+}
+
+export interface RetrievedDocument {
+  id: string;
+  score?: number;
+}
+
+export interface RetrievalContext {
+  retrievedDocuments: number;
+  keptDocuments: number;
+  retrievedTokens: number;
+  keptTokens: number;
+  duplicateTokens: number;
+  compressedTokens: number;
+  overBudgetTokens: number;
+  retrieved: boolean;
+  topK: number;
+  gateReason?: string;
+}
+
+export interface TokenUsage {
+  promptTokens?: number;
+  completionTokens?: number;
+  totalTokens?: number;
+}
+
+export interface TracedAnswer {
+  answer: string;
+  model: string;
+  modelVersion?: string;
+  traceId: string;
+  totalDurationMs: number;
+  spans: TraceSpan[];
+  retrievedDocuments: RetrievedDocument[];
+  retrievalContext?: RetrievalContext;
+  usage?: TokenUsage;
+}
@@ -1,8 +1,10 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, share } from 'rxjs';
 import { environment } from '../../environments/environment';
 import { ConversationSummary } from '../models/conversation-summary.model';
+import { ConversationEvent } from '../models/conversation-event.model';
+import { TracedAnswer } from '../models/pipeline-trace.model';
 
 @Injectable({
   providedIn: 'root'
@@ -11,6 +13,17 @@ export class ChatService {
   private apiUrl = environment.apiUrl;
   private readonly STORAGE_KEY = 'chat_conversations';
 
+  // One connection per tab, shared by all subscribers and closed with the last one
+  private readonly conversationEvents$ = new Observable<ConversationEvent>(subscriber => {
+    const source = new EventSource(`${this.apiUrl}/info/conversations/events`);
+    // Events may have been missed before the (re)connect
+    source.onopen = () => subscriber.next({ type: 'reset' });
+    for (const type of ['updated', 'deleted', 'reset']) {
+      source.addEventListener(type, event => subscriber.next(JSON.parse((event as MessageEvent).data)));
+    }
+    return () => source.close();
+  }).pipe(share());
+
   constructor(private http: HttpClient) {}
 
   sendMessage(message: string, conversationId: string): Observable<string> {
@@ -27,10 +40,28 @@ export class ChatService {
     });
   }
 
+  sendMessageWithTrace(message: string, conversationId: string): Observable<TracedAnswer> {
+    const params = new HttpParams()
+      .set('msg', message)
+      .set('conversationId', conversationId)
+      .set('trace', 'true');
+
+    this.saveConversationId(conversationId);
+
+    return this.http.get<TracedAnswer>(`${this.apiUrl}/chat`, { params });
+  }
+
   getConversations(): Observable<ConversationSummary[]> {
     return this.http.get<ConversationSummary[]>(`${this.apiUrl}/info/conversations`);
   }
 
+  /**
+   * Changes of conversations pushed by the backend, starting with a 'reset' on every (re)connect.
+   */
+  getConversationEvents(): Observable<ConversationEvent> {
+    return this.conversationEvents$;
+  }
+
   getConversationMemory(conversationId: string): Observable<any> {
     return this.http.get(`${this.apiUrl}/info/memory/${conversationId}`);
   }
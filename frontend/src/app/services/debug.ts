@@ -7,6 +7,7 @@ import { ModelSettings } from '../models/model-settings.model';
 import { RequestDebugInfo } from '../models/request-debug-info.model';
 import { ResponseDebugInfo } from '../models/response-debug-info.model';
 import { ApiEndpoints } from '../models/api-endpoints.model';
+import { TracedAnswer } from '../models/pipeline-trace.model';
 
 @Injectable({
   providedIn: 'root'
@@ -18,6 +19,8 @@ export class DebugService {
   private chatHistory = new BehaviorSubject<ChatMessage[]>([]);
   private lastRequest = new BehaviorSubject<RequestDebugInfo | null>(null);
   private lastResponse = new BehaviorSubject<ResponseDebugInfo | null>(null);
+  private traceEnabled = new BehaviorSubject<boolean>(false);
+  private lastTrace = new BehaviorSubject<TracedAnswer | null>(null);
 
   constructor(private http: HttpClient) {}
 
@@ -77,10 +80,32 @@ export class DebugService {
     }
   }
 
+  isTraceEnabled(): boolean {
+    return this.debugEnabled.value && this.traceEnabled.value;
+  }
+
+  setTraceEnabled(enabled: boolean): void {
+    this.traceEnabled.next(enabled);
+    if (!enabled) {
+      this.lastTrace.next(null);
+    }
+  }
+
+  getLastTrace(): TracedAnswer | null {
+    return this.lastTrace.value;
+  }
+
+  setLastTrace(trace: TracedAnswer): void {
+    if (this.debugEnabled.value) {
+      this.lastTrace.next(trace);
+    }
+  }
+
   getApiEndpoints(): ApiEndpoints {
     return {
       chat: `${this.apiUrl}/chat`,
       ragAddText: `${this.apiUrl}/rag/addText`,
+      ragUpload: `${this.apiUrl}/rag/upload`,
       ragAsk: `${this.apiUrl}/rag/ask`,
       infoModel: `${this.apiUrl}/info/model`,
       infoMemory: `${this.apiUrl}/info/memory/{conversationId}`,
@@ -100,6 +125,7 @@ export class DebugService {
     if (!newState) {
       this.lastRequest.next(null);
       this.lastResponse.next(null);
+      this.lastTrace.next(null);
       this.chatHistory.next([]);
     }
   }
@@ -110,6 +136,7 @@ export class DebugService {
       chatHistory: this.getChatHistory(),
       lastRequest: this.getLastRequest(),
       lastResponse: this.getLastResponse(),
+      lastTrace: this.getLastTrace(),
       apiEndpoints: this.getApiEndpoints(),
       timestamp: new Date().toISOString()
     };
@@ -2,6 +2,8 @@ import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../environments/environment';
+import { TracedAnswer } from '../models/pipeline-trace.model';
+import { IngestedFile } from '../models/ingested-file.model';
 
 @Injectable({
   providedIn: 'root'
@@ -23,6 +25,13 @@ export class RagService {
     );
   }
 
+  uploadFiles(files: File[]): Observable<IngestedFile[]> {
+    const formData = new FormData();
+    files.forEach(file => formData.append('files', file, file.name));
+
+    return this.http.post<IngestedFile[]>(`${this.apiUrl}/rag/upload`, formData);
+  }
+
   askQuestion(question: string, conversationId: string): Observable<string> {
     const params = new HttpParams()
       .set('question', question)
@@ -33,4 +42,13 @@ export class RagService {
       responseType: 'text'
     });
   }
+
+  askQuestionWithTrace(question: string, conversationId: string): Observable<TracedAnswer> {
+    const params = new HttpParams()
+      .set('question', question)
+      .set('conversationId', conversationId)
+      .set('trace', 'true');
+
+    return this.http.get<TracedAnswer>(`${this.apiUrl}/rag/ask`, { params });
+  }
 }